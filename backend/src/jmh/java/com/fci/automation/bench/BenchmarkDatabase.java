@@ -0,0 +1,38 @@
+package com.fci.automation.bench;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Throw-away in-memory H2 database with the tables from db-init.sql.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static JdbcTemplate create() throws Exception {
+        // One long-lived connection, like a warm pool; opening H2 connections per
+        // statement would dominate every measurement
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(
+                "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+
+        try (InputStream in = BenchmarkDatabase.class.getClassLoader().getResourceAsStream("db-init.sql")) {
+            String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            for (String stmt : sql.split(";")) {
+                // Only the portable DDL; Postgres specific maintenance statements are skipped
+                String body = stmt.replaceAll("(?m)^--.*$", "").trim();
+                String upper = body.toUpperCase();
+                if (upper.startsWith("CREATE TABLE") || upper.startsWith("CREATE INDEX")) {
+                    jdbc.execute(body);
+                }
+            }
+        }
+        return jdbc;
+    }
+}
@@ -0,0 +1,197 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.PayrollCalculatorService;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Synthetic, seeded payroll data for the benchmarks: a period with N employees
+ * (mixed HL / CL) and calculated entries, plus the upload files built from it.
+ */
+final class BenchmarkFixtures {
+
+    /** Sizes every suite runs at. */
+    static final String[] SIZES = { "100", "1000", "10000", "50000" };
+
+    final PayrollPeriod period;
+    final List<Employee> employees;
+    final List<PayrollEntry> entries;
+
+    private BenchmarkFixtures(PayrollPeriod period, List<Employee> employees, List<PayrollEntry> entries) {
+        this.period = period;
+        this.employees = employees;
+        this.entries = entries;
+    }
+
+    static BenchmarkFixtures create(int size) {
+        Random rnd = new Random(size);
+        PayrollPeriod period = new PayrollPeriod();
+        period.setId(UUID.randomUUID());
+        period.setMonth(3);
+        period.setYear(2025);
+        period.setLastWorkingDay(LocalDate.of(2025, 3, 31));
+
+        PayrollCalculatorService calculator = new PayrollCalculatorService();
+        List<Employee> employees = new ArrayList<>(size);
+        List<PayrollEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Employee emp = new Employee();
+            emp.setId(UUID.randomUUID());
+            emp.setMemberId(String.valueOf(100000 + i));
+            emp.setFullName("MEMBER " + i);
+            emp.setUanNumber(String.valueOf(100000000000L + i));
+            emp.setIpNumber(String.valueOf(3000000000L + i));
+            emp.setBankAccountNo(String.valueOf(40000000000L + i));
+            emp.setIfscCode("CBIN0280965");
+            emp.setCategory(i % 3 == 0 ? Employee.Category.CL : Employee.Category.HL);
+            employees.add(emp);
+
+            PayrollEntry entry = new PayrollEntry();
+            entry.setId(UUID.randomUUID());
+            entry.setPeriod(period);
+            entry.setEmployee(emp);
+            Set<Integer> days = new HashSet<>();
+            for (int d = 1; d <= 31; d++) {
+                if (rnd.nextInt(4) != 0)
+                    days.add(d);
+            }
+            entry.setActiveDays(days);
+            entry.setDaysWorked(days.size());
+            entry.setWagesEarned(BigDecimal.valueOf(500_000 + rnd.nextInt(2_000_000), 2));
+            entry.setAdvanceDeduction(BigDecimal.valueOf(rnd.nextInt(50_000), 2));
+            calculator.calculate(entry);
+            entries.add(entry);
+        }
+        return new BenchmarkFixtures(period, employees, entries);
+    }
+
+    /** Payroll upload in the template layout (MEMBER_ID, NAME, DAYS, WAGES, ADVANCE). */
+    byte[] payrollWorkbook(boolean xlsx) throws Exception {
+        try (Workbook wb = xlsx ? new SXSSFWorkbook(100) : new HSSFWorkbook();
+                ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("Payroll Import");
+            Row header = sheet.createRow(0);
+            String[] headers = { "MEMBER_ID", "MEMBER_NAME", "DAYS_WORKED", "WAGES_EARNED", "ADVANCE" };
+            for (int c = 0; c < headers.length; c++) {
+                header.createCell(c).setCellValue(headers[c]);
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                PayrollEntry e = entries.get(i);
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(e.getEmployee().getMemberId());
+                row.createCell(1).setCellValue(e.getEmployee().getFullName());
+                row.createCell(2).setCellValue(e.getDaysWorked());
+                row.createCell(3).setCellValue(e.getWagesEarned().doubleValue());
+                row.createCell(4).setCellValue(e.getAdvanceDeduction().doubleValue());
+            }
+            wb.write(out);
+            if (wb instanceof SXSSFWorkbook)
+                ((SXSSFWorkbook) wb).dispose();
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Employee master upload: every employee (as the master is re-uploaded
+     * whole) plus a tenth more new ones; ids and account numbers as numbers.
+     */
+    byte[] employeeMaster() throws Exception {
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(100); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("Employees");
+            Row header = sheet.createRow(0);
+            String[] headers = { "Member ID", "Name", "UAN", "IP Number", "Bank Account", "IFSC", "Category" };
+            for (int c = 0; c < headers.length; c++) {
+                header.createCell(c).setCellValue(headers[c]);
+            }
+            int total = employees.size() + employees.size() / 10;
+            for (int i = 0; i < total; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(100000 + i);
+                row.createCell(1).setCellValue("MEMBER " + i);
+                row.createCell(2).setCellValue(100000000000L + i);
+                row.createCell(3).setCellValue(3000000000L + i);
+                row.createCell(4).setCellValue(40000000000L + i);
+                row.createCell(5).setCellValue("CBIN0280965");
+                row.createCell(6).setCellValue(i % 3 == 0 ? "CL" : "HL");
+            }
+            wb.write(out);
+            wb.dispose();
+            return out.toByteArray();
+        }
+    }
+
+    /** Bank UTR statement as "csv", "html" (table) or "xml" (SpreadsheetML). */
+    byte[] utrStatement(String format) {
+        StringBuilder sb = new StringBuilder(entries.size() * 120);
+        String[] header = { "Sl No", "Beneficiary Account", "Amount", "UTR Number", "Status" };
+        switch (format) {
+            case "csv":
+                sb.append(String.join(",", header)).append('\n');
+                for (int i = 0; i < employees.size(); i++) {
+                    sb.append(i + 1).append(",'").append(employees.get(i).getBankAccountNo()).append(",1000.00,")
+                            .append(utr(i)).append(",SUCCESS\n");
+                }
+                break;
+            case "html":
+                sb.append("<html><body><table>\n<tr>");
+                for (String h : header) {
+                    sb.append("<th>").append(h).append("</th>");
+                }
+                sb.append("</tr>\n");
+                for (int i = 0; i < employees.size(); i++) {
+                    sb.append("<tr><td>").append(i + 1).append("</td><td>'")
+                            .append(employees.get(i).getBankAccountNo()).append("</td><td>1,000.00</td><td>")
+                            .append(utr(i)).append("</td><td>SUCCESS&nbsp;</td></tr>\n");
+                }
+                sb.append("</table></body></html>\n");
+                break;
+            case "xml":
+                sb.append("<?xml version=\"1.0\"?>\n<Workbook xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\">")
+                        .append("<Worksheet ss:Name=\"Sheet1\"><Table>\n<Row>");
+                for (String h : header) {
+                    sb.append("<Cell><Data ss:Type=\"String\">").append(h).append("</Data></Cell>");
+                }
+                sb.append("</Row>\n");
+                for (int i = 0; i < employees.size(); i++) {
+                    sb.append("<Row><Cell><Data ss:Type=\"Number\">").append(i + 1)
+                            .append("</Data></Cell><Cell><Data ss:Type=\"String\">")
+                            .append(employees.get(i).getBankAccountNo())
+                            .append("</Data></Cell><Cell><Data ss:Type=\"Number\">1000</Data></Cell>")
+                            .append("<Cell><Data ss:Type=\"String\">").append(utr(i))
+                            .append("</Data></Cell><Cell><Data ss:Type=\"String\">SUCCESS</Data></Cell></Row>\n");
+                }
+                sb.append("</Table></Worksheet></Workbook>\n");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown UTR format: " + format);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String utr(int i) {
+        return String.format("CNRB%012d", i);
+    }
+
+    /** Mockito mock that does not record invocations (no heap growth across iterations). */
+    static <T> T stub(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+}
@@ -0,0 +1,46 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.dto.EmployeeImportReport;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.service.EmployeeMasterImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Employee master upload (streamed parse + in-memory key conflict checks +
+ * upsert) against a stubbed repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeMasterImportBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int employees;
+
+    private EmployeeMasterImportService importService;
+    private MockMultipartFile masterFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkFixtures fixtures = BenchmarkFixtures.create(employees);
+
+        EmployeeRepository employeeRepository = BenchmarkFixtures.stub(EmployeeRepository.class);
+        when(employeeRepository.findAll()).thenReturn(fixtures.employees);
+        importService = new EmployeeMasterImportService(employeeRepository);
+
+        masterFile = new MockMultipartFile("file", "employees.xlsx", null, fixtures.employeeMaster());
+    }
+
+    @Benchmark
+    public EmployeeImportReport importMaster() {
+        return importService.importMaster(masterFile);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.service.EsiTemplate;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting an ESI workbook ready for data rows: parsing ESI.xls (what every
+ * export did before) against building it from the parsed EsiTemplate.
+ * The template bytes are in memory, so neither includes classpath I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EsiTemplateBenchmark {
+
+    private byte[] templateBytes;
+    private EsiTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("ESI.xls")) {
+            templateBytes = in.readAllBytes();
+        }
+        template = EsiTemplate.parse(new ByteArrayInputStream(templateBytes));
+    }
+
+    @Benchmark
+    public Workbook parseTemplate() throws IOException {
+        return new HSSFWorkbook(new ByteArrayInputStream(templateBytes));
+    }
+
+    @Benchmark
+    public Workbook fromPrototype() {
+        Workbook workbook = new HSSFWorkbook();
+        template.copyInto(workbook);
+        return workbook;
+    }
+}
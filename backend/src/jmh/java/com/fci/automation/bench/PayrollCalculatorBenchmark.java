@@ -0,0 +1,64 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.service.Paise;
+import com.fci.automation.service.PayrollCalculatorKernel;
+import com.fci.automation.service.PayrollCalculatorService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculating a whole grid: BigDecimal calculate() per entry vs the integer
+ * kernel, both through the entity batch API (gather + scatter BigDecimals)
+ * and on pre-filled primitive arrays only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollCalculatorBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int gridSize;
+
+    private final PayrollCalculatorService calculator = new PayrollCalculatorService();
+    private PayrollEntry[] entries;
+    private PayrollCalculatorKernel.Batch batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entries = BenchmarkFixtures.create(gridSize).entries.toArray(new PayrollEntry[0]);
+        batch = new PayrollCalculatorKernel.Batch(gridSize);
+        for (int i = 0; i < gridSize; i++) {
+            PayrollEntry e = entries[i];
+            batch.casual[i] = e.getEmployee().getCategory() == Employee.Category.CL;
+            batch.days[i] = e.getDaysWorked();
+            batch.wages[i] = Paise.of(e.getWagesEarned());
+            batch.advance[i] = Paise.of(e.getAdvanceDeduction());
+        }
+    }
+
+    @Benchmark
+    public PayrollEntry[] bigDecimalPerEntry() {
+        for (PayrollEntry e : entries) {
+            calculator.calculate(e);
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public PayrollEntry[] kernelCalculateAll() {
+        calculator.calculateAll(entries);
+        return entries;
+    }
+
+    @Benchmark
+    public PayrollCalculatorKernel.Batch kernelArraysOnly() {
+        PayrollCalculatorKernel.calculate(batch);
+        return batch;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of saving a whole payroll grid: row-at-a-time statements (what
+ * findById + save per row boils down to) vs PayrollEntryBulkWriter.
+ * Per-row cost = score / gridSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollEntryBulkWriterBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int gridSize;
+
+    private JdbcTemplate jdbc;
+    private PayrollEntryBulkWriter writer;
+    private List<PayrollEntry> grid;
+    private Map<UUID, Set<Integer>> storedDays;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jdbc = BenchmarkDatabase.create();
+        writer = new PayrollEntryBulkWriter(jdbc);
+
+        UUID periodId = UUID.randomUUID();
+        jdbc.update("INSERT INTO payroll_periods (id, period_month, period_year, status) VALUES (?, 1, 2025, 'OPEN')",
+                periodId);
+
+        grid = new ArrayList<>(gridSize);
+        storedDays = new HashMap<>();
+        for (int i = 0; i < gridSize; i++) {
+            UUID empId = UUID.randomUUID();
+            jdbc.update("INSERT INTO employees (id, member_id, full_name, status) VALUES (?, ?, ?, 'ACTIVE')",
+                    empId, String.valueOf(i + 1), "Member " + i);
+
+            PayrollEntry e = new PayrollEntry();
+            e.setId(UUID.randomUUID());
+            jdbc.update("INSERT INTO payroll_entries (id, period_id, employee_id, days_worked) VALUES (?, ?, ?, 0)",
+                    e.getId(), periodId, empId);
+            grid.add(e);
+            storedDays.put(e.getId(), new HashSet<>());
+        }
+    }
+
+    /** Shift every row's values and day set so each round really changes data. */
+    private void mutateGrid() {
+        round++;
+        for (PayrollEntry e : grid) {
+            Set<Integer> days = new HashSet<>();
+            for (int d = 1 + (round % 3); d <= 28; d += 3) {
+                days.add(d);
+            }
+            e.setActiveDays(days);
+            e.setDaysWorked(days.size());
+            e.setWagesEarned(BigDecimal.valueOf(541L * days.size()));
+            e.setAdvanceDeduction(BigDecimal.ZERO);
+            e.setEpfMemberShare(BigDecimal.valueOf(round));
+            e.setEpfContractorShare(BigDecimal.valueOf(round));
+            e.setEsiMemberShare(BigDecimal.valueOf(round));
+            e.setEsiContractorShare(BigDecimal.valueOf(round));
+            e.setBonusShare(BigDecimal.valueOf(round));
+            e.setNetPayable(BigDecimal.valueOf(round));
+        }
+    }
+
+    @Benchmark
+    public void rowAtATime() {
+        mutateGrid();
+        for (PayrollEntry e : grid) {
+            jdbc.queryForMap("SELECT * FROM payroll_entries WHERE id = ?", e.getId());
+            jdbc.update("UPDATE payroll_entries SET days_worked = ?, wages_earned = ?, advance_deduction = ?, "
+                    + "epf_member_share = ?, epf_contractor_share = ?, esi_member_share = ?, "
+                    + "esi_contractor_share = ?, bonus_share = ?, net_payable = ? WHERE id = ?",
+                    e.getDaysWorked(), e.getWagesEarned(), e.getAdvanceDeduction(), e.getEpfMemberShare(),
+                    e.getEpfContractorShare(), e.getEsiMemberShare(), e.getEsiContractorShare(),
+                    e.getBonusShare(), e.getNetPayable(), e.getId());
+            // Element collection rewrite: delete all, insert one row per day
+            jdbc.update("DELETE FROM payroll_entry_days WHERE entry_id = ?", e.getId());
+            for (Integer day : e.getActiveDays()) {
+                jdbc.update("INSERT INTO payroll_entry_days (entry_id, active_day) VALUES (?, ?)", e.getId(), day);
+            }
+            storedDays.put(e.getId(), new HashSet<>(e.getActiveDays()));
+        }
+    }
+
+    @Benchmark
+    public void bulkWriter() {
+        mutateGrid();
+        writer.updateEntries(grid, storedDays);
+        Map<UUID, Set<Integer>> next = new HashMap<>(grid.size() * 2);
+        for (PayrollEntry e : grid) {
+            next.put(e.getId(), new HashSet<>(e.getActiveDays()));
+        }
+        storedDays = next;
+    }
+}
@@ -0,0 +1,70 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.PayrollCalculatorService;
+import com.fci.automation.service.PayrollImportService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Payroll upload (parse + lookup + calculate + batch save) against stubbed
+ * repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollImportBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int employees;
+
+    /** Payroll workbook format. */
+    @Param({ "xlsx", "xls" })
+    public String workbook;
+
+    private PayrollImportService importService;
+    private BenchmarkFixtures fixtures;
+    private MockMultipartFile payrollFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixtures = BenchmarkFixtures.create(employees);
+
+        EmployeeRepository employeeRepository = BenchmarkFixtures.stub(EmployeeRepository.class);
+        PayrollEntryRepository entryRepository = BenchmarkFixtures.stub(PayrollEntryRepository.class);
+        PayrollPeriodRepository periodRepository = BenchmarkFixtures.stub(PayrollPeriodRepository.class);
+        when(periodRepository.findById(fixtures.period.getId())).thenReturn(Optional.of(fixtures.period));
+        when(employeeRepository.findAll()).thenReturn(fixtures.employees);
+        when(entryRepository.findByPeriodId(fixtures.period.getId())).thenReturn(fixtures.entries);
+
+        importService = new PayrollImportService();
+        ReflectionTestUtils.setField(importService, "employeeRepository", employeeRepository);
+        ReflectionTestUtils.setField(importService, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(importService, "periodRepository", periodRepository);
+        ReflectionTestUtils.setField(importService, "calculatorService", new PayrollCalculatorService());
+        ReflectionTestUtils.setField(importService, "bulkWriter", BenchmarkFixtures.stub(PayrollEntryBulkWriter.class));
+        ReflectionTestUtils.setField(importService, "entityManager", BenchmarkFixtures.stub(EntityManager.class));
+        ReflectionTestUtils.setField(importService, "importBatchSize", 500);
+
+        payrollFile = new MockMultipartFile("file", "payroll." + workbook, null,
+                fixtures.payrollWorkbook("xlsx".equals(workbook)));
+    }
+
+    @Benchmark
+    public String importPayroll() {
+        return importService.importPayroll(payrollFile, fixtures.period.getId());
+    }
+}
@@ -0,0 +1,87 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Month-end report generation from a stubbed repository (no DB time included).
+ * mainPdf renders HL and CL in parallel from app.report.parallel-min-rows up;
+ * mainPdfSequential is the single-document path for comparison. epfTxtStream
+ * is the download path (ECR written straight to a stream); compare its
+ * gc.alloc.rate.norm with epfTxt under -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportServiceBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int employees;
+
+    private ReportService reportService;
+    private ReportService sequentialReportService;
+    private BenchmarkFixtures fixtures;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.create(employees);
+
+        PayrollEntryRepository entryRepository = BenchmarkFixtures.stub(PayrollEntryRepository.class);
+        PayrollPeriodRepository periodRepository = BenchmarkFixtures.stub(PayrollPeriodRepository.class);
+        when(entryRepository.findByPeriodId(fixtures.period.getId())).thenReturn(fixtures.entries);
+        when(periodRepository.findById(fixtures.period.getId())).thenReturn(Optional.of(fixtures.period));
+
+        reportService = new ReportService();
+        ReflectionTestUtils.setField(reportService, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(reportService, "periodRepository", periodRepository);
+
+        sequentialReportService = new ReportService();
+        ReflectionTestUtils.setField(sequentialReportService, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(sequentialReportService, "periodRepository", periodRepository);
+        ReflectionTestUtils.setField(sequentialReportService, "parallelMinRows", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public String epfTxt() {
+        return reportService.generateEpfTxt(fixtures.period.getId());
+    }
+
+    @Benchmark
+    public void epfTxtStream() throws IOException {
+        reportService.writeEpfTxt(reportService.loadLedger(fixtures.period.getId()), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] esiExcel() {
+        return reportService.generateEsiExcel(fixtures.period.getId());
+    }
+
+    // Streamed .xlsx; runs at every size, .xls stops at 65,535 members
+    @Benchmark
+    public void esiXlsx() {
+        reportService.writeEsiXlsx(reportService.loadLedger(fixtures.period.getId()), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] mainPdf() {
+        return reportService.generatePdfReport(fixtures.period.getId(), "Main File (Payroll Engine)");
+    }
+
+    @Benchmark
+    public byte[] mainPdfSequential() {
+        return sequentialReportService.generatePdfReport(fixtures.period.getId(), "Main File (Payroll Engine)");
+    }
+}
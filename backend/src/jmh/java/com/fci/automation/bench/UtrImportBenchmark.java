@@ -0,0 +1,82 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.dto.UtrImportReport;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.PayrollImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Bank UTR statement import (sniff + parse + in-memory reconciliation) against
+ * stubbed repositories, for the text formats banks send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtrImportBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int employees;
+
+    /** UTR statement format. */
+    @Param({ "csv", "html", "xml" })
+    public String statement;
+
+    private PayrollImportService importService;
+    private BenchmarkFixtures fixtures;
+    private MockMultipartFile utrFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixtures = BenchmarkFixtures.create(employees);
+
+        EmployeeRepository employeeRepository = BenchmarkFixtures.stub(EmployeeRepository.class);
+        PayrollEntryRepository entryRepository = BenchmarkFixtures.stub(PayrollEntryRepository.class);
+        PayrollPeriodRepository periodRepository = BenchmarkFixtures.stub(PayrollPeriodRepository.class);
+        when(periodRepository.findById(fixtures.period.getId())).thenReturn(Optional.of(fixtures.period));
+        // The period's entries as the reconciliation query returns them
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<PayrollEntryRepository.UtrTarget> targets = new ArrayList<>(fixtures.entries.size());
+        for (PayrollEntry entry : fixtures.entries) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", entry.getId());
+            row.put("bankAccountNo", entry.getEmployee().getBankAccountNo());
+            row.put("utrNumber", entry.getUtrNumber());
+            row.put("memberId", entry.getEmployee().getMemberId());
+            row.put("fullName", entry.getEmployee().getFullName());
+            targets.add(projections.createProjection(PayrollEntryRepository.UtrTarget.class, row));
+        }
+        when(entryRepository.findUtrTargetsByPeriodId(fixtures.period.getId())).thenReturn(targets);
+
+        importService = new PayrollImportService();
+        ReflectionTestUtils.setField(importService, "employeeRepository", employeeRepository);
+        ReflectionTestUtils.setField(importService, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(importService, "periodRepository", periodRepository);
+        ReflectionTestUtils.setField(importService, "bulkWriter", BenchmarkFixtures.stub(PayrollEntryBulkWriter.class));
+
+        utrFile = new MockMultipartFile("file", "utr." + statement, null, fixtures.utrStatement(statement));
+    }
+
+    @Benchmark
+    public UtrImportReport importUtr() {
+        return importService.importUtrData(utrFile, fixtures.period.getId());
+    }
+}
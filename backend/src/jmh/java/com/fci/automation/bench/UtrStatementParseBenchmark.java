@@ -0,0 +1,151 @@
+package com.fci.automation.bench;
+
+import com.fci.automation.service.UtrStatementReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a large non-Excel bank statement into rows: the streaming
+ * UtrStatementReader vs the previous String + DOTALL regex parser (kept
+ * below, unchanged, as the baseline).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtrStatementParseBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int rows;
+
+    @Param({ "csv", "html", "xml" })
+    public String format;
+
+    private byte[] statement;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        statement = BenchmarkFixtures.create(rows).utrStatement(format);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) throws Exception {
+        try (UtrStatementReader reader = UtrStatementReader.open(() -> new ByteArrayInputStream(statement))) {
+            while (reader.hasNext()) {
+                bh.consume(reader.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<List<String>> legacyRegex() {
+        return parseNonStandardExcel(new String(statement, StandardCharsets.UTF_8));
+    }
+
+    private static List<List<String>> parseNonStandardExcel(String content) {
+        List<List<String>> table = new ArrayList<>();
+
+        // 1. Try XML Spreadsheet (SpreadsheetML) commonly used by banks
+        // Pattern: <Row ...> <Cell ...> <Data ...>Value</Data> </Cell> </Row>
+        if (content.contains("<Row") || content.contains("<Worksheet")) {
+            java.util.regex.Pattern rowPat = java.util.regex.Pattern.compile("<Row[^>]*>(.*?)</Row>",
+                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
+            java.util.regex.Pattern cellPat = java.util.regex.Pattern.compile("<Cell[^>]*>(.*?)</Cell>",
+                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
+            java.util.regex.Pattern dataPat = java.util.regex.Pattern.compile("<Data[^>]*>(.*?)</Data>",
+                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
+
+            java.util.regex.Matcher rowM = rowPat.matcher(content);
+            while (rowM.find()) {
+                List<String> rowData = new ArrayList<>();
+                java.util.regex.Matcher cellM = cellPat.matcher(rowM.group(1));
+                while (cellM.find()) {
+                    String cellContent = cellM.group(1);
+                    java.util.regex.Matcher dataM = dataPat.matcher(cellContent);
+                    if (dataM.find()) {
+                        rowData.add(cleanTagBytes(dataM.group(1)));
+                    } else {
+                        rowData.add("");
+                    }
+                }
+                if (!rowData.isEmpty())
+                    table.add(rowData);
+            }
+            if (!table.isEmpty())
+                return table;
+        }
+
+        // 2. Try HTML Table
+        if (content.contains("<tr") || content.contains("<table")) {
+            java.util.regex.Pattern trPattern = java.util.regex.Pattern.compile("<tr[^>]*>(.*?)</tr>",
+                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
+            java.util.regex.Pattern tdPattern = java.util.regex.Pattern.compile("<t[dh][^>]*>(.*?)</t[dh]>",
+                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
+
+            java.util.regex.Matcher trMatcher = trPattern.matcher(content);
+            while (trMatcher.find()) {
+                String rowContent = trMatcher.group(1);
+                List<String> row = new ArrayList<>();
+                java.util.regex.Matcher tdMatcher = tdPattern.matcher(rowContent);
+                while (tdMatcher.find()) {
+                    row.add(cleanTagBytes(tdMatcher.group(1)));
+                }
+                if (!row.isEmpty()) {
+                    table.add(row);
+                }
+            }
+            if (!table.isEmpty())
+                return table;
+        }
+
+        // 3. Try CSV / Tab Delimited (last resort)
+        // If content looks like lines
+        String[] lines = content.split("\n");
+        if (lines.length > 1) {
+            for (String line : lines) {
+                if (line.trim().isEmpty())
+                    continue;
+                String[] cols = line.split("\t"); // Try Tab first
+                if (cols.length < 2)
+                    cols = line.split(","); // Then Comma
+                if (cols.length > 0) {
+                    List<String> row = new ArrayList<>();
+                    for (String c : cols) {
+                        // Remove quotes if CSV
+                        String val = c.trim();
+                        if (val.startsWith("\"") && val.endsWith("\"")) {
+                            val = val.substring(1, val.length() - 1);
+                        }
+                        row.add(val);
+                    }
+                    table.add(row);
+                }
+            }
+        }
+
+        return table;
+    }
+
+    private static String cleanTagBytes(String text) {
+        if (text == null)
+            return "";
+        // Remove tags
+        text = text.replaceAll("<[^>]+>", "").trim();
+        // Unescape common HTML/XML entities
+        text = text.replace("&nbsp;", " ")
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&#39;", "'")
+                .replace("&quot;", "\"");
+        return text;
+    }
+}
@@ -0,0 +1,96 @@
+package com.fci.automation.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.dto.IssueSlipDTO;
+import com.fci.automation.service.BillingService;
+import com.fci.automation.service.ExtractionCache;
+import com.fci.automation.service.FixtureReplayEngine;
+import com.fci.automation.service.WorkSlipExtractionPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * BillingService.extractIssueData for a batch of slips against the fixture
+ * replay engine (fixed OCR / structuring latency, no network), to see how
+ * batch time scales with the stage limits and what the result cache saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkSlipExtractionBenchmark {
+
+    @Param({ "60" })
+    public int files;
+
+    /** OCR pool size = structuring permits. */
+    @Param({ "1", "4", "16" })
+    public int concurrency;
+
+    @Param({ "false", "true" })
+    public boolean cache;
+
+    private Path dir;
+    private WorkSlipExtractionPipeline pipeline;
+    private BillingService billingService;
+    private List<MultipartFile> uploads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("extraction-bench");
+        Path runs = Files.createDirectories(dir.resolve("runs"));
+        uploads = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path run = Files.createDirectories(runs.resolve("slip" + i));
+            Files.writeString(run.resolve("azure_ocr.txt"), "WORK SLIP No " + i + "\nISSUE\nTotal bags 100");
+            Files.writeString(run.resolve("google_result.json"), "{\"status\":\"SUCCESS\",\"section\":\"ISSUE\","
+                    + "\"header\":{\"work_slip_no\":\"" + i + "\",\"date_of_operation\":\"01/03/2025\"},"
+                    + "\"quantities\":{\"total_bags_written\":\"100\"}}");
+            uploads.add(new MockMultipartFile("files", "slip" + i + ".jpg", "image/jpeg",
+                    ("scan " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        FixtureReplayEngine engine = new FixtureReplayEngine(objectMapper);
+        ReflectionTestUtils.setField(engine, "fixtureDir", runs.toString());
+        ReflectionTestUtils.setField(engine, "ocrLatencyMs", 20L);
+        ReflectionTestUtils.setField(engine, "structuringLatencyMs", 40L);
+        ReflectionTestUtils.invokeMethod(engine, "loadFixtures");
+
+        ExtractionCache extractionCache = new ExtractionCache(objectMapper);
+        ReflectionTestUtils.setField(extractionCache, "enabled", cache);
+        ReflectionTestUtils.setField(extractionCache, "dir", dir.resolve("cache"));
+        ReflectionTestUtils.invokeMethod(extractionCache, "init");
+
+        pipeline = new WorkSlipExtractionPipeline(engine, engine, extractionCache);
+        ReflectionTestUtils.setField(pipeline, "ocrConcurrency", concurrency);
+        ReflectionTestUtils.setField(pipeline, "llmConcurrency", concurrency);
+        billingService = new BillingService(null, pipeline);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ReflectionTestUtils.invokeMethod(pipeline, "shutdown");
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<IssueSlipDTO> extractBatch() {
+        return billingService.extractIssueData(uploads);
+    }
+}
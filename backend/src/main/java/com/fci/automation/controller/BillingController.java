@@ -1,11 +1,17 @@
 package com.fci.automation.controller;
 
+import com.fci.automation.dto.IssueSaveReport;
 import com.fci.automation.dto.IssueSlipDTO;
 import com.fci.automation.service.BillingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -17,30 +23,118 @@ public class BillingController {
     @Autowired
     private BillingService billingService;
 
+    /**
+     * Answered asynchronously: the servlet thread is released while the
+     * extraction pipeline works through the files.
+     */
     @PostMapping(value = "/issue/extract", consumes = "multipart/form-data")
-    public List<IssueSlipDTO> extractIssueData(@RequestParam("files") List<MultipartFile> files) {
+    public DeferredResult<List<IssueSlipDTO>> extractIssueData(@RequestParam("files") List<MultipartFile> files) {
+        DeferredResult<List<IssueSlipDTO>> deferred = new DeferredResult<>(null,
+                () -> errorRows("Extraction timed out"));
         try {
             logger.info("Received extraction request for {} files.", files.size());
-            return billingService.extractIssueData(files);
+            billingService.extractIssueDataAsync(files).whenComplete((slips, e) -> {
+                if (e != null) {
+                    logger.error("Extraction failed", e);
+                    deferred.setResult(errorRows(e.getMessage()));
+                } else {
+                    deferred.setResult(slips);
+                }
+            });
         } catch (Exception e) {
-            e.printStackTrace();
-            // Return a single error DTO so frontend displays it in the table instead of
-            // crashing
-            IssueSlipDTO errorDto = new IssueSlipDTO();
-            errorDto.setSiNo("Error");
-            errorDto.setStatus("NEEDS_VERIFICATION");
-            errorDto.setWarningMessage("System Error: " + e.getMessage());
-            return List.of(errorDto);
+            logger.error("Extraction failed", e);
+            deferred.setResult(errorRows(e.getMessage()));
         }
+        return deferred;
     }
 
+    // A single error DTO so frontend displays it in the table instead of crashing
+    private List<IssueSlipDTO> errorRows(String message) {
+        IssueSlipDTO errorDto = new IssueSlipDTO();
+        errorDto.setSiNo("Error");
+        errorDto.setStatus("NEEDS_VERIFICATION");
+        errorDto.setWarningMessage("System Error: " + message);
+        return List.of(errorDto);
+    }
+
+    /** 400 with the row errors when any row fails validation; nothing is saved then. */
     @PostMapping("/issue/save")
-    public void saveIssueData(@RequestBody List<IssueSlipDTO> slips) {
-        billingService.saveIssueData(slips);
+    public ResponseEntity<IssueSaveReport> saveIssueData(@RequestBody List<IssueSlipDTO> slips) {
+        IssueSaveReport report = billingService.saveIssueData(slips);
+        return report.getErrors().isEmpty() ? ResponseEntity.ok(report) : ResponseEntity.badRequest().body(report);
     }
 
+    // A slip saved concurrently between the duplicate check and the insert
+    @ExceptionHandler(org.springframework.dao.DataIntegrityViolationException.class)
+    public ResponseEntity<IssueSaveReport> handleConflict(org.springframework.dao.DataIntegrityViolationException e) {
+        logger.warn("Issue slip save conflict: {}", e.getMessage());
+        IssueSaveReport report = new IssueSaveReport();
+        report.setMessage("Duplicate work slip detected while saving. Please review.");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(report);
+    }
+
+    /** Every saved ISSUE slip; prefer the paged {@code /issue/slips}. */
     @GetMapping("/issue/list")
     public List<com.fci.automation.entity.WorkSlip> getSavedIssueSlips() {
         return billingService.getSavedIssueSlips();
     }
+
+    /**
+     * Saved ISSUE slips page by page, filtered by {@code month} (yyyy-MM) or
+     * a {@code from} / {@code to} date range (yyyy-MM-dd).
+     */
+    @GetMapping("/issue/slips")
+    public ResponseEntity<?> getIssueSlipPage(
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            LocalDate[] range = dateRange(month, from, to);
+            return ResponseEntity.ok(billingService.getIssueSlipPage(range[0], range[1], cursor, size));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    /** Slips and issued bags per day, for a month or date range. */
+    @GetMapping("/issue/totals/daily")
+    public ResponseEntity<?> getIssueBagsByDay(
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDate[] range = dateRange(month, from, to);
+            return ResponseEntity.ok(billingService.getIssueBagsByDay(range[0], range[1]));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    /** Slips and issued bags per month, for a date range (all time by default). */
+    @GetMapping("/issue/totals/monthly")
+    public ResponseEntity<?> getIssueBagsByMonth(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDate[] range = dateRange(null, from, to);
+            return ResponseEntity.ok(billingService.getIssueBagsByMonth(range[0], range[1]));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    // A month wins over from / to; open ends fall back to the full range slips are listed over
+    private LocalDate[] dateRange(String month, String from, String to) {
+        if (month != null && !month.isBlank()) {
+            YearMonth ym = YearMonth.parse(month);
+            return new LocalDate[] { ym.atDay(1), ym.atEndOfMonth() };
+        }
+        LocalDate start = from == null || from.isBlank() ? LocalDate.of(2000, 1, 1) : LocalDate.parse(from);
+        LocalDate end = to == null || to.isBlank() ? LocalDate.of(2100, 12, 31) : LocalDate.parse(to);
+        if (end.isBefore(start))
+            throw new IllegalArgumentException("'to' is before 'from'");
+        return new LocalDate[] { start, end };
+    }
 }
@@ -1,15 +1,15 @@
 package com.fci.automation.controller;
 
 import com.fci.automation.dto.WorkSlipResult;
-import com.fci.automation.service.GoogleAIStudioService;
+import com.fci.automation.service.WorkSlipExtractionPipeline;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-
 @RestController
 @RequestMapping("/api/extract")
 @CrossOrigin(originPatterns = "*") // Changed to support allowCredentials if needed
@@ -17,31 +17,37 @@ public class DocumentExtractionController {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentExtractionController.class);
 
-    private final GoogleAIStudioService extractionService;
+    private final WorkSlipExtractionPipeline extractionPipeline;
 
-    public DocumentExtractionController(GoogleAIStudioService extractionService) {
-        this.extractionService = extractionService;
+    public DocumentExtractionController(WorkSlipExtractionPipeline extractionPipeline) {
+        this.extractionPipeline = extractionPipeline;
     }
 
+    /**
+     * Answered asynchronously, so slow extractions do not hold servlet
+     * threads; OCR and Gemini calls share the pipeline's concurrency limits.
+     */
     @PostMapping("/work-slip")
-    public ResponseEntity<WorkSlipResult> extractWorkSlip(@RequestParam("file") MultipartFile file) {
+    public DeferredResult<ResponseEntity<WorkSlipResult>> extractWorkSlip(@RequestParam("file") MultipartFile file) {
+        DeferredResult<ResponseEntity<WorkSlipResult>> deferred = new DeferredResult<>(null,
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
         if (file.isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            deferred.setResult(ResponseEntity.badRequest().build());
+            return deferred;
         }
 
-        try {
-            logger.info("Received work slip extraction request for file: {}", file.getOriginalFilename());
-            WorkSlipResult result = extractionService.extractWorkSlip(file);
-            return ResponseEntity.ok(result);
-        } catch (IOException e) {
-            logger.error("Error reading file", e);
-            return ResponseEntity.internalServerError().build();
-        } catch (Exception e) {
-            logger.error("Error during extraction", e);
+        logger.info("Received work slip extraction request for file: {}", file.getOriginalFilename());
+        extractionPipeline.extractWorkSlipAsync(file).whenComplete((result, error) -> {
+            if (error == null) {
+                deferred.setResult(ResponseEntity.ok(result));
+                return;
+            }
             // In case of parsing error or API error, we might want to return details,
             // but for now 500 is sufficient as per standard practices unless specific error
             // handling is requested.
-            return ResponseEntity.internalServerError().build();
-        }
+            logger.error("Error during extraction", WorkSlipExtractionPipeline.failureOf(error));
+            deferred.setResult(ResponseEntity.internalServerError().build());
+        });
+        return deferred;
     }
 }
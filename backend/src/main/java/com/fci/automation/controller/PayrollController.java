@@ -30,6 +30,15 @@ public class PayrollController {
     @Autowired
     private PayrollCalculatorService calculatorService;
 
+    @Autowired
+    private com.fci.automation.repository.PayrollEntryBulkWriter bulkWriter;
+
+    @Autowired
+    private com.fci.automation.service.ReportCache reportCache;
+
+    @jakarta.persistence.PersistenceContext
+    private jakarta.persistence.EntityManager entityManager;
+
     // 1. Start/Open Month (Find or Create)
     @PostMapping("/periods")
     public org.springframework.http.ResponseEntity<?> createPeriod(
@@ -82,6 +91,8 @@ public class PayrollController {
                 if (lwd != null) {
                     existingPeriod.setLastWorkingDay(lwd);
                     periodRepository.save(existingPeriod);
+                    // The ESI file prints the last working day
+                    reportCache.invalidate(existingPeriod.getId());
                 }
                 return org.springframework.http.ResponseEntity.ok(existingPeriod);
             }
@@ -176,6 +187,7 @@ public class PayrollController {
                         return entry;
                     }).collect(Collectors.toList());
             entryRepository.saveAll(entries);
+            reportCache.invalidate(periodId);
         }
         // Sort entries by Member ID for consistent display
         entries.sort((e1, e2) -> {
@@ -207,18 +219,30 @@ public class PayrollController {
         // Calculate
         calculatorService.calculate(existing);
 
-        return entryRepository.save(existing);
+        PayrollEntry saved = entryRepository.save(existing);
+        reportCache.invalidate(saved.getPeriod().getId());
+        return saved;
     }
 
     // 3.1 Bulk Update (Calculate All)
     @PutMapping("/entries")
     public java.util.List<PayrollEntry> bulkUpdateEntries(@RequestBody java.util.List<PayrollEntry> inputs) {
+        // One prefetch for the whole grid instead of findById per row
+        java.util.List<UUID> ids = inputs.stream().map(PayrollEntry::getId).filter(java.util.Objects::nonNull)
+                .collect(Collectors.toList());
+        java.util.Map<UUID, PayrollEntry> existingById = entryRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(PayrollEntry::getId, e -> e));
+        // The bulk writer stores the rows; detached, the edits below are not
+        // flushed again by Hibernate when the (open-in-view) session joins its
+        // transaction
+        existingById.values().forEach(entityManager::detach);
+
         java.util.List<PayrollEntry> updated = new java.util.ArrayList<>();
+        java.util.Map<UUID, java.util.Set<Integer>> previousDays = new java.util.HashMap<>();
 
         for (PayrollEntry input : inputs) {
-            java.util.Optional<PayrollEntry> opt = entryRepository.findById(input.getId());
-            if (opt.isPresent()) {
-                PayrollEntry existing = opt.get();
+            PayrollEntry existing = input.getId() != null ? existingById.get(input.getId()) : null;
+            if (existing != null) {
                 // existing.setDaysWorked(input.getDaysWorked()); // Calculator will override
                 // this based on activeDays if present
                 // But if activeDays is empty (Head Load), we trust input.daysWorked?
@@ -230,15 +254,20 @@ public class PayrollController {
 
                 // Fix: Save active days
                 if (input.getActiveDays() != null) {
+                    previousDays.put(existing.getId(), new java.util.HashSet<>(existing.getActiveDays()));
                     existing.setActiveDays(input.getActiveDays());
                 }
 
-                calculatorService.calculate(existing);
                 updated.add(existing);
             }
         }
 
-        return entryRepository.saveAll(updated);
+        // Calculate the whole grid in one pass
+        calculatorService.calculateAll(updated);
+
+        bulkWriter.updateEntries(updated, previousDays);
+        updated.stream().map(e -> e.getPeriod().getId()).distinct().forEach(reportCache::invalidate);
+        return updated;
     }
 
     // 4. Finalize/Close Period
@@ -248,7 +277,9 @@ public class PayrollController {
                 .orElseThrow(() -> new RuntimeException("Period not found"));
 
         period.setStatus(PayrollPeriod.Status.CLOSED);
-        return periodRepository.save(period);
+        PayrollPeriod saved = periodRepository.save(period);
+        reportCache.invalidate(periodId);
+        return saved;
     }
 
     // 4.1 Reopen/Unlock Period
@@ -258,7 +289,9 @@ public class PayrollController {
                 .orElseThrow(() -> new RuntimeException("Period not found"));
 
         period.setStatus(PayrollPeriod.Status.OPEN);
-        return periodRepository.save(period);
+        PayrollPeriod saved = periodRepository.save(period);
+        reportCache.invalidate(periodId);
+        return saved;
     }
 
     // 5. Get Period Details
@@ -304,6 +337,9 @@ public class PayrollController {
         } catch (Exception e) {
             return org.springframework.http.ResponseEntity.badRequest()
                     .body(java.util.Map.of("message", "Import failed: " + e.getMessage()));
+        } finally {
+            // Batches may have been saved even when the import failed part-way
+            reportCache.invalidate(periodId);
         }
     }
 
@@ -313,11 +349,13 @@ public class PayrollController {
             @PathVariable UUID periodId,
             @RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
         try {
-            String result = importService.importUtrData(file, periodId);
-            return org.springframework.http.ResponseEntity.ok(java.util.Map.of("message", result));
+            // Summary in "message" plus the matched / unmatched / duplicate / unchanged rows
+            return org.springframework.http.ResponseEntity.ok(importService.importUtrData(file, periodId));
         } catch (Exception e) {
             return org.springframework.http.ResponseEntity.badRequest()
                     .body(java.util.Map.of("message", "Import failed: " + e.getMessage()));
+        } finally {
+            reportCache.invalidate(periodId);
         }
     }
 }
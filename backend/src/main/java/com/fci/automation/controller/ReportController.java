@@ -1,11 +1,19 @@
 package com.fci.automation.controller;
 
+import com.fci.automation.dto.ReportBundleProgress;
+import com.fci.automation.dto.ReportBundleRequest;
+import com.fci.automation.service.ReportBundleService;
+import com.fci.automation.service.ReportCache;
+import com.fci.automation.service.ReportJobService;
 import com.fci.automation.service.ReportService;
+import com.fci.automation.service.ReportType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.UUID;
 
 @RestController
@@ -16,13 +24,26 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private ReportBundleService bundleService;
+
+    @Autowired
+    private ReportJobService jobService;
+
     @Autowired
     private com.fci.automation.repository.PayrollPeriodRepository periodRepository;
 
     // 1. PDF Reports
+    // Cache lookup / data load happen here on the request thread (realm is
+    // thread-bound); a miss then renders straight into the response stream
     @GetMapping("/{periodId}/main-file")
-    public ResponseEntity<byte[]> getMainFilePdf(@PathVariable UUID periodId) {
-        byte[] pdf = reportService.generatePdfReport(periodId, "Main File (Payroll Engine)");
+    public ResponseEntity<StreamingResponseBody> getMainFilePdf(@PathVariable UUID periodId) {
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.MAIN_FILE, null);
+        StreamingResponseBody pdf = out -> reportCache.write(report, out,
+                (ledger, o) -> reportService.writePdfReport(ledger, "Main File (Payroll Engine)", o));
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=main_file.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
@@ -30,8 +51,9 @@ public class ReportController {
     }
 
     @GetMapping("/{periodId}/payment-details")
-    public ResponseEntity<byte[]> getPaymentDetailsPdf(@PathVariable UUID periodId) {
-        byte[] pdf = reportService.generatePaymentDetailsPdf(periodId);
+    public ResponseEntity<StreamingResponseBody> getPaymentDetailsPdf(@PathVariable UUID periodId) {
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.PAYMENT_DETAILS, null);
+        StreamingResponseBody pdf = out -> reportCache.write(report, out, reportService::writePaymentDetailsPdf);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payment_details.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
@@ -39,8 +61,9 @@ public class ReportController {
     }
 
     @GetMapping("/{periodId}/wage-summary")
-    public ResponseEntity<byte[]> getWageSummaryPdf(@PathVariable UUID periodId) {
-        byte[] pdf = reportService.generateWageSummaryPdf(periodId);
+    public ResponseEntity<StreamingResponseBody> getWageSummaryPdf(@PathVariable UUID periodId) {
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.WAGE_SUMMARY, null);
+        StreamingResponseBody pdf = out -> reportCache.write(report, out, reportService::writeWageSummaryPdf);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=wage_summary.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
@@ -48,8 +71,9 @@ public class ReportController {
     }
 
     @GetMapping("/{periodId}/attendance")
-    public ResponseEntity<byte[]> getAttendanceRegisterPdf(@PathVariable UUID periodId) {
-        byte[] pdf = reportService.generateAttendanceRegisterPdf(periodId);
+    public ResponseEntity<StreamingResponseBody> getAttendanceRegisterPdf(@PathVariable UUID periodId) {
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.ATTENDANCE, null);
+        StreamingResponseBody pdf = out -> reportCache.write(report, out, reportService::writeAttendanceRegisterPdf);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance_register.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
@@ -57,33 +81,87 @@ public class ReportController {
     }
 
     // 2. Excel (ESI)
+    // format=xlsx streams an .xlsx with the same sheets and columns, for rolls
+    // beyond the 65,535 members an .xls can hold
     @GetMapping("/{periodId}/esi")
-    public ResponseEntity<byte[]> getEsiExcel(@PathVariable UUID periodId) {
+    public ResponseEntity<?> getEsiExcel(@PathVariable UUID periodId,
+            @RequestParam(value = "format", defaultValue = "xls") String format) {
+        if (!format.equals("xls") && !format.equals("xlsx"))
+            return ResponseEntity.badRequest().build();
+
         // Fetch period to construct filename
         com.fci.automation.entity.PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
         String monthName = java.time.Month.of(period.getMonth()).name().toLowerCase().substring(0, 3);
-        String filename = String.format("%s_%d_esi.xls", monthName, period.getYear());
+        String filename = String.format("%s_%d_esi.%s", monthName, period.getYear(), format);
+
+        if (format.equals("xlsx")) {
+            ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.ESI_XLSX, null);
+            StreamingResponseBody xlsx = out -> reportCache.write(report, out, reportService::writeEsiXlsx);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(MediaType
+                            .parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                    .body(xlsx);
+        }
 
-        byte[] excel = reportService.generateEsiExcel(periodId);
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.ESI, null);
+        // Checked here so the client gets a message rather than a broken download
+        if (report.getLedger() != null && report.getLedger().size() > ReportService.ESI_XLS_MAX_MEMBERS) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message",
+                    "ESI .xls holds at most " + ReportService.ESI_XLS_MAX_MEMBERS + " members, this period has "
+                            + report.getLedger().size() + "; download it as .xlsx"));
+        }
+        StreamingResponseBody xls = out -> reportCache.write(report, out, reportService::writeEsiExcel);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excel);
+                .body(xls);
     }
 
-    // 3. CSV (EPF)
     // 3. Text (EPF)
+    // Streamed line by line; compress=gzip sends <name>.txt.gz, compress=zip a
+    // .zip holding <name>.txt. The cache keeps the plain text either way.
     @GetMapping("/{periodId}/epf")
-    public ResponseEntity<String> getEpfTxt(@PathVariable UUID periodId) {
+    public ResponseEntity<StreamingResponseBody> getEpfTxt(@PathVariable UUID periodId,
+            @RequestParam(value = "compress", required = false) String compress) {
+        if (compress != null && !compress.equals("gzip") && !compress.equals("zip"))
+            return ResponseEntity.badRequest().build();
+
         // Fetch period to construct filename
         com.fci.automation.entity.PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
         String monthName = java.time.Month.of(period.getMonth()).name().toLowerCase().substring(0, 3); // "nov"
         String filename = String.format("%s_%d_epf.txt", monthName, period.getYear());
 
-        String txt = reportService.generateEpfTxt(periodId);
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.EPF, null);
+        if ("gzip".equals(compress)) {
+            StreamingResponseBody gz = out -> {
+                java.util.zip.GZIPOutputStream gzip = new java.util.zip.GZIPOutputStream(out, 64 * 1024);
+                reportCache.write(report, gzip, reportService::writeEpfTxt);
+                gzip.finish();
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + ".gz\"")
+                    .contentType(MediaType.parseMediaType("application/gzip"))
+                    .body(gz);
+        }
+        if ("zip".equals(compress)) {
+            StreamingResponseBody zip = out -> {
+                java.util.zip.ZipOutputStream archive = new java.util.zip.ZipOutputStream(out);
+                archive.putNextEntry(new java.util.zip.ZipEntry(filename));
+                reportCache.write(report, archive, reportService::writeEpfTxt);
+                archive.closeEntry();
+                archive.finish();
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"" + filename.replace(".txt", ".zip") + "\"")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(zip);
+        }
+        StreamingResponseBody txt = out -> reportCache.write(report, out, reportService::writeEpfTxt);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.TEXT_PLAIN)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, java.nio.charset.StandardCharsets.UTF_8))
                 .body(txt);
     }
 
@@ -101,10 +179,106 @@ public class ReportController {
         String monthName = java.time.Month.of(period.getMonth()).name().toLowerCase().substring(0, 3);
         String filename = String.format("%s_bulk_payment.txt", monthName);
 
-        String txt = reportService.generateBulkTxt(periodId, paymentDate);
+        java.time.LocalDate date = paymentDate;
+        ReportCache.Lookup report = reportCache.lookup(periodId, ReportType.BULK, date.toString());
+        String txt = new String(reportCache.get(report,
+                ledger -> reportService.generateBulkTxt(ledger, date).getBytes(java.nio.charset.StandardCharsets.UTF_8)),
+                java.nio.charset.StandardCharsets.UTF_8);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
                 .contentType(MediaType.TEXT_PLAIN)
                 .body(txt);
     }
+
+    // 4. Audit packs (several months and reports in one ZIP)
+    // Prepare returns an id; GET /bundle/{id} streams the ZIP as reports
+    // finish, while /bundle/{id}/progress can be polled alongside
+    @PostMapping("/bundle")
+    public ResponseEntity<?> prepareBundle(@RequestBody ReportBundleRequest request) {
+        try {
+            java.time.YearMonth from = request.getFrom() == null ? null : java.time.YearMonth.parse(request.getFrom());
+            java.time.YearMonth to = request.getTo() == null ? null : java.time.YearMonth.parse(request.getTo());
+            return ResponseEntity.ok(bundleService.prepare(from, to, request.getReports()));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/bundle/{id}")
+    public WebAsyncTask<ResponseEntity<?>> getBundle(@PathVariable String id,
+            jakarta.servlet.http.HttpServletResponse response) {
+        // Claimed on the request thread (the realm is thread-bound); answered on the async one
+        ReportBundleService.Bundle bundle;
+        try {
+            bundle = bundleService.start(id);
+        } catch (IllegalStateException e) {
+            return new WebAsyncTask<>(() -> ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT)
+                    .body(java.util.Map.of("message", e.getMessage())));
+        }
+        if (bundle == null)
+            return new WebAsyncTask<>(() -> ResponseEntity.notFound().build());
+        java.util.concurrent.Callable<ResponseEntity<?>> zip = () -> {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + bundle.getFileName() + "\"");
+            response.setContentType("application/zip");
+            bundleService.write(bundle, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        };
+        // A pack may take longer than spring.mvc.async.request-timeout
+        return new WebAsyncTask<>(bundleService.downloadTimeoutMillis(), zip);
+    }
+
+    @GetMapping("/bundle/{id}/progress")
+    public ResponseEntity<ReportBundleProgress> getBundleProgress(@PathVariable String id) {
+        ReportBundleProgress progress = bundleService.progress(id);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
+    // 5. Background jobs
+    // Submit returns the job at once (an unchanged report's existing job);
+    // poll /jobs/{id} until DONE, then fetch /jobs/{id}/download
+    @PostMapping("/{periodId}/jobs")
+    public ResponseEntity<?> submitJob(@PathVariable UUID periodId, @RequestParam("report") String report) {
+        try {
+            return ResponseEntity.accepted().body(jobService.submit(periodId, ReportType.ofKey(report)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<com.fci.automation.entity.ReportJob> getJob(@PathVariable UUID id) {
+        return ResponseEntity.of(jobService.find(id));
+    }
+
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<?> downloadJob(@PathVariable UUID id) {
+        com.fci.automation.entity.ReportJob job = jobService.find(id).orElse(null);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        java.nio.file.Path file = jobService.artifact(job);
+        if (file == null) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT)
+                    .body(java.util.Map.of("message", "Report job is " + job.getStatus(), "status", job.getStatus()));
+        }
+        StreamingResponseBody body = out -> java.nio.file.Files.copy(file, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(mediaType(job.getReportType()))
+                .contentLength(job.getFileSize())
+                .body(body);
+    }
+
+    private static MediaType mediaType(ReportType type) {
+        switch (type.getExtension()) {
+            case "pdf":
+                return MediaType.APPLICATION_PDF;
+            case "xlsx":
+                return MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            case "txt":
+                return new MediaType(MediaType.TEXT_PLAIN, java.nio.charset.StandardCharsets.UTF_8);
+            default:
+                return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.fci.automation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an employee master upload: counts plus every skipped row and
+ * why (key conflicts, repeated members, missing values).
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeImportReport {
+    private String message;
+    private int rows; // Data rows with a Member ID
+    private int created;
+    private int updated;
+    private int skipped;
+    private List<Problem> problems = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Problem {
+        private int rowNumber; // 1-based, as in the sheet
+        private String memberId;
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fci.automation.dto;
+
+import com.fci.automation.entity.Employee;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of employees in Member ID order (numeric ids as numbers). Pass
+ * {@code nextCursor} back as {@code cursor} for the next page; it is null on
+ * the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeePage {
+    private List<Employee> items;
+    private String nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.fci.automation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of saving extracted issue slips. The save is all or nothing: with
+ * any row error nothing is saved and every problem is listed.
+ */
+@Data
+@NoArgsConstructor
+public class IssueSaveReport {
+    private String message;
+    private int saved;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private String siNo;
+        private String slipNumber;
+        private String field; // status, slipNumber, entryDate, totalBags
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fci.automation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Where a report bundle is: PREPARED (not downloaded yet), RUNNING, DONE or
+ * CANCELLED (the download was dropped). {@code completed} counts entries
+ * written to the ZIP, {@code failed} those written as an error note.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportBundleProgress {
+    private String id;
+    private String status;
+    private int total;
+    private int completed;
+    private int failed;
+}
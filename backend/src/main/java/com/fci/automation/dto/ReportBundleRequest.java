@@ -0,0 +1,17 @@
+package com.fci.automation.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * An audit pack: months {@code from} to {@code to} (yyyy-MM, inclusive) and
+ * the reports wanted for each, by their download path (main-file,
+ * payment-details, wage-summary, attendance, esi, epf). No reports means all.
+ */
+@Data
+public class ReportBundleRequest {
+    private String from;
+    private String to;
+    private List<String> reports;
+}
@@ -0,0 +1,41 @@
+package com.fci.automation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a UTR statement import: a summary message (what the UI shows)
+ * plus the statement rows by how they were reconciled.
+ */
+@Data
+@NoArgsConstructor
+public class UtrImportReport {
+    private String message;
+    private int statementRows;
+    private List<Row> matched = new ArrayList<>(); // UTR written
+    private List<Row> unmatched = new ArrayList<>(); // Account not in this period, or no UTR given
+    private List<Row> duplicateAccount = new ArrayList<>(); // Repeated in the statement, or ambiguous account
+    private List<Row> alreadyHasUtr = new ArrayList<>(); // Entry already carries this UTR
+
+    public static UtrImportReport failed(String message) {
+        UtrImportReport report = new UtrImportReport();
+        report.setMessage(message);
+        return report;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private int rowNumber; // 1-based, as in the statement
+        private String accountNo;
+        private String utrNumber;
+        private String memberId;
+        private String memberName;
+        private String note;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fci.automation.dto;
+
+import com.fci.automation.entity.WorkSlip;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of saved work slips, newest first by (date, slip number). Pass
+ * {@code nextCursor} back as {@code cursor} for the next page; it is null on
+ * the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkSlipPage {
+    private List<WorkSlip> items;
+    private String nextCursor;
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        // Listing order and keyset paging
+        @Index(name = "idx_employees_sort", columnList = "member_sort_key, member_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -48,6 +51,35 @@ public class Employee {
     @Column(name = "inactive_date")
     private java.time.LocalDate inactiveDate;
 
+    // Derived from memberId so the database sorts numeric ids as numbers (see sortKeyOf)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    @Column(name = "member_sort_key", length = 256)
+    private String memberSortKey;
+
+    // Last insert / change; with the row count it versions the whole master (listing ETag)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void beforeSave() {
+        memberSortKey = sortKeyOf(memberId);
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * "0" + the id zero-padded to 19 digits for all-digit ids, else "1" + the
+     * id: numeric ids come first in numeric order, then the others as text.
+     * db-init.sql backfills existing rows with the same rule.
+     */
+    public static String sortKeyOf(String memberId) {
+        if (memberId == null)
+            return null;
+        if (memberId.length() <= 19 && memberId.chars().allMatch(c -> c >= '0' && c <= '9'))
+            return "0" + "0".repeat(19 - memberId.length()) + memberId;
+        return "1" + memberId;
+    }
+
     public enum Status {
         ACTIVE, INACTIVE
     }
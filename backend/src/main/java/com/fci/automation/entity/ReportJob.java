@@ -0,0 +1,77 @@
+package com.fci.automation.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fci.automation.service.ReportType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A report rendered in the background. One job per (period, report, content
+ * version): asking again for unchanged data finds the existing job. The
+ * rendered file lives on disk at {@code filePath} once the job is DONE.
+ */
+@Entity
+// Submissions look jobs up by their key; expiry finds finished ones by when they finished
+@Table(name = "report_jobs", indexes = {
+        @Index(name = "idx_report_jobs_key", columnList = "period_id, report_type, content_version"),
+        @Index(name = "idx_report_jobs_finished", columnList = "status, finished_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "period_id", nullable = false)
+    private UUID periodId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false, length = 50)
+    private ReportType reportType;
+
+    // PeriodLedger content hash the job was asked for (and, once DONE, rendered from)
+    @Column(name = "content_version", nullable = false, length = 64)
+    private String contentVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private Status status = Status.QUEUED;
+
+    // Percent done
+    @Column(nullable = false)
+    private Integer progress = 0;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @JsonIgnore
+    @Column(name = "file_path", length = 1024)
+    private String filePath;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
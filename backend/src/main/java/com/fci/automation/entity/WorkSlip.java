@@ -9,7 +9,10 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "work_slips")
+// Listing / totals filter by category and date range; slip_number makes the order total for keyset paging
+@Table(name = "work_slips", indexes = {
+        @Index(name = "idx_work_slips_category_date", columnList = "category, entry_date, slip_number")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,8 +1,13 @@
 package com.fci.automation.repository;
 
 import com.fci.automation.entity.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.List;
 import java.util.Optional;
 
 public interface EmployeeRepository extends JpaRepository<Employee, UUID> {
@@ -13,4 +18,32 @@ public interface EmployeeRepository extends JpaRepository<Employee, UUID> {
     Optional<Employee> findByIpNumber(String ipNumber);
 
     Optional<Employee> findByBankAccountNo(String bankAccountNo);
+
+    /** Changes with every insert, update or delete of an employee. */
+    interface MasterVersion {
+        long getCount();
+
+        LocalDateTime getLastUpdated();
+    }
+
+    @Query("SELECT COUNT(e) AS count, MAX(e.updatedAt) AS lastUpdated FROM Employee e")
+    MasterVersion findMasterVersion();
+
+    // Keyset pages in member id order (idx_employees_sort); null filters match everything,
+    // namePrefix is lower case, escaped with '!' and ends with %
+    @Query("SELECT e FROM Employee e WHERE (:category IS NULL OR e.category = :category) "
+            + "AND (:status IS NULL OR e.status = :status) "
+            + "AND (:namePrefix IS NULL OR LOWER(e.fullName) LIKE :namePrefix ESCAPE '!') "
+            + "ORDER BY e.memberSortKey, e.memberId")
+    List<Employee> findFirstPage(@Param("category") Employee.Category category,
+            @Param("status") Employee.Status status, @Param("namePrefix") String namePrefix, Pageable page);
+
+    @Query("SELECT e FROM Employee e WHERE (:category IS NULL OR e.category = :category) "
+            + "AND (:status IS NULL OR e.status = :status) "
+            + "AND (:namePrefix IS NULL OR LOWER(e.fullName) LIKE :namePrefix ESCAPE '!') "
+            + "AND (e.memberSortKey > :afterKey OR (e.memberSortKey = :afterKey AND e.memberId > :afterId)) "
+            + "ORDER BY e.memberSortKey, e.memberId")
+    List<Employee> findPageAfter(@Param("category") Employee.Category category,
+            @Param("status") Employee.Status status, @Param("namePrefix") String namePrefix,
+            @Param("afterKey") String afterKey, @Param("afterId") String afterId, Pageable page);
 }
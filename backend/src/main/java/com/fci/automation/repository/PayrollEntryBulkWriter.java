@@ -0,0 +1,152 @@
+package com.fci.automation.repository;
+
+import com.fci.automation.entity.PayrollEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * JDBC writer for grid-sized saves of payroll_entries / payroll_entry_days.
+ * Entries are written with batched UPDATEs and only the changed (entry, day)
+ * pairs of the day set are touched, inserted as multi-row VALUES lists.
+ */
+@Repository
+public class PayrollEntryBulkWriter {
+
+    private static final String UPDATE_ENTRY_SQL = "UPDATE payroll_entries SET days_worked = ?, wages_earned = ?, "
+            + "advance_deduction = ?, epf_member_share = ?, epf_contractor_share = ?, esi_member_share = ?, "
+            + "esi_contractor_share = ?, bonus_share = ?, net_payable = ? WHERE id = ?";
+
+    private static final String UPDATE_UTR_SQL = "UPDATE payroll_entries SET utr_number = ? WHERE id = ?";
+
+    private static final String DELETE_DAYS_SQL = "DELETE FROM payroll_entry_days WHERE entry_id = ?";
+
+    private static final String DELETE_DAY_SQL = "DELETE FROM payroll_entry_days WHERE entry_id = ? AND active_day = ?";
+
+    private static final String INSERT_DAYS_PREFIX = "INSERT INTO payroll_entry_days (entry_id, active_day) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.bulk.batch-size:500}")
+    private int batchSize = 500;
+
+    public PayrollEntryBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Persist inputs + calculated columns for already existing entries.
+     *
+     * @param entries      entries carrying the new values (must have ids)
+     * @param previousDays day set as currently stored, keyed by entry id; entries
+     *                     missing from the map keep their stored days untouched
+     */
+    @Transactional
+    public void updateEntries(Collection<PayrollEntry> entries, Map<UUID, Set<Integer>> previousDays) {
+        if (entries.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(UPDATE_ENTRY_SQL, entries, batchSize, (ps, e) -> {
+            ps.setObject(1, e.getDaysWorked(), Types.INTEGER);
+            ps.setObject(2, e.getWagesEarned(), Types.NUMERIC);
+            ps.setObject(3, e.getAdvanceDeduction(), Types.NUMERIC);
+            ps.setObject(4, e.getEpfMemberShare(), Types.NUMERIC);
+            ps.setObject(5, e.getEpfContractorShare(), Types.NUMERIC);
+            ps.setObject(6, e.getEsiMemberShare(), Types.NUMERIC);
+            ps.setObject(7, e.getEsiContractorShare(), Types.NUMERIC);
+            ps.setObject(8, e.getBonusShare(), Types.NUMERIC);
+            ps.setObject(9, e.getNetPayable(), Types.NUMERIC);
+            ps.setObject(10, e.getId());
+        });
+
+        // Diff the day sets so unchanged days cost nothing. A single toggled day is
+        // removed as a pair; bigger rewrites clear the entry's days in one statement.
+        List<Object[]> removedPairs = new ArrayList<>();
+        List<Object[]> clearedEntries = new ArrayList<>();
+        List<Object[]> added = new ArrayList<>();
+        for (PayrollEntry e : entries) {
+            if (!previousDays.containsKey(e.getId()))
+                continue;
+            Set<Integer> before = previousDays.get(e.getId());
+            Set<Integer> after = e.getActiveDays() != null ? e.getActiveDays() : Collections.emptySet();
+
+            List<Integer> removed = new ArrayList<>();
+            for (Integer day : before) {
+                if (!after.contains(day))
+                    removed.add(day);
+            }
+
+            if (removed.size() > 1) {
+                clearedEntries.add(new Object[] { e.getId() });
+                for (Integer day : after) {
+                    added.add(new Object[] { e.getId(), day });
+                }
+                continue;
+            }
+            for (Integer day : removed) {
+                removedPairs.add(new Object[] { e.getId(), day });
+            }
+            for (Integer day : after) {
+                if (!before.contains(day))
+                    added.add(new Object[] { e.getId(), day });
+            }
+        }
+
+        if (!clearedEntries.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_DAYS_SQL, clearedEntries, batchSize,
+                    (ps, args) -> ps.setObject(1, args[0]));
+        }
+        if (!removedPairs.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_DAY_SQL, removedPairs, batchSize, (ps, pair) -> {
+                ps.setObject(1, pair[0]);
+                ps.setObject(2, pair[1], Types.INTEGER);
+            });
+        }
+        insertDays(added);
+    }
+
+    /**
+     * Write UTR numbers back after a statement import.
+     *
+     * @param utrByEntryId new UTR number keyed by entry id
+     */
+    @Transactional
+    public void updateUtrNumbers(Map<UUID, String> utrByEntryId) {
+        if (utrByEntryId.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(UPDATE_UTR_SQL, utrByEntryId.entrySet(), batchSize, (ps, e) -> {
+            ps.setString(1, e.getValue());
+            ps.setObject(2, e.getKey());
+        });
+    }
+
+    private void insertDays(List<Object[]> pairs) {
+        // Multi-row VALUES, chunked to stay well under driver parameter limits
+        for (int from = 0; from < pairs.size(); from += batchSize) {
+            List<Object[]> chunk = pairs.subList(from, Math.min(from + batchSize, pairs.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT_DAYS_PREFIX.length() + chunk.size() * 7);
+            sql.append(INSERT_DAYS_PREFIX);
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0)
+                    sql.append(',');
+                sql.append("(?,?)");
+                args[i * 2] = chunk.get(i)[0];
+                args[i * 2 + 1] = chunk.get(i)[1];
+            }
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+}
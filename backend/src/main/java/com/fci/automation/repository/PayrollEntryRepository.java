@@ -2,6 +2,8 @@ package com.fci.automation.repository;
 
 import com.fci.automation.entity.PayrollEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.UUID;
 import java.util.List;
 
@@ -9,4 +11,22 @@ public interface PayrollEntryRepository extends JpaRepository<PayrollEntry, UUID
     List<PayrollEntry> findByPeriodId(UUID periodId);
 
     java.util.Optional<PayrollEntry> findByPeriodIdAndEmployeeId(UUID periodId, UUID employeeId);
+
+    /** What UTR reconciliation needs per entry, without loading entities or day sets. */
+    interface UtrTarget {
+        UUID getId();
+
+        String getBankAccountNo();
+
+        String getUtrNumber();
+
+        String getMemberId();
+
+        String getFullName();
+    }
+
+    @Query("SELECT e.id AS id, emp.bankAccountNo AS bankAccountNo, e.utrNumber AS utrNumber, "
+            + "emp.memberId AS memberId, emp.fullName AS fullName "
+            + "FROM PayrollEntry e JOIN e.employee emp WHERE e.period.id = :periodId")
+    List<UtrTarget> findUtrTargetsByPeriodId(@Param("periodId") UUID periodId);
 }
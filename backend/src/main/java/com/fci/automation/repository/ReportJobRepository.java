@@ -0,0 +1,21 @@
+package com.fci.automation.repository;
+
+import com.fci.automation.entity.ReportJob;
+import com.fci.automation.service.ReportType;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, UUID> {
+
+    Optional<ReportJob> findFirstByPeriodIdAndReportTypeAndContentVersionOrderByCreatedAtDesc(UUID periodId,
+            ReportType reportType, String contentVersion);
+
+    List<ReportJob> findByStatusInOrderByCreatedAt(Collection<ReportJob.Status> statuses);
+
+    List<ReportJob> findByStatusInAndFinishedAtBefore(Collection<ReportJob.Status> statuses, LocalDateTime before);
+}
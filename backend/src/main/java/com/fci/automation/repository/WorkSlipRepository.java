@@ -1,7 +1,11 @@
 package com.fci.automation.repository;
 
 import com.fci.automation.entity.WorkSlip;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.List;
 import java.time.LocalDate;
@@ -13,4 +17,52 @@ public interface WorkSlipRepository extends JpaRepository<WorkSlip, UUID> {
 
     List<WorkSlip> findByCategoryAndEntryDateBetween(WorkSlip.WorkSlipCategory category, LocalDate startDate,
             LocalDate endDate);
+
+    // Keyset pages newest first, (entry date, slip number) descending; idx_work_slips_category_date
+    // scanned backwards
+    @Query("SELECT w FROM WorkSlip w WHERE w.category = :category AND w.entryDate BETWEEN :from AND :to "
+            + "ORDER BY w.entryDate DESC, w.slipNumber DESC")
+    List<WorkSlip> findFirstPage(@Param("category") WorkSlip.WorkSlipCategory category,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable page);
+
+    @Query("SELECT w FROM WorkSlip w WHERE w.category = :category AND w.entryDate BETWEEN :from AND :to "
+            + "AND (w.entryDate < :afterDate OR (w.entryDate = :afterDate AND w.slipNumber < :afterSlip)) "
+            + "ORDER BY w.entryDate DESC, w.slipNumber DESC")
+    List<WorkSlip> findPageAfter(@Param("category") WorkSlip.WorkSlipCategory category,
+            @Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("afterDate") LocalDate afterDate, @Param("afterSlip") String afterSlip, Pageable page);
+
+    @Query("SELECT w.entryDate AS day, COUNT(w) AS slips, SUM(w.issueTotalBags) AS bags FROM WorkSlip w "
+            + "WHERE w.category = com.fci.automation.entity.WorkSlip.WorkSlipCategory.ISSUE "
+            + "AND w.entryDate BETWEEN :from AND :to GROUP BY w.entryDate ORDER BY w.entryDate")
+    List<DailyBags> sumIssueBagsByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT YEAR(w.entryDate) AS year, MONTH(w.entryDate) AS month, COUNT(w) AS slips, "
+            + "SUM(w.issueTotalBags) AS bags FROM WorkSlip w "
+            + "WHERE w.category = com.fci.automation.entity.WorkSlip.WorkSlipCategory.ISSUE "
+            + "AND w.entryDate BETWEEN :from AND :to "
+            + "GROUP BY YEAR(w.entryDate), MONTH(w.entryDate) ORDER BY YEAR(w.entryDate), MONTH(w.entryDate)")
+    List<MonthlyBags> sumIssueBagsByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Slip numbers are unique across categories, so this is what an insert would collide with
+    @Query("SELECT w.slipNumber FROM WorkSlip w WHERE w.slipNumber IN :slipNumbers")
+    List<String> findExistingSlipNumbers(@Param("slipNumbers") Collection<String> slipNumbers);
+
+    interface DailyBags {
+        LocalDate getDay();
+
+        long getSlips();
+
+        Long getBags();
+    }
+
+    interface MonthlyBags {
+        int getYear();
+
+        int getMonth();
+
+        long getSlips();
+
+        Long getBags();
+    }
 }
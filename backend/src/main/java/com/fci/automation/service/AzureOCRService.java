@@ -7,20 +7,45 @@ import com.azure.ai.formrecognizer.documentanalysis.models.OperationResult;
 import com.azure.core.credential.AzureKeyCredential;
 import com.azure.core.util.BinaryData;
 import com.azure.core.util.polling.SyncPoller;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Service
-public class AzureOCRService {
+@ConditionalOnProperty(name = "app.extraction.engine", havingValue = "remote", matchIfMissing = true)
+public class AzureOCRService implements OcrEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(AzureOCRService.class);
+
+    /** Document Intelligence model used for work slips. */
+    public static final String MODEL = "prebuilt-layout";
+
     private final DocumentAnalysisClient client;
 
+    // Azure calls for the pages of split PDFs, shared by all uploads; 1 disables splitting
+    @Value("${app.extraction.ocr.page-concurrency:4}")
+    private int pageConcurrency = 4;
+
+    private ExecutorService pagePool;
+
     public AzureOCRService(
             @Value("${azure.form.recognizer.endpoint}") String endpoint,
             @Value("${azure.form.recognizer.key}") String key) {
@@ -30,24 +55,122 @@ public class AzureOCRService {
                 .buildClient();
     }
 
+    @Override
+    public String model() {
+        return MODEL;
+    }
+
+    /**
+     * The upload is spooled to a temp file and sent from there, so the scan is
+     * never buffered in memory. Multi-page PDFs are split and their pages
+     * OCR'd in parallel (up to {@code app.extraction.ocr.page-concurrency}
+     * across all uploads), then joined in page order.
+     */
+    @Override
     public String extractRawText(MultipartFile file) throws IOException {
         logger.info("Starting Azure OCR extraction for file: {}", file.getOriginalFilename());
 
+        Path workDir = Files.createTempDirectory("ocr-");
         try {
-            BinaryData data = BinaryData.fromStream(file.getInputStream(), file.getSize());
-            SyncPoller<OperationResult, AnalyzeResult> analyzeDocumentPoller = client
-                    .beginAnalyzeDocument("prebuilt-layout", data);
+            // 1. Spool the upload to disk
+            Path source = workDir.resolve("upload");
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, source);
+            }
+
+            // 2. Split multi-page PDFs
+            List<Path> pages = List.of(source);
+            if (pageConcurrency > 1 && PdfPages.isPdf(source)) {
+                try {
+                    List<Path> split = PdfPages.split(source, workDir);
+                    if (split.size() > 1)
+                        pages = split;
+                } catch (IOException | RuntimeException e) {
+                    // Azure may still read what OpenPDF cannot (e.g. encrypted files)
+                    logger.warn("Could not split {}, sending it whole: {}", file.getOriginalFilename(),
+                            e.getMessage());
+                }
+            }
 
-            AnalyzeResult result = analyzeDocumentPoller.getFinalResult();
-            String content = result.getContent();
+            // 3. OCR, page-parallel when split
+            String content = pages.size() == 1 ? analyze(pages.get(0)) : analyzePages(pages);
 
-            logger.info("Azure OCR completed. Content length: {}", content.length());
+            logger.info("Azure OCR completed. Pages: {}, content length: {}", pages.size(), content.length());
             logger.debug("Azure Raw Output: {}", content);
 
             return content;
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Azure OCR failed", e);
             throw new IOException("Azure OCR Extraction Failed: " + e.getMessage(), e);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private String analyze(Path document) throws IOException {
+        try {
+            SyncPoller<OperationResult, AnalyzeResult> analyzeDocumentPoller = client
+                    .beginAnalyzeDocument(MODEL, BinaryData.fromFile(document));
+            return analyzeDocumentPoller.getFinalResult().getContent();
+        } catch (Exception e) {
+            logger.error("Azure OCR failed", e);
+            throw new IOException("Azure OCR Extraction Failed: " + e.getMessage(), e);
+        }
+    }
+
+    private String analyzePages(List<Path> pages) throws IOException {
+        ExecutorService pool = pagePool();
+        List<Future<String>> results = new ArrayList<>(pages.size());
+        for (Path page : pages) {
+            results.add(pool.submit(() -> analyze(page)));
+        }
+        StringBuilder content = new StringBuilder();
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                if (i > 0)
+                    content.append('\n');
+                content.append(results.get(i).get());
+            }
+            return content.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Azure OCR interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException("Azure OCR Extraction Failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // A failed or abandoned upload has no use for the remaining pages
+            for (Future<String> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    private synchronized ExecutorService pagePool() {
+        if (pagePool == null) {
+            AtomicInteger n = new AtomicInteger();
+            pagePool = Executors.newFixedThreadPool(pageConcurrency, r -> {
+                Thread t = new Thread(r, "ocr-page-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return pagePool;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (pagePool != null)
+            pagePool.shutdownNow();
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Could not delete OCR temp files in {}: {}", dir, e.getMessage());
         }
     }
 }
@@ -1,56 +1,80 @@
 package com.fci.automation.service;
 
+import com.fci.automation.dto.IssueSaveReport;
 import com.fci.automation.dto.IssueSlipDTO;
+import com.fci.automation.dto.WorkSlipPage;
 import com.fci.automation.dto.WorkSlipResult;
 import com.fci.automation.entity.WorkSlip;
 import com.fci.automation.repository.WorkSlipRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BillingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BillingService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Slip numbers per duplicate lookup, well under database bind parameter limits
+    private static final int SLIP_LOOKUP_CHUNK = 1000;
+    private static final int MAX_PAGE_SIZE = 500;
 
     private final WorkSlipRepository workSlipRepository;
-    private final GoogleAIStudioService googleAIStudioService;
+    private final WorkSlipExtractionPipeline extractionPipeline;
 
-    public BillingService(WorkSlipRepository workSlipRepository, GoogleAIStudioService googleAIStudioService) {
+    public BillingService(WorkSlipRepository workSlipRepository, WorkSlipExtractionPipeline extractionPipeline) {
         this.workSlipRepository = workSlipRepository;
-        this.googleAIStudioService = googleAIStudioService;
+        this.extractionPipeline = extractionPipeline;
     }
 
     /**
      * EXTRACT ISSUE DATA (Google AI Direct)
+     * Files are extracted concurrently; rows come back in upload (SI No) order.
      */
     public List<IssueSlipDTO> extractIssueData(List<MultipartFile> files) {
-        List<IssueSlipDTO> extractedSlips = new ArrayList<>();
-        int siCounter = 1;
+        return extractIssueDataAsync(files).join();
+    }
+
+    /** Same as {@link #extractIssueData}, completing once every file is done. */
+    public CompletableFuture<List<IssueSlipDTO>> extractIssueDataAsync(List<MultipartFile> files) {
+        List<CompletableFuture<WorkSlipResult>> pending = extractionPipeline.submit(files);
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .handle((done, error) -> toIssueSlips(files, pending));
+    }
+
+    private List<IssueSlipDTO> toIssueSlips(List<MultipartFile> files, List<CompletableFuture<WorkSlipResult>> done) {
+        List<IssueSlipDTO> extractedSlips = new ArrayList<>(files.size());
 
-        for (MultipartFile file : files) {
+        for (int i = 0; i < files.size(); i++) {
             IssueSlipDTO dto = new IssueSlipDTO();
-            dto.setSiNo(String.valueOf(siCounter++));
+            dto.setSiNo(String.valueOf(i + 1));
 
             try {
-                // Call Google AI
-                WorkSlipResult result = googleAIStudioService.extractWorkSlip(file);
+                // Google AI result (already complete)
+                WorkSlipResult result = done.get(i).join();
 
                 // Map Result to DTO
                 mapResultToDTO(dto, result);
 
             } catch (Exception e) {
-                logger.error("Google AI Extraction Failed for file: " + file.getOriginalFilename(), e);
+                Throwable cause = WorkSlipExtractionPipeline.failureOf(e);
+                logger.error("Google AI Extraction Failed for file: " + files.get(i).getOriginalFilename(), cause);
                 dto.setStatus("NEEDS_VERIFICATION");
-                dto.setWarningMessage("Extraction Error: " + e.getMessage());
+                dto.setWarningMessage("Extraction Error: " + cause.getMessage());
             }
 
             extractedSlips.add(dto);
@@ -108,45 +132,75 @@ public class BillingService {
     /**
      * SAVE ISSUE DATA (Step 2 Completion)
      * STRICT VALIDATION: No unverified rows. Duplicates blocked.
+     * Every row is checked (duplicates within the batch and against saved
+     * slips in one query); if any row fails nothing is saved and the report
+     * lists all problems. Otherwise the slips are inserted in JDBC batches.
      */
     @Transactional
-    public void saveIssueData(List<IssueSlipDTO> dtos) {
+    public IssueSaveReport saveIssueData(List<IssueSlipDTO> dtos) {
+        IssueSaveReport report = new IssueSaveReport();
+        List<IssueSaveReport.RowError> errors = report.getErrors();
+
+        // 1. Row validation, and the first row of each slip number
+        Map<String, IssueSlipDTO> bySlipNumber = new LinkedHashMap<>();
         for (IssueSlipDTO dto : dtos) {
-            // 1. BLOCKING VALIDATION: Status Check
             if ("NEEDS_VERIFICATION".equals(dto.getStatus())) {
-                throw new RuntimeException("Validation Failed: Row SI No " + dto.getSiNo() + " requires verification.");
+                errors.add(rowError(dto, "status", "requires verification."));
             }
-
-            // 2. BLOCKING VALIDATION: Missing Fields
             if (dto.getSlipNumber() == null || dto.getSlipNumber().isBlank()) {
-                throw new RuntimeException(
-                        "Validation Failed: Row SI No " + dto.getSiNo() + " is missing Work Slip No.");
+                errors.add(rowError(dto, "slipNumber", "is missing Work Slip No."));
+            } else {
+                IssueSlipDTO first = bySlipNumber.putIfAbsent(dto.getSlipNumber(), dto);
+                if (first != null)
+                    errors.add(rowError(dto, "slipNumber", "repeats Work Slip No " + dto.getSlipNumber()
+                            + " of Row SI No " + first.getSiNo() + "."));
             }
             if (dto.getEntryDate() == null) {
-                throw new RuntimeException("Validation Failed: Row SI No " + dto.getSiNo() + " is missing Date.");
+                errors.add(rowError(dto, "entryDate", "is missing Date."));
             }
             if (dto.getTotalBags() == null || dto.getTotalBags() <= 0) {
-                throw new RuntimeException(
-                        "Validation Failed: Row SI No " + dto.getSiNo() + " has invalid Bags count.");
+                errors.add(rowError(dto, "totalBags", "has invalid Bags count."));
             }
+        }
 
-            // 3. DUPLICATE CHECK (Strict: Slip No + Category)
-            if (workSlipRepository.existsBySlipNumberAndCategory(dto.getSlipNumber(),
-                    WorkSlip.WorkSlipCategory.ISSUE)) {
-                throw new RuntimeException(
-                        "Duplicate work slip detected: Work Slip No " + dto.getSlipNumber() + ". Please review.");
+        // 2. DUPLICATE CHECK against saved slips, one IN query per chunk
+        List<String> slipNumbers = new ArrayList<>(bySlipNumber.keySet());
+        for (int from = 0; from < slipNumbers.size(); from += SLIP_LOOKUP_CHUNK) {
+            List<String> chunk = slipNumbers.subList(from, Math.min(from + SLIP_LOOKUP_CHUNK, slipNumbers.size()));
+            for (String existing : workSlipRepository.findExistingSlipNumbers(chunk)) {
+                IssueSlipDTO dto = bySlipNumber.get(existing);
+                if (dto != null)
+                    errors.add(rowError(dto, "slipNumber",
+                            "is a duplicate: Work Slip No " + existing + " is already saved."));
             }
+        }
 
-            // 4. SAVE
+        if (!errors.isEmpty()) {
+            report.setMessage("Validation Failed: " + errors.size() + " problem(s), nothing saved. Row SI No "
+                    + errors.get(0).getSiNo() + " " + errors.get(0).getMessage());
+            return report;
+        }
+
+        // 3. SAVE, inserted in JDBC batches (hibernate.jdbc.batch_size)
+        List<WorkSlip> slips = new ArrayList<>(dtos.size());
+        for (IssueSlipDTO dto : dtos) {
             WorkSlip slip = new WorkSlip();
             slip.setCategory(WorkSlip.WorkSlipCategory.ISSUE);
             slip.setSlipNumber(dto.getSlipNumber());
             slip.setEntryDate(dto.getEntryDate());
             slip.setIssueTotalBags(dto.getTotalBags());
             slip.setImagePath("placeholder_path"); // Simplified for Phase 16
-
-            workSlipRepository.save(slip);
+            slips.add(slip);
         }
+        workSlipRepository.saveAll(slips);
+
+        report.setSaved(slips.size());
+        report.setMessage("Saved " + slips.size() + " issue slips.");
+        return report;
+    }
+
+    private static IssueSaveReport.RowError rowError(IssueSlipDTO dto, String field, String message) {
+        return new IssueSaveReport.RowError(dto.getSiNo(), dto.getSlipNumber(), field, message);
     }
 
     public List<WorkSlip> getSavedIssueSlips() {
@@ -157,4 +211,56 @@ public class BillingService {
                 LocalDate.of(2000, 1, 1), LocalDate.of(2100, 12, 31) // Placeholder range
         );
     }
+
+    /**
+     * A page of saved ISSUE slips dated {@code from}..{@code to}, newest
+     * first, after the slip the cursor points at (first page when null).
+     * Keyset paging: each page is one index range scan, however deep into the
+     * table it is.
+     */
+    public WorkSlipPage getIssueSlipPage(LocalDate from, LocalDate to, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // One extra row tells whether there is a next page
+        Pageable page = PageRequest.ofSize(limit + 1);
+        List<WorkSlip> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = workSlipRepository.findFirstPage(WorkSlip.WorkSlipCategory.ISSUE, from, to, page);
+        } else {
+            String[] after = decodeCursor(cursor);
+            rows = workSlipRepository.findPageAfter(WorkSlip.WorkSlipCategory.ISSUE, from, to,
+                    LocalDate.parse(after[0]), after[1], page);
+        }
+        if (rows.size() <= limit)
+            return new WorkSlipPage(rows, null);
+        List<WorkSlip> items = new ArrayList<>(rows.subList(0, limit));
+        return new WorkSlipPage(items, encodeCursor(items.get(limit - 1)));
+    }
+
+    /** Slips and issued bags per day, dated {@code from}..{@code to}. */
+    public List<WorkSlipRepository.DailyBags> getIssueBagsByDay(LocalDate from, LocalDate to) {
+        return workSlipRepository.sumIssueBagsByDay(from, to);
+    }
+
+    /** Slips and issued bags per month, dated {@code from}..{@code to}. */
+    public List<WorkSlipRepository.MonthlyBags> getIssueBagsByMonth(LocalDate from, LocalDate to) {
+        return workSlipRepository.sumIssueBagsByMonth(from, to);
+    }
+
+    // Opaque to clients: base64url of "<entry date>|<slip number>"
+    private static String encodeCursor(WorkSlip last) {
+        String key = last.getEntryDate() + "|" + last.getSlipNumber();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = key.indexOf('|');
+            String[] after = { key.substring(0, bar), key.substring(bar + 1) };
+            LocalDate.parse(after[0]);
+            return after;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
 }
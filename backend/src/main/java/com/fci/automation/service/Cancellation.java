@@ -0,0 +1,43 @@
+package com.fci.automation.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets the caller of an async call give up on it. The callee checks
+ * {@link #isCancelled()} before each step (attempt, retry) and registers
+ * hooks that abort work already under way; hooks registered after
+ * {@link #cancel()} run at once.
+ */
+public final class Cancellation {
+
+    // Guarded by this
+    private boolean cancelled;
+    private final List<Runnable> hooks = new ArrayList<>();
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled)
+                return;
+            cancelled = true;
+            toRun = new ArrayList<>(hooks);
+            hooks.clear();
+        }
+        toRun.forEach(Runnable::run);
+    }
+
+    public void onCancel(Runnable hook) {
+        synchronized (this) {
+            if (!cancelled) {
+                hooks.add(hook);
+                return;
+            }
+        }
+        hook.run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.fci.automation.service;
+
+/**
+ * Minimal circuit breaker for a remote API: after {@code failureThreshold}
+ * consecutive failures it opens and rejects calls for {@code openMillis},
+ * then lets a single trial call through (half-open). The trial's success
+ * closes it again, its failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /** Whether a call may go out now; every permitted call must report success or failure. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight)
+                    return false;
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /** A permitted call given up by its caller: says nothing about the API, only frees the trial slot. */
+    public synchronized void onAbandoned() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** Message for calls rejected while open. */
+    public synchronized String rejection() {
+        long waitMs = Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+        return name + " is unavailable after " + consecutiveFailures + " consecutive failures, retry in "
+                + (waitMs + 999) / 1000 + "s";
+    }
+}
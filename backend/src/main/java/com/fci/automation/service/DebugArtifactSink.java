@@ -0,0 +1,245 @@
+package com.fci.automation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Keeps the debug artifacts of extraction runs (OCR text, structured JSON)
+ * off the request path. {@link #submit} only enqueues; one background thread
+ * writes queued runs in batches into per-day zip archives under
+ * {@code app.debug.artifacts.dir}, each run as a {@code <run id>/} folder.
+ *
+ * An archive stays open while runs keep coming and is closed (and so becomes
+ * readable) when the day changes or after {@code idle-close-seconds} without
+ * runs; later runs go to a new part for the same day. Closed archives are
+ * deleted oldest first once they exceed {@code max-bytes}. When the queue is
+ * full, runs are dropped rather than slowing extraction down.
+ */
+@Service
+public class DebugArtifactSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(DebugArtifactSink.class);
+
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+    private static final int MAX_BATCH = 64;
+
+    @Value("${app.debug.artifacts.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.debug.artifacts.dir:debug_runs}")
+    private String dirName = "debug_runs";
+
+    @Value("${app.debug.artifacts.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    @Value("${app.debug.artifacts.max-bytes:536870912}")
+    private long maxBytes = 512L * 1024 * 1024;
+
+    @Value("${app.debug.artifacts.idle-close-seconds:10}")
+    private long idleCloseSeconds = 10;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private BlockingQueue<Run> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private Path dir;
+
+    // Writer thread only
+    private ZipOutputStream archive;
+    private Path archivePath;
+    private LocalDate archiveDay;
+    private long lastWriteAt;
+
+    private static final class Run {
+        private final String id;
+        private final LocalDate day;
+        private final Map<String, String> files;
+
+        private Run(String id, LocalDate day, Map<String, String> files) {
+            this.id = id;
+            this.day = day;
+            this.files = files;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled)
+            return;
+        dir = Paths.get(dirName).toAbsolutePath().normalize();
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        writer = new Thread(this::writeLoop, "debug-artifacts");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues one run's files (name to content) without blocking.
+     *
+     * @return the run id, or null when disabled or dropped because the queue is full
+     */
+    public String submit(Map<String, String> files) {
+        if (!enabled || !running)
+            return null;
+        LocalDateTime now = LocalDateTime.now();
+        String id = now.format(RUN_ID_FORMAT) + "-" + sequence.incrementAndGet();
+        if (!queue.offer(new Run(id, now.toLocalDate(), new LinkedHashMap<>(files)))) {
+            long n = dropped.incrementAndGet();
+            if (n % 100 == 1)
+                logger.warn("Debug artifact queue full, dropped {} runs so far", n);
+            return null;
+        }
+        return id;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Writes what is queued, closes the archive and stops the writer. */
+    @PreDestroy
+    void stop() {
+        if (writer == null)
+            return;
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Run> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Run first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (archive != null && idleFor() >= TimeUnit.SECONDS.toMillis(idleCloseSeconds))
+                        closeArchive();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                logger.warn("Writing debug artifacts failed: {}", e.getMessage());
+                closeArchive();
+            } finally {
+                batch.clear();
+            }
+        }
+        closeArchive();
+    }
+
+    private long idleFor() {
+        return System.currentTimeMillis() - lastWriteAt;
+    }
+
+    private void write(List<Run> batch) throws IOException {
+        for (Run run : batch) {
+            if (archive != null && !run.day.equals(archiveDay))
+                closeArchive();
+            if (archive == null)
+                openArchive(run.day);
+            for (Map.Entry<String, String> file : run.files.entrySet()) {
+                archive.putNextEntry(new ZipEntry(run.id + "/" + file.getKey()));
+                archive.write(file.getValue() == null ? new byte[0] : file.getValue().getBytes(StandardCharsets.UTF_8));
+                archive.closeEntry();
+            }
+        }
+        archive.flush();
+        lastWriteAt = System.currentTimeMillis();
+    }
+
+    private void openArchive(LocalDate day) throws IOException {
+        Files.createDirectories(dir);
+        // artifacts-<day>.zip, then artifacts-<day>.1.zip, ... for later parts of the day
+        Path path = dir.resolve("artifacts-" + day + ".zip");
+        for (int part = 1; Files.exists(path); part++) {
+            path = dir.resolve("artifacts-" + day + "." + part + ".zip");
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024);
+        archive = new ZipOutputStream(out);
+        archivePath = path;
+        archiveDay = day;
+    }
+
+    private void closeArchive() {
+        if (archive == null)
+            return;
+        try {
+            archive.close();
+        } catch (IOException e) {
+            logger.warn("Closing debug archive {} failed: {}", archivePath, e.getMessage());
+        }
+        archive = null;
+        archivePath = null;
+        archiveDay = null;
+        enforceRetention();
+    }
+
+    // Deletes the oldest closed archives until the directory is back under max-bytes
+    private void enforceRetention() {
+        try (Stream<Path> stream = Files.list(dir)) {
+            List<Path> archives = stream
+                    .filter(p -> p.getFileName().toString().startsWith("artifacts-")
+                            && p.getFileName().toString().endsWith(".zip"))
+                    .sorted((a, b) -> Long.compare(modifiedAt(a), modifiedAt(b)))
+                    .collect(Collectors.toList());
+            long total = 0;
+            for (Path p : archives) {
+                total += Files.size(p);
+            }
+            for (Path p : archives) {
+                if (total <= maxBytes)
+                    break;
+                long size = Files.size(p);
+                if (Files.deleteIfExists(p))
+                    total -= size;
+            }
+        } catch (IOException e) {
+            logger.warn("Debug archive retention failed: {}", e.getMessage());
+        }
+    }
+
+    private static long modifiedAt(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
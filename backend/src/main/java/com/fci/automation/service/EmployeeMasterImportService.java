@@ -0,0 +1,289 @@
+package com.fci.automation.service;
+
+import com.fci.automation.dto.EmployeeImportReport;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.repository.EmployeeRepository;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Employee master upload: upserts employees by Member ID from the first
+ * sheet (.xlsx streamed row by row, legacy .xls through the DOM).
+ *
+ * Existing employees are loaded once and indexed by each unique key (Member
+ * ID, UAN, IP number, bank account), so conflicts with saved employees and
+ * between rows of the file are found in memory, without a query per row. A
+ * row with a problem is skipped and reported; the other rows are written at
+ * the end, as JDBC batches ({@code hibernate.jdbc.batch_size}).
+ */
+@Service
+public class EmployeeMasterImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeMasterImportService.class);
+
+    private final EmployeeRepository employeeRepository;
+
+    public EmployeeMasterImportService(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Transactional
+    public EmployeeImportReport importMaster(MultipartFile file) {
+        // 1. Saved employees, indexed by every unique key
+        MasterImport ctx = new MasterImport(employeeRepository.findAll());
+
+        Path spool = null;
+        try {
+            // 2. Spool to disk so the .xlsx can be opened as a file-backed package
+            spool = Files.createTempFile("employee-import-", ".upload");
+            file.transferTo(spool);
+
+            // 3. Check and apply row by row
+            if (FileMagic.valueOf(spool.toFile()) == FileMagic.OOXML) {
+                StreamingSheetReader.readFirstSheet(spool, StreamingSheetReader.wholeNumbersAsDigits(),
+                        ctx::row);
+            } else {
+                try (Workbook workbook = WorkbookFactory.create(spool.toFile(), null, true)) {
+                    Sheet sheet = workbook.getSheetAt(0);
+                    List<String> cells = new ArrayList<>();
+                    for (Row row : sheet) {
+                        cells.clear();
+                        for (int c = 0; c < row.getLastCellNum(); c++) {
+                            cells.add(getCellValue(row.getCell(c)));
+                        }
+                        ctx.row(row.getRowNum(), cells);
+                    }
+                }
+            }
+            if (ctx.columns == null)
+                throw new RuntimeException("Excel file is empty or missing headers.");
+
+            // 4. Write: new employees inserted, changed ones updated by dirty checking
+            employeeRepository.saveAll(ctx.created);
+            employeeRepository.flush();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException ignored) {
+                    // Temp dir cleanup will catch it
+                }
+            }
+        }
+
+        EmployeeImportReport report = ctx.report;
+        report.setCreated(ctx.created.size());
+        report.setMessage("Import Completed. Created: " + report.getCreated() + ", Updated: " + report.getUpdated()
+                + ", Skipped: " + report.getSkipped());
+        logger.info("Employee master upload: {} rows, {}", report.getRows(), report.getMessage());
+        return report;
+    }
+
+    /** Column positions, found from the header row. */
+    private static class Columns {
+        int memberId;
+        int name;
+        int uan;
+        int ip;
+        int bank;
+        int ifsc;
+        int category;
+    }
+
+    /** Per-upload state: the key indexes, kept current as rows are applied. */
+    private class MasterImport {
+        private final Map<String, Employee> byMemberId = new HashMap<>();
+        // Key value -> Member ID holding it, saved or from an earlier row
+        private final Map<String, String> uanOwners = new HashMap<>();
+        private final Map<String, String> ipOwners = new HashMap<>();
+        private final Map<String, String> bankOwners = new HashMap<>();
+        // Member ID -> sheet row (1-based) that first set it in this file
+        private final Map<String, Integer> rowOfMember = new HashMap<>();
+
+        private final List<Employee> created = new ArrayList<>();
+        private final EmployeeImportReport report = new EmployeeImportReport();
+        private Columns columns;
+
+        MasterImport(List<Employee> saved) {
+            for (Employee emp : saved) {
+                byMemberId.put(emp.getMemberId(), emp);
+                own(uanOwners, emp.getUanNumber(), emp.getMemberId());
+                own(ipOwners, emp.getIpNumber(), emp.getMemberId());
+                own(bankOwners, emp.getBankAccountNo(), emp.getMemberId());
+            }
+        }
+
+        void row(int rowNum, List<String> cells) {
+            if (columns == null) {
+                if (rowNum != 0)
+                    throw new RuntimeException("Excel file is empty or missing headers.");
+                columns = header(cells);
+                return;
+            }
+
+            String memberId = cellAt(cells, columns.memberId);
+            if (memberId.isEmpty())
+                return;
+            report.setRows(report.getRows() + 1);
+            int rowNumber = rowNum + 1;
+
+            // Everything is checked before the employee is touched, so a skipped row changes nothing
+            Integer firstRow = rowOfMember.putIfAbsent(memberId, rowNumber);
+            if (firstRow != null) {
+                skip(rowNumber, memberId, "Member ID repeats row " + firstRow + "; row skipped");
+                return;
+            }
+            String uan = columns.uan == -1 ? "" : cellAt(cells, columns.uan);
+            String ip = columns.ip == -1 ? "" : cellAt(cells, columns.ip);
+            String bank = columns.bank == -1 ? "" : cellAt(cells, columns.bank);
+            String problem = conflict(uanOwners, uan, memberId, "UAN");
+            if (problem == null)
+                problem = conflict(ipOwners, ip, memberId, "IP");
+            if (problem == null)
+                problem = conflict(bankOwners, bank, memberId, "Bank Account");
+            Employee emp = byMemberId.get(memberId);
+            if (problem == null && emp == null && (columns.name == -1 || cellAt(cells, columns.name).isEmpty()))
+                problem = "Name is required for a new Member ID";
+            if (problem != null) {
+                skip(rowNumber, memberId, problem);
+                return;
+            }
+
+            // Upsert
+            if (emp == null) {
+                emp = new Employee();
+                emp.setMemberId(memberId);
+                emp.setStatus(Employee.Status.ACTIVE);
+                byMemberId.put(memberId, emp);
+                created.add(emp);
+            } else {
+                report.setUpdated(report.getUpdated() + 1);
+            }
+
+            if (columns.name != -1)
+                emp.setFullName(cellAt(cells, columns.name));
+            if (!uan.isEmpty()) {
+                emp.setUanNumber(uan);
+                own(uanOwners, uan, memberId);
+            }
+            if (!ip.isEmpty()) {
+                emp.setIpNumber(ip);
+                own(ipOwners, ip, memberId);
+            }
+            if (!bank.isEmpty()) {
+                emp.setBankAccountNo(bank);
+                own(bankOwners, bank, memberId);
+            }
+            if (columns.ifsc != -1)
+                emp.setIfscCode(cellAt(cells, columns.ifsc));
+
+            // Category
+            String catStr = columns.category == -1 ? "" : cellAt(cells, columns.category);
+            try {
+                if (!catStr.isEmpty()) {
+                    emp.setCategory(Employee.Category.valueOf(catStr.toUpperCase().trim()));
+                } else if (emp.getCategory() == null) {
+                    emp.setCategory(Employee.Category.CL);
+                }
+            } catch (IllegalArgumentException e) {
+                if (emp.getCategory() == null)
+                    emp.setCategory(Employee.Category.CL);
+            }
+        }
+
+        // A key value is taken when a saved employee or an earlier row holds it
+        // for another member (values given up in the same file still count,
+        // as inserts are flushed before updates)
+        private String conflict(Map<String, String> owners, String value, String memberId, String label) {
+            if (value.isEmpty())
+                return null;
+            String owner = owners.get(value);
+            if (owner == null || owner.equals(memberId))
+                return null;
+            return label + " " + value + " is already used by Member ID " + owner;
+        }
+
+        private void own(Map<String, String> owners, String value, String memberId) {
+            if (value != null && !value.isEmpty())
+                owners.putIfAbsent(value, memberId);
+        }
+
+        private void skip(int rowNumber, String memberId, String message) {
+            report.setSkipped(report.getSkipped() + 1);
+            report.getProblems().add(new EmployeeImportReport.Problem(rowNumber, memberId, message));
+        }
+
+        private Columns header(List<String> cells) {
+            Map<String, Integer> colMap = new HashMap<>();
+            List<String> foundHeaders = new ArrayList<>();
+            for (int c = 0; c < cells.size(); c++) {
+                String header = cells.get(c).toLowerCase().trim();
+                if (header.isEmpty())
+                    continue;
+                colMap.put(header, c);
+                foundHeaders.add(header);
+            }
+
+            Columns cols = new Columns();
+            cols.memberId = findColIndex(colMap, "member id", "memberid", "member_id", "emp id", "employee id", "id");
+            cols.name = findColIndex(colMap, "name", "full name", "fullname", "employee name");
+            cols.uan = findColIndex(colMap, "uan", "uan number", "uan_number");
+            cols.ip = findColIndex(colMap, "ip", "ip number", "ip_number");
+            cols.bank = findColIndex(colMap, "bank", "bank account", "account no", "ac no");
+            cols.ifsc = findColIndex(colMap, "ifsc", "ifsc code");
+            cols.category = findColIndex(colMap, "category", "cat");
+
+            if (cols.memberId == -1)
+                throw new RuntimeException("Missing required column: Member ID. Found headers: " + foundHeaders);
+            return cols;
+        }
+    }
+
+    private static int findColIndex(Map<String, Integer> map, String... keys) {
+        for (String key : keys) {
+            for (String mapKey : map.keySet()) {
+                if (mapKey.contains(key))
+                    return map.get(mapKey);
+            }
+        }
+        return -1;
+    }
+
+    private static String cellAt(List<String> cells, int idx) {
+        return idx >= 0 && idx < cells.size() ? cells.get(idx).trim() : "";
+    }
+
+    private static String getCellValue(Cell cell) {
+        if (cell == null)
+            return "";
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue().trim();
+            case NUMERIC:
+                return String.valueOf((long) cell.getNumericCellValue()); // Integer only for IDs
+            default:
+                return "";
+        }
+    }
+}
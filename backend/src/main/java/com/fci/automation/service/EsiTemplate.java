@@ -0,0 +1,284 @@
+package com.fci.automation.service;
+
+import org.apache.poi.common.usermodel.HyperlinkType;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ESI upload template (ESI.xls) read into plain data: every sheet's
+ * cells, row heights, column widths and styles, merged regions and links.
+ * It is parsed once and never changed afterwards, so one instance serves
+ * concurrent exports; {@link #copyInto} rebuilds it in each export's new
+ * workbook (.xls or .xlsx), which costs far less than parsing the file.
+ *
+ * Colours are kept as palette indexes; the template uses the default
+ * palette, which .xlsx shares.
+ */
+public final class EsiTemplate {
+
+    // Widths are copied for this many leading columns of each sheet
+    private static final int COPIED_COLUMNS = 16;
+
+    private final List<SheetData> sheets;
+    private final Map<Integer, StyleData> styles;
+
+    private EsiTemplate(List<SheetData> sheets, Map<Integer, StyleData> styles) {
+        this.sheets = sheets;
+        this.styles = styles;
+    }
+
+    /** Reads a template workbook; the first sheet is the one data rows go to. */
+    public static EsiTemplate parse(InputStream xls) throws IOException {
+        try (HSSFWorkbook workbook = new HSSFWorkbook(xls)) {
+            Map<Integer, StyleData> styles = new HashMap<>();
+            List<SheetData> sheets = new ArrayList<>();
+            for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+                Sheet sheet = workbook.getSheetAt(s);
+                SheetData data = new SheetData(sheet.getSheetName(), sheet.getDefaultRowHeight());
+                for (int c = 0; c < COPIED_COLUMNS; c++) {
+                    data.columnWidths[c] = sheet.getColumnWidth(c);
+                    CellStyle columnStyle = sheet.getColumnStyle(c);
+                    if (columnStyle != null)
+                        data.columnStyles.put(c, style(workbook, columnStyle, styles));
+                }
+                for (int m = 0; m < sheet.getNumMergedRegions(); m++) {
+                    data.merged.add(sheet.getMergedRegion(m).copy());
+                }
+                for (Row row : sheet) {
+                    RowData rowData = new RowData(row.getRowNum(), row.getHeight());
+                    for (Cell cell : row) {
+                        rowData.cells.add(cell(workbook, cell, styles));
+                    }
+                    data.rows.add(rowData);
+                }
+                sheets.add(data);
+            }
+            return new EsiTemplate(sheets, styles);
+        }
+    }
+
+    /**
+     * Creates the template's sheets, in order, in an empty workbook.
+     *
+     * @return the first (data) sheet, with its header rows written
+     */
+    public Sheet copyInto(Workbook workbook) {
+        Map<Integer, CellStyle> created = new HashMap<>();
+        Sheet first = null;
+        for (SheetData data : sheets) {
+            Sheet sheet = workbook.createSheet(data.name);
+            sheet.setDefaultRowHeight(data.defaultRowHeight);
+            for (int c = 0; c < COPIED_COLUMNS; c++) {
+                sheet.setColumnWidth(c, data.columnWidths[c]);
+            }
+            for (Map.Entry<Integer, Integer> columnStyle : data.columnStyles.entrySet()) {
+                sheet.setDefaultColumnStyle(columnStyle.getKey(), style(workbook, columnStyle.getValue(), created));
+            }
+            for (RowData rowData : data.rows) {
+                Row row = sheet.createRow(rowData.index);
+                row.setHeight(rowData.height);
+                for (CellData cellData : rowData.cells) {
+                    Cell cell = row.createCell(cellData.column);
+                    if (cellData.type == CellType.STRING) {
+                        cell.setCellValue(cellData.text);
+                    } else if (cellData.type == CellType.NUMERIC) {
+                        cell.setCellValue(cellData.number);
+                    }
+                    cell.setCellStyle(style(workbook, cellData.style, created));
+                    if (cellData.linkAddress != null) {
+                        Hyperlink link = workbook.getCreationHelper().createHyperlink(cellData.linkType);
+                        link.setAddress(cellData.linkAddress);
+                        cell.setHyperlink(link);
+                    }
+                }
+            }
+            for (CellRangeAddress region : data.merged) {
+                sheet.addMergedRegionUnsafe(region.copy());
+            }
+            if (first == null)
+                first = sheet;
+        }
+        workbook.setActiveSheet(0);
+        first.setSelected(true);
+        return first;
+    }
+
+    private CellStyle style(Workbook workbook, int index, Map<Integer, CellStyle> created) {
+        return created.computeIfAbsent(index, i -> styles.get(i).create(workbook));
+    }
+
+    private static CellData cell(HSSFWorkbook workbook, Cell cell, Map<Integer, StyleData> styles) {
+        CellData data = new CellData(cell.getColumnIndex(), cell.getCellType(), style(workbook, cell.getCellStyle(), styles));
+        if (data.type == CellType.STRING) {
+            data.text = cell.getStringCellValue();
+        } else if (data.type == CellType.NUMERIC) {
+            data.number = cell.getNumericCellValue();
+        } else {
+            // Formulas and errors do not occur in the template; keep the cell, styled and blank
+            data.type = CellType.BLANK;
+        }
+        Hyperlink link = cell.getHyperlink();
+        if (link != null && link.getAddress() != null) {
+            data.linkType = link.getType();
+            data.linkAddress = link.getAddress();
+        }
+        return data;
+    }
+
+    private static int style(HSSFWorkbook workbook, CellStyle style, Map<Integer, StyleData> styles) {
+        int index = style.getIndex();
+        styles.computeIfAbsent(index, i -> new StyleData(style, workbook.getFontAt(style.getFontIndex())));
+        return index;
+    }
+
+    private static final class SheetData {
+        private final String name;
+        private final short defaultRowHeight;
+        private final int[] columnWidths = new int[COPIED_COLUMNS];
+        private final Map<Integer, Integer> columnStyles = new LinkedHashMap<>();
+        private final List<CellRangeAddress> merged = new ArrayList<>();
+        private final List<RowData> rows = new ArrayList<>();
+
+        private SheetData(String name, short defaultRowHeight) {
+            this.name = name;
+            this.defaultRowHeight = defaultRowHeight;
+        }
+    }
+
+    private static final class RowData {
+        private final int index;
+        private final short height;
+        private final List<CellData> cells = new ArrayList<>();
+
+        private RowData(int index, short height) {
+            this.index = index;
+            this.height = height;
+        }
+    }
+
+    private static final class CellData {
+        private final int column;
+        private final int style;
+        private CellType type;
+        private String text;
+        private double number;
+        private HyperlinkType linkType;
+        private String linkAddress;
+
+        private CellData(int column, CellType type, int style) {
+            this.column = column;
+            this.type = type;
+            this.style = style;
+        }
+    }
+
+    /** Style and font attributes; palette colours by index. */
+    private static final class StyleData {
+        private final String fontName;
+        private final short fontHeight;
+        private final boolean bold;
+        private final boolean italic;
+        private final byte underline;
+        private final short fontColor;
+        private final HorizontalAlignment alignment;
+        private final VerticalAlignment verticalAlignment;
+        private final boolean wrap;
+        private final BorderStyle borderTop;
+        private final BorderStyle borderBottom;
+        private final BorderStyle borderLeft;
+        private final BorderStyle borderRight;
+        private final short topBorderColor;
+        private final short bottomBorderColor;
+        private final short leftBorderColor;
+        private final short rightBorderColor;
+        private final FillPatternType fillPattern;
+        private final short fillForegroundColor;
+        private final short fillBackgroundColor;
+        private final String dataFormat;
+        private final boolean locked;
+
+        private StyleData(CellStyle style, Font font) {
+            fontName = font.getFontName();
+            fontHeight = font.getFontHeight();
+            bold = font.getBold();
+            italic = font.getItalic();
+            underline = font.getUnderline();
+            fontColor = font.getColor();
+            alignment = style.getAlignment();
+            verticalAlignment = style.getVerticalAlignment();
+            wrap = style.getWrapText();
+            borderTop = style.getBorderTop();
+            borderBottom = style.getBorderBottom();
+            borderLeft = style.getBorderLeft();
+            borderRight = style.getBorderRight();
+            topBorderColor = style.getTopBorderColor();
+            bottomBorderColor = style.getBottomBorderColor();
+            leftBorderColor = style.getLeftBorderColor();
+            rightBorderColor = style.getRightBorderColor();
+            fillPattern = style.getFillPattern();
+            fillForegroundColor = style.getFillForegroundColor();
+            fillBackgroundColor = style.getFillBackgroundColor();
+            dataFormat = style.getDataFormatString();
+            locked = style.getLocked();
+        }
+
+        private CellStyle create(Workbook workbook) {
+            Font font = workbook.createFont();
+            font.setFontName(fontName);
+            font.setFontHeight(fontHeight);
+            font.setBold(bold);
+            font.setItalic(italic);
+            font.setUnderline(underline);
+            if (fontColor != Font.COLOR_NORMAL)
+                font.setColor(fontColor);
+
+            CellStyle style = workbook.createCellStyle();
+            style.setFont(font);
+            style.setAlignment(alignment);
+            style.setVerticalAlignment(verticalAlignment);
+            style.setWrapText(wrap);
+            style.setBorderTop(borderTop);
+            style.setBorderBottom(borderBottom);
+            style.setBorderLeft(borderLeft);
+            style.setBorderRight(borderRight);
+            if (borderTop != BorderStyle.NONE)
+                style.setTopBorderColor(topBorderColor);
+            if (borderBottom != BorderStyle.NONE)
+                style.setBottomBorderColor(bottomBorderColor);
+            if (borderLeft != BorderStyle.NONE)
+                style.setLeftBorderColor(leftBorderColor);
+            if (borderRight != BorderStyle.NONE)
+                style.setRightBorderColor(rightBorderColor);
+            if (fillPattern != FillPatternType.NO_FILL) {
+                style.setFillPattern(fillPattern);
+                style.setFillForegroundColor(fillForegroundColor);
+                if (fillBackgroundColor != IndexedColors.AUTOMATIC.getIndex())
+                    style.setFillBackgroundColor(fillBackgroundColor);
+            }
+            style.setDataFormat(workbook.createDataFormat().getFormat(dataFormat));
+            style.setLocked(locked);
+            return style;
+        }
+    }
+}
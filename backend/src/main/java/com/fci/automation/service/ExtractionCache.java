@@ -0,0 +1,229 @@
+package com.fci.automation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.dto.WorkSlipResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of work-slip extraction results, addressed by the SHA-256 of
+ * the uploaded file, so a re-uploaded scan skips the remote calls:
+ * <ul>
+ * <li>{@code <sha>.<ocr model>.txt}: Azure OCR text</li>
+ * <li>{@code <sha>.<prompt version>.json}: the structured
+ * {@link WorkSlipResult}; a prompt change gives new keys, while the OCR text
+ * stays reusable</li>
+ * </ul>
+ * Entries expire {@code app.extraction.cache.ttl-hours} after they were
+ * written, and the oldest are deleted once the directory exceeds
+ * {@code app.extraction.cache.max-bytes}. Failed extractions are not cached.
+ */
+@Service
+public class ExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.extraction.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.extraction.cache.ttl-hours:720}")
+    private long ttlHours = 720;
+
+    @Value("${app.extraction.cache.max-bytes:268435456}")
+    private long maxBytes = 256L * 1024 * 1024;
+
+    private Path dir = Paths.get(System.getProperty("user.dir") + "/uploads/extraction-cache").toAbsolutePath()
+            .normalize();
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    public ExtractionCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled)
+            return;
+        try {
+            Files.createDirectories(dir);
+            // Drop what expired while the app was down
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(this::isExpired).forEach(ExtractionCache::deleteQuietly);
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                bytes.set(files.mapToLong(ExtractionCache::sizeOf).sum());
+            }
+        } catch (IOException e) {
+            logger.warn("Extraction cache disabled, cannot use {}: {}", dir, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /** SHA-256 (hex) of the file bytes: the key for everything cached about it. */
+    public String fileKey(MultipartFile file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = file.getInputStream()) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    public String getOcrText(String fileKey, String ocrModel) {
+        return read(fileKey + "." + ocrModel + ".txt");
+    }
+
+    public void putOcrText(String fileKey, String ocrModel, String text) {
+        write(fileKey + "." + ocrModel + ".txt", text);
+    }
+
+    public WorkSlipResult getResult(String fileKey, String promptVersion) {
+        String json = read(fileKey + "." + promptVersion + ".json");
+        if (json == null)
+            return null;
+        try {
+            return objectMapper.readValue(json, WorkSlipResult.class);
+        } catch (IOException e) {
+            logger.warn("Unreadable extraction cache entry for {}: {}", fileKey, e.getMessage());
+            return null;
+        }
+    }
+
+    public void putResult(String fileKey, String promptVersion, WorkSlipResult result) {
+        try {
+            write(fileKey + "." + promptVersion + ".json", objectMapper.writeValueAsString(result));
+        } catch (IOException e) {
+            logger.warn("Extraction cache could not serialize result for {}: {}", fileKey, e.getMessage());
+        }
+    }
+
+    private String read(String name) {
+        if (!enabled)
+            return null;
+        Path file = dir.resolve(name);
+        try {
+            if (!Files.exists(file))
+                return null;
+            if (isExpired(file)) {
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file))
+                    bytes.addAndGet(-size);
+                return null;
+            }
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Extraction cache read failed for {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String name, String content) {
+        if (!enabled || content == null)
+            return;
+        Path file = dir.resolve(name);
+        try {
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            long previous = sizeOf(file);
+            // Write then rename, so readers never see a partial file
+            Path tmp = Files.createTempFile(dir, "extract-", ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (bytes.addAndGet(data.length - previous) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            logger.warn("Extraction cache write failed for {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Deletes the oldest entries until the cache is back under 90% of its budget
+    private void evict() throws IOException {
+        synchronized (evictionLock) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(dir)) {
+                files = stream.filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                        .sorted((a, b) -> Long.compare(modifiedAt(a), modifiedAt(b)))
+                        .collect(Collectors.toList());
+            }
+            long target = maxBytes / 10 * 9;
+            for (Path file : files) {
+                if (bytes.get() <= target)
+                    break;
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    bytes.addAndGet(-size);
+                }
+            }
+        }
+    }
+
+    // Entries are never touched after writing, so the modified time is the write time
+    private boolean isExpired(Path file) {
+        return System.currentTimeMillis() - modifiedAt(file) > Duration.ofHours(ttlHours).toMillis();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Retried at the next start
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static long modifiedAt(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
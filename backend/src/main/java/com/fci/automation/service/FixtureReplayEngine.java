@@ -0,0 +1,218 @@
+package com.fci.automation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.dto.WorkSlipResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Offline stand-in for Azure OCR and Gemini ({@code app.extraction.engine=replay}),
+ * for load testing the extraction path without remote calls.
+ *
+ * Serves recorded runs: every {@code azure_ocr.txt} / {@code google_result.json}
+ * pair under {@code app.extraction.replay.dir}, either in a run sub-directory
+ * or in a run folder of a {@link DebugArtifactSink} zip archive (what the
+ * Gemini client's debug output is written to). An upload is served the run
+ * named like the file (without extension), otherwise one picked by its
+ * content, so the same file always gets the same run. Structuring looks the
+ * run up by its OCR text.
+ *
+ * Each call waits a configurable latency (OCR blocking, structuring without
+ * holding a thread, like the real clients) and fails with the configured
+ * probability.
+ */
+@Service
+@ConditionalOnProperty(name = "app.extraction.engine", havingValue = "replay")
+public class FixtureReplayEngine implements OcrEngine, StructuringEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixtureReplayEngine.class);
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.extraction.replay.dir:debug_runs}")
+    private String fixtureDir = "debug_runs";
+
+    @Value("${app.extraction.replay.ocr-latency-ms:1500}")
+    private long ocrLatencyMs = 1500;
+
+    @Value("${app.extraction.replay.structuring-latency-ms:3000}")
+    private long structuringLatencyMs = 3000;
+
+    // Latencies vary by up to this fraction either way
+    @Value("${app.extraction.replay.latency-jitter:0.25}")
+    private double latencyJitter = 0.25;
+
+    @Value("${app.extraction.replay.ocr-error-rate:0}")
+    private double ocrErrorRate;
+
+    @Value("${app.extraction.replay.structuring-error-rate:0}")
+    private double structuringErrorRate;
+
+    private final List<Fixture> fixtures = new ArrayList<>();
+    private final Map<String, Fixture> byName = new HashMap<>();
+    private final Map<String, Fixture> byOcrText = new HashMap<>();
+
+    private static final class Fixture {
+        private final String name;
+        private final String ocrText;
+        private final String resultJson;
+
+        private Fixture(String name, String ocrText, String resultJson) {
+            this.name = name;
+            this.ocrText = ocrText;
+            this.resultJson = resultJson;
+        }
+    }
+
+    public FixtureReplayEngine(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void loadFixtures() throws IOException {
+        Path root = Paths.get(fixtureDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root))
+            throw new RuntimeException("Replay fixture directory not found: " + root);
+
+        List<Path> entries;
+        try (Stream<Path> stream = Files.list(root)) {
+            entries = stream.sorted().collect(Collectors.toList());
+        }
+        for (Path entry : entries) {
+            if (Files.isDirectory(entry)) {
+                Path ocr = entry.resolve("azure_ocr.txt");
+                Path result = entry.resolve("google_result.json");
+                if (Files.isRegularFile(ocr) && Files.isRegularFile(result))
+                    add(entry.getFileName().toString(), Files.readString(ocr, StandardCharsets.UTF_8),
+                            Files.readString(result, StandardCharsets.UTF_8));
+            } else if (entry.getFileName().toString().endsWith(".zip")) {
+                loadArchive(entry);
+            }
+        }
+        if (fixtures.isEmpty())
+            throw new RuntimeException("No azure_ocr.txt / google_result.json pairs under " + root);
+        logger.info("Extraction replay engine serving {} recorded runs from {}", fixtures.size(), root);
+    }
+
+    // Run folders of one debug archive; an archive still being written is skipped
+    private void loadArchive(Path zip) throws IOException {
+        Map<String, Map<String, String>> runs = new TreeMap<>();
+        try (ZipFile archive = new ZipFile(zip.toFile())) {
+            for (ZipEntry entry : Collections.list(archive.entries())) {
+                int slash = entry.getName().indexOf('/');
+                if (entry.isDirectory() || slash <= 0)
+                    continue;
+                try (InputStream in = archive.getInputStream(entry)) {
+                    runs.computeIfAbsent(entry.getName().substring(0, slash), k -> new HashMap<>())
+                            .put(entry.getName().substring(slash + 1),
+                                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (ZipException e) {
+            logger.warn("Skipping unreadable replay archive {}: {}", zip, e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, Map<String, String>> run : runs.entrySet()) {
+            String ocr = run.getValue().get("azure_ocr.txt");
+            String result = run.getValue().get("google_result.json");
+            if (ocr != null && result != null)
+                add(run.getKey(), ocr, result);
+        }
+    }
+
+    private void add(String name, String ocrText, String resultJson) throws IOException {
+        Fixture fixture = new Fixture(name, ocrText, resultJson);
+        // Fail at startup, not mid load test
+        objectMapper.readValue(fixture.resultJson, WorkSlipResult.class);
+        fixtures.add(fixture);
+        byName.put(fixture.name, fixture);
+        byOcrText.putIfAbsent(fixture.ocrText, fixture);
+    }
+
+    @Override
+    public String model() {
+        return "replay";
+    }
+
+    @Override
+    public String version() {
+        return "replay";
+    }
+
+    @Override
+    public String extractRawText(MultipartFile file) throws IOException {
+        Fixture fixture = fixtureFor(file);
+        try {
+            Thread.sleep(latency(ocrLatencyMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay OCR interrupted", e);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < ocrErrorRate)
+            throw new IOException("Azure OCR Extraction Failed: injected replay error");
+        return fixture.ocrText;
+    }
+
+    @Override
+    public CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText) {
+        Fixture fixture = byOcrText.get(rawOcrText);
+        if (fixture == null)
+            fixture = fixtures.get(Math.floorMod(rawOcrText.hashCode(), fixtures.size()));
+        String json = fixture.resultJson;
+        return CompletableFuture.supplyAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < structuringErrorRate)
+                throw new java.util.concurrent.CompletionException(
+                        new IOException("Google AI Studio API Error: 503 - injected replay error"));
+            try {
+                return objectMapper.readValue(json, WorkSlipResult.class);
+            } catch (IOException e) {
+                throw new java.util.concurrent.CompletionException(e);
+            }
+        }, CompletableFuture.delayedExecutor(latency(structuringLatencyMs), TimeUnit.MILLISECONDS));
+    }
+
+    private Fixture fixtureFor(MultipartFile file) throws IOException {
+        String name = file.getOriginalFilename();
+        if (name != null) {
+            int dot = name.lastIndexOf('.');
+            Fixture named = byName.get(dot > 0 ? name.substring(0, dot) : name);
+            if (named != null)
+                return named;
+        }
+        int h = java.util.Arrays.hashCode(file.getBytes());
+        return fixtures.get(Math.floorMod(h, fixtures.size()));
+    }
+
+    private long latency(long base) {
+        if (base <= 0)
+            return 0;
+        double factor = 1 + latencyJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(0, Math.round(base * factor));
+    }
+}
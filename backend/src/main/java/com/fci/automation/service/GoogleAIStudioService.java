@@ -6,8 +6,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.net.URI;
@@ -15,10 +15,20 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.Base64;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Gemini structuring of Azure OCR text, for the {@code remote} extraction engine.
+ */
 @Service
-public class GoogleAIStudioService {
+@ConditionalOnProperty(name = "app.extraction.engine", havingValue = "remote", matchIfMissing = true)
+public class GoogleAIStudioService implements StructuringEngine {
 
   @Value("${google.ai.studio.api-key}")
   private String apiKey;
@@ -27,10 +37,28 @@ public class GoogleAIStudioService {
 
   private final ObjectMapper objectMapper;
   private final HttpClient httpClient;
+  private final DebugArtifactSink debugArtifactSink;
 
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GoogleAIStudioService.class);
 
-  private final AzureOCRService azureOCRService;
+
+  // Attempts per Gemini call, including the first
+  @Value("${app.ai.retry.max-attempts:3}")
+  private int retryMaxAttempts = 3;
+
+  @Value("${app.ai.retry.base-delay-ms:500}")
+  private long retryBaseDelayMs = 500;
+
+  @Value("${app.ai.retry.max-delay-ms:8000}")
+  private long retryMaxDelayMs = 8000;
+
+  @Value("${app.ai.circuit.failure-threshold:5}")
+  private int circuitFailureThreshold = 5;
+
+  @Value("${app.ai.circuit.open-seconds:30}")
+  private long circuitOpenSeconds = 30;
+
+  private CircuitBreaker circuitBreaker = new CircuitBreaker("Google AI Studio", 5, 30_000);
 
   // The strict data structuring prompt for Google AI Studio
   private static final String SYSTEM_PROMPT = """
@@ -113,20 +141,71 @@ public class GoogleAIStudioService {
       - Do NOT reject
       """;
 
-  public GoogleAIStudioService(ObjectMapper objectMapper, AzureOCRService azureOCRService) {
+  // Cache key for structured results: changes whenever the prompt or model does
+  private static final String PROMPT_VERSION = ExtractionCache.hex(ExtractionCache.sha256()
+      .digest((GOOGLE_AI_URL + "\n" + SYSTEM_PROMPT).getBytes(java.nio.charset.StandardCharsets.UTF_8)))
+      .substring(0, 16);
+
+  public GoogleAIStudioService(ObjectMapper objectMapper, DebugArtifactSink debugArtifactSink) {
     this.objectMapper = objectMapper;
-    this.azureOCRService = azureOCRService;
+    this.debugArtifactSink = debugArtifactSink;
     this.httpClient = HttpClient.newBuilder()
         .connectTimeout(Duration.ofSeconds(30))
         .build();
   }
 
-  public WorkSlipResult extractWorkSlip(MultipartFile file) throws IOException {
-    // Stage 1: Azure OCR
-    String rawOcrText = azureOCRService.extractRawText(file);
+  @jakarta.annotation.PostConstruct
+  void initCircuitBreaker() {
+    circuitBreaker = new CircuitBreaker("Google AI Studio", circuitFailureThreshold,
+        TimeUnit.SECONDS.toMillis(circuitOpenSeconds));
+  }
+
+  @Override
+  public String version() {
+    return PROMPT_VERSION;
+  }
+
+  /**
+   * Stage 2 without holding a thread while Gemini works: the request goes out
+   * with sendAsync and the response is parsed on the client's threads.
+   * 429 / 5xx responses and connection failures are retried with jittered
+   * exponential backoff (Retry-After honoured); every failed attempt counts
+   * towards the circuit breaker, which fails calls fast while open.
+   */
+  @Override
+  public CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText) {
+    return structureAsync(rawOcrText, new Cancellation());
+  }
+
+  /**
+   * Cancelling aborts the pending request and skips the remaining attempts
+   * (and any backoff wait); abandoned attempts do not count towards the
+   * circuit breaker.
+   */
+  @Override
+  public CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText, Cancellation cancellation) {
+    HttpRequest request;
+    try {
+      request = buildRequest(rawOcrText);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return send(request, 1, cancellation).thenApply(responseRoot -> {
+      try {
+        return toResult(responseRoot, rawOcrText);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  public CircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
+  private HttpRequest buildRequest(String rawOcrText) throws IOException {
     String ocrJsonInput = objectMapper.writeValueAsString(java.util.Collections.singletonMap("raw_text", rawOcrText));
 
-    // Stage 2: Google AI Structuring
     ObjectNode rootNode = objectMapper.createObjectNode();
     ArrayNode contentsArray = rootNode.putArray("contents");
     ObjectNode contentNode = contentsArray.addObject();
@@ -142,79 +221,155 @@ public class GoogleAIStudioService {
     ObjectNode generationConfig = rootNode.putObject("generationConfig");
     generationConfig.put("temperature", 0.0);
 
-    String jsonPayload = objectMapper.writeValueAsString(rootNode);
+    byte[] jsonPayload = objectMapper.writeValueAsBytes(rootNode);
 
-    HttpRequest request = HttpRequest.newBuilder()
+    return HttpRequest.newBuilder()
         .uri(URI.create(GOOGLE_AI_URL))
         .header("Content-Type", "application/json")
         .header("X-goog-api-key", apiKey)
-        .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
+        .POST(HttpRequest.BodyPublishers.ofByteArray(jsonPayload))
         .timeout(Duration.ofMinutes(2))
         .build();
+  }
 
-    try {
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+  // One attempt; schedules the next one on retryable failures
+  private CompletableFuture<JsonNode> send(HttpRequest request, int attempt, Cancellation cancellation) {
+    if (cancellation.isCancelled()) {
+      return CompletableFuture.failedFuture(new CancellationException("Google AI Studio call cancelled"));
+    }
+    if (!circuitBreaker.tryAcquire()) {
+      return CompletableFuture.failedFuture(new IOException(circuitBreaker.rejection()));
+    }
+    CompletableFuture<HttpResponse<JsonNode>> exchange = httpClient.sendAsync(request, this::bodySubscriber);
+    cancellation.onCancel(() -> exchange.cancel(true));
+    return exchange
+        .handle((response, error) -> {
+          if (error != null && cancellation.isCancelled()) {
+            // Given up by the caller, not a verdict on the API
+            circuitBreaker.onAbandoned();
+            return CompletableFuture.<JsonNode>failedFuture(WorkSlipExtractionPipeline.failureOf(error));
+          }
+          if (error != null) {
+            Throwable cause = WorkSlipExtractionPipeline.failureOf(error);
+            if (cause instanceof java.io.UncheckedIOException) {
+              // A 200 whose body is not JSON: the API is up
+              circuitBreaker.onSuccess();
+              return CompletableFuture.<JsonNode>failedFuture(cause.getCause());
+            }
+            circuitBreaker.onFailure();
+            // Connection problems are retried; a 2 minute request timeout is not
+            if (cause instanceof java.net.ConnectException && attempt < retryMaxAttempts) {
+              logger.warn("Google AI Studio connection failed (attempt {}): {}", attempt, cause.getMessage());
+              return retry(request, attempt, null, cancellation);
+            }
+            return CompletableFuture.<JsonNode>failedFuture(cause);
+          }
 
-      if (response.statusCode() != 200) {
-        throw new IOException("Google AI Studio API Error: " + response.statusCode() + " - " + response.body());
-      }
+          int status = response.statusCode();
+          if (status == 200) {
+            circuitBreaker.onSuccess();
+            return CompletableFuture.completedFuture(response.body());
+          }
+          String message = "Google AI Studio API Error: " + status + " - " + response.body().asText();
+          if (status == 429 || status >= 500) {
+            circuitBreaker.onFailure();
+            if (attempt < retryMaxAttempts) {
+              logger.warn("Google AI Studio returned {} (attempt {}), retrying", status, attempt);
+              return retry(request, attempt, response, cancellation);
+            }
+          } else {
+            // The API answered; a bad request says nothing about its health
+            circuitBreaker.onSuccess();
+          }
+          return CompletableFuture.<JsonNode>failedFuture(new IOException(message));
+        })
+        .thenCompose(Function.identity());
+  }
 
-      logger.info("Raw Google AI Response: {}", response.body());
+  private CompletableFuture<JsonNode> retry(HttpRequest request, int attempt, HttpResponse<?> response,
+      Cancellation cancellation) {
+    long delayMs = backoffMillis(attempt, response);
+    Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+    CompletableFuture<CompletableFuture<JsonNode>> next = CompletableFuture
+        .supplyAsync(() -> send(request, attempt + 1, cancellation), delayed);
+    // A cancelled call does not sit out the backoff; the next attempt never starts
+    cancellation.onCancel(() -> next.cancel(false));
+    return next.thenCompose(Function.identity());
+  }
 
-      JsonNode responseRoot = objectMapper.readTree(response.body());
+  // "Equal jitter": half the exponential step fixed, half random; at least Retry-After
+  private long backoffMillis(int attempt, HttpResponse<?> response) {
+    long step = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+    long delay = step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    if (response != null) {
+      String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+      if (retryAfter != null && retryAfter.trim().matches("\\d+")) {
+        delay = Math.max(delay, Math.min(retryMaxDelayMs, Long.parseLong(retryAfter.trim()) * 1000));
+      }
+    }
+    return delay;
+  }
 
-      // Check for candidates
-      JsonNode candidates = responseRoot.path("candidates");
-      if (candidates.isEmpty()) {
-        // If blocked or no output
-        if (responseRoot.has("promptFeedback")) {
-          throw new IOException("Google AI Studio API Blocked: " + responseRoot.get("promptFeedback").toString());
+  // JSON is parsed straight from the received bytes; error bodies are kept as text for the message
+  private HttpResponse.BodySubscriber<JsonNode> bodySubscriber(HttpResponse.ResponseInfo info) {
+    if (info.statusCode() == 200) {
+      return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+        try {
+          return objectMapper.readTree(bytes);
+        } catch (IOException e) {
+          throw new java.io.UncheckedIOException(e);
         }
-        throw new IOException("No candidates returned from Google AI Studio API");
+      });
+    }
+    return HttpResponse.BodySubscribers.mapping(
+        HttpResponse.BodySubscribers.ofString(java.nio.charset.StandardCharsets.UTF_8),
+        text -> objectMapper.getNodeFactory().textNode(text));
+  }
+
+  private WorkSlipResult toResult(JsonNode responseRoot, String rawOcrText) throws IOException {
+    logger.info("Raw Google AI Response: {}", responseRoot);
+
+    // Check for candidates
+    JsonNode candidates = responseRoot.path("candidates");
+    if (candidates.isEmpty()) {
+      // If blocked or no output
+      if (responseRoot.has("promptFeedback")) {
+        throw new IOException("Google AI Studio API Blocked: " + responseRoot.get("promptFeedback").toString());
       }
+      throw new IOException("No candidates returned from Google AI Studio API");
+    }
 
-      // Get text from first candidate
-      JsonNode parts = candidates.get(0).path("content").path("parts");
-      StringBuilder extractedTextBuilder = new StringBuilder();
-      if (parts.isArray()) {
-        for (JsonNode part : parts) {
-          if (part.has("text")) {
-            extractedTextBuilder.append(part.get("text").asText());
-          }
+    // Get text from first candidate
+    JsonNode parts = candidates.get(0).path("content").path("parts");
+    StringBuilder extractedTextBuilder = new StringBuilder();
+    if (parts.isArray()) {
+      for (JsonNode part : parts) {
+        if (part.has("text")) {
+          extractedTextBuilder.append(part.get("text").asText());
         }
       }
+    }
 
-      String responseText = extractedTextBuilder.toString();
-      logger.info("Extracted Text Block: {}", responseText);
-
-      String jsonText = cleanJson(responseText);
-      logger.debug("Cleaned JSON: {}", jsonText);
+    String responseText = extractedTextBuilder.toString();
+    logger.info("Extracted Text Block: {}", responseText);
 
-      // Save Debug Files
-      saveDebugFiles(rawOcrText, jsonText);
+    String jsonText = cleanJson(responseText);
+    logger.debug("Cleaned JSON: {}", jsonText);
 
-      return objectMapper.readValue(jsonText, WorkSlipResult.class);
+    // Save Debug Files
+    saveDebugFiles(rawOcrText, jsonText);
 
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new IOException("Request interrupted", e);
-    }
+    return objectMapper.readValue(jsonText, WorkSlipResult.class);
   }
 
+  // Queued for the background archive writer; no disk I/O on the extraction path
   private void saveDebugFiles(String azureText, String googleJson) {
-    try {
-      String timestamp = java.time.LocalDateTime.now()
-          .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-      java.nio.file.Path debugDir = java.nio.file.Paths.get("debug_runs", timestamp);
-      java.nio.file.Files.createDirectories(debugDir);
-
-      java.nio.file.Files.writeString(debugDir.resolve("azure_ocr.txt"), azureText);
-      java.nio.file.Files.writeString(debugDir.resolve("google_result.json"), googleJson);
-
-      logger.info("Saved debug files to: {}", debugDir.toAbsolutePath());
-    } catch (IOException e) {
-      logger.error("Failed to save debug files", e);
-    }
+    java.util.Map<String, String> files = new java.util.LinkedHashMap<>();
+    files.put("azure_ocr.txt", azureText);
+    files.put("google_result.json", googleJson);
+    String runId = debugArtifactSink.submit(files);
+    if (runId != null)
+      logger.debug("Queued debug files as run {}", runId);
   }
 
   private String cleanJson(String responseText) {
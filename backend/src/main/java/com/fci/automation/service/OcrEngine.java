@@ -0,0 +1,18 @@
+package com.fci.automation.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * Stage 1 of work-slip extraction: raw text of an uploaded scan. The
+ * implementation is picked by {@code app.extraction.engine} ({@code remote}
+ * = Azure, {@code replay} = recorded fixtures). Calls may block.
+ */
+public interface OcrEngine {
+
+    /** Identifies the engine / model; part of the OCR cache key. */
+    String model();
+
+    String extractRawText(MultipartFile file) throws IOException;
+}
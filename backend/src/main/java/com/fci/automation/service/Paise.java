@@ -0,0 +1,67 @@
+package com.fci.automation.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for money held as a long number of paise (1 rupee = 100 paise).
+ * All rounding is HALF_UP (away from zero on a tie), same as the
+ * BigDecimal.setScale(..., HALF_UP) calls used across the reports.
+ */
+public final class Paise {
+
+    private Paise() {
+    }
+
+    /** Converts rupees to paise, null counts as zero. */
+    public static long of(BigDecimal rupees) {
+        if (rupees == null)
+            return 0L;
+        return rupees.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /** True when the value has no fraction below one paisa. */
+    public static boolean isExact(BigDecimal rupees) {
+        return rupees == null || rupees.scale() <= 2 || rupees.stripTrailingZeros().scale() <= 2;
+    }
+
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    /** Whole rupees, HALF_UP. Same as BigDecimal.setScale(0, HALF_UP). */
+    public static long rupeesHalfUp(long paise) {
+        return divHalfUp(paise, 100);
+    }
+
+    /** Whole rupees, fraction dropped. Same as BigDecimal.longValue(). */
+    public static long rupeesTruncated(long paise) {
+        return paise / 100;
+    }
+
+    /** value * num / den rounded HALF_UP, den must be positive. */
+    public static long mulDivHalfUp(long value, long num, long den) {
+        return divHalfUp(value * num, den);
+    }
+
+    public static long divHalfUp(long value, long den) {
+        long q = value / den;
+        long r = value % den;
+        if (Math.abs(r) * 2 >= den)
+            q += Long.signum(value);
+        return q;
+    }
+
+    /** Two decimal rupee text, e.g. 1234550 -> "12345.50" (BigDecimal scale 2 toString). */
+    public static String format(long paise) {
+        long abs = Math.abs(paise);
+        long frac = abs % 100;
+        StringBuilder sb = new StringBuilder(20);
+        if (paise < 0)
+            sb.append('-');
+        sb.append(abs / 100).append('.');
+        if (frac < 10)
+            sb.append('0');
+        return sb.append(frac).toString();
+    }
+}
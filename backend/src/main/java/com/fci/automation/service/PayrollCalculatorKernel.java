@@ -0,0 +1,104 @@
+package com.fci.automation.service;
+
+/**
+ * Integer version of the PayrollCalculatorService rules, for batches.
+ *
+ * Inputs and net pay are in paise, the statutory shares come out in whole
+ * rupees (they are always rounded to 0 decimals). All divisions round HALF_UP,
+ * so the results are the same as the BigDecimal path:
+ * <ul>
+ * <li>EPF member = ROUND(base * 12%), contractor = 1800 when base > 15000</li>
+ * <li>ESI member = ROUND(base * 0.75%), contractor = ROUND(base * 3.25%)</li>
+ * <li>Bonus = ROUND(base * 8.33%)</li>
+ * <li>Net = wages for CL, wages - EPF member - ESI member - advance for HL</li>
+ * </ul>
+ * The loop in {@link #calculate(Batch)} allocates nothing.
+ */
+public final class PayrollCalculatorKernel {
+
+    public static final long CL_DAILY_RATE_PAISE = 541_00;
+    public static final long EPF_CAP_LIMIT_PAISE = 15000_00;
+    public static final long EPF_MAX_SHARE = 1800;
+
+    /**
+     * Largest |wage| in paise the kernel accepts. Keeps base * 833 far from
+     * overflow; anything bigger goes through the BigDecimal calculator.
+     */
+    public static final long MAX_WAGES_PAISE = 1_000_000_000_000L;
+
+    /** Struct-of-arrays batch. Fill the inputs, call calculate, read the outputs. */
+    public static final class Batch {
+        public final int size;
+
+        // Inputs
+        public final boolean[] casual;
+        public final int[] days;
+        /** Wages as entered (paise). */
+        public final long[] wages;
+        /** No wages entered; CL then defaults to days * 541. */
+        public final boolean[] wagesMissing;
+        public final long[] advance;
+
+        // Outputs
+        /** Wages after CL defaulting (paise). */
+        public final long[] wagesOut;
+        public final long[] epfMember;
+        public final long[] epfContractor;
+        public final long[] esiMember;
+        public final long[] esiContractor;
+        public final long[] bonus;
+        /** Net payable (paise). */
+        public final long[] netPayable;
+
+        public Batch(int size) {
+            this.size = size;
+            casual = new boolean[size];
+            days = new int[size];
+            wages = new long[size];
+            wagesMissing = new boolean[size];
+            advance = new long[size];
+            wagesOut = new long[size];
+            epfMember = new long[size];
+            epfContractor = new long[size];
+            esiMember = new long[size];
+            esiContractor = new long[size];
+            bonus = new long[size];
+            netPayable = new long[size];
+        }
+    }
+
+    private PayrollCalculatorKernel() {
+    }
+
+    public static void calculate(Batch b) {
+        for (int i = 0; i < b.size; i++) {
+            // 1. Determine Wages (Input vs Standard)
+            long display = b.wages[i];
+            long taxBase;
+            if (b.casual[i]) {
+                taxBase = b.days[i] * CL_DAILY_RATE_PAISE;
+                if (b.wagesMissing[i])
+                    display = taxBase;
+            } else {
+                taxBase = display;
+            }
+            b.wagesOut[i] = display;
+
+            // 2. EPF (base in paise, so 12% of rupees = base * 12 / 10000)
+            long epf = Paise.mulDivHalfUp(taxBase, 12, 10_000);
+            b.epfMember[i] = epf;
+            b.epfContractor[i] = taxBase > EPF_CAP_LIMIT_PAISE ? EPF_MAX_SHARE : epf;
+
+            // 3. ESI
+            long esiMember = Paise.mulDivHalfUp(taxBase, 75, 1_000_000);
+            b.esiMember[i] = esiMember;
+            b.esiContractor[i] = Paise.mulDivHalfUp(taxBase, 325, 1_000_000);
+
+            // 4. Bonus
+            b.bonus[i] = Paise.mulDivHalfUp(taxBase, 833, 1_000_000);
+
+            // 5. Net Pay (CL keeps the entered wages, no visible deduction)
+            b.netPayable[i] = b.casual[i] ? display : display - (epf + esiMember) * 100 - b.advance[i];
+        }
+    }
+}
@@ -86,6 +86,74 @@ public class PayrollCalculatorService {
         }
     }
 
+    // --- BATCH ---
+
+    private static final BigDecimal KERNEL_MAX_RUPEES = Paise.toRupees(PayrollCalculatorKernel.MAX_WAGES_PAISE);
+
+    public void calculateAll(java.util.Collection<PayrollEntry> entries) {
+        calculateAll(entries.toArray(new PayrollEntry[0]));
+    }
+
+    /**
+     * Same result as calling {@link #calculate} on every entry, but the maths runs
+     * in integer paise through {@link PayrollCalculatorKernel}. Entries whose
+     * inputs are not whole paise (or absurdly large) use the BigDecimal path.
+     */
+    public void calculateAll(PayrollEntry[] entries) {
+        // 1. Gather inputs
+        PayrollCalculatorKernel.Batch batch = new PayrollCalculatorKernel.Batch(entries.length);
+        boolean[] fallback = new boolean[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            PayrollEntry entry = entries[i];
+            if (!fitsKernel(entry.getWagesEarned()) || !fitsKernel(entry.getAdvanceDeduction())) {
+                fallback[i] = true;
+                continue;
+            }
+            batch.casual[i] = entry.getEmployee() != null
+                    && entry.getEmployee().getCategory() == com.fci.automation.entity.Employee.Category.CL;
+            batch.days[i] = entry.getDaysWorked() != null ? entry.getDaysWorked() : 0;
+            batch.wagesMissing[i] = entry.getWagesEarned() == null;
+            batch.wages[i] = Paise.of(entry.getWagesEarned());
+            batch.advance[i] = Paise.of(entry.getAdvanceDeduction());
+        }
+
+        // 2. Calculate
+        PayrollCalculatorKernel.calculate(batch);
+
+        // 3. Write back, with the same values (and scales) the BigDecimal path produces
+        for (int i = 0; i < entries.length; i++) {
+            PayrollEntry entry = entries[i];
+            if (fallback[i]) {
+                calculate(entry);
+                continue;
+            }
+            if (batch.casual[i] && batch.wagesMissing[i]) {
+                entry.setWagesEarned(BigDecimal.valueOf(batch.wagesOut[i] / 100)); // Defaulting
+            }
+            entry.setEpfMemberShare(BigDecimal.valueOf(batch.epfMember[i]));
+            entry.setEpfContractorShare(BigDecimal.valueOf(batch.epfContractor[i]));
+            entry.setEsiMemberShare(BigDecimal.valueOf(batch.esiMember[i]));
+            entry.setEsiContractorShare(BigDecimal.valueOf(batch.esiContractor[i]));
+            entry.setBonusShare(BigDecimal.valueOf(batch.bonus[i]));
+
+            if (batch.casual[i]) {
+                entry.setNetPayable(entry.getWagesEarned());
+            } else {
+                // wages.subtract(...) keeps the larger scale of wages / advance (min 0)
+                int scale = 0;
+                if (entry.getWagesEarned() != null)
+                    scale = Math.max(scale, entry.getWagesEarned().scale());
+                if (entry.getAdvanceDeduction() != null)
+                    scale = Math.max(scale, entry.getAdvanceDeduction().scale());
+                entry.setNetPayable(Paise.toRupees(batch.netPayable[i]).setScale(scale, RoundingMode.UNNECESSARY));
+            }
+        }
+    }
+
+    private static boolean fitsKernel(BigDecimal value) {
+        return value == null || (Paise.isExact(value) && value.abs().compareTo(KERNEL_MAX_RUPEES) <= 0);
+    }
+
     // --- LOGIC HELPERS ---
 
     private BigDecimal calculateEpfContractor(BigDecimal wages) {
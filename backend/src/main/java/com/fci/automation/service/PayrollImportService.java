@@ -1,14 +1,18 @@
 package com.fci.automation.service;
 
+import com.fci.automation.dto.UtrImportReport;
 import com.fci.automation.entity.Employee;
 import com.fci.automation.entity.PayrollEntry;
 import com.fci.automation.entity.PayrollPeriod;
 import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
 import com.fci.automation.repository.PayrollEntryRepository;
 import com.fci.automation.repository.PayrollPeriodRepository;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,8 +21,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -36,6 +44,16 @@ public class PayrollImportService {
     @Autowired
     private PayrollCalculatorService calculatorService;
 
+    @Autowired
+    private PayrollEntryBulkWriter bulkWriter;
+
+    @jakarta.persistence.PersistenceContext
+    private jakarta.persistence.EntityManager entityManager;
+
+    // Entries per saveAll/flush during import; heap use scales with this, not file size
+    @Value("${app.import.batch-size:500}")
+    private int importBatchSize;
+
     public byte[] generateTemplate() {
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Sheet sheet = workbook.createSheet("Payroll Import");
@@ -73,42 +91,167 @@ public class PayrollImportService {
         PayrollPeriod period = periodRepository.findById(periodId)
                 .orElseThrow(() -> new RuntimeException("Period not found"));
 
-        int successCount = 0;
-        int failCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-            // Skip Header
-            if (rowIterator.hasNext())
-                rowIterator.next();
+        // Pre-load lookups once instead of two queries per row
+        ImportContext ctx = new ImportContext(period);
 
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                try {
-                    processRow(row, period);
-                    successCount++;
-                } catch (Exception e) {
-                    failCount++;
-                    errors.add("Row " + (row.getRowNum() + 1) + ": " + e.getMessage());
+        java.nio.file.Path spool = null;
+        try {
+            // Spool to disk so the .xlsx can be opened as a file-backed package
+            spool = java.nio.file.Files.createTempFile("payroll-import-", ".upload");
+            file.transferTo(spool);
+
+            if (FileMagic.valueOf(spool.toFile()) == FileMagic.OOXML) {
+                // Streaming mode: SAX over the sheet XML, one row in memory at a time
+                StreamingSheetReader.readFirstSheet(spool, (rowNum, cells) -> {
+                    if (rowNum == 0)
+                        return; // Skip Header
+                    try {
+                        processRow(cells, ctx);
+                        ctx.successCount++;
+                    } catch (Exception e) {
+                        ctx.failCount++;
+                        ctx.errors.add("Row " + (rowNum + 1) + ": " + e.getMessage());
+                    }
+                });
+            } else {
+                // Legacy .xls (HSSF) has no SAX reader for this layout, use the DOM
+                try (Workbook workbook = WorkbookFactory.create(spool.toFile(), null, true)) {
+                    Sheet sheet = workbook.getSheetAt(0);
+                    Iterator<Row> rowIterator = sheet.iterator();
+
+                    // Skip Header
+                    if (rowIterator.hasNext())
+                        rowIterator.next();
+
+                    while (rowIterator.hasNext()) {
+                        Row row = rowIterator.next();
+                        try {
+                            processRow(row, ctx);
+                            ctx.successCount++;
+                        } catch (Exception e) {
+                            ctx.failCount++;
+                            ctx.errors.add("Row " + (row.getRowNum() + 1) + ": " + e.getMessage());
+                        }
+                    }
                 }
             }
+            ctx.flush();
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse Excel file: " + e.getMessage());
+        } finally {
+            if (spool != null) {
+                try {
+                    java.nio.file.Files.deleteIfExists(spool);
+                } catch (IOException ignored) {
+                    // Temp dir cleanup will catch it
+                }
+            }
         }
 
         StringBuilder result = new StringBuilder();
-        result.append("Import Completed. Success: ").append(successCount).append(", Failed: ").append(failCount);
-        if (!errors.isEmpty()) {
-            result.append("\nErrors:\n").append(String.join("\n", errors));
+        result.append("Import Completed. Success: ").append(ctx.successCount).append(", Failed: ")
+                .append(ctx.failCount);
+        if (!ctx.errors.isEmpty()) {
+            result.append("\nErrors:\n").append(String.join("\n", ctx.errors));
         }
         return result.toString();
     }
 
-    private void processRow(Row row, PayrollPeriod period) {
+    /**
+     * Per-import state: employee/entry lookups loaded once for the whole file and
+     * the pending batch of entries waiting to be flushed.
+     */
+    private class ImportContext {
+        private final PayrollPeriod period;
+        private final Map<String, Employee> employeesByMemberId = new HashMap<>();
+        private final Map<UUID, PayrollEntry> entriesByEmployeeId = new HashMap<>();
+        // Identity semantics (no equals on the entity) so a member repeated in the
+        // file is only queued once
+        private final Set<PayrollEntry> pending = new LinkedHashSet<>();
+
+        private int successCount = 0;
+        private int failCount = 0;
+        private final List<String> errors = new ArrayList<>();
+
+        ImportContext(PayrollPeriod period) {
+            this.period = period;
+            for (Employee emp : employeeRepository.findAll()) {
+                employeesByMemberId.put(emp.getMemberId(), emp);
+            }
+            for (PayrollEntry entry : entryRepository.findByPeriodId(period.getId())) {
+                entriesByEmployeeId.put(entry.getEmployee().getId(), entry);
+            }
+            // Work on detached copies: existing entries are written by the bulk
+            // writer, so dirty checking must not flush them a second time
+            entityManager.clear();
+        }
+
+        void apply(String memberId, int daysWorked, BigDecimal wages, BigDecimal advance) {
+            Employee employee = employeesByMemberId.get(memberId);
+            if (employee == null)
+                throw new RuntimeException("Employee not found with Member ID: " + memberId);
+
+            // Find or Create Entry
+            PayrollEntry entry = entriesByEmployeeId.computeIfAbsent(employee.getId(), id -> {
+                PayrollEntry created = new PayrollEntry();
+                created.setPeriod(period);
+                created.setEmployee(employee);
+                return created;
+            });
+
+            // Always overwrite. If null/empty -> 0 / 0.00
+            entry.setDaysWorked(daysWorked);
+            entry.setWagesEarned(wages);
+            entry.setAdvanceDeduction(advance);
+
+            // Calculation runs per batch in flush()
+            pending.add(entry);
+            if (pending.size() >= Math.max(1, importBatchSize)) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty())
+                return;
+            calculatorService.calculateAll(pending);
+
+            // Existing rows: batched JDBC UPDATEs (imports leave the day sets alone)
+            List<PayrollEntry> existing = new ArrayList<>();
+            List<PayrollEntry> created = new ArrayList<>();
+            for (PayrollEntry entry : pending) {
+                if (entry.getId() != null)
+                    existing.add(entry);
+                else
+                    created.add(entry);
+            }
+            bulkWriter.updateEntries(existing, Map.of());
+
+            // New rows: saveAll + flush lets Hibernate send them as JDBC batches
+            // (see hibernate.jdbc.batch_size); clear so they do not pile up in
+            // the persistence context for the rest of the file
+            if (!created.isEmpty()) {
+                entryRepository.saveAll(created);
+                entryRepository.flush();
+            }
+            entityManager.clear();
+            pending.clear();
+        }
+    }
+
+    private void processRow(List<String> cells, ImportContext ctx) {
+        // Col 0: MEMBER_ID
+        String memberId = cellAt(cells, 0).trim();
+        if (memberId.isEmpty())
+            return;
+
+        // Col 2: DAYS_WORKED, Col 3: WAGES_EARNED, Col 4: ADVANCE
+        ctx.apply(memberId, parseInteger(cellAt(cells, 2)), parseBigDecimal(cellAt(cells, 3)),
+                parseBigDecimal(cellAt(cells, 4)));
+    }
+
+    private void processRow(Row row, ImportContext ctx) {
         // Col 0: MEMBER_ID
         Cell memberIdCell = row.getCell(0);
         if (memberIdCell == null)
@@ -118,39 +261,44 @@ public class PayrollImportService {
         if (memberId.trim().isEmpty())
             return;
 
-        Employee employee = employeeRepository.findByMemberId(memberId)
-                .orElseThrow(() -> new RuntimeException("Employee not found with Member ID: " + memberId));
+        // Col 2: DAYS_WORKED, Col 3: WAGES_EARNED, Col 4: ADVANCE
+        ctx.apply(memberId, getCellValueAsInteger(row.getCell(2)), getCellValueAsBigDecimal(row.getCell(3)),
+                getCellValueAsBigDecimal(row.getCell(4)));
+    }
 
-        // Find or Create Entry
-        PayrollEntry entry = entryRepository.findByPeriodIdAndEmployeeId(period.getId(), employee.getId())
-                .orElse(new PayrollEntry());
+    private String cellAt(List<String> cells, int idx) {
+        return idx < cells.size() ? cells.get(idx) : "";
+    }
 
-        if (entry.getId() == null) {
-            entry.setPeriod(period);
-            entry.setEmployee(employee);
+    private int parseInteger(String val) {
+        val = val.trim();
+        if (val.isEmpty())
+            return 0;
+        try {
+            return Integer.parseInt(val); // Strict int
+        } catch (NumberFormatException e) {
+            try {
+                return (int) Double.parseDouble(val.replace(",", "")); // Handle "5.0"
+            } catch (NumberFormatException ex) {
+                return 0;
+            }
         }
+    }
 
-        // Col 2: DAYS_WORKED
-        // Always overwrite. If null/empty -> 0
-        int daysWorked = getCellValueAsInteger(row.getCell(2));
-        entry.setDaysWorked(daysWorked);
-
-        // Col 3: WAGES_EARNED
-        // Always overwrite. If null/empty -> 0.00
-        BigDecimal wages = getCellValueAsBigDecimal(row.getCell(3));
-        entry.setWagesEarned(wages);
-
-        // Col 4: ADVANCE
-        // Always overwrite. If null/empty -> 0.00
-        BigDecimal advance = getCellValueAsBigDecimal(row.getCell(4));
-        System.out.println("DEBUG IMPORT: Row " + row.getRowNum() + " | Member: " + memberId + " | Advance Cell: "
-                + row.getCell(4) + " | Parsed Advance: " + advance);
-        entry.setAdvanceDeduction(advance);
-
-        // Trigger Calculation
-        calculatorService.calculate(entry);
-
-        entryRepository.save(entry);
+    private BigDecimal parseBigDecimal(String val) {
+        val = val.trim();
+        if (val.isEmpty())
+            return BigDecimal.ZERO;
+        try {
+            return new BigDecimal(val);
+        } catch (NumberFormatException e) {
+            // Formatted cells come through as "1,500"
+            try {
+                return new BigDecimal(val.replace(",", ""));
+            } catch (NumberFormatException ex) {
+                return BigDecimal.ZERO; // Not a number
+            }
+        }
     }
 
     private String getCellValueAsString(Cell cell) {
@@ -253,150 +401,85 @@ public class PayrollImportService {
     }
 
     @Transactional
-    public String importUtrData(MultipartFile file, UUID periodId) {
+    public UtrImportReport importUtrData(MultipartFile file, UUID periodId) {
         PayrollPeriod period = periodRepository.findById(periodId)
                 .orElseThrow(() -> new RuntimeException("Period not found"));
 
-        List<List<String>> rows = new ArrayList<>();
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            // Valid Excel File
-            Sheet sheet = workbook.getSheetAt(0);
-            for (Row r : sheet) {
-                List<String> rowData = new ArrayList<>();
-                for (int cn = 0; cn < r.getLastCellNum(); cn++) {
-                    rowData.add(getAnyCellValue(r.getCell(cn, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK)));
-                }
-                rows.add(rowData);
-            }
-        } catch (Exception e) {
-            // Fallback: Try parsing as text (HTML Table, XML Spreadsheet, CSV)
+        // 1. Real Excel workbooks (xls / xlsx)
+        String workbookError = "not an OLE2 or OOXML file";
+        FileMagic magic;
+        try (java.io.InputStream in = FileMagic.prepareToCheckMagic(file.getInputStream())) {
+            magic = FileMagic.valueOf(in);
+        } catch (IOException e) {
+            magic = FileMagic.UNKNOWN;
+        }
+        if (magic == FileMagic.OLE2 || magic == FileMagic.OOXML) {
+            Workbook workbook = null;
             try {
-                String content = new String(file.getBytes(), java.nio.charset.StandardCharsets.UTF_8);
-                rows = parseNonStandardExcel(content);
-                if (rows.isEmpty()) {
-                    throw new RuntimeException(
-                            "Could not parse file. It does not appear to be a valid Excel, HTML Table, XML Spreadsheet, or CSV file. Original Error: "
-                                    + e.getMessage());
+                workbook = WorkbookFactory.create(file.getInputStream());
+            } catch (Exception e) {
+                workbookError = e.getMessage();
+            }
+            if (workbook != null) {
+                try (Workbook wb = workbook) {
+                    return processUtrRows(sheetRows(wb.getSheetAt(0)), period);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read Excel file: " + e.getMessage());
                 }
-            } catch (Exception ex) {
-                return "Import Failed: " + ex.getMessage();
             }
         }
 
-        return processUtrRows(rows, period);
-    }
-
-    private List<List<String>> parseNonStandardExcel(String content) {
-        List<List<String>> table = new ArrayList<>();
-
-        // 1. Try XML Spreadsheet (SpreadsheetML) commonly used by banks
-        // Pattern: <Row ...> <Cell ...> <Data ...>Value</Data> </Cell> </Row>
-        if (content.contains("<Row") || content.contains("<Worksheet")) {
-            java.util.regex.Pattern rowPat = java.util.regex.Pattern.compile("<Row[^>]*>(.*?)</Row>",
-                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Pattern cellPat = java.util.regex.Pattern.compile("<Cell[^>]*>(.*?)</Cell>",
-                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Pattern dataPat = java.util.regex.Pattern.compile("<Data[^>]*>(.*?)</Data>",
-                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
-
-            java.util.regex.Matcher rowM = rowPat.matcher(content);
-            while (rowM.find()) {
-                List<String> rowData = new ArrayList<>();
-                java.util.regex.Matcher cellM = cellPat.matcher(rowM.group(1));
-                while (cellM.find()) {
-                    String cellContent = cellM.group(1);
-                    java.util.regex.Matcher dataM = dataPat.matcher(cellContent);
-                    if (dataM.find()) {
-                        rowData.add(cleanTagBytes(dataM.group(1)));
-                    } else {
-                        rowData.add("");
-                    }
-                }
-                if (!rowData.isEmpty())
-                    table.add(rowData);
+        // 2. Fallback: bank exports that are really SpreadsheetML, an HTML table or CSV,
+        // read row by row from the upload
+        UtrStatementReader rows;
+        try {
+            rows = UtrStatementReader.open(file::getInputStream);
+            if (!rows.hasNext()) {
+                rows.close();
+                throw new RuntimeException(
+                        "Could not parse file. It does not appear to be a valid Excel, HTML Table, XML Spreadsheet, or CSV file. Original Error: "
+                                + workbookError);
             }
-            if (!table.isEmpty())
-                return table;
+        } catch (Exception ex) {
+            return UtrImportReport.failed("Import Failed: " + ex.getMessage());
         }
+        try (UtrStatementReader r = rows) {
+            return processUtrRows(r, period);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read statement: " + e.getMessage());
+        }
+    }
 
-        // 2. Try HTML Table
-        if (content.contains("<tr") || content.contains("<table")) {
-            java.util.regex.Pattern trPattern = java.util.regex.Pattern.compile("<tr[^>]*>(.*?)</tr>",
-                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Pattern tdPattern = java.util.regex.Pattern.compile("<t[dh][^>]*>(.*?)</t[dh]>",
-                    java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.CASE_INSENSITIVE);
-
-            java.util.regex.Matcher trMatcher = trPattern.matcher(content);
-            while (trMatcher.find()) {
-                String rowContent = trMatcher.group(1);
-                List<String> row = new ArrayList<>();
-                java.util.regex.Matcher tdMatcher = tdPattern.matcher(rowContent);
-                while (tdMatcher.find()) {
-                    row.add(cleanTagBytes(tdMatcher.group(1)));
-                }
-                if (!row.isEmpty()) {
-                    table.add(row);
-                }
+    // Cell text of each sheet row, same values the text formats produce
+    private Iterator<List<String>> sheetRows(Sheet sheet) {
+        Iterator<Row> it = sheet.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
             }
-            if (!table.isEmpty())
-                return table;
-        }
 
-        // 3. Try CSV / Tab Delimited (last resort)
-        // If content looks like lines
-        String[] lines = content.split("\n");
-        if (lines.length > 1) {
-            for (String line : lines) {
-                if (line.trim().isEmpty())
-                    continue;
-                String[] cols = line.split("\t"); // Try Tab first
-                if (cols.length < 2)
-                    cols = line.split(","); // Then Comma
-                if (cols.length > 0) {
-                    List<String> row = new ArrayList<>();
-                    for (String c : cols) {
-                        // Remove quotes if CSV
-                        String val = c.trim();
-                        if (val.startsWith("\"") && val.endsWith("\"")) {
-                            val = val.substring(1, val.length() - 1);
-                        }
-                        row.add(val);
-                    }
-                    table.add(row);
+            @Override
+            public List<String> next() {
+                Row r = it.next();
+                List<String> rowData = new ArrayList<>();
+                for (int cn = 0; cn < r.getLastCellNum(); cn++) {
+                    rowData.add(getAnyCellValue(r.getCell(cn, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK)));
                 }
+                return rowData;
             }
-        }
-
-        return table;
-    }
-
-    private String cleanTagBytes(String text) {
-        if (text == null)
-            return "";
-        // Remove tags
-        text = text.replaceAll("<[^>]+>", "").trim();
-        // Unescape common HTML/XML entities
-        text = text.replace("&nbsp;", " ")
-                .replace("&amp;", "&")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&#39;", "'")
-                .replace("&quot;", "\"");
-        return text;
+        };
     }
 
-    private String processUtrRows(List<List<String>> rows, PayrollPeriod period) {
-        int successCount = 0;
-        int failCount = 0;
-        List<String> errors = new ArrayList<>();
-
+    private UtrImportReport processUtrRows(Iterator<List<String>> rows, PayrollPeriod period) {
         // 1. Find Header Headers
         int acctColIdx = -1;
         int utrColIdx = -1;
-        int startRowIdx = -1;
+        int rowIdx = 0;
 
-        for (int i = 0; i < rows.size(); i++) {
-            List<String> row = rows.get(i);
+        while (rows.hasNext()) {
+            List<String> row = rows.next();
+            rowIdx++;
             boolean foundExplicitUtr = false;
 
             for (int j = 0; j < row.size(); j++) {
@@ -437,59 +520,30 @@ public class PayrollImportService {
                 }
             }
             if (acctColIdx != -1 && utrColIdx != -1) {
-                startRowIdx = i + 1;
                 break;
             }
         }
 
         if (acctColIdx == -1 || utrColIdx == -1) {
-            return "Failed: Could not identify 'Account' or 'UTR' columns.";
+            return UtrImportReport.failed("Failed: Could not identify 'Account' or 'UTR' columns.");
         }
 
-        // 2. Process Data
-        for (int i = startRowIdx; i < rows.size(); i++) {
-            List<String> row = rows.get(i);
+        // 2. Match data rows (after the header) against the period's entries,
+        // loaded once and indexed by bank account
+        UtrReconciliation reconciliation = new UtrReconciliation(
+                entryRepository.findUtrTargetsByPeriodId(period.getId()));
+        while (rows.hasNext()) {
+            List<String> row = rows.next();
+            rowIdx++;
             // Handle row length mismatch
             if (row.size() <= Math.max(acctColIdx, utrColIdx))
                 continue;
-
-            try {
-                String acctNo = row.get(acctColIdx).trim();
-                // Remove Excel text marker (') if present
-                if (acctNo.startsWith("'")) {
-                    acctNo = acctNo.substring(1);
-                }
-
-                String utrNo = row.get(utrColIdx).trim();
-                if (utrNo.startsWith("'")) {
-                    utrNo = utrNo.substring(1);
-                }
-
-                if (acctNo.isEmpty())
-                    continue;
-
-                var employeeOpt = employeeRepository.findByBankAccountNo(acctNo);
-                if (employeeOpt.isEmpty()) {
-                    continue; // Skip unknown accounts
-                }
-
-                Employee employee = employeeOpt.get();
-                var entryOpt = entryRepository.findByPeriodIdAndEmployeeId(period.getId(), employee.getId());
-                if (entryOpt.isPresent()) {
-                    PayrollEntry entry = entryOpt.get();
-                    entry.setUtrNumber(utrNo);
-                    entryRepository.save(entry);
-                    successCount++;
-                }
-            } catch (Exception e) {
-                failCount++;
-                errors.add("Row " + (i + 1) + ": " + e.getMessage());
-            }
+            reconciliation.match(rowIdx, row.get(acctColIdx), row.get(utrColIdx));
         }
 
-        return String.format("Import Complete: %d Updated. %s",
-                successCount,
-                errors.isEmpty() ? "" : " Errors: " + String.join(", ", errors));
+        // 3. One batched write for everything that changed
+        bulkWriter.updateUtrNumbers(reconciliation.updates());
+        return reconciliation.report();
     }
 
     private String getAnyCellValue(Cell cell) {
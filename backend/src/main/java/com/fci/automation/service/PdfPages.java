@@ -0,0 +1,66 @@
+package com.fci.automation.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a PDF on disk into single-page PDFs, for page-parallel OCR. The
+ * source is read with random access from the file (objects are loaded as
+ * pages are copied), so a large scan is never held in memory.
+ */
+public final class PdfPages {
+
+    private PdfPages() {
+    }
+
+    /** Whether the file starts with the PDF header. */
+    public static boolean isPdf(Path file) throws IOException {
+        byte[] header = new byte[5];
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(header, 0, header.length) == header.length
+                    && new String(header, java.nio.charset.StandardCharsets.US_ASCII).equals("%PDF-");
+        }
+    }
+
+    /**
+     * Writes each page of {@code pdf} to {@code page-<n>.pdf} in {@code dir}.
+     *
+     * @return the page files in page order
+     */
+    public static List<Path> split(Path pdf, Path dir) throws IOException {
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(pdf.toString(), false, true), null);
+        try {
+            int pageCount = reader.getNumberOfPages();
+            List<Path> pages = new ArrayList<>(pageCount);
+            for (int i = 1; i <= pageCount; i++) {
+                Path page = dir.resolve("page-" + i + ".pdf");
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(page))) {
+                    Document document = new Document(reader.getPageSizeWithRotation(i));
+                    PdfCopy copy = new PdfCopy(document, out);
+                    document.open();
+                    copy.addPage(copy.getImportedPage(reader, i));
+                    // Drop the copied objects before the next page
+                    copy.freeReader(reader);
+                    document.close();
+                } catch (com.lowagie.text.DocumentException e) {
+                    throw new IOException("Could not split page " + i + " of " + pdf.getFileName(), e);
+                }
+                pages.add(page);
+            }
+            return pages;
+        } finally {
+            reader.close();
+        }
+    }
+}
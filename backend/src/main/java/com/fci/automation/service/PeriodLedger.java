@@ -0,0 +1,455 @@
+package com.fci.automation.service;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only snapshot of one payroll period, laid out column by column for the
+ * report generators. Money is stored as long paise, the attendance of each
+ * entry as a BitSet, and everything the reports derive (CL wage = days * 541,
+ * EPF/ESI totals, in-hand pay, per-category totals, sort orders) is computed
+ * once when the ledger is built.
+ *
+ * Rows keep the order of {@code findByPeriodId}; use {@link #byMemberId} /
+ * {@link #byName} for the sorted views.
+ */
+public final class PeriodLedger {
+
+    /** Fixed CL daily rate (Rs. 541) in paise. */
+    public static final long CL_DAILY_RATE_PAISE = 541_00;
+
+    /** Column sums for one category (or the whole period). All money in paise. */
+    public static final class Totals {
+        private int count;
+        private long days;
+        private long wagesEarned;
+        private long reportWages;
+        private long epfContractor;
+        private long epfMember;
+        private long esiContractor;
+        private long esiMember;
+        private long advance;
+        private long inHand;
+        private long netPayable;
+
+        private void add(PeriodLedger l, int i) {
+            count++;
+            days += l.days[i];
+            wagesEarned += l.wagesEarned[i];
+            reportWages += l.reportWages[i];
+            epfContractor += l.epfContractor[i];
+            epfMember += l.epfMember[i];
+            esiContractor += l.esiContractor[i];
+            esiMember += l.esiMember[i];
+            advance += l.advance[i];
+            inHand += l.inHand[i];
+            netPayable += l.netPayable[i];
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long days() {
+            return days;
+        }
+
+        public long wagesEarned() {
+            return wagesEarned;
+        }
+
+        public long reportWages() {
+            return reportWages;
+        }
+
+        public long epfContractor() {
+            return epfContractor;
+        }
+
+        public long epfMember() {
+            return epfMember;
+        }
+
+        public long epfTotal() {
+            return epfContractor + epfMember;
+        }
+
+        public long esiContractor() {
+            return esiContractor;
+        }
+
+        public long esiMember() {
+            return esiMember;
+        }
+
+        public long esiTotal() {
+            return esiContractor + esiMember;
+        }
+
+        public long advance() {
+            return advance;
+        }
+
+        public long inHand() {
+            return inHand;
+        }
+
+        public long netPayable() {
+            return netPayable;
+        }
+    }
+
+    private final PayrollPeriod period;
+    private final int size;
+
+    // Employee columns
+    private final String[] memberIds;
+    private final String[] names;
+    private final String[] uans;
+    private final String[] ipNumbers;
+    private final String[] bankAccounts;
+    private final String[] ifscCodes;
+    private final Employee.Category[] categories;
+
+    // Entry columns
+    private final int[] days;
+    private final BitSet[] activeDays;
+    private final long[] wagesEarned;
+    private final long[] reportWages;
+    private final long[] advance;
+    private final long[] epfContractor;
+    private final long[] epfMember;
+    private final long[] esiContractor;
+    private final long[] esiMember;
+    private final long[] inHand;
+    private final long[] netPayable;
+    private final String[] utrNumbers;
+
+    // Derived views
+    private final int[] byMemberId;
+    private final Map<Employee.Category, int[]> byMemberIdPerCategory = new EnumMap<>(Employee.Category.class);
+    private final Map<Employee.Category, int[]> byNamePerCategory = new EnumMap<>(Employee.Category.class);
+    private final Map<Employee.Category, Totals> categoryTotals = new EnumMap<>(Employee.Category.class);
+    private final Totals total = new Totals();
+
+    private volatile String contentHash;
+
+    private PeriodLedger(PayrollPeriod period, List<PayrollEntry> entries) {
+        this.period = period;
+        this.size = entries.size();
+
+        memberIds = new String[size];
+        names = new String[size];
+        uans = new String[size];
+        ipNumbers = new String[size];
+        bankAccounts = new String[size];
+        ifscCodes = new String[size];
+        categories = new Employee.Category[size];
+        days = new int[size];
+        activeDays = new BitSet[size];
+        wagesEarned = new long[size];
+        reportWages = new long[size];
+        advance = new long[size];
+        epfContractor = new long[size];
+        epfMember = new long[size];
+        esiContractor = new long[size];
+        esiMember = new long[size];
+        inHand = new long[size];
+        netPayable = new long[size];
+        utrNumbers = new String[size];
+
+        // 1. Copy columns and derive per-row values
+        for (int i = 0; i < size; i++) {
+            PayrollEntry entry = entries.get(i);
+            Employee emp = entry.getEmployee();
+
+            memberIds[i] = emp.getMemberId();
+            names[i] = emp.getFullName();
+            uans[i] = emp.getUanNumber();
+            ipNumbers[i] = emp.getIpNumber();
+            bankAccounts[i] = emp.getBankAccountNo();
+            ifscCodes[i] = emp.getIfscCode();
+            categories[i] = emp.getCategory();
+
+            days[i] = entry.getDaysWorked() != null ? entry.getDaysWorked() : 0;
+            BitSet bits = new BitSet(32);
+            if (entry.getActiveDays() != null) {
+                for (Integer d : entry.getActiveDays()) {
+                    if (d != null && d >= 0)
+                        bits.set(d);
+                }
+            }
+            activeDays[i] = bits;
+
+            wagesEarned[i] = Paise.of(entry.getWagesEarned());
+            // Reports always pay CL at the standard rate, whatever was typed in
+            reportWages[i] = categories[i] == Employee.Category.CL ? days[i] * CL_DAILY_RATE_PAISE : wagesEarned[i];
+            advance[i] = Paise.of(entry.getAdvanceDeduction());
+            epfContractor[i] = Paise.of(entry.getEpfContractorShare());
+            epfMember[i] = Paise.of(entry.getEpfMemberShare());
+            esiContractor[i] = Paise.of(entry.getEsiContractorShare());
+            esiMember[i] = Paise.of(entry.getEsiMemberShare());
+            inHand[i] = reportWages[i] - epfMember[i] - esiMember[i] - advance[i];
+            netPayable[i] = Paise.of(entry.getNetPayable());
+            utrNumbers[i] = entry.getUtrNumber();
+        }
+
+        // 2. Sort orders (stable, so ties keep load order like List.sort did)
+        Integer[] numericIds = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            numericIds[i] = parseMemberId(memberIds[i]);
+        }
+        byMemberId = sortedIndexes((a, b) -> {
+            if (numericIds[a] != null && numericIds[b] != null)
+                return Integer.compare(numericIds[a], numericIds[b]);
+            return nullToEmpty(memberIds[a]).compareTo(nullToEmpty(memberIds[b]));
+        });
+        int[] byName = sortedIndexes(Comparator.comparing(i -> nullToEmpty(names[i])));
+
+        // 3. Per-category views and totals
+        for (Employee.Category cat : Employee.Category.values()) {
+            byMemberIdPerCategory.put(cat, filter(byMemberId, cat));
+            byNamePerCategory.put(cat, filter(byName, cat));
+            categoryTotals.put(cat, new Totals());
+        }
+        for (int i = 0; i < size; i++) {
+            total.add(this, i);
+            if (categories[i] != null)
+                categoryTotals.get(categories[i]).add(this, i);
+        }
+    }
+
+    public static PeriodLedger of(PayrollPeriod period, List<PayrollEntry> entries) {
+        return new PeriodLedger(period, entries);
+    }
+
+    private int[] sortedIndexes(Comparator<Integer> comparator) {
+        Integer[] idx = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            idx[i] = i;
+        }
+        Arrays.sort(idx, comparator);
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = idx[i];
+        }
+        return out;
+    }
+
+    private int[] filter(int[] order, Employee.Category cat) {
+        return Arrays.stream(order).filter(i -> categories[i] == cat).toArray();
+    }
+
+    private static Integer parseMemberId(String memberId) {
+        try {
+            return Integer.parseInt(memberId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s != null ? s : "";
+    }
+
+    // --- Views ---
+
+    public PayrollPeriod period() {
+        return period;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** All rows sorted by member id (numeric when both ids are numbers). */
+    public int[] byMemberId() {
+        return byMemberId;
+    }
+
+    public int[] byMemberId(Employee.Category cat) {
+        return byMemberIdPerCategory.get(cat);
+    }
+
+    public int[] byName(Employee.Category cat) {
+        return byNamePerCategory.get(cat);
+    }
+
+    public boolean hasCategory(Employee.Category cat) {
+        return categoryTotals.get(cat).count > 0;
+    }
+
+    public Totals totals(Employee.Category cat) {
+        return categoryTotals.get(cat);
+    }
+
+    public Totals totals() {
+        return total;
+    }
+
+    /**
+     * SHA-256 (hex) over everything the reports read: period month / year /
+     * last working day and every row's columns. Two ledgers with the same hash
+     * render the same reports, so it doubles as the report cache version.
+     */
+    public String contentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = computeContentHash();
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    private String computeContentHash() {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+        java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(Long.BYTES);
+
+        putLong(md, buf, period.getMonth() != null ? period.getMonth() : -1);
+        putLong(md, buf, period.getYear() != null ? period.getYear() : -1);
+        putString(md, buf, period.getLastWorkingDay() != null ? period.getLastWorkingDay().toString() : null);
+        putLong(md, buf, size);
+        for (int i = 0; i < size; i++) {
+            putString(md, buf, memberIds[i]);
+            putString(md, buf, names[i]);
+            putString(md, buf, uans[i]);
+            putString(md, buf, ipNumbers[i]);
+            putString(md, buf, bankAccounts[i]);
+            putString(md, buf, ifscCodes[i]);
+            putLong(md, buf, categories[i] != null ? categories[i].ordinal() : -1);
+            putLong(md, buf, days[i]);
+            long[] bits = activeDays[i].toLongArray();
+            putLong(md, buf, bits.length);
+            for (long word : bits) {
+                putLong(md, buf, word);
+            }
+            putLong(md, buf, wagesEarned[i]);
+            putLong(md, buf, advance[i]);
+            putLong(md, buf, epfContractor[i]);
+            putLong(md, buf, epfMember[i]);
+            putLong(md, buf, esiContractor[i]);
+            putLong(md, buf, esiMember[i]);
+            putLong(md, buf, netPayable[i]);
+            putString(md, buf, utrNumbers[i]);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void putLong(MessageDigest md, java.nio.ByteBuffer buf, long v) {
+        buf.clear();
+        buf.putLong(v);
+        md.update(buf.array(), 0, Long.BYTES);
+    }
+
+    // Length-prefixed so that ("ab", "c") and ("a", "bc") hash differently; null = -1
+    private static void putString(MessageDigest md, java.nio.ByteBuffer buf, String s) {
+        if (s == null) {
+            putLong(md, buf, -1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putLong(md, buf, bytes.length);
+        md.update(bytes);
+    }
+
+    // --- Row accessors ---
+
+    public String memberId(int i) {
+        return memberIds[i];
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public String uan(int i) {
+        return uans[i];
+    }
+
+    public String ipNumber(int i) {
+        return ipNumbers[i];
+    }
+
+    public String bankAccount(int i) {
+        return bankAccounts[i];
+    }
+
+    public String ifscCode(int i) {
+        return ifscCodes[i];
+    }
+
+    public Employee.Category category(int i) {
+        return categories[i];
+    }
+
+    public int days(int i) {
+        return days[i];
+    }
+
+    public boolean isActive(int i, int day) {
+        return activeDays[i].get(day);
+    }
+
+    /** Wages as entered on the entry, in paise. */
+    public long wagesEarned(int i) {
+        return wagesEarned[i];
+    }
+
+    /** Wages used by the statutory reports: CL = days * 541, HL = as entered. */
+    public long reportWages(int i) {
+        return reportWages[i];
+    }
+
+    public long advance(int i) {
+        return advance[i];
+    }
+
+    public long epfContractor(int i) {
+        return epfContractor[i];
+    }
+
+    public long epfMember(int i) {
+        return epfMember[i];
+    }
+
+    public long esiContractor(int i) {
+        return esiContractor[i];
+    }
+
+    public long esiMember(int i) {
+        return esiMember[i];
+    }
+
+    /** Report wages - EPF member - ESI member - advance. */
+    public long inHand(int i) {
+        return inHand[i];
+    }
+
+    public long netPayable(int i) {
+        return netPayable[i];
+    }
+
+    public String utrNumber(int i) {
+        return utrNumbers[i];
+    }
+}
@@ -0,0 +1,429 @@
+package com.fci.automation.service;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.dto.ReportBundleProgress;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Audit packs: several reports for a range of periods in one ZIP. Reports
+ * render in parallel on a pool shared by all bundles
+ * ({@code app.report.bundle.threads}) and each goes into the ZIP as soon as
+ * it is done, so a pack takes about as long as its slowest report rather
+ * than the sum of all. Each period is read once for all its reports, and not
+ * at all when they are in the {@link ReportCache}; rendered reports are
+ * cached like single downloads. Finished reports wait for the ZIP in temp
+ * files, not memory, and only {@code app.report.bundle.max-pending-periods}
+ * periods are rendered ahead of it, so a slow client holds back the renders
+ * instead of piling up files.
+ *
+ * A bundle is prepared first (periods resolved, id handed out), then streamed
+ * once; its progress can be polled by id until it expires
+ * ({@code app.report.bundle.keep-minutes}).
+ */
+@Service
+public class ReportBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportBundleService.class);
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    /** The reports a bundle can hold. */
+    public static final List<ReportType> REPORTS = List.of(ReportType.MAIN_FILE, ReportType.PAYMENT_DETAILS,
+            ReportType.WAGE_SUMMARY, ReportType.ATTENDANCE, ReportType.ESI, ReportType.EPF);
+
+    /** A prepared pack; streamed at most once. */
+    public static final class Bundle {
+        private final String id = UUID.randomUUID().toString();
+        private final RealmEnum realm;
+        private final YearMonth from;
+        private final YearMonth to;
+        private final List<PayrollPeriod> periods;
+        private final List<ReportType> reports;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile String status = "PREPARED";
+
+        private Bundle(RealmEnum realm, YearMonth from, YearMonth to, List<PayrollPeriod> periods,
+                List<ReportType> reports) {
+            this.realm = realm;
+            this.from = from;
+            this.to = to;
+            this.periods = periods;
+            this.reports = reports;
+        }
+
+        public String getFileName() {
+            return "audit_pack_" + from + "_" + to + ".zip";
+        }
+
+        private int total() {
+            return periods.size() * reports.size();
+        }
+
+        private ReportBundleProgress progress() {
+            return new ReportBundleProgress(id, status, total(), completed.get(), failed.get());
+        }
+    }
+
+    // A finished report: the temp file holding it, or why it failed
+    private static final class Artifact {
+        private final PayrollPeriod period;
+        private final String name;
+        private final Path file;
+        private final String error;
+
+        private Artifact(PayrollPeriod period, String name, Path file, String error) {
+            this.period = period;
+            this.name = name;
+            this.file = file;
+            this.error = error;
+        }
+
+        private void discard() {
+            if (file != null)
+                deleteQuietly(file);
+        }
+    }
+
+    private final ReportCache reportCache;
+    private final ReportService reportService;
+    private final PayrollPeriodRepository periodRepository;
+    private final ExecutorService pool;
+
+    @Value("${app.report.bundle.keep-minutes:60}")
+    private long keepMinutes = 60;
+
+    @Value("${app.report.bundle.max-pending-periods:2}")
+    private int maxPendingPeriods = 2;
+
+    @Value("${app.report.bundle.download-timeout-minutes:60}")
+    private long downloadTimeoutMinutes = 60;
+
+    // How long the download waits for the next finished report before giving up
+    @Value("${app.report.bundle.artifact-wait-minutes:10}")
+    private long artifactWaitMinutes = 10;
+
+    // Temp files of finished reports; null for the system temp directory
+    private Path spoolDir;
+
+    private final Map<String, Bundle> bundles = new ConcurrentHashMap<>();
+
+    public ReportBundleService(ReportCache reportCache, ReportService reportService,
+            PayrollPeriodRepository periodRepository,
+            @Value("${app.report.bundle.threads:4}") int threads) {
+        this.reportCache = reportCache;
+        this.reportService = reportService;
+        this.periodRepository = periodRepository;
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "report-bundle-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Resolves the periods from {@code from} to {@code to} (current realm) and
+     * registers a bundle of {@code reports} for them.
+     *
+     * @param reports report keys (see {@link ReportType#getKey()}) out of {@link #REPORTS}; null or empty for all
+     */
+    public ReportBundleProgress prepare(YearMonth from, YearMonth to, List<String> reports) {
+        if (from == null || to == null)
+            throw new IllegalArgumentException("'from' and 'to' are required");
+        if (to.isBefore(from))
+            throw new IllegalArgumentException("'to' is before 'from'");
+        List<ReportType> wanted = reports == null || reports.isEmpty() ? REPORTS
+                : reports.stream().map(ReportType::ofKey).distinct().collect(Collectors.toList());
+        for (ReportType type : wanted) {
+            if (!REPORTS.contains(type))
+                throw new IllegalArgumentException("Report " + type.getKey() + " cannot be bundled");
+        }
+
+        List<PayrollPeriod> periods = periodRepository.findAllByOrderByYearDescMonthDesc().stream()
+                .filter(p -> {
+                    YearMonth ym = YearMonth.of(p.getYear(), p.getMonth());
+                    return !ym.isBefore(from) && !ym.isAfter(to);
+                })
+                .sorted(Comparator.comparing(PayrollPeriod::getYear).thenComparing(PayrollPeriod::getMonth))
+                .collect(Collectors.toList());
+        if (periods.isEmpty())
+            throw new IllegalArgumentException("No payroll periods from " + from + " to " + to);
+
+        expireOld();
+        Bundle bundle = new Bundle(RealmContext.getRealm(), from, to, periods, wanted);
+        bundles.put(bundle.id, bundle);
+        return bundle.progress();
+    }
+
+    /** The bundle's progress, or null if it is unknown here (or belongs to the other realm). */
+    public ReportBundleProgress progress(String id) {
+        Bundle bundle = find(id);
+        return bundle != null ? bundle.progress() : null;
+    }
+
+    /**
+     * Claims a prepared bundle for download.
+     *
+     * @return null if unknown (or the other realm's)
+     * @throws IllegalStateException if it is already being or has been downloaded
+     */
+    public Bundle start(String id) {
+        Bundle bundle = find(id);
+        if (bundle == null)
+            return null;
+        if (!bundle.started.compareAndSet(false, true))
+            throw new IllegalStateException("Report bundle " + id + " has already been downloaded");
+        bundle.status = "RUNNING";
+        return bundle;
+    }
+
+    /** How long a download may run; longer than the default async request timeout. */
+    public long downloadTimeoutMillis() {
+        return TimeUnit.MINUTES.toMillis(downloadTimeoutMinutes);
+    }
+
+    // At most half the download timeout, so a stuck report ends the ZIP before the request is cut off
+    long artifactWaitMillis() {
+        return Math.min(TimeUnit.MINUTES.toMillis(artifactWaitMinutes), downloadTimeoutMillis() / 2);
+    }
+
+    /**
+     * Renders the bundle's reports on the pool and writes each to the ZIP as it
+     * finishes, e.g. {@code 2024-01/main_file.pdf}. A report that fails becomes
+     * a {@code .error.txt} entry with the reason. If {@code out} fails (client
+     * gone), periods not started yet are skipped and spooled reports deleted.
+     */
+    public void write(Bundle bundle, OutputStream out) throws IOException {
+        int ahead = Math.max(1, Math.min(maxPendingPeriods, bundle.periods.size()));
+        // Bounded by the periods in flight: each yields one artifact per report
+        BlockingQueue<Artifact> finished = new ArrayBlockingQueue<>(ahead * bundle.reports.size());
+        try {
+            // 1. One task per period (read once, its reports rendered in parallel), a few periods ahead of the ZIP
+            int next = 0;
+            while (next < ahead) {
+                submitPeriod(bundle, bundle.periods.get(next++), finished);
+            }
+
+            // 2. Write reports in completion order; a period fully written lets the next one start
+            Map<UUID, Integer> unwritten = new HashMap<>();
+            long waitMillis = artifactWaitMillis();
+            ZipOutputStream zip = new ZipOutputStream(out);
+            for (int n = 0; n < bundle.total(); n++) {
+                Artifact artifact = finished.poll(waitMillis, TimeUnit.MILLISECONDS);
+                if (artifact == null)
+                    throw new IOException("Timed out waiting for report bundle " + bundle.id);
+                try {
+                    if (artifact.error == null) {
+                        zip.putNextEntry(new ZipEntry(artifact.name));
+                        Files.copy(artifact.file, zip);
+                    } else {
+                        zip.putNextEntry(new ZipEntry(artifact.name + ".error.txt"));
+                        zip.write(artifact.error.getBytes(StandardCharsets.UTF_8));
+                        bundle.failed.incrementAndGet();
+                    }
+                    zip.closeEntry();
+                    zip.flush();
+                } finally {
+                    artifact.discard();
+                }
+                bundle.completed.incrementAndGet();
+                int left = unwritten.merge(artifact.period.getId(), bundle.reports.size() - 1, (a, b) -> a - 1);
+                if (left == 0 && next < bundle.periods.size())
+                    submitPeriod(bundle, bundle.periods.get(next++), finished);
+            }
+            zip.finish();
+            bundle.status = "DONE";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(bundle, finished);
+            throw new IOException("Report bundle interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            cancel(bundle, finished);
+            logger.warn("Report bundle {} stopped after {} of {} reports: {}", bundle.id, bundle.completed.get(),
+                    bundle.total(), e.getMessage());
+            throw e;
+        }
+    }
+
+    // Tasks still queued see the flag and do nothing; reports finishing later discard themselves
+    private static void cancel(Bundle bundle, BlockingQueue<Artifact> finished) {
+        bundle.cancelled.set(true);
+        bundle.status = "CANCELLED";
+        discardAll(finished);
+    }
+
+    private static void discardAll(BlockingQueue<Artifact> finished) {
+        for (Artifact artifact = finished.poll(); artifact != null; artifact = finished.poll()) {
+            artifact.discard();
+        }
+    }
+
+    private void submitPeriod(Bundle bundle, PayrollPeriod period, BlockingQueue<Artifact> finished) {
+        submit(() -> renderPeriod(bundle, period, finished),
+                () -> failAll(bundle, period, "Report bundle is shutting down", finished));
+    }
+
+    private void renderPeriod(Bundle bundle, PayrollPeriod period, BlockingQueue<Artifact> finished) {
+        if (bundle.cancelled.get())
+            return;
+        // Cache keys and the routed data source read the realm from the thread
+        RealmContext.setRealm(bundle.realm);
+        List<ReportCache.Lookup> lookups;
+        try {
+            lookups = reportCache.lookup(period.getId(), bundle.reports, null);
+        } catch (RuntimeException e) {
+            logger.warn("Report bundle {}: cannot load {}: {}", bundle.id, folder(period), e.getMessage());
+            failAll(bundle, period, "Could not load the period: " + e.getMessage(), finished);
+            return;
+        } finally {
+            RealmContext.clear();
+        }
+        for (int i = 0; i < bundle.reports.size(); i++) {
+            ReportType report = bundle.reports.get(i);
+            ReportCache.Lookup lookup = lookups.get(i);
+            submit(() -> finish(bundle, render(bundle, period, report, lookup), finished),
+                    () -> finished.add(new Artifact(period, fileName(period, report, false), null,
+                            "Report bundle is shutting down")));
+        }
+    }
+
+    private static void finish(Bundle bundle, Artifact artifact, BlockingQueue<Artifact> finished) {
+        finished.add(artifact);
+        // The download stopped meanwhile: nobody will take it (or what is left) off the queue
+        if (bundle.cancelled.get())
+            discardAll(finished);
+    }
+
+    private Artifact render(Bundle bundle, PayrollPeriod period, ReportType report, ReportCache.Lookup lookup) {
+        // An .xls holds 65,535 members; larger rolls get the .xlsx (rendered, not cached, under the ESI lookup)
+        boolean xlsx = report == ReportType.ESI && !lookup.isHit()
+                && lookup.getLedger().size() > ReportService.ESI_XLS_MAX_MEMBERS;
+        String name = fileName(period, report, xlsx);
+        if (bundle.cancelled.get())
+            return new Artifact(period, name, null, "Cancelled");
+        Path file = null;
+        try {
+            file = spoolDir != null ? Files.createTempFile(spoolDir, "report-bundle-", ".part")
+                    : Files.createTempFile("report-bundle-", ".part");
+            try (OutputStream buf = new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_BYTES)) {
+                if (xlsx) {
+                    reportService.writeEsiXlsx(lookup.getLedger(), buf);
+                } else {
+                    reportCache.write(lookup, buf, reportService.renderer(report));
+                }
+            }
+            return new Artifact(period, name, file, null);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Report bundle {}: {} failed", bundle.id, name, e);
+            if (file != null)
+                deleteQuietly(file);
+            return new Artifact(period, name, null,
+                    report.getKey() + " for " + folder(period) + " failed: " + e.getMessage());
+        }
+    }
+
+    private void submit(Runnable task, Runnable onRejected) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            onRejected.run();
+        }
+    }
+
+    private void failAll(Bundle bundle, PayrollPeriod period, String error, BlockingQueue<Artifact> finished) {
+        for (ReportType report : bundle.reports) {
+            finished.add(new Artifact(period, fileName(period, report, false), null, error));
+        }
+    }
+
+    // Same names as the single downloads, in a folder per month
+    private static String fileName(PayrollPeriod period, ReportType report, boolean xlsx) {
+        String mon = Month.of(period.getMonth()).name().toLowerCase().substring(0, 3);
+        String name;
+        switch (report) {
+            case MAIN_FILE:
+                name = "main_file.pdf";
+                break;
+            case PAYMENT_DETAILS:
+                name = "payment_details.pdf";
+                break;
+            case WAGE_SUMMARY:
+                name = "wage_summary.pdf";
+                break;
+            case ATTENDANCE:
+                name = "attendance_register.pdf";
+                break;
+            case ESI:
+                name = String.format("%s_%d_esi.%s", mon, period.getYear(), xlsx ? "xlsx" : "xls");
+                break;
+            default:
+                name = String.format("%s_%d_epf.txt", mon, period.getYear());
+        }
+        return folder(period) + "/" + name;
+    }
+
+    private static String folder(PayrollPeriod period) {
+        return String.format("%d-%02d", period.getYear(), period.getMonth());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Bundle find(String id) {
+        Bundle bundle = bundles.get(id);
+        return bundle != null && bundle.realm == RealmContext.getRealm() ? bundle : null;
+    }
+
+    // Bundles (and their progress) are dropped a while after being prepared, unless still downloading
+    private void expireOld() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(keepMinutes);
+        bundles.values().removeIf(b -> b.createdAt < cutoff && !"RUNNING".equals(b.status));
+    }
+}
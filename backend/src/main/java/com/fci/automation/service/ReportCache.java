@@ -0,0 +1,568 @@
+package com.fci.automation.service;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.entity.PayrollPeriod;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache of rendered reports, keyed by (realm, period, report type, variant,
+ * content hash). The content hash is {@link PeriodLedger#contentHash()} and is
+ * remembered per period, so a repeat download of an unchanged period is a map
+ * lookup with no database read.
+ *
+ * The remembered hash is dropped by {@link #invalidate} (entry edits, imports,
+ * close / reopen) and, for open periods, re-checked after
+ * {@code app.report.cache.open-period-ttl-seconds} as a safety net for writes
+ * that bypass the hooks. Closed periods keep theirs until invalidated.
+ *
+ * Rendered bytes live in a byte-bounded LRU, plus an optional disk tier under
+ * uploads/report-cache. Disk files are named after the full key (hash
+ * included), so a stale file is never served; old files age out by size.
+ */
+@Service
+public class ReportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCache.class);
+
+    /** Part of every key. Bump when a generator's output changes so older disk entries are not served. */
+    static final int LAYOUT_VERSION = 1;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Value("${app.report.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.report.cache.max-bytes:67108864}")
+    private long maxBytes = 64L * 1024 * 1024;
+
+    // Largest report kept in memory; an uncached download buffers up to this much while it renders
+    @Value("${app.report.cache.max-entry-bytes:4194304}")
+    private long maxEntryBytes = 4L * 1024 * 1024;
+
+    @Value("${app.report.cache.open-period-ttl-seconds:60}")
+    private long openPeriodTtlSeconds = 60;
+
+    @Value("${app.report.cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${app.report.cache.disk.max-bytes:536870912}")
+    private long diskMaxBytes = 512L * 1024 * 1024;
+
+    private Path diskDir = Paths.get(System.getProperty("user.dir") + "/uploads/report-cache").toAbsolutePath()
+            .normalize();
+
+    // Content hash per "realm/periodId"
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a hash computed across a bump is not remembered
+    private final AtomicLong epoch = new AtomicLong();
+
+    // Memory tier: access-ordered LRU bounded by total bytes (guarded by itself)
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Object diskEvictionLock = new Object();
+
+    private static final class Version {
+        private final String hash;
+        private final boolean closed;
+        private final long checkedAt = System.nanoTime();
+
+        private Version(String hash, boolean closed) {
+            this.hash = hash;
+            this.closed = closed;
+        }
+    }
+
+    /** Result of {@link #lookup}: the cached bytes, or the ledger to render from. */
+    public static final class Lookup {
+        private final String keyPrefix;
+        private final ReportType type;
+        private final String hash;
+        private final byte[] bytes;
+        private final PeriodLedger ledger;
+
+        private Lookup(String keyPrefix, ReportType type, String hash, byte[] bytes, PeriodLedger ledger) {
+            this.keyPrefix = keyPrefix;
+            this.type = type;
+            this.hash = hash;
+            this.bytes = bytes;
+            this.ledger = ledger;
+        }
+
+        public boolean isHit() {
+            return bytes != null;
+        }
+
+        /** Data to render from on a miss (null on a hit). */
+        public PeriodLedger getLedger() {
+            return ledger;
+        }
+
+        /** Content hash of the data the report is (or will be) rendered from. */
+        public String getContentHash() {
+            return ledger != null ? ledger.contentHash() : hash;
+        }
+    }
+
+    /** Streams a report for a ledger, e.g. {@code reportService::writeWageSummaryPdf}. */
+    @FunctionalInterface
+    public interface Renderer {
+        void write(PeriodLedger ledger, OutputStream out) throws IOException;
+    }
+
+    @PostConstruct
+    void initDisk() {
+        if (!diskEnabled)
+            return;
+        try {
+            Files.createDirectories(diskDir);
+            try (Stream<Path> files = Files.list(diskDir)) {
+                diskBytes.set(files.mapToLong(ReportCache::sizeOf).sum());
+            }
+        } catch (IOException e) {
+            logger.warn("Report cache disk tier disabled, cannot use {}: {}", diskDir, e.getMessage());
+            diskEnabled = false;
+        }
+    }
+
+    /**
+     * Finds a report for the current realm. Must run on the request thread: it
+     * reads the realm and, when the period's hash is not known yet or the report
+     * is not cached, loads the ledger so rendering needs no further DB access.
+     *
+     * @param variant extra key part for parameterised reports (e.g. bulk payment date), or null
+     */
+    public Lookup lookup(UUID periodId, ReportType type, String variant) {
+        return lookup(periodId, List.of(type), variant).get(0);
+    }
+
+    /**
+     * {@link #lookup} for several reports of one period, reading the period
+     * at most once for all of them.
+     *
+     * @return one lookup per type, in the order of {@code types}
+     */
+    public List<Lookup> lookup(UUID periodId, List<ReportType> types, String variant) {
+        String periodKey = periodKey(periodId);
+        List<String> keyPrefixes = new ArrayList<>(types.size());
+        for (ReportType type : types) {
+            keyPrefixes.add(periodKey + "/" + type + "/" + (variant != null ? variant : "") + "/" + LAYOUT_VERSION
+                    + "/");
+        }
+        List<Lookup> lookups = new ArrayList<>(types.size());
+        if (!enabled) {
+            PeriodLedger ledger = reportService.loadLedger(periodId);
+            for (int i = 0; i < types.size(); i++) {
+                lookups.add(new Lookup(keyPrefixes.get(i), types.get(i), null, null, ledger));
+            }
+            return lookups;
+        }
+
+        // 1. Content version (memoized, else computed from a fresh ledger)
+        PeriodLedger ledger = null;
+        Version version = rememberedVersion(periodKey);
+        if (version == null) {
+            long seenEpoch = epoch.get();
+            ledger = reportService.loadLedger(periodId);
+            version = remember(periodKey, ledger, seenEpoch);
+        }
+
+        // 2. Memory, then disk
+        List<byte[]> found = new ArrayList<>(types.size());
+        boolean missed = false;
+        for (int i = 0; i < types.size(); i++) {
+            byte[] bytes = get(keyPrefixes.get(i) + version.hash, types.get(i));
+            found.add(bytes);
+            missed |= bytes == null;
+        }
+        if (missed && ledger == null) {
+            long seenEpoch = epoch.get();
+            ledger = reportService.loadLedger(periodId);
+            remember(periodKey, ledger, seenEpoch);
+        }
+        for (int i = 0; i < types.size(); i++) {
+            lookups.add(new Lookup(keyPrefixes.get(i), types.get(i), version.hash, found.get(i), ledger));
+        }
+        return lookups;
+    }
+
+    /**
+     * The period's content hash (current realm): the remembered one, else
+     * read from the period. Identifies what a report of it would contain.
+     */
+    public String contentVersion(UUID periodId) {
+        String periodKey = periodKey(periodId);
+        Version version = rememberedVersion(periodKey);
+        if (version == null) {
+            long seenEpoch = epoch.get();
+            version = remember(periodKey, reportService.loadLedger(periodId), seenEpoch);
+        }
+        return version.hash;
+    }
+
+    /**
+     * Writes the report to {@code out}: the cached bytes on a hit, otherwise
+     * renders straight to {@code out} while keeping a copy for the cache. The
+     * copy is held in memory up to the entry limit; with the disk tier on, it
+     * is also spooled to a temp file that becomes the disk entry.
+     */
+    public void write(Lookup lookup, OutputStream out, Renderer renderer) throws IOException {
+        if (lookup.bytes != null) {
+            out.write(lookup.bytes);
+            return;
+        }
+        Path spool = enabled ? createSpool() : null;
+        CapturingOutputStream capture = new CapturingOutputStream(out, maxEntryBytes(), spool);
+        try {
+            renderer.write(lookup.ledger, capture);
+            capture.flush();
+            capture.closeSpool();
+            if (enabled) {
+                String key = lookup.keyPrefix + lookup.ledger.contentHash();
+                if (!capture.overflowed())
+                    putInMemory(key, capture.toByteArray());
+                if (spool != null && capture.spooled()) {
+                    moveToDisk(key, lookup.type, spool);
+                    spool = null;
+                }
+            }
+        } finally {
+            capture.closeSpool();
+            if (spool != null)
+                Files.deleteIfExists(spool);
+        }
+    }
+
+    /** Returns the cached bytes on a hit, otherwise renders and caches them. */
+    public byte[] get(Lookup lookup, Function<PeriodLedger, byte[]> renderer) {
+        if (lookup.bytes != null)
+            return lookup.bytes;
+        byte[] bytes = renderer.apply(lookup.ledger);
+        // Memory takes it up to the entry limit, the disk tier (if on) at any size
+        if (enabled) {
+            put(lookup.keyPrefix + lookup.ledger.contentHash(), lookup.type, bytes);
+        }
+        return bytes;
+    }
+
+    /** Drops the period's cached reports (current realm). Call after its entries or status change. */
+    public void invalidate(UUID periodId) {
+        invalidatePrefix(periodKey(periodId) + "/");
+    }
+
+    /** Drops every period of the current realm, e.g. after employee master changes. */
+    public void invalidateAll() {
+        invalidatePrefix(RealmContext.getRealm() + "/");
+    }
+
+    private void invalidatePrefix(String prefix) {
+        epoch.incrementAndGet();
+        // Version keys are "realm/periodId", without the trailing slash the prefix has
+        versions.keySet().removeIf(k -> (k + "/").startsWith(prefix));
+        synchronized (memory) {
+            Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, byte[]> e = it.next();
+                if (e.getKey().startsWith(prefix)) {
+                    memoryBytes -= e.getValue().length;
+                    it.remove();
+                }
+            }
+        }
+        // Disk files carry the content hash in their name; stale ones just age out
+    }
+
+    // Null when unknown, or due for a re-check (open periods)
+    private Version rememberedVersion(String periodKey) {
+        Version version = versions.get(periodKey);
+        if (version != null && !version.closed
+                && System.nanoTime() - version.checkedAt > TimeUnit.SECONDS.toNanos(openPeriodTtlSeconds)) {
+            return null;
+        }
+        return version;
+    }
+
+    private Version remember(String periodKey, PeriodLedger ledger, long seenEpoch) {
+        Version version = new Version(ledger.contentHash(),
+                ledger.period().getStatus() == PayrollPeriod.Status.CLOSED);
+        // Not remembered if an invalidation ran while the ledger was loading
+        if (epoch.get() == seenEpoch) {
+            versions.put(periodKey, version);
+        }
+        return version;
+    }
+
+    private static String periodKey(UUID periodId) {
+        return RealmContext.getRealm() + "/" + periodId;
+    }
+
+    private long maxEntryBytes() {
+        return Math.min(maxEntryBytes, maxBytes / 4);
+    }
+
+    // --- Tiers ---
+
+    private byte[] get(String key, ReportType type) {
+        synchronized (memory) {
+            byte[] bytes = memory.get(key);
+            if (bytes != null)
+                return bytes;
+        }
+        if (!diskEnabled)
+            return null;
+        Path file = diskFile(key, type);
+        try {
+            if (!Files.exists(file))
+                return null;
+            byte[] bytes = Files.readAllBytes(file);
+            // Keep recently read files from being evicted first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            putInMemory(key, bytes);
+            return bytes;
+        } catch (IOException e) {
+            logger.warn("Report cache read failed for {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void put(String key, ReportType type, byte[] bytes) {
+        putInMemory(key, bytes);
+        if (diskEnabled) {
+            writeToDisk(key, type, bytes);
+        }
+    }
+
+    private void putInMemory(String key, byte[] bytes) {
+        if (bytes.length > maxEntryBytes())
+            return;
+        synchronized (memory) {
+            byte[] previous = memory.put(key, bytes);
+            memoryBytes += bytes.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> eldest = memory.values().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void writeToDisk(String key, ReportType type, byte[] bytes) {
+        Path file = diskFile(key, type);
+        try {
+            if (Files.exists(file))
+                return;
+            // Write then rename, so readers never see a partial file
+            Path tmp = Files.createTempFile(diskDir, "report-", ".tmp");
+            Files.write(tmp, bytes);
+            moveToDisk(key, type, tmp);
+        } catch (IOException e) {
+            logger.warn("Report cache write failed for {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Temp file in the disk tier for a render's copy, or null without one
+    private Path createSpool() {
+        if (!diskEnabled)
+            return null;
+        try {
+            return Files.createTempFile(diskDir, "report-", ".tmp");
+        } catch (IOException e) {
+            logger.warn("Report cache spool not created in {}: {}", diskDir, e.getMessage());
+            return null;
+        }
+    }
+
+    // Renames a complete temp file into place as the key's disk entry
+    private void moveToDisk(String key, ReportType type, Path tmp) throws IOException {
+        Path file = diskFile(key, type);
+        if (Files.exists(file)) {
+            Files.deleteIfExists(tmp);
+            return;
+        }
+        long size = Files.size(tmp);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (diskBytes.addAndGet(size) > diskMaxBytes) {
+            evictDisk();
+        }
+    }
+
+    // Deletes least recently used files until the tier is back under 90% of its budget
+    private void evictDisk() throws IOException {
+        synchronized (diskEvictionLock) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(diskDir)) {
+                files = stream.filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                        .sorted((a, b) -> Long.compare(modifiedAt(a), modifiedAt(b)))
+                        .collect(Collectors.toList());
+            }
+            long target = diskMaxBytes / 10 * 9;
+            for (Path file : files) {
+                if (diskBytes.get() <= target)
+                    break;
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            }
+        }
+    }
+
+    private Path diskFile(String key, ReportType type) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(70);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return diskDir.resolve(name.append('.').append(type.getExtension()).toString());
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static long modifiedAt(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Passes writes through and keeps a copy in memory until it exceeds
+     * {@code limit} bytes, plus a full copy in {@code spoolFile} if given. A
+     * failing spool is dropped; the download itself carries on.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private OutputStream spool;
+        private boolean spoolFailed;
+
+        private CapturingOutputStream(OutputStream out, long limit, Path spoolFile) {
+            super(out);
+            this.limit = limit;
+            spoolFailed = spoolFile == null;
+            if (spoolFile != null) {
+                try {
+                    spool = new BufferedOutputStream(Files.newOutputStream(spoolFile), 64 * 1024);
+                } catch (IOException e) {
+                    logger.warn("Report cache spool not opened: {}", e.getMessage());
+                    spoolFailed = true;
+                }
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+            if (spool != null) {
+                try {
+                    spool.write(b);
+                } catch (IOException e) {
+                    dropSpool(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+            if (spool != null) {
+                try {
+                    spool.write(b, off, len);
+                } catch (IOException e) {
+                    dropSpool(e);
+                }
+            }
+        }
+
+        // Complete once closed without a failed write
+        private void closeSpool() {
+            if (spool == null)
+                return;
+            try {
+                spool.close();
+                spool = null;
+            } catch (IOException e) {
+                dropSpool(e);
+            }
+        }
+
+        private void dropSpool(IOException e) {
+            logger.warn("Report cache spool write failed: {}", e.getMessage());
+            try {
+                spool.close();
+            } catch (IOException ignored) {
+                // Already failing; the file is deleted by the caller
+            }
+            spool = null;
+            spoolFailed = true;
+        }
+
+        private boolean spooled() {
+            return spool == null && !spoolFailed;
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit)
+                copy = null;
+        }
+
+        private boolean overflowed() {
+            return copy == null;
+        }
+
+        private byte[] toByteArray() {
+            return copy.toByteArray();
+        }
+    }
+}
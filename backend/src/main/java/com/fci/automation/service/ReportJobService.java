@@ -0,0 +1,307 @@
+package com.fci.automation.service;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.entity.ReportJob;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.repository.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders reports in the background, so a large month is a quick submit and
+ * a later download instead of one long request. Jobs are rows in report_jobs
+ * (status, progress) and their files live under uploads/report-jobs/<realm>.
+ *
+ * A job is identified by (period, report, content version): submitting a
+ * report of unchanged data returns the existing job, finished or not; a
+ * failed one is run again. Jobs run on a small pool of their own
+ * ({@code app.report.jobs.threads}), each rendering on its one thread rather
+ * than fanning out to the shared render pool, so background renders queue up
+ * instead of taking more cores than that from interactive work. Jobs still
+ * queued or running at shutdown are picked up again on startup. Finished
+ * jobs and their files are removed {@code app.report.jobs.keep-days} after
+ * they finished.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final int ERROR_MAX_CHARS = 1000;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final ReportJobRepository jobRepository;
+    private final PayrollPeriodRepository periodRepository;
+    private final ReportCache reportCache;
+    private final ReportService reportService;
+    private final ExecutorService pool;
+
+    @Value("${app.report.jobs.keep-days:7}")
+    private long keepDays = 7;
+
+    private Path storageDir = Paths.get(System.getProperty("user.dir") + "/uploads/report-jobs").toAbsolutePath()
+            .normalize();
+
+    // Jobs waiting in or running on the pool, so a job is never run twice at once
+    private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+    // Last removal of expired jobs, per realm
+    private final Map<RealmEnum, Long> lastExpiry = new ConcurrentHashMap<>();
+
+    public ReportJobService(ReportJobRepository jobRepository, PayrollPeriodRepository periodRepository,
+            ReportCache reportCache, ReportService reportService,
+            @Value("${app.report.jobs.threads:2}") int threads) {
+        this.jobRepository = jobRepository;
+        this.periodRepository = periodRepository;
+        this.reportCache = reportCache;
+        this.reportService = reportService;
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "report-job-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted jobs stay RUNNING in the table and are run again on startup
+        pool.shutdownNow();
+    }
+
+    /**
+     * Returns the job for the report of the period's current data, queueing
+     * it first if there is none (or the last attempt failed).
+     */
+    public ReportJob submit(UUID periodId, ReportType type) {
+        if (type == ReportType.BULK)
+            throw new IllegalArgumentException("The bulk payment file cannot run as a job");
+        PayrollPeriod period = periodRepository.findById(periodId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown payroll period: " + periodId));
+        // May load the whole period when no version is remembered, so outside the lock
+        String version = reportCache.contentVersion(periodId);
+        return enqueue(period, type, version);
+    }
+
+    // Find-or-create of the job row; serialised so one report of one version is one job
+    private synchronized ReportJob enqueue(PayrollPeriod period, ReportType type, String version) {
+        UUID periodId = period.getId();
+        expireOld();
+
+        // 1. Same report of the same data: that job
+        Optional<ReportJob> existing = jobRepository
+                .findFirstByPeriodIdAndReportTypeAndContentVersionOrderByCreatedAtDesc(periodId, type, version);
+        if (existing.isPresent()) {
+            ReportJob job = existing.get();
+            if (job.getStatus() == ReportJob.Status.QUEUED || job.getStatus() == ReportJob.Status.RUNNING
+                    || job.getStatus() == ReportJob.Status.DONE && Files.exists(Paths.get(job.getFilePath()))) {
+                return job;
+            }
+            // Failed, or its file is gone: run it again
+            reset(job);
+            job = jobRepository.save(job);
+            schedule(RealmContext.getRealm(), job.getId());
+            return job;
+        }
+
+        // 2. New job
+        ReportJob job = new ReportJob();
+        job.setPeriodId(periodId);
+        job.setReportType(type);
+        job.setContentVersion(version);
+        job.setFileName(fileName(period, type));
+        job = jobRepository.save(job);
+        schedule(RealmContext.getRealm(), job.getId());
+        return job;
+    }
+
+    /** The job, or empty if the current realm has none with this id. */
+    public Optional<ReportJob> find(UUID jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /** The finished job's file, or null if it is not DONE (or the file is gone). */
+    public Path artifact(ReportJob job) {
+        if (job.getStatus() != ReportJob.Status.DONE || job.getFilePath() == null)
+            return null;
+        Path file = Paths.get(job.getFilePath());
+        return Files.exists(file) ? file : null;
+    }
+
+    /** Queues again, in submission order, every job that was queued or running when the app last stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        for (RealmEnum realm : RealmEnum.values()) {
+            RealmContext.setRealm(realm);
+            try {
+                expireOld();
+                List<ReportJob> pending = jobRepository.findByStatusInOrderByCreatedAt(
+                        List.of(ReportJob.Status.QUEUED, ReportJob.Status.RUNNING));
+                for (ReportJob job : pending) {
+                    if (job.getStatus() == ReportJob.Status.RUNNING) {
+                        // Cut short by the shutdown; starts over
+                        reset(job);
+                        jobRepository.save(job);
+                    }
+                    schedule(realm, job.getId());
+                }
+                if (!pending.isEmpty())
+                    logger.info("Resumed {} report jobs in {}", pending.size(), realm);
+            } catch (RuntimeException e) {
+                logger.warn("Could not resume report jobs in {}: {}", realm, e.getMessage());
+            } finally {
+                RealmContext.clear();
+            }
+        }
+    }
+
+    private void schedule(RealmEnum realm, UUID jobId) {
+        if (scheduled.add(jobId)) {
+            pool.execute(() -> run(realm, jobId));
+        }
+    }
+
+    private void run(RealmEnum realm, UUID jobId) {
+        // The routed data source and cache keys read the realm from the thread
+        RealmContext.setRealm(realm);
+        ReportJob job = null;
+        Path tmp = null;
+        try {
+            job = jobRepository.findById(jobId).orElse(null);
+            if (job == null || job.getStatus() != ReportJob.Status.QUEUED)
+                return;
+            job.setStatus(ReportJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setProgress(5);
+            job = jobRepository.save(job);
+
+            // 1. Cached bytes, or the period's data
+            ReportCache.Lookup lookup = reportCache.lookup(job.getPeriodId(), job.getReportType(), null);
+            job.setProgress(lookup.isHit() ? 80 : 20);
+            job = jobRepository.save(job);
+
+            // 2. Render to a temp file, moved into place when complete
+            Path dir = storageDir.resolve(realm.name().toLowerCase());
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, "job-", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), WRITE_BUFFER_BYTES)) {
+                reportCache.write(lookup, out, reportService.inlineRenderer(job.getReportType()));
+            }
+            Path file = dir.resolve(job.getId() + "." + job.getReportType().getExtension());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+
+            // Data edited since the submit was rendered as it is now; the job is filed under that version
+            job.setContentVersion(lookup.getContentHash());
+            job.setFilePath(file.toString());
+            job.setFileSize(Files.size(file));
+            job.setStatus(ReportJob.Status.DONE);
+            job.setProgress(100);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        } catch (Exception e) {
+            logger.warn("Report job {} failed", jobId, e);
+            // Partial file gone before the failure is visible
+            if (tmp != null) {
+                deleteQuietly(tmp);
+                tmp = null;
+            }
+            if (job != null)
+                fail(job, e);
+        } finally {
+            scheduled.remove(jobId);
+            if (tmp != null)
+                deleteQuietly(tmp);
+            RealmContext.clear();
+        }
+    }
+
+    private void fail(ReportJob job, Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        job.setStatus(ReportJob.Status.FAILED);
+        job.setError(message.length() > ERROR_MAX_CHARS ? message.substring(0, ERROR_MAX_CHARS) : message);
+        job.setFinishedAt(LocalDateTime.now());
+        try {
+            jobRepository.save(job);
+        } catch (RuntimeException saveFailed) {
+            logger.warn("Could not record failure of report job {}: {}", job.getId(), saveFailed.getMessage());
+        }
+    }
+
+    private static void reset(ReportJob job) {
+        job.setStatus(ReportJob.Status.QUEUED);
+        job.setProgress(0);
+        job.setError(null);
+        job.setFilePath(null);
+        job.setFileSize(null);
+        job.setStartedAt(null);
+        job.setFinishedAt(null);
+    }
+
+    // Jobs finished more than keep-days ago, with their files; at most hourly per realm
+    private void expireOld() {
+        RealmEnum realm = RealmContext.getRealm();
+        long now = System.currentTimeMillis();
+        Long last = lastExpiry.get(realm);
+        if (last != null && now - last < TimeUnit.HOURS.toMillis(1))
+            return;
+        lastExpiry.put(realm, now);
+
+        List<ReportJob> expired = jobRepository.findByStatusInAndFinishedAtBefore(
+                List.of(ReportJob.Status.DONE, ReportJob.Status.FAILED), LocalDateTime.now().minusDays(keepDays));
+        for (ReportJob job : expired) {
+            if (job.getFilePath() != null)
+                deleteQuietly(Paths.get(job.getFilePath()));
+        }
+        jobRepository.deleteAll(expired);
+    }
+
+    // Same names as the direct downloads, with the month for the others
+    private static String fileName(PayrollPeriod period, ReportType type) {
+        String mon = Month.of(period.getMonth()).name().toLowerCase().substring(0, 3);
+        switch (type) {
+            case ESI:
+            case ESI_XLSX:
+                return String.format("%s_%d_esi.%s", mon, period.getYear(), type.getExtension());
+            case EPF:
+                return String.format("%s_%d_epf.txt", mon, period.getYear());
+            default:
+                return String.format("%s_%d_%s.%s", mon, period.getYear(), type.name().toLowerCase(),
+                        type.getExtension());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+}
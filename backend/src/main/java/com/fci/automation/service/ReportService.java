@@ -5,18 +5,26 @@ import com.fci.automation.entity.PayrollPeriod;
 import com.fci.automation.repository.PayrollEntryRepository;
 import com.fci.automation.repository.PayrollPeriodRepository;
 import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.Paragraph;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
-import java.math.BigDecimal;
 import java.time.Month;
 
 @Service
@@ -28,221 +36,399 @@ public class ReportService {
     @Autowired
     private PayrollPeriodRepository periodRepository;
 
-    public byte[] generatePdfReport(UUID periodId, String reportTitle) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Document document = new Document(com.lowagie.text.PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
-            document.open();
+    // Data rows buffered in a PdfPTable before they are written out
+    @Value("${app.report.pdf-flush-rows:200}")
+    private int pdfFlushRows = 200;
+
+    // Category sections are rendered as separate PDFs in parallel from this many rows up
+    @Value("${app.report.parallel-min-rows:2000}")
+    private int parallelMinRows = 2000;
+
+    // Threads for parallel section rendering, 0 = number of cores
+    @Value("${app.report.render-threads:0}")
+    private int renderThreads;
+
+    // Rows SXSSF keeps in memory while writing the .xlsx ESI return
+    @Value("${app.report.xlsx-window-rows:200}")
+    private int xlsxWindowRows = 200;
+
+    private volatile java.util.concurrent.ForkJoinPool renderPool;
+
+    private static final int SECTION_BUFFER_BYTES = 64 * 1024;
+
+    // Set while an inline renderer runs: its sections stay on the calling thread
+    private static final ThreadLocal<Boolean> inlineSections = new ThreadLocal<>();
+
+    // ESI.xls, parsed once; every ESI export is built from it
+    private volatile EsiTemplate esiTemplate;
+
+    /** Most members an ESI .xls holds: the format's 65,536 rows less the header. */
+    public static final int ESI_XLS_MAX_MEMBERS = org.apache.poi.ss.SpreadsheetVersion.EXCEL97.getMaxRows() - 1;
 
-            PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-            List<PayrollEntry> allEntries = entryRepository.findByPeriodId(periodId);
+    // EPF ECR text: field separator, and the statutory caps (EPS wages in paise, contributions in rupees)
+    private static final String ECR_SEPARATOR = "#~#";
+    private static final int ECR_BUFFER_CHARS = 64 * 1024;
+    private static final long EPS_WAGE_CAP = 15000_00;
+    private static final long EPS_CONTRI_CAP = 1250;
+    private static final long EPF_CONTRI_AT_CAP = 1800;
 
-            // Group by Category
-            java.util.Map<com.fci.automation.entity.Employee.Category, List<PayrollEntry>> grouped = allEntries.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(e -> e.getEmployee().getCategory()));
+    /**
+     * Loads everything the report generators need for a period in one read.
+     * Build it once and pass it to the PeriodLedger overloads when producing
+     * several reports for the same period.
+     */
+    public PeriodLedger loadLedger(UUID periodId) {
+        PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
+        List<PayrollEntry> entries = entryRepository.findByPeriodId(periodId);
+        return PeriodLedger.of(period, entries);
+    }
+
+    /**
+     * The streaming generator for a report, for renders outside a download
+     * request (audit packs, background jobs). BULK needs a payment date, so it
+     * has none.
+     */
+    public ReportCache.Renderer renderer(ReportType type) {
+        switch (type) {
+            case MAIN_FILE:
+                return (ledger, out) -> writePdfReport(ledger, "Main File (Payroll Engine)", out);
+            case PAYMENT_DETAILS:
+                return this::writePaymentDetailsPdf;
+            case WAGE_SUMMARY:
+                return this::writeWageSummaryPdf;
+            case ATTENDANCE:
+                return this::writeAttendanceRegisterPdf;
+            case ESI:
+                return this::writeEsiExcel;
+            case ESI_XLSX:
+                return this::writeEsiXlsx;
+            case EPF:
+                return this::writeEpfTxt;
+            default:
+                throw new IllegalArgumentException("No renderer for " + type);
+        }
+    }
+
+    /**
+     * Like {@link #renderer(ReportType)}, but every section is written on the
+     * calling thread, never on the shared render pool: background jobs use no
+     * more cores than they have threads.
+     */
+    public ReportCache.Renderer inlineRenderer(ReportType type) {
+        ReportCache.Renderer renderer = renderer(type);
+        return (ledger, out) -> {
+            inlineSections.set(Boolean.TRUE);
+            try {
+                renderer.write(ledger, out);
+            } finally {
+                inlineSections.remove();
+            }
+        };
+    }
 
+    public byte[] generatePdfReport(UUID periodId, String reportTitle) {
+        return generatePdfReport(loadLedger(periodId), reportTitle);
+    }
+
+    public byte[] generatePdfReport(PeriodLedger ledger, String reportTitle) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePdfReport(ledger, reportTitle, out);
+        return out.toByteArray();
+    }
+
+    /** Writes the Main File (wages / EPF / ESI) PDF to {@code out}, which is left open. */
+    public void writePdfReport(PeriodLedger ledger, String reportTitle, OutputStream out) {
+        try {
             // Fixed Order: HL first, then CL
             com.fci.automation.entity.Employee.Category[] cats = { com.fci.automation.entity.Employee.Category.HL,
                     com.fci.automation.entity.Employee.Category.CL };
+            writeSections(ledger, com.lowagie.text.PageSize.A4.rotate(), cats, out,
+                    (document, cat) -> writeMainFileSection(document, ledger, cat));
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating PDF", e);
+        }
+    }
+
+    /** One category of the Main File: title, headers, member rows and total row. */
+    private void writeMainFileSection(Document document, PeriodLedger ledger,
+            com.fci.automation.entity.Employee.Category cat) throws DocumentException {
+        PayrollPeriod period = ledger.period();
+        // Sorted by Member ID
+        int[] rows = ledger.byMemberId(cat);
+
+        // Generate Title
+        String catName = (cat == com.fci.automation.entity.Employee.Category.HL) ? "HEAD LOAD LABOURERS"
+                : "CASUAL LABOURERS";
+        String mainTitleText = "WAGES PAID & EPF/ESI REMITTANCE PARTICULARS FOR THE MONTH OF "
+                + getMonthName(period.getMonth()).toUpperCase() + " " + period.getYear()
+                + " IN RESPECT OF " + catName + " ENGAGED IN FSD ARRAKULAM";
+
+        // Create Table
+        PdfPTable table = new PdfPTable(16);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[] {
+                2.5f, 13f, 8f, 7f, 9.5f, 5f, 3f, 6f,
+                4.5f, 4.5f, 4.5f,
+                4.5f, 4.5f, 4.5f,
+                5f, 7f
+        });
+
+        // --- HEADER ---
+        com.lowagie.text.pdf.PdfPCell titleCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph(mainTitleText,
+                com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 10)));
+        titleCell.setColspan(16);
+        titleCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_CENTER);
+        titleCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
+        titleCell.setPadding(5);
+        table.addCell(titleCell);
+
+        com.lowagie.text.Font headFont = com.lowagie.text.FontFactory
+                .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 8);
+        addNestedHeader(table, "Sl.No", 1, 2, headFont);
+        addNestedHeader(table, "MEMBER NAME", 1, 2, headFont);
+        addNestedHeader(table, "UAN", 1, 2, headFont);
+        addNestedHeader(table, "IP NUMBER", 1, 2, headFont);
+        addNestedHeader(table, "BANK ACCOUNT NUMBER", 1, 2, headFont);
+        addNestedHeader(table, "IFSC", 1, 2, headFont);
+        addNestedHeader(table, "No.of days paid", 1, 2, headFont);
+        addNestedHeader(table, "Wages Earned", 1, 2, headFont); // 8 cols
+
+        addNestedHeader(table, "EPF", 3, 1, headFont);
+        addNestedHeader(table, "ESI", 3, 1, headFont);
+
+        addNestedHeader(table, "ADVANCE", 1, 2, headFont);
+        addNestedHeader(table, "IN HAND SALARY", 1, 2, headFont);
+
+        // Check row count in headers. Previous implementation had header row 2 and 3.
+        // Row 2: Sl(rowspan2)... EPF(colspan3) ESI(colspan3) Adv(rowspan2)...
+        // Row 3: EPF Subs... ESI Subs...
+
+        addNestedHeader(table, "CONTRACTOR CONTRIBUTION", 1, 1, headFont);
+        addNestedHeader(table, "MEMBER CONTRIBUTION", 1, 1, headFont);
+        addNestedHeader(table, "TOTAL", 1, 1, headFont);
+
+        addNestedHeader(table, "CONTRACTOR CONTRIBUTION", 1, 1, headFont);
+        addNestedHeader(table, "MEMBER CONTRIBUTION", 1, 1, headFont);
+        addNestedHeader(table, "TOTAL", 1, 1, headFont);
+
+        // --- DATA ---
+        com.lowagie.text.Font dataFont = com.lowagie.text.FontFactory
+                .getFont(com.lowagie.text.FontFactory.HELVETICA, 8);
+        table.setComplete(false);
+        int sl = 1;
+        for (int i : rows) {
+            addCell(table, String.valueOf(sl++), dataFont);
+            addCell(table, ledger.name(i), dataFont);
+            addCell(table, ledger.uan(i), dataFont);
+            addCell(table, ledger.ipNumber(i), dataFont);
+            addCell(table, ledger.bankAccount(i), dataFont);
+            addCell(table, ledger.ifscCode(i), dataFont);
+
+            // Days
+            addCell(table, String.valueOf(ledger.days(i)), dataFont);
+
+            // Wages (H) - Strict Rule for Report: CL = Days * 541
+            addCell(table, rupees(ledger.reportWages(i)), dataFont);
+
+            addCell(table, rupees(ledger.epfContractor(i)), dataFont);
+            addCell(table, rupees(ledger.epfMember(i)), dataFont);
+            addCell(table, rupees(ledger.epfContractor(i) + ledger.epfMember(i)), dataFont);
+
+            addCell(table, rupees(ledger.esiContractor(i)), dataFont);
+            addCell(table, rupees(ledger.esiMember(i)), dataFont);
+            addCell(table, rupees(ledger.esiContractor(i) + ledger.esiMember(i)), dataFont);
+
+            // Advance (O5)
+            addCell(table, rupees(ledger.advance(i)), dataFont);
+
+            // In-Hand Salary (Net Pay)
+            // Formula: Wages - EPF Member - ESI Member - Advance
+            // Uses Standard Display Wages
+            addCell(table, rupees(ledger.inHand(i)), dataFont);
+            flushRows(document, table, sl - 1);
+        }
+
+        // --- ADD TOTAL ROW ---
+        com.lowagie.text.pdf.PdfPCell totalLabelCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph("TOTAL",
+                com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9)));
+        totalLabelCell.setColspan(6); // Sl(1) + Name(1) + UAN(1) + IP(1) + Bank(1) + IFSC(1)
+        totalLabelCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_RIGHT);
+        totalLabelCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
+        totalLabelCell.setPaddingRight(5);
+        table.addCell(totalLabelCell);
+
+        com.lowagie.text.Font totalFont = com.lowagie.text.FontFactory
+                .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9);
+
+        // Totals are summed exactly and rounded once, like the per-row cells
+        PeriodLedger.Totals totals = ledger.totals(cat);
+        addCell(table, String.valueOf(totals.days()), totalFont);
+        addCell(table, rupees(totals.reportWages()), totalFont);
+
+        addCell(table, rupees(totals.epfContractor()), totalFont);
+        addCell(table, rupees(totals.epfMember()), totalFont);
+        addCell(table, rupees(totals.epfTotal()), totalFont);
+
+        addCell(table, rupees(totals.esiContractor()), totalFont);
+        addCell(table, rupees(totals.esiMember()), totalFont);
+        addCell(table, rupees(totals.esiTotal()), totalFont);
+
+        addCell(table, rupees(totals.advance()), totalFont);
+        addCell(table, rupees(totals.inHand()), totalFont);
+
+        table.setComplete(true);
+        document.add(table);
+    }
+
+    /** Renders one category section into an open document. */
+    @FunctionalInterface
+    private interface SectionWriter {
+        void write(Document document, com.fci.automation.entity.Employee.Category cat) throws DocumentException;
+    }
 
-            boolean firstIdx = true;
-            for (com.fci.automation.entity.Employee.Category cat : cats) {
-                if (!grouped.containsKey(cat))
-                    continue;
-                List<PayrollEntry> entries = grouped.get(cat);
+    /**
+     * Writes the sections of the categories present, in the given order, each
+     * starting on a new page. Large periods with several sections render every
+     * section as its own PDF on the render pool and stitch the pages with
+     * PdfCopy; sections never share a page, so the pages are the same. The
+     * section PDFs wait in temp files, read back page by page, so the heap
+     * stays flat however large the period.
+     */
+    private void writeSections(PeriodLedger ledger, com.lowagie.text.Rectangle pageSize,
+            com.fci.automation.entity.Employee.Category[] order, OutputStream out, SectionWriter section)
+            throws Exception {
+        List<com.fci.automation.entity.Employee.Category> cats = new java.util.ArrayList<>();
+        for (com.fci.automation.entity.Employee.Category cat : order) {
+            if (ledger.hasCategory(cat))
+                cats.add(cat);
+        }
 
-                if (!firstIdx) {
-                    document.newPage();
+        // On a single core (or for an inline renderer) the stitching is pure overhead
+        if (cats.size() > 1 && ledger.size() >= parallelMinRows && renderParallelism() > 1
+                && inlineSections.get() == null) {
+            // 1. One fragment per section, rendered concurrently into a temp file
+            List<java.util.concurrent.ForkJoinTask<java.nio.file.Path>> fragments = new java.util.ArrayList<>();
+            try {
+                for (com.fci.automation.entity.Employee.Category cat : cats) {
+                    fragments.add(renderPool().submit(() -> {
+                        java.nio.file.Path fragment = java.nio.file.Files.createTempFile("report-section-", ".pdf");
+                        try (OutputStream fragmentOut = new java.io.BufferedOutputStream(
+                                java.nio.file.Files.newOutputStream(fragment), SECTION_BUFFER_BYTES)) {
+                            Document document = new Document(pageSize);
+                            PdfWriter.getInstance(document, fragmentOut);
+                            document.open();
+                            section.write(document, cat);
+                            document.close();
+                        } catch (Exception e) {
+                            java.nio.file.Files.deleteIfExists(fragment);
+                            throw e;
+                        }
+                        return fragment;
+                    }));
                 }
-                firstIdx = false;
 
-                // Sort by Member ID
-                entries.sort((e1, e2) -> {
+                // 2. Stitch in the fixed order, reading each fragment from disk
+                Document document = new Document(pageSize);
+                com.lowagie.text.pdf.PdfCopy copy = new com.lowagie.text.pdf.PdfCopy(document, out);
+                copy.setCloseStream(false);
+                document.open();
+                for (java.util.concurrent.ForkJoinTask<java.nio.file.Path> fragment : fragments) {
+                    com.lowagie.text.pdf.PdfReader reader = new com.lowagie.text.pdf.PdfReader(
+                            new com.lowagie.text.pdf.RandomAccessFileOrArray(fragment.join().toString(), false, true),
+                            null);
                     try {
-                        return Integer.compare(Integer.parseInt(e1.getEmployee().getMemberId()),
-                                Integer.parseInt(e2.getEmployee().getMemberId()));
-                    } catch (Exception e) {
-                        return e1.getEmployee().getMemberId().compareTo(e2.getEmployee().getMemberId());
+                        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                            copy.addPage(copy.getImportedPage(reader, page));
+                        }
+                        copy.freeReader(reader);
+                    } finally {
+                        reader.close();
                     }
-                });
-
-                // Generate Title
-                String catName = (cat == com.fci.automation.entity.Employee.Category.HL) ? "HEAD LOAD LABOURERS"
-                        : "CASUAL LABOURERS";
-                String mainTitleText = "WAGES PAID & EPF/ESI REMITTANCE PARTICULARS FOR THE MONTH OF "
-                        + getMonthName(period.getMonth()).toUpperCase() + " " + period.getYear()
-                        + " IN RESPECT OF " + catName + " ENGAGED IN FSD ARRAKULAM";
-
-                // Create Table
-                PdfPTable table = new PdfPTable(16);
-                table.setWidthPercentage(100);
-                table.setWidths(new float[] {
-                        2.5f, 13f, 8f, 7f, 9.5f, 5f, 3f, 6f,
-                        4.5f, 4.5f, 4.5f,
-                        4.5f, 4.5f, 4.5f,
-                        5f, 7f
-                });
-
-                // --- HEADER ---
-                com.lowagie.text.pdf.PdfPCell titleCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph(mainTitleText,
-                        com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 10)));
-                titleCell.setColspan(16);
-                titleCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_CENTER);
-                titleCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
-                titleCell.setPadding(5);
-                table.addCell(titleCell);
-
-                com.lowagie.text.Font headFont = com.lowagie.text.FontFactory
-                        .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 8);
-                addNestedHeader(table, "Sl.No", 1, 2, headFont);
-                addNestedHeader(table, "MEMBER NAME", 1, 2, headFont);
-                addNestedHeader(table, "UAN", 1, 2, headFont);
-                addNestedHeader(table, "IP NUMBER", 1, 2, headFont);
-                addNestedHeader(table, "BANK ACCOUNT NUMBER", 1, 2, headFont);
-                addNestedHeader(table, "IFSC", 1, 2, headFont);
-                addNestedHeader(table, "No.of days paid", 1, 2, headFont);
-                addNestedHeader(table, "Wages Earned", 1, 2, headFont); // 8 cols
-
-                addNestedHeader(table, "EPF", 3, 1, headFont);
-                addNestedHeader(table, "ESI", 3, 1, headFont);
-
-                addNestedHeader(table, "ADVANCE", 1, 2, headFont);
-                addNestedHeader(table, "IN HAND SALARY", 1, 2, headFont);
-
-                // Check row count in headers. Previous implementation had header row 2 and 3.
-                // Row 2: Sl(rowspan2)... EPF(colspan3) ESI(colspan3) Adv(rowspan2)...
-                // Row 3: EPF Subs... ESI Subs...
-
-                addNestedHeader(table, "CONTRACTOR CONTRIBUTION", 1, 1, headFont);
-                addNestedHeader(table, "MEMBER CONTRIBUTION", 1, 1, headFont);
-                addNestedHeader(table, "TOTAL", 1, 1, headFont);
-
-                addNestedHeader(table, "CONTRACTOR CONTRIBUTION", 1, 1, headFont);
-                addNestedHeader(table, "MEMBER CONTRIBUTION", 1, 1, headFont);
-                addNestedHeader(table, "TOTAL", 1, 1, headFont);
-
-                // --- DATA ---
-                com.lowagie.text.Font dataFont = com.lowagie.text.FontFactory
-                        .getFont(com.lowagie.text.FontFactory.HELVETICA, 8);
-                // Accumulators for Total Row
-                int totalDays = 0;
-                BigDecimal totalWages = BigDecimal.ZERO;
-                BigDecimal totalEpfContractor = BigDecimal.ZERO;
-                BigDecimal totalEpfMember = BigDecimal.ZERO;
-                BigDecimal totalEpfTotal = BigDecimal.ZERO;
-                BigDecimal totalEsiContractor = BigDecimal.ZERO;
-                BigDecimal totalEsiMember = BigDecimal.ZERO;
-                BigDecimal totalEsiTotal = BigDecimal.ZERO;
-                BigDecimal totalAdvance = BigDecimal.ZERO;
-                BigDecimal totalInHand = BigDecimal.ZERO;
-
-                int sl = 1;
-                for (PayrollEntry entry : entries) {
-                    BigDecimal epfTotal = entry.getEpfContractorShare().add(entry.getEpfMemberShare());
-                    BigDecimal esiTotal = entry.getEsiContractorShare().add(entry.getEsiMemberShare());
-
-                    addCell(table, String.valueOf(sl++), dataFont);
-                    addCell(table, entry.getEmployee().getFullName(), dataFont);
-                    addCell(table, entry.getEmployee().getUanNumber(), dataFont);
-                    addCell(table, entry.getEmployee().getIpNumber(), dataFont);
-                    addCell(table, entry.getEmployee().getBankAccountNo(), dataFont);
-                    addCell(table, entry.getEmployee().getIfscCode(), dataFont);
-
-                    // Days
-                    int days = entry.getDaysWorked() != null ? entry.getDaysWorked() : 0;
-                    addCell(table, String.valueOf(days), dataFont);
-
-                    // Determine Wages (Standard vs Input)
-                    BigDecimal displayWages = entry.getWagesEarned();
-                    if (entry.getEmployee() != null
-                            && entry.getEmployee().getCategory() == com.fci.automation.entity.Employee.Category.CL) {
-                        // Strict Rule for Report: Days * 541
-                        displayWages = new BigDecimal(days).multiply(new BigDecimal("541"));
+                }
+                document.close();
+            } finally {
+                // Sections still rendering after a failure are waited for, so none is left behind
+                for (java.util.concurrent.ForkJoinTask<java.nio.file.Path> fragment : fragments) {
+                    try {
+                        java.nio.file.Files.deleteIfExists(fragment.join());
+                    } catch (RuntimeException | IOException e) {
+                        // Failed section: it removed its own file
                     }
-
-                    // Wages (H)
-                    addCell(table, String.valueOf(displayWages.setScale(0, java.math.RoundingMode.HALF_UP)), dataFont);
-
-                    addCell(table,
-                            String.valueOf(entry.getEpfContractorShare().setScale(0, java.math.RoundingMode.HALF_UP)),
-                            dataFont);
-                    addCell(table,
-                            String.valueOf(entry.getEpfMemberShare().setScale(0, java.math.RoundingMode.HALF_UP)),
-                            dataFont);
-                    addCell(table, String.valueOf(epfTotal.setScale(0, java.math.RoundingMode.HALF_UP)), dataFont);
-
-                    addCell(table,
-                            String.valueOf(entry.getEsiContractorShare().setScale(0, java.math.RoundingMode.HALF_UP)),
-                            dataFont);
-                    addCell(table,
-                            String.valueOf(entry.getEsiMemberShare().setScale(0, java.math.RoundingMode.HALF_UP)),
-                            dataFont);
-                    addCell(table, String.valueOf(esiTotal.setScale(0, java.math.RoundingMode.HALF_UP)), dataFont);
-
-                    // Advance (O5)
-                    BigDecimal advance = entry.getAdvanceDeduction() != null ? entry.getAdvanceDeduction()
-                            : BigDecimal.ZERO;
-                    addCell(table, String.valueOf(advance.setScale(0, java.math.RoundingMode.HALF_UP)), dataFont);
-
-                    // In-Hand Salary (Net Pay)
-                    // Formula: Wages - EPF Member - ESI Member - Advance
-                    // Uses Standard Display Wages
-                    BigDecimal inHand = displayWages
-                            .subtract(entry.getEpfMemberShare())
-                            .subtract(entry.getEsiMemberShare())
-                            .subtract(advance);
-
-                    addCell(table, String.valueOf(inHand.setScale(0, java.math.RoundingMode.HALF_UP)), dataFont);
-
-                    // Accumulate Totals
-                    totalDays += days;
-                    totalWages = totalWages.add(displayWages);
-                    totalEpfContractor = totalEpfContractor.add(entry.getEpfContractorShare());
-                    totalEpfMember = totalEpfMember.add(entry.getEpfMemberShare());
-                    totalEpfTotal = totalEpfTotal.add(epfTotal);
-                    totalEsiContractor = totalEsiContractor.add(entry.getEsiContractorShare());
-                    totalEsiMember = totalEsiMember.add(entry.getEsiMemberShare());
-                    totalEsiTotal = totalEsiTotal.add(esiTotal);
-                    totalAdvance = totalAdvance.add(advance);
-                    totalInHand = totalInHand.add(inHand);
                 }
+            }
+            return;
+        }
 
-                // --- ADD TOTAL ROW ---
-                com.lowagie.text.pdf.PdfPCell totalLabelCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph("TOTAL",
-                        com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9)));
-                totalLabelCell.setColspan(6); // Sl(1) + Name(1) + UAN(1) + IP(1) + Bank(1) + IFSC(1)
-                totalLabelCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_RIGHT);
-                totalLabelCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
-                totalLabelCell.setPaddingRight(5);
-                table.addCell(totalLabelCell);
-
-                com.lowagie.text.Font totalFont = com.lowagie.text.FontFactory
-                        .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9);
+        Document document = new Document(pageSize);
+        PdfWriter.getInstance(document, out).setCloseStream(false);
+        document.open();
+        boolean firstIdx = true;
+        for (com.fci.automation.entity.Employee.Category cat : cats) {
+            if (!firstIdx) {
+                document.newPage();
+            }
+            firstIdx = false;
+            section.write(document, cat);
+        }
+        document.close();
+    }
 
-                addCell(table, String.valueOf(totalDays), totalFont);
-                addCell(table, String.valueOf(totalWages.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
+    private java.util.concurrent.ForkJoinPool renderPool() {
+        java.util.concurrent.ForkJoinPool pool = renderPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = renderPool;
+                if (pool == null) {
+                    pool = new java.util.concurrent.ForkJoinPool(renderParallelism());
+                    renderPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
 
-                addCell(table, String.valueOf(totalEpfContractor.setScale(0, java.math.RoundingMode.HALF_UP)),
-                        totalFont);
-                addCell(table, String.valueOf(totalEpfMember.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
-                addCell(table, String.valueOf(totalEpfTotal.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
+    /** Parses ESI.xls at startup, so no ESI download waits for it. */
+    @jakarta.annotation.PostConstruct
+    void loadEsiTemplate() {
+        esiTemplate();
+    }
 
-                addCell(table, String.valueOf(totalEsiContractor.setScale(0, java.math.RoundingMode.HALF_UP)),
-                        totalFont);
-                addCell(table, String.valueOf(totalEsiMember.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
-                addCell(table, String.valueOf(totalEsiTotal.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
+    private EsiTemplate esiTemplate() {
+        EsiTemplate template = esiTemplate;
+        if (template == null) {
+            synchronized (this) {
+                template = esiTemplate;
+                if (template == null) {
+                    try (java.io.InputStream fis = getClass().getClassLoader().getResourceAsStream("ESI.xls")) {
+                        if (fis == null) {
+                            throw new RuntimeException("ESI.xls template not found in classpath");
+                        }
+                        template = EsiTemplate.parse(fis);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error reading ESI.xls template", e);
+                    }
+                    esiTemplate = template;
+                }
+            }
+        }
+        return template;
+    }
 
-                addCell(table, String.valueOf(totalAdvance.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
-                addCell(table, String.valueOf(totalInHand.setScale(0, java.math.RoundingMode.HALF_UP)), totalFont);
+    private int renderParallelism() {
+        return renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+    }
 
-                document.add(table);
-            }
+    @jakarta.annotation.PreDestroy
+    void shutdownRenderPool() {
+        if (renderPool != null)
+            renderPool.shutdown();
+    }
 
-            document.close();
-            return out.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating PDF", e);
-        }
+    // Incremental rendering: while a table is not complete, each document.add()
+    // writes the finished rows out and drops them from the table model
+    private void flushRows(Document document, PdfPTable table, int rowsAdded) throws DocumentException {
+        if (rowsAdded % Math.max(1, pdfFlushRows) == 0)
+            document.add(table);
     }
 
     private void addNestedHeader(PdfPTable table, String text, int colspan, int rowspan, com.lowagie.text.Font font) {
@@ -268,93 +454,146 @@ public class ReportService {
         return Month.of(month).name();
     }
 
+    // Whole rupees, HALF_UP (same text as BigDecimal.setScale(0, HALF_UP))
+    private static String rupees(long paise) {
+        return String.valueOf(Paise.rupeesHalfUp(paise));
+    }
+
     public byte[] generateEsiExcel(UUID periodId) {
-        java.io.InputStream fis = getClass().getClassLoader().getResourceAsStream("ESI.xls");
-        if (fis == null) {
-            throw new RuntimeException("ESI.xls template not found in classpath");
-        }
-        try (fis;
-                Workbook workbook = new HSSFWorkbook(fis);
-                ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            List<PayrollEntry> entries = entryRepository.findByPeriodId(periodId);
-            PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-
-            // Date Format for Col 5
-            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            String lastWorkingDate = period.getLastWorkingDay() != null ? period.getLastWorkingDay().format(formatter)
-                    : "";
-
-            int rowIdx = 1; // Start from Row 1 (Header is 0)
-            for (PayrollEntry entry : entries) {
-                Row row = sheet.getRow(rowIdx);
-                if (row == null) {
-                    row = sheet.createRow(rowIdx);
-                }
-                rowIdx++;
+        return generateEsiExcel(loadLedger(periodId));
+    }
 
-                // Col 0: IP Number
-                row.createCell(0).setCellValue(entry.getEmployee().getIpNumber());
+    public byte[] generateEsiExcel(PeriodLedger ledger) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeEsiExcel(ledger, out);
+        return out.toByteArray();
+    }
 
-                // Col 1: IP Name
-                row.createCell(1).setCellValue(entry.getEmployee().getFullName());
+    /**
+     * Writes the ESI return as .xls (the ESI.xls template, from its parsed
+     * {@link EsiTemplate}, plus one row per member) to {@code out}, which is
+     * left open. The format holds at most {@link #ESI_XLS_MAX_MEMBERS}
+     * members; use {@link #writeEsiXlsx} beyond.
+     */
+    public void writeEsiExcel(PeriodLedger ledger, OutputStream out) {
+        if (ledger.size() > ESI_XLS_MAX_MEMBERS) {
+            throw new RuntimeException("ESI .xls holds at most " + ESI_XLS_MAX_MEMBERS + " members, this period has "
+                    + ledger.size() + "; download it as .xlsx");
+        }
+        try (Workbook workbook = new HSSFWorkbook()) {
+            Sheet sheet = esiTemplate().copyInto(workbook);
+            writeEsiRows(sheet, ledger);
+            workbook.write(out);
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating ESI Excel", e);
+        }
+    }
 
-                // Col 2: Days Worked
-                int days = entry.getDaysWorked() != null ? entry.getDaysWorked() : 0;
-                row.createCell(2).setCellValue(days);
+    /**
+     * Writes the ESI return as .xlsx, with the same sheets and columns as the
+     * .xls, to {@code out}, which is left open. Rows are streamed (SXSSF):
+     * only the last {@code app.report.xlsx-window-rows} are held in memory,
+     * so there is no member limit and memory does not grow with the roll.
+     */
+    public void writeEsiXlsx(PeriodLedger ledger, OutputStream out) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(Math.max(1, xlsxWindowRows));
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = esiTemplate().copyInto(workbook);
+            writeEsiRows(sheet, ledger);
+            workbook.write(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating ESI Excel", e);
+        } finally {
+            // Sheet data is buffered in temp files until written
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
 
-                // Col 3: Total Monthly Wages (Logic: CL = Days*541, HL = Input)
-                BigDecimal wages;
-                if (entry.getEmployee().getCategory() == com.fci.automation.entity.Employee.Category.CL) {
-                    wages = new BigDecimal(days).multiply(new BigDecimal("541"));
-                } else {
-                    wages = entry.getWagesEarned() != null ? entry.getWagesEarned() : BigDecimal.ZERO;
-                }
-                row.createCell(3).setCellValue(wages.doubleValue());
+    // One row per member after the header; the same cells for .xls and .xlsx
+    private static void writeEsiRows(Sheet sheet, PeriodLedger ledger) {
+        PayrollPeriod period = ledger.period();
 
-                // Col 4: Reason Code (0 wages -> 1, else 0)
-                String reasonCode = (wages.compareTo(BigDecimal.ZERO) == 0) ? "1" : "0";
-                row.createCell(4).setCellValue(reasonCode);
+        // Date Format for Col 5
+        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        String lastWorkingDate = period.getLastWorkingDay() != null ? period.getLastWorkingDay().format(formatter)
+                : "";
 
-                // Col 5: Last Working Day
-                row.createCell(5).setCellValue(lastWorkingDate);
+        int rowIdx = 1; // Start from Row 1 (Header is 0)
+        for (int i = 0; i < ledger.size(); i++) {
+            Row row = sheet.getRow(rowIdx);
+            if (row == null) {
+                row = sheet.createRow(rowIdx);
             }
+            rowIdx++;
 
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating ESI Excel", e);
+            // Col 0: IP Number
+            row.createCell(0).setCellValue(ledger.ipNumber(i));
+
+            // Col 1: IP Name
+            row.createCell(1).setCellValue(ledger.name(i));
+
+            // Col 2: Days Worked
+            row.createCell(2).setCellValue(ledger.days(i));
+
+            // Col 3: Total Monthly Wages (Logic: CL = Days*541, HL = Input)
+            long wages = ledger.reportWages(i);
+            row.createCell(3).setCellValue(wages / 100.0);
+
+            // Col 4: Reason Code (0 wages -> 1, else 0)
+            String reasonCode = (wages == 0) ? "1" : "0";
+            row.createCell(4).setCellValue(reasonCode);
+
+            // Col 5: Last Working Day
+            row.createCell(5).setCellValue(lastWorkingDate);
         }
     }
 
     public String generateEpfTxt(UUID periodId) {
-        StringBuilder txt = new StringBuilder();
+        return generateEpfTxt(loadLedger(periodId));
+    }
+
+    public String generateEpfTxt(PeriodLedger ledger) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeEpfTxt(ledger, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating EPF text", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the EPF ECR text file ({@code #~#}-separated, one line per
+     * member) to {@code out} through a fixed-size buffer, so memory does not
+     * grow with the member count. {@code out} is flushed and left open.
+     */
+    public void writeEpfTxt(PeriodLedger ledger, OutputStream out) throws IOException {
+        Writer txt = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), ECR_BUFFER_CHARS);
         // No Header for Text File as per requirement
 
-        com.fci.automation.entity.PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
+        com.fci.automation.entity.PayrollPeriod period = ledger.period();
+        int totalDaysInMonth = java.time.YearMonth.of(period.getYear(), period.getMonth()).lengthOfMonth();
 
-        List<PayrollEntry> entries = entryRepository.findByPeriodId(periodId);
-        for (PayrollEntry entry : entries) {
+        // Money below is in paise; the file carries whole rupees (fraction dropped)
+        for (int i = 0; i < ledger.size(); i++) {
             // 1. Gross Wages
-            BigDecimal grossWages;
-            int days = entry.getDaysWorked() != null ? entry.getDaysWorked() : 0;
-
-            if (entry.getEmployee().getCategory() == com.fci.automation.entity.Employee.Category.CL) {
-                grossWages = new BigDecimal(days).multiply(new BigDecimal("541"));
-            } else {
-                grossWages = entry.getWagesEarned() != null ? entry.getWagesEarned() : BigDecimal.ZERO;
-            }
+            int days = ledger.days(i);
+            long grossWages = ledger.reportWages(i);
 
             // 2. EPF Wages = Gross
-            BigDecimal epfWages = grossWages;
+            long epfWages = grossWages;
 
             // 3. EPS Wages = Min(Gross, 15000)
-            BigDecimal cap = new BigDecimal("15000");
-            BigDecimal epsWages = (grossWages.compareTo(cap) > 0) ? cap : grossWages;
+            long epsWages = (grossWages > EPS_WAGE_CAP) ? EPS_WAGE_CAP : grossWages;
 
             // 4. EDLI Wages = EPS Wages (Same Cap)
-            BigDecimal edliWages = epsWages;
+            long edliWages = epsWages;
 
             // 5. EPF Contri Remitted = Round(Gross * 12%)
             // Note: Requirement says "ROUND(C2 * 12%, 0)". effectively calculating on
@@ -365,43 +604,41 @@ public class ReportService {
             // However, usually EPF is 12% of EPF Wages. If EPF Wages = Gross, then 12% of
             // Gross.
             // LET'S FOLLOW EXCEL FORMULA: "ROUND(C2 * 12%, 0)" where C2 is Gross.
-            BigDecimal epfContri = grossWages.multiply(new BigDecimal("0.12")).setScale(0,
-                    java.math.RoundingMode.HALF_UP);
+            // Whole rupees: ROUND(paise * 12 / 10000)
+            long epfContri = Paise.mulDivHalfUp(grossWages, 12, 10000);
 
             // 6. EPS Contri = MIN(ROUND(C2 * 8.33%, 0), 1250)
-            BigDecimal calcEps = grossWages.multiply(new BigDecimal("0.0833")).setScale(0,
-                    java.math.RoundingMode.HALF_UP);
-            BigDecimal epsContri = (calcEps.compareTo(new BigDecimal("1250")) > 0) ? new BigDecimal("1250") : calcEps;
+            long calcEps = Paise.mulDivHalfUp(grossWages, 833, 1000000);
+            long epsContri = (calcEps > EPS_CONTRI_CAP) ? EPS_CONTRI_CAP : calcEps;
 
             // 8. NCP Days Calculation (Dynamic Month-Based)
-            int totalDaysInMonth = java.time.YearMonth.of(period.getYear(), period.getMonth()).lengthOfMonth();
             int ncpDays = totalDaysInMonth - days;
             if (ncpDays < 0)
                 ncpDays = 0;
 
             // Special Case: Employee SHAJI.M.G (UAN: 102194618333)
-            String uan = entry.getEmployee().getUanNumber() != null ? entry.getEmployee().getUanNumber().trim() : "";
-            BigDecimal diff;
+            String uan = ledger.uan(i) != null ? ledger.uan(i).trim() : "";
+            long diff;
 
             if ("102194618333".equals(uan)) {
                 // Rule 1: EPS WAGES = 0
-                epsWages = BigDecimal.ZERO;
+                epsWages = 0;
 
                 // Rule 2: EPS CONTRI REMITTED = 0
-                epsContri = BigDecimal.ZERO;
+                epsContri = 0;
 
                 // Rule 3: EPF EPS DIFF REMITTED
-                if (grossWages.compareTo(new BigDecimal("15000")) > 0) {
-                    diff = new BigDecimal("1800");
+                if (grossWages > EPS_WAGE_CAP) {
+                    diff = EPF_CONTRI_AT_CAP;
                 } else {
-                    diff = grossWages.multiply(new BigDecimal("0.12")).setScale(0, java.math.RoundingMode.HALF_UP);
+                    diff = epfContri;
                 }
             } else {
                 // Standard Logic for Diff
-                if (epsContri.compareTo(new BigDecimal("1250")) == 0) {
-                    diff = new BigDecimal("550");
+                if (epsContri == EPS_CONTRI_CAP) {
+                    diff = EPF_CONTRI_AT_CAP - EPS_CONTRI_CAP;
                 } else {
-                    diff = epfContri.subtract(epsContri);
+                    diff = epfContri - epsContri;
                 }
             }
 
@@ -409,34 +646,40 @@ public class ReportService {
             int refund = 0;
 
             // Build Line: UAN#~#Name#~#...
-            String name = entry.getEmployee().getFullName() != null ? entry.getEmployee().getFullName().trim() : "";
-
-            txt.append(uan).append("#~#");
-            txt.append(name).append("#~#");
-            txt.append(grossWages.longValue()).append("#~#");
-            txt.append(epfWages.longValue()).append("#~#");
-            txt.append(epsWages.longValue()).append("#~#");
-            txt.append(edliWages.longValue()).append("#~#");
-            txt.append(epfContri.longValue()).append("#~#");
-            txt.append(epsContri.longValue()).append("#~#");
-            txt.append(diff.longValue()).append("#~#");
-            txt.append(ncpDays).append("#~#");
-            txt.append(refund).append("\n");
+            String name = ledger.name(i) != null ? ledger.name(i).trim() : "";
+
+            txt.write(uan);
+            txt.write(ECR_SEPARATOR);
+            txt.write(name);
+            writeEcrField(txt, Paise.rupeesTruncated(grossWages));
+            writeEcrField(txt, Paise.rupeesTruncated(epfWages));
+            writeEcrField(txt, Paise.rupeesTruncated(epsWages));
+            writeEcrField(txt, Paise.rupeesTruncated(edliWages));
+            writeEcrField(txt, epfContri);
+            writeEcrField(txt, epsContri);
+            writeEcrField(txt, diff);
+            writeEcrField(txt, ncpDays);
+            writeEcrField(txt, refund);
+            txt.write('\n');
         }
-        return txt.toString();
+        txt.flush();
+    }
+
+    private static void writeEcrField(Writer txt, long value) throws IOException {
+        txt.write(ECR_SEPARATOR);
+        txt.write(Long.toString(value));
     }
 
     public String generateBulkTxt(UUID periodId, java.time.LocalDate paymentDate) {
+        return generateBulkTxt(loadLedger(periodId), paymentDate);
+    }
+
+    public String generateBulkTxt(PeriodLedger ledger, java.time.LocalDate paymentDate) {
         StringBuilder txt = new StringBuilder();
-        PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-        List<PayrollEntry> entries = entryRepository.findByPeriodId(periodId);
 
         // 0. Calculate Total Debit (Total Net Wages)
         // Only include positive amounts? Usually yes, NetPayable >= 0.
-        BigDecimal totalDebit = entries.stream()
-                .map(e -> e.getNetPayable())
-                .filter(java.util.Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalDebit = ledger.totals().netPayable();
 
         // 0. Format Date (DD/MM/YYYY)
         String dateStr = paymentDate.format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"));
@@ -445,7 +688,7 @@ public class ReportService {
         // 44145351821#17242#<DATE>#<TOTAL_DEBIT>###NASAR PK#NEFT
         txt.append("44145351821#17242#");
         txt.append(dateStr).append("#"); // Date
-        txt.append(totalDebit.longValue()).append("###"); // Total Debit + 2 separators
+        txt.append(Paise.rupeesTruncated(totalDebit)).append("###"); // Total Debit + 2 separators
         txt.append("NASAR PK#NEFT\n");
 
         // 2. Employee Rows
@@ -453,17 +696,8 @@ public class ReportService {
 
         // Sort by Member ID? Or as is. Usually sorted.
         // Let's sort for consistency.
-        entries.sort((e1, e2) -> {
-            try {
-                return Integer.compare(Integer.parseInt(e1.getEmployee().getMemberId()),
-                        Integer.parseInt(e2.getEmployee().getMemberId()));
-            } catch (Exception e) {
-                return e1.getEmployee().getMemberId().compareTo(e2.getEmployee().getMemberId());
-            }
-        });
-
-        for (PayrollEntry entry : entries) {
-            String acct = entry.getEmployee().getBankAccountNo();
+        for (int i : ledger.byMemberId()) {
+            String acct = ledger.bankAccount(i);
             if (acct == null || acct.trim().isEmpty())
                 continue; // Skip if no account? Or throw? Prompt says "Prevent generation if Account
                           // number is missing" (Point 8).
@@ -474,8 +708,8 @@ public class ReportService {
             // So if ANY missing, FAIL.
 
             // Check Net Pay
-            BigDecimal net = entry.getNetPayable();
-            if (net == null || net.compareTo(BigDecimal.ZERO) == 0)
+            long net = ledger.netPayable(i);
+            if (net == 0)
                 continue; // Skip 0 pay? Prompt says "Net pay mismatch exists".
             // "Net pay mismatch" usually means Calc diff.
             // I'll assume standard Net Pay is correct.
@@ -512,14 +746,14 @@ public class ReportService {
             // refers to "Use the Employee's IFSC field", that's normal.
             // If it means "Ignore Employee IFSC and use X", that's dangerous.
             // I will use Employee IFSC.
-            String empIfsc = entry.getEmployee().getIfscCode();
+            String empIfsc = ledger.ifscCode(i);
             if (empIfsc == null || empIfsc.isBlank())
                 empIfsc = "CBIN0280965"; // Fallback to example?
 
             txt.append(acct).append("#");
             txt.append(empIfsc).append("#");
             txt.append(dateStr).append("##"); // Date + Empty (Debit)
-            txt.append(net.longValue()).append("##"); // Net (Credit) + Empty (Narration?)
+            txt.append(Paise.rupeesTruncated(net)).append("##"); // Net (Credit) + Empty (Narration?)
             // Wait, previous analysis: `Date`#`Empty`#`Net`#`Empty`#`Narration`?
             // Example: `15/12/2025##10184##NASAR PK#NEFT`
             // Split: `15/12/2025` (1), `` (2), `10184` (3), `` (4), `NASAR PK` (5).
@@ -531,23 +765,23 @@ public class ReportService {
     }
 
     public byte[] generatePaymentDetailsPdf(UUID periodId) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        return generatePaymentDetailsPdf(loadLedger(periodId));
+    }
+
+    public byte[] generatePaymentDetailsPdf(PeriodLedger ledger) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePaymentDetailsPdf(ledger, out);
+        return out.toByteArray();
+    }
+
+    /** Writes the Payment Details PDF to {@code out}, which is left open. */
+    public void writePaymentDetailsPdf(PeriodLedger ledger, OutputStream out) {
+        try {
             Document document = new Document(com.lowagie.text.PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
+            PdfWriter.getInstance(document, out).setCloseStream(false);
             document.open();
 
-            PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-            List<PayrollEntry> entries = entryRepository.findByPeriodId(periodId);
-
-            // Sort by Member ID
-            entries.sort((e1, e2) -> {
-                try {
-                    return Integer.compare(Integer.parseInt(e1.getEmployee().getMemberId()),
-                            Integer.parseInt(e2.getEmployee().getMemberId()));
-                } catch (Exception e) {
-                    return e1.getEmployee().getMemberId().compareTo(e2.getEmployee().getMemberId());
-                }
-            });
+            PayrollPeriod period = ledger.period();
 
             // Title
             String mainTitleText = "WAGES PAID FOR THE MONTH OF " + getMonthName(period.getMonth()).toUpperCase() + " "
@@ -580,19 +814,20 @@ public class ReportService {
             // Data
             com.lowagie.text.Font dataFont = com.lowagie.text.FontFactory
                     .getFont(com.lowagie.text.FontFactory.HELVETICA, 9);
+            table.setComplete(false);
             int sl = 1;
-            BigDecimal totalAmount = BigDecimal.ZERO;
-            for (PayrollEntry entry : entries) {
+            // Sorted by Member ID
+            for (int i : ledger.byMemberId()) {
                 // Background color logic? Detailed Report had it. Here we keep it simple white.
                 addCell(table, String.valueOf(sl++), dataFont);
-                addCell(table, entry.getEmployee().getFullName(), dataFont);
-                addCell(table, entry.getEmployee().getBankAccountNo(), dataFont); // Null handling is in addCell
-                addCell(table, entry.getEmployee().getIfscCode(), dataFont);
-                addCell(table, String.valueOf(entry.getNetPayable()), dataFont);
-                addCell(table, entry.getUtrNumber() != null ? entry.getUtrNumber() : "-", dataFont);
-
-                totalAmount = totalAmount.add(entry.getNetPayable());
+                addCell(table, ledger.name(i), dataFont);
+                addCell(table, ledger.bankAccount(i), dataFont); // Null handling is in addCell
+                addCell(table, ledger.ifscCode(i), dataFont);
+                addCell(table, Paise.format(ledger.netPayable(i)), dataFont);
+                addCell(table, ledger.utrNumber(i) != null ? ledger.utrNumber(i) : "-", dataFont);
+                flushRows(document, table, sl - 1);
             }
+            String totalAmount = ledger.size() > 0 ? Paise.format(ledger.totals().netPayable()) : "0";
 
             // --- TOTAL ROW ---
             com.lowagie.text.pdf.PdfPCell totalLabelCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph("TOTAL",
@@ -604,7 +839,7 @@ public class ReportService {
             table.addCell(totalLabelCell);
 
             com.lowagie.text.pdf.PdfPCell totalValueCell = new com.lowagie.text.pdf.PdfPCell(
-                    new Paragraph(String.valueOf(totalAmount),
+                    new Paragraph(totalAmount,
                             com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9)));
             totalValueCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_CENTER); // Match data alignment
             totalValueCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
@@ -612,146 +847,136 @@ public class ReportService {
 
             addCell(table, "", dataFont); // Empty UTR cell for total row
 
+            table.setComplete(true);
             document.add(table);
             document.close();
-            return out.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Error generating Payment Details PDF", e);
         }
     }
 
     public byte[] generateWageSummaryPdf(UUID periodId) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Document document = new Document(com.lowagie.text.PageSize.A4); // Portrait likely fits 5 columns
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-            List<PayrollEntry> allEntries = entryRepository.findByPeriodId(periodId);
+        return generateWageSummaryPdf(loadLedger(periodId));
+    }
 
-            // Group by Category
-            java.util.Map<com.fci.automation.entity.Employee.Category, List<PayrollEntry>> grouped = allEntries.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(e -> e.getEmployee().getCategory()));
+    public byte[] generateWageSummaryPdf(PeriodLedger ledger) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeWageSummaryPdf(ledger, out);
+        return out.toByteArray();
+    }
 
+    /** Writes the Wage Summary PDF to {@code out}, which is left open. */
+    public void writeWageSummaryPdf(PeriodLedger ledger, OutputStream out) {
+        try {
             com.fci.automation.entity.Employee.Category[] cats = { com.fci.automation.entity.Employee.Category.HL };
+            // Portrait likely fits 5 columns
+            writeSections(ledger, com.lowagie.text.PageSize.A4, cats, out,
+                    (document, cat) -> writeWageSummarySection(document, ledger, cat));
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating Wage Summary PDF", e);
+        }
 
-            boolean firstIdx = true;
-            for (com.fci.automation.entity.Employee.Category cat : cats) {
-                if (!grouped.containsKey(cat))
-                    continue;
-                List<PayrollEntry> entries = grouped.get(cat);
-
-                if (!firstIdx) {
-                    document.newPage();
-                }
-                firstIdx = false;
-
-                // Sort by Member ID
-                entries.sort((e1, e2) -> {
-                    try {
-                        return Integer.compare(Integer.parseInt(e1.getEmployee().getMemberId()),
-                                Integer.parseInt(e2.getEmployee().getMemberId()));
-                    } catch (Exception e) {
-                        return e1.getEmployee().getMemberId().compareTo(e2.getEmployee().getMemberId());
-                    }
-                });
-
-                // Title: ARRAKULAM [CATEGORY] SALARY [MONTH] [YEAR]
-                String catName = (cat == com.fci.automation.entity.Employee.Category.HL) ? "HEAD LOAD"
-                        : "CASUAL LABOUR"; // Adjusted to match likely screenshot "HEAD LOAD SALARY"
-                String mainTitleText = "ARRAKULAM " + catName + " SALARY "
-                        + getMonthName(period.getMonth()).toUpperCase() + " " + period.getYear();
-
-                PdfPTable table = new PdfPTable(5);
-                table.setWidthPercentage(100);
-                table.setWidths(new float[] { 3, 12, 6, 6, 6 }); // Adjusted widths
-
-                // Header Row
-                com.lowagie.text.pdf.PdfPCell titleCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph(mainTitleText,
-                        com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 10)));
-                titleCell.setColspan(5);
-                titleCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_CENTER);
-                titleCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
-                titleCell.setPadding(5);
-                table.addCell(titleCell);
-
-                com.lowagie.text.Font headFont = com.lowagie.text.FontFactory
-                        .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9);
-                addCell(table, "Sl.No", headFont);
-                addCell(table, "MEMBER NAME", headFont);
-                addCell(table, "SALARY", headFont);
-                addCell(table, "ATTENDENCE", headFont);
-                addCell(table, "AVERAGE SALARY", headFont);
-
-                // Data
-                com.lowagie.text.Font dataFont = com.lowagie.text.FontFactory
-                        .getFont(com.lowagie.text.FontFactory.HELVETICA, 9);
-                int sl = 1;
-                BigDecimal totalSalary = BigDecimal.ZERO;
-                BigDecimal totalAttendance = BigDecimal.ZERO;
-
-                for (PayrollEntry entry : entries) {
-                    BigDecimal wages = entry.getWagesEarned();
-                    BigDecimal days = BigDecimal.valueOf(entry.getDaysWorked());
-
-                    BigDecimal average = BigDecimal.ZERO;
-                    if (days.compareTo(BigDecimal.ZERO) > 0) {
-                        average = wages.divide(days, 2, java.math.RoundingMode.HALF_UP);
-                    }
-
-                    addCell(table, String.valueOf(sl++), dataFont);
-                    addCell(table, entry.getEmployee().getFullName(), dataFont);
-                    addCell(table, String.valueOf(wages), dataFont);
-                    addCell(table, String.valueOf(days), dataFont);
-                    addCell(table, String.valueOf(average), dataFont);
+    }
 
-                    totalSalary = totalSalary.add(wages);
-                    totalAttendance = totalAttendance.add(days);
-                }
+    /** One category of the Wage Summary (portrait, 5 columns). */
+    private void writeWageSummarySection(Document document, PeriodLedger ledger,
+            com.fci.automation.entity.Employee.Category cat) throws DocumentException {
+        PayrollPeriod period = ledger.period();
+        // Sorted by Member ID
+        int[] rows = ledger.byMemberId(cat);
+
+        // Title: ARRAKULAM [CATEGORY] SALARY [MONTH] [YEAR]
+        String catName = (cat == com.fci.automation.entity.Employee.Category.HL) ? "HEAD LOAD"
+                : "CASUAL LABOUR"; // Adjusted to match likely screenshot "HEAD LOAD SALARY"
+        String mainTitleText = "ARRAKULAM " + catName + " SALARY "
+                + getMonthName(period.getMonth()).toUpperCase() + " " + period.getYear();
+
+        PdfPTable table = new PdfPTable(5);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[] { 3, 12, 6, 6, 6 }); // Adjusted widths
+
+        // Header Row
+        com.lowagie.text.pdf.PdfPCell titleCell = new com.lowagie.text.pdf.PdfPCell(new Paragraph(mainTitleText,
+                com.lowagie.text.FontFactory.getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 10)));
+        titleCell.setColspan(5);
+        titleCell.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_CENTER);
+        titleCell.setVerticalAlignment(com.lowagie.text.Element.ALIGN_MIDDLE);
+        titleCell.setPadding(5);
+        table.addCell(titleCell);
+
+        com.lowagie.text.Font headFont = com.lowagie.text.FontFactory
+                .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 9);
+        addCell(table, "Sl.No", headFont);
+        addCell(table, "MEMBER NAME", headFont);
+        addCell(table, "SALARY", headFont);
+        addCell(table, "ATTENDENCE", headFont);
+        addCell(table, "AVERAGE SALARY", headFont);
+
+        // Data
+        com.lowagie.text.Font dataFont = com.lowagie.text.FontFactory
+                .getFont(com.lowagie.text.FontFactory.HELVETICA, 9);
+        table.setComplete(false);
+        int sl = 1;
+        for (int i : rows) {
+            long wages = ledger.wagesEarned(i);
+            int days = ledger.days(i);
+
+            addCell(table, String.valueOf(sl++), dataFont);
+            addCell(table, ledger.name(i), dataFont);
+            addCell(table, Paise.format(wages), dataFont);
+            addCell(table, String.valueOf(days), dataFont);
+            addCell(table, average(wages, days), dataFont);
+            flushRows(document, table, sl - 1);
+        }
+        PeriodLedger.Totals totals = ledger.totals(cat);
 
-                // Total Row
-                com.lowagie.text.pdf.PdfPCell totalLabel = new com.lowagie.text.pdf.PdfPCell(
-                        new Paragraph("TOTAL", headFont));
-                totalLabel.setColspan(2);
-                totalLabel.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_RIGHT);
-                table.addCell(totalLabel);
+        // Total Row
+        com.lowagie.text.pdf.PdfPCell totalLabel = new com.lowagie.text.pdf.PdfPCell(
+                new Paragraph("TOTAL", headFont));
+        totalLabel.setColspan(2);
+        totalLabel.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_RIGHT);
+        table.addCell(totalLabel);
 
-                BigDecimal overallAverage = BigDecimal.ZERO;
-                if (totalAttendance.compareTo(BigDecimal.ZERO) > 0) {
-                    overallAverage = totalSalary.divide(totalAttendance, 2, java.math.RoundingMode.HALF_UP);
-                }
+        addCell(table, Paise.format(totals.wagesEarned()), headFont);
+        addCell(table, String.valueOf(totals.days()), headFont);
+        addCell(table, average(totals.wagesEarned(), totals.days()), headFont);
 
-                addCell(table, String.valueOf(totalSalary), headFont);
-                addCell(table, String.valueOf(totalAttendance), headFont);
-                addCell(table, String.valueOf(overallAverage), headFont);
+        table.setComplete(true);
+        document.add(table);
+    }
 
-                document.add(table);
-            }
+    // Salary per day to 2 decimals (HALF_UP), "0" when there is no attendance
+    private static String average(long wagesPaise, long days) {
+        if (days <= 0)
+            return "0";
+        return Paise.format(Paise.divHalfUp(wagesPaise, days));
+    }
 
-            document.close();
-            return out.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating Wage Summary PDF", e);
-        }
+    public byte[] generateAttendanceRegisterPdf(UUID periodId) {
+        return generateAttendanceRegisterPdf(loadLedger(periodId));
+    }
 
+    public byte[] generateAttendanceRegisterPdf(PeriodLedger ledger) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAttendanceRegisterPdf(ledger, out);
+        return out.toByteArray();
     }
 
-    public byte[] generateAttendanceRegisterPdf(UUID periodId) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    /** Writes the CL Attendance Register PDF to {@code out}, which is left open. */
+    public void writeAttendanceRegisterPdf(PeriodLedger ledger, OutputStream out) {
+        try {
             Document document = new Document(com.lowagie.text.PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
+            PdfWriter.getInstance(document, out).setCloseStream(false);
             document.open();
 
-            PayrollPeriod period = periodRepository.findById(periodId).orElseThrow();
-            List<PayrollEntry> activeEntries = entryRepository.findByPeriodId(periodId).stream()
-                    .filter(e -> e.getEmployee().getCategory() == com.fci.automation.entity.Employee.Category.CL)
-                    .sorted((e1, e2) -> e1.getEmployee().getFullName().compareTo(e2.getEmployee().getFullName()))
-                    .collect(java.util.stream.Collectors.toList());
+            PayrollPeriod period = ledger.period();
+            // CL only, sorted by name
+            int[] activeEntries = ledger.byName(com.fci.automation.entity.Employee.Category.CL);
 
-            if (activeEntries.isEmpty()) {
+            if (activeEntries.length == 0) {
                 document.add(new Paragraph("No Casual Labourers found for this period."));
                 document.close();
-                return out.toByteArray();
+                return;
             }
 
             // Title
@@ -761,6 +986,9 @@ public class ReportService {
             title.setAlignment(com.lowagie.text.Element.ALIGN_CENTER);
             document.add(title);
             document.add(new Paragraph(" "));
+            // Zero the carried-over paragraph leading, otherwise every partial table add
+            // below leaves an empty line behind it and pushes rows onto later pages
+            document.add(new Paragraph(0f));
 
             com.lowagie.text.Font headFont = com.lowagie.text.FontFactory
                     .getFont(com.lowagie.text.FontFactory.HELVETICA_BOLD, 8);
@@ -777,21 +1005,27 @@ public class ReportService {
             for (int i = 1; i <= 15; i++)
                 addCell(table1, String.valueOf(i), headFont);
 
-            for (PayrollEntry entry : activeEntries) {
-                addCell(table1, entry.getEmployee().getFullName(), dataFont);
-                // Fixed Rate 541
-                BigDecimal dailyRate = new BigDecimal("541");
+            // Fixed Rate 541
+            String dailyRate = String.valueOf(PeriodLedger.CL_DAILY_RATE_PAISE / 100);
+
+            table1.setComplete(false);
+            int rendered = 0;
+            for (int row : activeEntries) {
+                addCell(table1, ledger.name(row), dataFont);
 
                 for (int i = 1; i <= 15; i++) {
-                    if (entry.getActiveDays().contains(i)) {
-                        addCell(table1, String.valueOf(dailyRate), dataFont);
+                    if (ledger.isActive(row, i)) {
+                        addCell(table1, dailyRate, dataFont);
                     } else {
                         addCell(table1, "", dataFont);
                     }
                 }
+                flushRows(document, table1, ++rendered);
             }
+            table1.setComplete(true);
             document.add(table1);
             document.add(new Paragraph(" "));
+            document.add(new Paragraph(0f));
 
             // Table 2: Days 16-31 + Attendance + Total Salary
             // Cols: Name, 16..30 (15 cols), ATTENDANCE, TOTAL SALARY. Total 1 + 15 + 1 + 1
@@ -824,19 +1058,16 @@ public class ReportService {
             addCell(table2, "ATTENDANCE", headFont);
             addCell(table2, "TOTAL SALARY", headFont);
 
-            BigDecimal grandTotalSalary = BigDecimal.ZERO;
-            int grandTotalAttendance = 0;
-
-            for (PayrollEntry entry : activeEntries) {
-                addCell(table2, entry.getEmployee().getFullName(), dataFont);
-                // Fixed Rate 541 as per requirements
-                BigDecimal dailyRate = new BigDecimal("541");
+            table2.setComplete(false);
+            rendered = 0;
+            for (int row : activeEntries) {
+                addCell(table2, ledger.name(row), dataFont);
 
                 // Active Days Grid
                 for (int i = 16; i <= 31; i++) {
                     if (i <= daysInMonth) {
-                        if (entry.getActiveDays().contains(i)) {
-                            addCell(table2, String.valueOf(dailyRate), dataFont);
+                        if (ledger.isActive(row, i)) {
+                            addCell(table2, dailyRate, dataFont);
                         } else {
                             addCell(table2, "", dataFont);
                         }
@@ -846,15 +1077,13 @@ public class ReportService {
                 }
 
                 // Days Worked
-                addCell(table2, String.valueOf(entry.getDaysWorked()), headFont);
-
-                // Total Salary = 541 * Days
-                BigDecimal totalSalary = dailyRate.multiply(BigDecimal.valueOf(entry.getDaysWorked()));
-                addCell(table2, String.valueOf(totalSalary), headFont);
+                addCell(table2, String.valueOf(ledger.days(row)), headFont);
 
-                grandTotalAttendance += entry.getDaysWorked();
-                grandTotalSalary = grandTotalSalary.add(totalSalary);
+                // Total Salary = 541 * Days (CL report wage)
+                addCell(table2, String.valueOf(ledger.reportWages(row) / 100), headFont);
+                flushRows(document, table2, ++rendered);
             }
+            PeriodLedger.Totals clTotals = ledger.totals(com.fci.automation.entity.Employee.Category.CL);
 
             // Total Row Table 2
             com.lowagie.text.pdf.PdfPCell subTotalLabel = new com.lowagie.text.pdf.PdfPCell(
@@ -863,13 +1092,13 @@ public class ReportService {
             subTotalLabel.setHorizontalAlignment(com.lowagie.text.Element.ALIGN_RIGHT);
             table2.addCell(subTotalLabel);
 
-            addCell(table2, String.valueOf(grandTotalAttendance), headFont);
-            addCell(table2, String.valueOf(grandTotalSalary), headFont);
+            addCell(table2, String.valueOf(clTotals.days()), headFont);
+            addCell(table2, String.valueOf(clTotals.reportWages() / 100), headFont);
 
+            table2.setComplete(true);
             document.add(table2);
 
             document.close();
-            return out.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Error generating Attendance Register PDF", e);
         }
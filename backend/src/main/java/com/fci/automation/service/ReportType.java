@@ -0,0 +1,40 @@
+package com.fci.automation.service;
+
+/**
+ * The downloadable month-end reports. Used as part of the report cache key;
+ * {@link #getKey()} is the name used in download paths and requests.
+ */
+public enum ReportType {
+    MAIN_FILE("main-file", "pdf"),
+    PAYMENT_DETAILS("payment-details", "pdf"),
+    WAGE_SUMMARY("wage-summary", "pdf"),
+    ATTENDANCE("attendance", "pdf"),
+    ESI("esi", "xls"),
+    ESI_XLSX("esi-xlsx", "xlsx"),
+    EPF("epf", "txt"),
+    BULK("bulk", "txt");
+
+    private final String key;
+    private final String extension;
+
+    ReportType(String key, String extension) {
+        this.key = key;
+        this.extension = extension;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ReportType ofKey(String key) {
+        for (ReportType type : values()) {
+            if (type.key.equals(key))
+                return type;
+        }
+        throw new IllegalArgumentException("Unknown report: " + key);
+    }
+}
@@ -0,0 +1,114 @@
+package com.fci.automation.service;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * SAX based reader for the first sheet of an .xlsx workbook.
+ * Rows are handed to the caller one at a time as formatted strings, so only the
+ * current row (plus the shared strings table) is ever held in memory.
+ */
+public class StreamingSheetReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNum 0-based row index as stored in the sheet
+         * @param cells  formatted cell values, gaps filled with "" (list is reused
+         *               for the next row, copy it if you need to keep it)
+         */
+        void row(int rowNum, List<String> cells);
+    }
+
+    private StreamingSheetReader() {
+    }
+
+    public static void readFirstSheet(Path xlsx, RowHandler handler) throws Exception {
+        readFirstSheet(xlsx, new DataFormatter(), handler);
+    }
+
+    /** Same, with the cell values formatted by {@code formatter}. */
+    public static void readFirstSheet(Path xlsx, DataFormatter formatter, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(xlsx.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext())
+                return;
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new RowCollector(handler), formatter, false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /**
+     * Formatter for identifier columns: whole numbers in General format come
+     * out with all their digits ("100012345678", where the default gives
+     * "1.00012E+11"), as a DOM read of the numeric value would.
+     */
+    public static DataFormatter wholeNumbersAsDigits() {
+        return new DataFormatter() {
+            @Override
+            public String formatRawCellContents(double value, int formatIndex, String formatString,
+                    boolean use1904Windowing) {
+                if ("General".equalsIgnoreCase(formatString) && !Double.isInfinite(value) && value == Math.rint(value))
+                    return new java.math.BigDecimal(value).toPlainString();
+                return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+            }
+        };
+    }
+
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+        private int nextCol;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            nextCol = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Cell reference can be missing in files written by some tools; fall back to position
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : nextCol;
+            while (cells.size() < col) {
+                cells.add("");
+            }
+            cells.add(formattedValue != null ? formattedValue : "");
+            nextCol = col + 1;
+        }
+    }
+}
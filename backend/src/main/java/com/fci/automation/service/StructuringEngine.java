@@ -0,0 +1,28 @@
+package com.fci.automation.service;
+
+import com.fci.automation.dto.WorkSlipResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stage 2 of work-slip extraction: OCR text to a {@link WorkSlipResult}. The
+ * implementation is picked by {@code app.extraction.engine} ({@code remote}
+ * = Gemini, {@code replay} = recorded fixtures). Calls should not block.
+ */
+public interface StructuringEngine {
+
+    /** Changes whenever the output for the same text may change; part of the result cache key. */
+    String version();
+
+    CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText);
+
+    /**
+     * As {@link #structureAsync(String)}, stopped when {@code cancellation} is
+     * cancelled: no further attempts, and the pending request is aborted. The
+     * returned future completes once the call has really ended. Engines with
+     * nothing to abort can keep the default.
+     */
+    default CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText, Cancellation cancellation) {
+        return structureAsync(rawOcrText);
+    }
+}
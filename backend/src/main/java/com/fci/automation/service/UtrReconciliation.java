@@ -0,0 +1,159 @@
+package com.fci.automation.service;
+
+import com.fci.automation.dto.UtrImportReport;
+import com.fci.automation.repository.PayrollEntryRepository.UtrTarget;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Matches bank statement rows to a period's entries in memory.
+ *
+ * The period's entries are indexed once by normalized bank account, each
+ * statement row is a hash lookup, and the UTR numbers to write are collected
+ * for a single batched update. Rules:
+ * <ul>
+ * <li>an account held by more than one entry of the period is ambiguous and
+ * never written (duplicateAccount)</li>
+ * <li>an account repeated in the statement: the last row wins, earlier rows
+ * are reported as duplicateAccount</li>
+ * <li>an entry that already carries the same UTR is not rewritten
+ * (alreadyHasUtr); a different UTR is replaced (matched)</li>
+ * <li>rows for unknown accounts or without a UTR are unmatched</li>
+ * </ul>
+ */
+public class UtrReconciliation {
+
+    private final Map<String, List<UtrTarget>> byAccount;
+
+    // Accepted statement row per normalized account, in statement order
+    private final Map<String, Pending> accepted = new LinkedHashMap<>();
+    private final UtrImportReport report = new UtrImportReport();
+
+    private record Pending(UtrTarget target, UtrImportReport.Row row, boolean unchanged) {
+    }
+
+    public UtrReconciliation(List<UtrTarget> targets) {
+        this.byAccount = new HashMap<>(targets.size() * 2);
+        for (UtrTarget t : targets) {
+            String key = normalizeAccount(t.getBankAccountNo());
+            if (!key.isEmpty())
+                byAccount.computeIfAbsent(key, k -> new ArrayList<>(1)).add(t);
+        }
+    }
+
+    /**
+     * One statement data row.
+     *
+     * @param rowNumber 1-based row number in the statement
+     */
+    public void match(int rowNumber, String accountNo, String utrNumber) {
+        String key = normalizeAccount(accountNo);
+        if (key.isEmpty())
+            return; // Blank / footer rows
+        report.setStatementRows(report.getStatementRows() + 1);
+
+        String acct = stripTextMarker(accountNo);
+        String utr = stripTextMarker(utrNumber);
+        List<UtrTarget> targets = byAccount.get(key);
+        if (targets == null) {
+            report.getUnmatched().add(row(rowNumber, acct, utr, null, "Account not in this period"));
+            return;
+        }
+        if (targets.size() > 1) {
+            List<String> members = new ArrayList<>(targets.size());
+            for (UtrTarget t : targets)
+                members.add(t.getMemberId());
+            report.getDuplicateAccount().add(row(rowNumber, acct, utr, null,
+                    "Account shared by members " + String.join(", ", members)));
+            return;
+        }
+        UtrTarget target = targets.get(0);
+        if (utr.isEmpty()) {
+            report.getUnmatched().add(row(rowNumber, acct, utr, target, "No UTR in statement"));
+            return;
+        }
+
+        Pending previous = accepted.remove(key);
+        if (previous != null) {
+            previous.row().setNote("Account repeated in statement, row " + rowNumber + " used");
+            report.getDuplicateAccount().add(previous.row());
+        }
+
+        String existing = target.getUtrNumber() == null ? "" : target.getUtrNumber().trim();
+        boolean unchanged = existing.equals(utr);
+        String note = unchanged || existing.isEmpty() ? null : "Replaces " + existing;
+        accepted.put(key, new Pending(target, row(rowNumber, acct, utr, target, note), unchanged));
+    }
+
+    /** New UTR number per entry id, for the rows that change something. */
+    public Map<UUID, String> updates() {
+        Map<UUID, String> updates = new LinkedHashMap<>();
+        for (Pending p : accepted.values()) {
+            if (!p.unchanged())
+                updates.put(p.target().getId(), p.row().getUtrNumber());
+        }
+        return updates;
+    }
+
+    public UtrImportReport report() {
+        report.getMatched().clear();
+        report.getAlreadyHasUtr().clear();
+        for (Pending p : accepted.values()) {
+            (p.unchanged() ? report.getAlreadyHasUtr() : report.getMatched()).add(p.row());
+        }
+        report.setMessage(String.format("Import Complete: %d Updated. %d Unmatched, %d Duplicate, %d Already Set.",
+                report.getMatched().size(), report.getUnmatched().size(),
+                report.getDuplicateAccount().size(), report.getAlreadyHasUtr().size()));
+        return report;
+    }
+
+    /**
+     * Account number as a lookup key: text marker, spaces and separators
+     * dropped, upper-cased, leading zeros removed. Numeric spreadsheet cells
+     * ("12345678901.0", "1.2345678901E10") are expanded back to their digits.
+     */
+    public static String normalizeAccount(String raw) {
+        String s = stripTextMarker(raw);
+        if (s.isEmpty())
+            return s;
+        if (s.endsWith(".0") || s.indexOf('E') > 0) {
+            try {
+                s = new BigDecimal(s).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException ignored) {
+                // Not a number, e.g. an alphanumeric account
+            }
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (sb.length() == 0 && c == '0')
+                    continue;
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Trimmed, without the Excel text marker (')
+    private static String stripTextMarker(String raw) {
+        if (raw == null)
+            return "";
+        String s = raw.trim();
+        if (s.startsWith("'"))
+            s = s.substring(1).trim();
+        return s;
+    }
+
+    private static UtrImportReport.Row row(int rowNumber, String acct, String utr, UtrTarget target, String note) {
+        return new UtrImportReport.Row(rowNumber, acct, utr,
+                target == null ? null : target.getMemberId(),
+                target == null ? null : target.getFullName(), note);
+    }
+}
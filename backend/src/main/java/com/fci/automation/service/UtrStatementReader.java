@@ -0,0 +1,445 @@
+package com.fci.automation.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the non-Excel bank statements used for UTR import (SpreadsheetML
+ * "xls" exports, HTML tables saved as .xls, CSV / tab separated text) one row
+ * at a time, straight from the upload stream. Rows are lists of cell text.
+ *
+ * Replaces the read-everything-into-a-String + DOTALL regex approach: markup
+ * is handled by a small tag tokenizer (quote-aware, so '>' inside attribute
+ * values is fine), delimited text by a line reader, and only the current row
+ * is held in memory.
+ */
+public abstract class UtrStatementReader implements Iterator<List<String>>, Closeable {
+
+    /** How much of the file is looked at to pick the format. */
+    public static final int SNIFF_BYTES = 64 * 1024;
+
+    public enum Format {
+        SPREADSHEET_ML,
+        HTML_TABLE,
+        DELIMITED
+    }
+
+    /** Re-opens the upload, so a format that finds no rows can fall through to the next. */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private final Reader reader;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+
+    private List<String> next;
+    private boolean done;
+
+    protected UtrStatementReader(InputStream in) {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens the first format that yields rows: SpreadsheetML, then HTML table
+     * (each only when its tags appear in the first {@link #SNIFF_BYTES}), then
+     * delimited text. Returns a reader with no rows if nothing matched.
+     */
+    public static UtrStatementReader open(Source source) throws IOException {
+        List<Format> candidates = sniff(source);
+        UtrStatementReader reader = null;
+        for (Format format : candidates) {
+            reader = open(source.open(), format);
+            if (reader.hasNext())
+                return reader;
+            reader.close();
+        }
+        return reader;
+    }
+
+    public static UtrStatementReader open(InputStream in, Format format) {
+        switch (format) {
+            case SPREADSHEET_ML:
+                return new MarkupReader(in, "row", new String[] { "cell" }, "data");
+            case HTML_TABLE:
+                return new MarkupReader(in, "tr", new String[] { "td", "th" }, null);
+            default:
+                return new DelimitedReader(in);
+        }
+    }
+
+    /** Formats to try, in order, judged from the start of the file. */
+    public static List<Format> sniff(Source source) throws IOException {
+        String head;
+        try (InputStream in = source.open()) {
+            head = new String(in.readNBytes(SNIFF_BYTES), StandardCharsets.UTF_8);
+        }
+        List<Format> formats = new ArrayList<>(3);
+        if (head.contains("<Row") || head.contains("<Worksheet"))
+            formats.add(Format.SPREADSHEET_ML);
+        if (head.contains("<tr") || head.contains("<table"))
+            formats.add(Format.HTML_TABLE);
+        formats.add(Format.DELIMITED);
+        return formats;
+    }
+
+    /** Next row, or null at the end of the file. */
+    protected abstract List<String> readRow() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = readRow();
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading statement: " + e.getMessage(), e);
+            }
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<String> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        List<String> row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // --- Character input ---
+
+    protected int read() throws IOException {
+        if (pos == limit) {
+            limit = reader.read(buf, 0, buf.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    protected int peek() throws IOException {
+        int c = read();
+        if (c != -1)
+            pos--;
+        return c;
+    }
+
+    /**
+     * Cell text as the old regex path produced it: tags already dropped,
+     * trimmed, then the common entities unescaped.
+     */
+    static String clean(CharSequence raw) {
+        String text = raw.toString().trim();
+        if (text.indexOf('&') < 0)
+            return text;
+        return text.replace("&nbsp;", " ")
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&#39;", "'")
+                .replace("&quot;", "\"");
+    }
+
+    /**
+     * Tables in markup: a row tag holding cell tags. With a data tag
+     * (SpreadsheetML) the cell value is the text of its first data element,
+     * otherwise (HTML) all text inside the cell. Nested tags are dropped, rows
+     * without cells are skipped, and an unclosed cell or row is closed by the
+     * next one or by the end of the table (HTML allows omitting them).
+     */
+    private static final class MarkupReader extends UtrStatementReader {
+        private final String rowTag;
+        private final String[] cellTags;
+        private final String dataTag;
+
+        private List<String> row;
+        private StringBuilder cell;
+        private boolean inData;
+        private boolean dataSeen;
+
+        // Result of the last readTag()
+        private final StringBuilder tagName = new StringBuilder(16);
+        private boolean endTag;
+        private boolean selfClosing;
+
+        private MarkupReader(InputStream in, String rowTag, String[] cellTags, String dataTag) {
+            super(in);
+            this.rowTag = rowTag;
+            this.cellTags = cellTags;
+            this.dataTag = dataTag;
+        }
+
+        @Override
+        protected List<String> readRow() throws IOException {
+            int c;
+            while ((c = read()) != -1) {
+                if (c != '<') {
+                    if (capturing())
+                        cell.append((char) c);
+                    continue;
+                }
+                int n = peek();
+                if (n == '!') {
+                    readDeclaration();
+                    continue;
+                }
+                if (n == '?') {
+                    skipTo('>');
+                    continue;
+                }
+                if (n != '/' && !Character.isLetter(n)) {
+                    // A bare '<' in text
+                    if (capturing())
+                        cell.append('<');
+                    continue;
+                }
+                readTag();
+                String name = tagName.toString();
+
+                if (name.equals(rowTag)) {
+                    List<String> finished = finishRow();
+                    if (!endTag && !selfClosing)
+                        row = new ArrayList<>();
+                    if (finished != null)
+                        return finished;
+                } else if (endTag && name.equals("table")) {
+                    // </table> (both formats) closes a row left open
+                    List<String> finished = finishRow();
+                    if (finished != null)
+                        return finished;
+                } else if (row != null && isCellTag(name)) {
+                    finishCell();
+                    if (!endTag) {
+                        if (selfClosing) {
+                            row.add("");
+                        } else {
+                            cell = new StringBuilder();
+                            inData = false;
+                            dataSeen = false;
+                        }
+                    }
+                } else if (cell != null && name.equals(dataTag)) {
+                    if (!endTag && !selfClosing && !dataSeen) {
+                        inData = true;
+                    } else if (endTag && inData) {
+                        inData = false;
+                        dataSeen = true;
+                    }
+                }
+            }
+            // A row left open at the end of the file is dropped
+            return null;
+        }
+
+        private boolean capturing() {
+            return cell != null && (dataTag == null || inData);
+        }
+
+        private boolean isCellTag(String name) {
+            for (String t : cellTags) {
+                if (t.equals(name))
+                    return true;
+            }
+            return false;
+        }
+
+        private void finishCell() {
+            if (cell != null) {
+                row.add(clean(cell));
+                cell = null;
+                inData = false;
+            }
+        }
+
+        // Closes the open row; returns it when it has cells
+        private List<String> finishRow() {
+            if (row == null)
+                return null;
+            finishCell();
+            List<String> finished = row;
+            row = null;
+            return finished.isEmpty() ? null : finished;
+        }
+
+        // Reads "<[/]name attrs [/]>" after the '<'; the name is lower-cased, prefix dropped
+        private void readTag() throws IOException {
+            tagName.setLength(0);
+            endTag = false;
+            selfClosing = false;
+            int c = read();
+            if (c == '/') {
+                endTag = true;
+                c = read();
+            }
+            while (c != -1 && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+                if (c == ':') {
+                    tagName.setLength(0);
+                } else {
+                    tagName.append(Character.toLowerCase((char) c));
+                }
+                c = read();
+            }
+            // Attributes: skip to the closing '>', ignoring any inside quotes
+            int last = c;
+            while (c != -1 && c != '>') {
+                if (c == '"' || c == '\'') {
+                    skipTo(c);
+                } else if (!Character.isWhitespace(c)) {
+                    last = c;
+                }
+                c = read();
+            }
+            selfClosing = last == '/';
+        }
+
+        // Comments are skipped, CDATA is cell text, other declarations are skipped
+        private void readDeclaration() throws IOException {
+            read(); // '!'
+            if (peek() == '-') {
+                int dashes = 0;
+                int c;
+                while ((c = read()) != -1) {
+                    if (c == '>' && dashes >= 2)
+                        return;
+                    dashes = c == '-' ? dashes + 1 : 0;
+                }
+                return;
+            }
+            if (peek() == '[') {
+                read(); // '['
+                StringBuilder marker = new StringBuilder();
+                int c;
+                while ((c = read()) != '[') {
+                    if (c == -1 || c == '>')
+                        return;
+                    marker.append((char) c);
+                }
+                if (marker.toString().toUpperCase(Locale.ROOT).equals("CDATA")) {
+                    // Text up to "]]>"
+                    int brackets = 0;
+                    while ((c = read()) != -1) {
+                        if (c == '>' && brackets >= 2) {
+                            if (capturing())
+                                cell.setLength(cell.length() - 2);
+                            return;
+                        }
+                        brackets = c == ']' ? brackets + 1 : 0;
+                        if (capturing())
+                            cell.append((char) c);
+                    }
+                    return;
+                }
+            }
+            skipTo('>');
+        }
+
+        private void skipTo(int end) throws IOException {
+            int c;
+            while ((c = read()) != -1 && c != end) {
+                // skip
+            }
+        }
+    }
+
+    /**
+     * Delimited text, one row per '\n' line: tab separated, or comma separated
+     * when a line has no tab. Cells are trimmed and surrounding double quotes
+     * removed. Blank lines are skipped; a file with a single line has no rows.
+     */
+    private static final class DelimitedReader extends UtrStatementReader {
+        private final StringBuilder line = new StringBuilder(256);
+        private String pending;
+        private boolean started;
+
+        private DelimitedReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        protected List<String> readRow() throws IOException {
+            if (!started) {
+                started = true;
+                // Only files with more than one line count as delimited
+                String first = readLine();
+                String second = readLine();
+                while (second != null && second.isEmpty()) {
+                    second = readLine();
+                }
+                if (first == null || second == null)
+                    return null;
+                pending = second;
+                List<String> row = toRow(first);
+                if (row != null)
+                    return row;
+            }
+            while (true) {
+                String l;
+                if (pending != null) {
+                    l = pending;
+                    pending = null;
+                } else {
+                    l = readLine();
+                }
+                if (l == null)
+                    return null;
+                List<String> row = toRow(l);
+                if (row != null)
+                    return row;
+            }
+        }
+
+        private List<String> toRow(String l) {
+            if (l.trim().isEmpty())
+                return null;
+            String[] cols = l.split("\t"); // Try Tab first
+            if (cols.length < 2)
+                cols = l.split(","); // Then Comma
+            if (cols.length == 0)
+                return null;
+            List<String> row = new ArrayList<>(cols.length);
+            for (String c : cols) {
+                String val = c.trim();
+                // Remove quotes if CSV
+                if (val.startsWith("\"") && val.endsWith("\"")) {
+                    val = val.substring(1, val.length() - 1);
+                }
+                row.add(val);
+            }
+            return row;
+        }
+
+        // Splits on '\n' only, like String.split("\n") did ('\r' is trimmed per cell)
+        private String readLine() throws IOException {
+            line.setLength(0);
+            int c = read();
+            if (c == -1)
+                return null;
+            while (c != -1 && c != '\n') {
+                line.append((char) c);
+                c = read();
+            }
+            return line.toString();
+        }
+    }
+}
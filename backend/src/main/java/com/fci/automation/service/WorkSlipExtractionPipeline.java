@@ -0,0 +1,315 @@
+package com.fci.automation.service;
+
+import com.fci.automation.dto.WorkSlipResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent work-slip extraction for a batch of uploads: OCR, then
+ * structuring ({@link OcrEngine} / {@link StructuringEngine}, Azure and
+ * Gemini in production), each stage with its own concurrency limit (shared
+ * by all requests). OCR is a blocking call and runs on a fixed pool;
+ * structuring calls are asynchronous and limited by in-flight permits, so
+ * they hold no thread while waiting. A file moves on to structuring as soon as its OCR is
+ * done, so both stages stay busy.
+ * Both stages go through {@link ExtractionCache}; a file whose structured
+ * result is cached completes without being queued.
+ *
+ * Each file has a time budget counted from when its OCR starts (waiting for
+ * the first OCR slot does not count); when it runs out the file fails with a
+ * {@link TimeoutException}. A blocked OCR worker is interrupted and a
+ * structuring call is cancelled; its permit is only passed on once the call
+ * has really ended, so llm-concurrency holds for abandoned calls too.
+ */
+@Service
+public class WorkSlipExtractionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkSlipExtractionPipeline.class);
+
+    private final OcrEngine ocrEngine;
+    private final StructuringEngine structuringEngine;
+    private final ExtractionCache extractionCache;
+
+    // Concurrent Azure OCR calls
+    @Value("${app.extraction.ocr-concurrency:4}")
+    private int ocrConcurrency = 4;
+
+    // Gemini calls in flight
+    @Value("${app.extraction.llm-concurrency:4}")
+    private int llmConcurrency = 4;
+
+    // Per file, OCR + structuring
+    @Value("${app.extraction.file-timeout-seconds:180}")
+    private long fileTimeoutSeconds = 180;
+
+    private ExecutorService ocrPool;
+    private AsyncPermits llmPermits;
+    private ScheduledExecutorService watchdog;
+
+    public WorkSlipExtractionPipeline(OcrEngine ocrEngine, StructuringEngine structuringEngine,
+            ExtractionCache extractionCache) {
+        this.ocrEngine = ocrEngine;
+        this.structuringEngine = structuringEngine;
+        this.extractionCache = extractionCache;
+    }
+
+    /** Single-file {@link #submit}. */
+    public CompletableFuture<WorkSlipResult> extractWorkSlipAsync(MultipartFile file) {
+        return submit(List.of(file)).get(0);
+    }
+
+    /**
+     * Starts extraction of every file and returns immediately.
+     *
+     * @return one future per file, in the order of {@code files}; a failed
+     *         file completes exceptionally, see {@link #failureOf(Throwable)}
+     */
+    public List<CompletableFuture<WorkSlipResult>> submit(List<MultipartFile> files) {
+        ensurePools();
+        List<CompletableFuture<WorkSlipResult>> results = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            // Files seen before complete right away, without taking a slot in either pool
+            String fileKey;
+            try {
+                fileKey = extractionCache.fileKey(file);
+            } catch (IOException e) {
+                results.add(CompletableFuture.failedFuture(e));
+                continue;
+            }
+            WorkSlipResult cached = extractionCache.getResult(fileKey, structuringEngine.version());
+            if (cached != null) {
+                logger.info("Extraction cache hit for {}", file.getOriginalFilename());
+                results.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+
+            Budget budget = new Budget(file.getOriginalFilename());
+            results.add(CompletableFuture
+                    .supplyAsync(() -> budget.run(() -> ocrText(file, fileKey)), ocrPool)
+                    .thenCompose(text -> budget.within(
+                            cancellation -> llmPermits.submit(() -> structure(fileKey, text, cancellation)))));
+        }
+        return results;
+    }
+
+    // Stage 1, cached by file content
+    private String ocrText(MultipartFile file, String fileKey) throws IOException {
+        String text = extractionCache.getOcrText(fileKey, ocrEngine.model());
+        if (text == null) {
+            text = ocrEngine.extractRawText(file);
+            extractionCache.putOcrText(fileKey, ocrEngine.model(), text);
+        }
+        return text;
+    }
+
+    // Stage 2, cached by file content and engine version
+    private CompletableFuture<WorkSlipResult> structure(String fileKey, String text, Cancellation cancellation) {
+        return structuringEngine.structureAsync(text, cancellation).thenApply(result -> {
+            extractionCache.putResult(fileKey, structuringEngine.version(), result);
+            return result;
+        });
+    }
+
+    /** The exception a stage threw, without the CompletableFuture wrapping. */
+    public static Throwable failureOf(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private synchronized void ensurePools() {
+        if (ocrPool == null) {
+            ocrPool = Executors.newFixedThreadPool(Math.max(1, ocrConcurrency), threads("extract-ocr"));
+            llmPermits = new AsyncPermits(Math.max(1, llmConcurrency));
+            watchdog = Executors.newSingleThreadScheduledExecutor(threads("extract-timeout"));
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @jakarta.annotation.PreDestroy
+    synchronized void shutdown() {
+        if (ocrPool != null) {
+            ocrPool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    /** One file's time budget, started by its first stage. */
+    private final class Budget {
+        private final String fileName;
+        private long deadlineNanos;
+
+        // Guarded by this: thread running the current stage, and whether the budget ran out
+        private Thread worker;
+        private boolean timedOut;
+
+        Budget(String fileName) {
+            this.fileName = fileName;
+        }
+
+        // Blocking stage on the current thread, interrupted when the budget runs out
+        <T> T run(Callable<T> stage) {
+            ScheduledFuture<?> alarm;
+            synchronized (this) {
+                long remaining = remainingNanos();
+                if (remaining <= 0)
+                    throw new CompletionException(timeout());
+                worker = Thread.currentThread();
+                alarm = watchdog.schedule(this::expire, remaining, TimeUnit.NANOSECONDS);
+            }
+            try {
+                return stage.call();
+            } catch (Exception e) {
+                synchronized (this) {
+                    if (timedOut)
+                        throw new CompletionException(timeout());
+                }
+                throw new CompletionException(e);
+            } finally {
+                alarm.cancel(false);
+                synchronized (this) {
+                    worker = null;
+                }
+                // Don't hand a pool thread on with a late interrupt still set
+                Thread.interrupted();
+            }
+        }
+
+        // Async stage, failed with a timeout when the budget runs out first; the
+        // stage itself is then cancelled and ends in the background
+        <T> CompletableFuture<T> within(Function<Cancellation, CompletableFuture<T>> stage) {
+            long remaining;
+            synchronized (this) {
+                remaining = remainingNanos();
+            }
+            if (remaining <= 0)
+                return CompletableFuture.failedFuture(timeout());
+            Cancellation cancellation = new Cancellation();
+            CompletableFuture<T> result = new CompletableFuture<>();
+            ScheduledFuture<?> alarm = watchdog.schedule(() -> {
+                if (result.completeExceptionally(timeout())) {
+                    logger.warn("Extraction of {} exceeded {}s, cancelling", fileName, fileTimeoutSeconds);
+                    cancellation.cancel();
+                }
+            }, remaining, TimeUnit.NANOSECONDS);
+            stage.apply(cancellation).whenComplete((value, error) -> {
+                alarm.cancel(false);
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            return result;
+        }
+
+        // Starts the clock on first use
+        private long remainingNanos() {
+            if (deadlineNanos == 0)
+                deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(fileTimeoutSeconds);
+            return deadlineNanos - System.nanoTime();
+        }
+
+        private synchronized void expire() {
+            if (worker != null) {
+                timedOut = true;
+                logger.warn("Extraction of {} exceeded {}s, interrupting", fileName, fileTimeoutSeconds);
+                worker.interrupt();
+            }
+        }
+
+        private TimeoutException timeout() {
+            return new TimeoutException("Timed out after " + fileTimeoutSeconds + "s");
+        }
+    }
+
+    /**
+     * Limits how many async calls are in flight without blocking callers:
+     * calls beyond the limit wait in a queue and start as earlier ones finish.
+     */
+    static final class AsyncPermits {
+        private final int limit;
+
+        // Guarded by this
+        private int inFlight;
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+
+        AsyncPermits(int limit) {
+            this.limit = limit;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Runnable start = () -> {
+                CompletableFuture<T> running;
+                try {
+                    running = call.get();
+                } catch (RuntimeException e) {
+                    running = CompletableFuture.failedFuture(e);
+                }
+                running.whenComplete((value, error) -> {
+                    release();
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            };
+            boolean startNow;
+            synchronized (this) {
+                startNow = inFlight < limit;
+                if (startNow) {
+                    inFlight++;
+                } else {
+                    waiting.add(start);
+                }
+            }
+            if (startNow)
+                start.run();
+            return result;
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null)
+                    inFlight--;
+            }
+            // The permit passes straight to the next waiting call
+            if (next != null)
+                next.run();
+        }
+    }
+}
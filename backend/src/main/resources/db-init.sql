@@ -26,9 +26,20 @@ CREATE TABLE IF NOT EXISTS employees (
     status VARCHAR(50) NOT NULL,
     created_at TIMESTAMP,
     inactive_date DATE,
-    category VARCHAR(50)
+    category VARCHAR(50),
+    member_sort_key VARCHAR(256),
+    updated_at TIMESTAMP
 );
 
+-- Employee listing: numeric member ids sort as numbers (same rule as Employee.sortKeyOf)
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS member_sort_key VARCHAR(256);
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+UPDATE employees SET member_sort_key = CASE
+    WHEN LENGTH(member_id) <= 19 AND TRANSLATE(member_id, '0123456789', '0000000000') = REPEAT('0', LENGTH(member_id)) THEN '0' || LPAD(member_id, 19, '0')
+    ELSE '1' || member_id END
+WHERE member_sort_key IS NULL;
+CREATE INDEX IF NOT EXISTS idx_employees_sort ON employees (member_sort_key, member_id);
+
 -- Payroll Periods Table
 -- Payroll Periods Table
 CREATE TABLE IF NOT EXISTS payroll_periods (
@@ -64,3 +75,48 @@ CREATE TABLE IF NOT EXISTS payroll_entry_days (
     entry_id UUID NOT NULL REFERENCES payroll_entries(id),
     active_day INTEGER
 );
+
+CREATE INDEX IF NOT EXISTS idx_payroll_entry_days_entry ON payroll_entry_days (entry_id, active_day);
+
+-- Background report jobs (files under uploads/report-jobs); one per period, report and content version
+CREATE TABLE IF NOT EXISTS report_jobs (
+    id UUID PRIMARY KEY,
+    period_id UUID NOT NULL,
+    report_type VARCHAR(50) NOT NULL,
+    content_version VARCHAR(64) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    progress INTEGER NOT NULL,
+    file_name VARCHAR(255),
+    file_path VARCHAR(1024),
+    file_size BIGINT,
+    error VARCHAR(1000),
+    created_at TIMESTAMP,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_report_jobs_key ON report_jobs (period_id, report_type, content_version);
+-- Expiry goes by finished_at (a re-run job keeps its created_at); replaces idx_report_jobs_status
+DROP INDEX IF EXISTS idx_report_jobs_status;
+CREATE INDEX IF NOT EXISTS idx_report_jobs_finished ON report_jobs (status, finished_at);
+
+-- Work Slips Table
+CREATE TABLE IF NOT EXISTS work_slips (
+    id UUID PRIMARY KEY,
+    slip_number VARCHAR(255) NOT NULL UNIQUE,
+    category VARCHAR(50) NOT NULL,
+    entry_date DATE NOT NULL,
+    image_path VARCHAR(255),
+    truck_number VARCHAR(255),
+    issue_total_bags INTEGER,
+    receipt_total_bags INTEGER,
+    bags_upto_10 INTEGER,
+    bags_11_to_16 INTEGER,
+    bags_17_to_20 INTEGER,
+    bags_above_20 INTEGER,
+    labour_count INTEGER,
+    shed_details VARCHAR(255)
+);
+
+-- Slip listing (newest first, read backwards) and totals: category + date range, slip_number for keyset paging
+CREATE INDEX IF NOT EXISTS idx_work_slips_category_date ON work_slips (category, entry_date, slip_number);
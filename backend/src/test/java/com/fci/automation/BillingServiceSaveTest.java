@@ -0,0 +1,63 @@
+package com.fci.automation;
+
+import com.fci.automation.dto.IssueSaveReport;
+import com.fci.automation.dto.IssueSlipDTO;
+import com.fci.automation.repository.WorkSlipRepository;
+import com.fci.automation.service.BillingService;
+import com.fci.automation.service.WorkSlipExtractionPipeline;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BillingServiceSaveTest {
+
+    @Test
+    public void testAllRowProblemsReportedNothingSaved() {
+        WorkSlipRepository repository = Mockito.mock(WorkSlipRepository.class);
+        Mockito.when(repository.findExistingSlipNumbers(Mockito.any())).thenReturn(List.of("S2"));
+        BillingService service = new BillingService(repository, Mockito.mock(WorkSlipExtractionPipeline.class));
+
+        IssueSaveReport report = service.saveIssueData(List.of(
+                slip("1", "S1", 10), slip("2", "S2", 5), slip("3", "S1", 7), slip("4", "S4", 0)));
+
+        Assertions.assertEquals(0, report.getSaved());
+        Assertions.assertEquals(List.of("3", "4", "2"),
+                report.getErrors().stream().map(IssueSaveReport.RowError::getSiNo).toList());
+        Assertions.assertEquals("totalBags", report.getErrors().get(1).getField());
+        Mockito.verify(repository, Mockito.times(1)).findExistingSlipNumbers(Mockito.any());
+        Mockito.verify(repository, Mockito.never()).saveAll(Mockito.any());
+    }
+
+    @Test
+    public void testLargeBatchSavedInOneCall() {
+        WorkSlipRepository repository = Mockito.mock(WorkSlipRepository.class);
+        Mockito.when(repository.findExistingSlipNumbers(Mockito.any())).thenReturn(List.of());
+        BillingService service = new BillingService(repository, Mockito.mock(WorkSlipExtractionPipeline.class));
+
+        List<IssueSlipDTO> dtos = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            dtos.add(slip(String.valueOf(i), "S" + i, 10));
+        }
+        IssueSaveReport report = service.saveIssueData(dtos);
+
+        Assertions.assertTrue(report.getErrors().isEmpty());
+        Assertions.assertEquals(2500, report.getSaved());
+        // Chunked lookups, one insert call
+        Mockito.verify(repository, Mockito.times(3)).findExistingSlipNumbers(Mockito.any());
+        Mockito.verify(repository, Mockito.times(1)).saveAll(Mockito.any());
+    }
+
+    private IssueSlipDTO slip(String siNo, String slipNumber, int bags) {
+        IssueSlipDTO dto = new IssueSlipDTO();
+        dto.setSiNo(siNo);
+        dto.setSlipNumber(slipNumber);
+        dto.setEntryDate(LocalDate.of(2026, 4, 1));
+        dto.setTotalBags(bags);
+        dto.setStatus("EXTRACTED");
+        return dto;
+    }
+}
@@ -0,0 +1,47 @@
+package com.fci.automation;
+
+import com.fci.automation.service.CircuitBreaker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAndRecoversThroughSingleTrial() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("API", 2, 50);
+
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(60);
+        // One trial call only while half-open
+        Assertions.assertTrue(breaker.tryAcquire());
+        Assertions.assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(60);
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testAbandonedTrialFreesTheSlot() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("API", 1, 50);
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Thread.sleep(60);
+
+        // The trial was cancelled by its caller: still half-open, and another call may try
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onAbandoned();
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,72 @@
+package com.fci.automation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.service.DebugArtifactSink;
+import com.fci.automation.service.FixtureReplayEngine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class DebugArtifactSinkTest {
+
+    @Test
+    public void testRunsArchivedAndReplayable(@TempDir Path dir) throws Exception {
+        DebugArtifactSink sink = new DebugArtifactSink();
+        ReflectionTestUtils.setField(sink, "dirName", dir.toString());
+        ReflectionTestUtils.invokeMethod(sink, "start");
+
+        String first = sink.submit(Map.of("azure_ocr.txt", "ocr one", "google_result.json", "{\"status\":\"SUCCESS\"}"));
+        String second = sink.submit(Map.of("azure_ocr.txt", "ocr two", "google_result.json", "{\"status\":\"ERROR\"}"));
+        Assertions.assertNotNull(first);
+        Assertions.assertNotEquals(first, second);
+
+        // Stopping writes what is queued and closes the archive
+        ReflectionTestUtils.invokeMethod(sink, "stop");
+        List<Path> archives;
+        try (Stream<Path> files = Files.list(dir)) {
+            archives = files.collect(Collectors.toList());
+        }
+        Assertions.assertEquals(1, archives.size());
+        try (ZipFile zip = new ZipFile(archives.get(0).toFile())) {
+            List<String> names = zip.stream().map(ZipEntry::getName).collect(Collectors.toList());
+            Assertions.assertEquals(4, names.size());
+            Assertions.assertTrue(names.contains(first + "/azure_ocr.txt"));
+            Assertions.assertTrue(names.contains(second + "/google_result.json"));
+        }
+
+        // The replay engine serves runs straight from the archive
+        FixtureReplayEngine replay = new FixtureReplayEngine(new ObjectMapper());
+        ReflectionTestUtils.setField(replay, "fixtureDir", dir.toString());
+        ReflectionTestUtils.setField(replay, "ocrLatencyMs", 0L);
+        ReflectionTestUtils.setField(replay, "structuringLatencyMs", 0L);
+        ReflectionTestUtils.invokeMethod(replay, "loadFixtures");
+        String text = replay.extractRawText(new MockMultipartFile("file", first + ".jpg", null, new byte[] { 1 }));
+        Assertions.assertEquals("ocr one", text);
+        Assertions.assertEquals("SUCCESS", replay.structureAsync(text).join().getStatus());
+    }
+
+    @Test
+    public void testDisabledSinkDropsNothingToDisk(@TempDir Path dir) throws Exception {
+        DebugArtifactSink sink = new DebugArtifactSink();
+        ReflectionTestUtils.setField(sink, "enabled", false);
+        ReflectionTestUtils.setField(sink, "dirName", dir.toString());
+        ReflectionTestUtils.invokeMethod(sink, "start");
+
+        Assertions.assertNull(sink.submit(Map.of("azure_ocr.txt", "ocr")));
+        ReflectionTestUtils.invokeMethod(sink, "stop");
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.fci.automation;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.controller.EmployeeController;
+import com.fci.automation.dto.EmployeePage;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.service.ReportCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The employee listing on H2: keyset pages of EmployeeRepository and
+ * EmployeeController.getAllEmployees, including its ETag / 304 answers.
+ */
+@DataJpaTest
+public class EmployeeListingTest {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private EmployeeController controller;
+
+    @BeforeEach
+    public void setUp() {
+        RealmContext.setRealm(RealmEnum.TEST);
+        // "7" and "007" share a sort key; the member id breaks the tie
+        employee("10", "Ravi Kumar", Employee.Category.HL, Employee.Status.ACTIVE);
+        employee("7", "Ramesh", Employee.Category.HL, Employee.Status.ACTIVE);
+        employee("007", "Suresh", Employee.Category.CL, Employee.Status.ACTIVE);
+        employee("9", "Raju", Employee.Category.CL, Employee.Status.INACTIVE);
+        employee("A1", "Ra_ju%", Employee.Category.HL, Employee.Status.ACTIVE);
+        employee("B2", "Mohan", Employee.Category.HL, Employee.Status.INACTIVE);
+        entityManager.flush();
+        entityManager.clear();
+
+        controller = new EmployeeController();
+        ReflectionTestUtils.setField(controller, "employeeRepository", employeeRepository);
+        ReflectionTestUtils.setField(controller, "reportCache", Mockito.mock(ReportCache.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RealmContext.clear();
+    }
+
+    @Test
+    public void testRepositoryPagesAcrossEqualSortKeys() {
+        List<String> listed = new ArrayList<>();
+        List<Employee> page = employeeRepository.findFirstPage(null, null, null, PageRequest.ofSize(2));
+        while (!page.isEmpty()) {
+            page.forEach(e -> listed.add(e.getMemberId()));
+            Employee last = page.get(page.size() - 1);
+            page = employeeRepository.findPageAfter(null, null, null, last.getMemberSortKey(), last.getMemberId(),
+                    PageRequest.ofSize(2));
+        }
+        // The first page ends between "007" and "7"; neither is repeated or skipped
+        Assertions.assertEquals(List.of("007", "7", "9", "10", "A1", "B2"), listed);
+    }
+
+    @Test
+    public void testRepositoryFilters() {
+        Assertions.assertEquals(List.of("7", "10", "A1"), ids(employeeRepository.findFirstPage(
+                Employee.Category.HL, Employee.Status.ACTIVE, null, PageRequest.ofSize(10))));
+        Assertions.assertEquals(List.of("9", "B2"), ids(employeeRepository.findFirstPage(
+                null, Employee.Status.INACTIVE, null, PageRequest.ofSize(10))));
+        // Lower-cased prefix, matched case-insensitively
+        Assertions.assertEquals(List.of("7", "9", "10", "A1"), ids(employeeRepository.findFirstPage(
+                null, null, "ra%", PageRequest.ofSize(10))));
+        Assertions.assertEquals(List.of("A1"), ids(employeeRepository.findPageAfter(Employee.Category.HL,
+                null, "ra%", Employee.sortKeyOf("10"), "10", PageRequest.ofSize(10))));
+    }
+
+    @Test
+    public void testControllerPagesWithFilters() {
+        EmployeePage first = list(null, null, "RA", null, 2).getBody();
+        Assertions.assertEquals(List.of("7", "9"), ids(first.getItems()));
+        Assertions.assertNotNull(first.getNextCursor());
+        EmployeePage second = list(null, null, "RA", first.getNextCursor(), 2).getBody();
+        Assertions.assertEquals(List.of("10", "A1"), ids(second.getItems()));
+        Assertions.assertNull(second.getNextCursor());
+
+        // '_' and '%' in the name are matched literally
+        Assertions.assertEquals(List.of("A1"), ids(list(null, null, "ra_ju%", null, 10).getBody().getItems()));
+        Assertions.assertEquals(List.of("007", "9"),
+                ids(list(Employee.Category.CL, null, null, null, 10).getBody().getItems()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> list(null, null, null, "!!", 10));
+    }
+
+    @Test
+    public void testNotModifiedUntilTheMasterChanges() throws Exception {
+        ResponseEntity<EmployeePage> first = list(null, null, null, null, 100);
+        String etag = first.getHeaders().getETag();
+        Assertions.assertEquals(HttpStatus.OK, first.getStatusCode());
+        Assertions.assertTrue(etag.startsWith("W/\"TEST-6-"), etag);
+
+        // Same master: 304, no rows
+        ResponseEntity<EmployeePage> unchanged = list(etag);
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        Assertions.assertNull(unchanged.getBody());
+
+        // An update keeps the count but moves the last-updated time, and so the tag
+        Employee ramesh = employeeRepository.findByMemberId("7").orElseThrow();
+        entityManager.clear();
+        Thread.sleep(5);
+        ramesh.setFullName("Ramesh K");
+        controller.updateEmployee(ramesh.getId(), ramesh);
+        entityManager.flush();
+
+        ResponseEntity<EmployeePage> changed = list(etag);
+        Assertions.assertEquals(HttpStatus.OK, changed.getStatusCode());
+        Assertions.assertNotEquals(etag, changed.getHeaders().getETag());
+        Assertions.assertTrue(changed.getHeaders().getETag().startsWith("W/\"TEST-6-"));
+        Assertions.assertEquals("Ramesh K", changed.getBody().getItems().get(1).getFullName());
+    }
+
+    private ResponseEntity<EmployeePage> list(Employee.Category category, Employee.Status status, String name,
+            String cursor, int size) {
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/employees"),
+                new MockHttpServletResponse());
+        return controller.getAllEmployees(category, status, name, cursor, size, request);
+    }
+
+    private ResponseEntity<EmployeePage> list(String ifNoneMatch) {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/employees");
+        servletRequest.addHeader("If-None-Match", ifNoneMatch);
+        return controller.getAllEmployees(null, null, null, null, 100,
+                new ServletWebRequest(servletRequest, new MockHttpServletResponse()));
+    }
+
+    private void employee(String memberId, String name, Employee.Category category, Employee.Status status) {
+        Employee emp = new Employee();
+        emp.setMemberId(memberId);
+        emp.setFullName(name);
+        emp.setCategory(category);
+        emp.setStatus(status);
+        entityManager.persist(emp);
+    }
+
+    private static List<String> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getMemberId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package com.fci.automation;
+
+import com.fci.automation.dto.EmployeeImportReport;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.service.EmployeeMasterImportService;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class EmployeeMasterImportServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConflictsFoundInMemoryAndReported() throws Exception {
+        Employee saved = new Employee();
+        saved.setId(UUID.randomUUID());
+        saved.setMemberId("1001");
+        saved.setFullName("OLD NAME");
+        saved.setUanNumber("100012345678");
+        saved.setCategory(Employee.Category.HL);
+        EmployeeRepository repository = Mockito.mock(EmployeeRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(new ArrayList<>(List.of(saved)));
+
+        byte[] xlsx = workbook(new Object[][] {
+                { "Member ID", "Name", "UAN", "Bank Account", "Category" },
+                { "1001", "NEW NAME", 100012345678d, "555", "" }, // Update, numeric 12-digit UAN
+                { "1002", "B", 100012345678d, "", "hl" }, // UAN of 1001
+                { 1003d, "C", "200000000001", "555", "" }, // Bank account of row 2
+                { "1004", "D", "200000000002", "", "" }, // New
+                { "1004", "D AGAIN", "", "", "" }, // Repeated member
+                { "1005", "", "", "", "" }, // New without name
+        });
+
+        EmployeeImportReport report = new EmployeeMasterImportService(repository)
+                .importMaster(new MockMultipartFile("file", "master.xlsx", null, xlsx));
+
+        Assertions.assertEquals(6, report.getRows());
+        Assertions.assertEquals(1, report.getUpdated());
+        Assertions.assertEquals(1, report.getCreated());
+        Assertions.assertEquals(4, report.getSkipped());
+        Assertions.assertEquals(List.of(3, 4, 6, 7),
+                report.getProblems().stream().map(EmployeeImportReport.Problem::getRowNumber).toList());
+        Assertions.assertEquals("UAN 100012345678 is already used by Member ID 1001",
+                report.getProblems().get(0).getMessage());
+        Assertions.assertEquals("1003", report.getProblems().get(1).getMemberId());
+
+        Assertions.assertEquals("NEW NAME", saved.getFullName());
+        Assertions.assertEquals("555", saved.getBankAccountNo());
+        Assertions.assertEquals(Employee.Category.HL, saved.getCategory());
+        ArgumentCaptor<List<Employee>> created = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(repository).saveAll(created.capture());
+        Assertions.assertEquals("1004", created.getValue().get(0).getMemberId());
+        Assertions.assertEquals(Employee.Category.CL, created.getValue().get(0).getCategory());
+        // No per-row lookups
+        Mockito.verify(repository, Mockito.never()).findByMemberId(Mockito.any());
+        Mockito.verify(repository, Mockito.never()).findByUanNumber(Mockito.any());
+    }
+
+    private byte[] workbook(Object[][] rows) throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet();
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < rows[r].length; c++) {
+                    if (rows[r][c] instanceof Double d) {
+                        row.createCell(c).setCellValue(d);
+                    } else if (!"".equals(rows[r][c])) {
+                        row.createCell(c).setCellValue((String) rows[r][c]);
+                    }
+                }
+            }
+            wb.write(out);
+            return out.toByteArray();
+        }
+    }
+}
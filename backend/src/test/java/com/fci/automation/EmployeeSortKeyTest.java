@@ -0,0 +1,21 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class EmployeeSortKeyTest {
+
+    @Test
+    public void testNumericIdsSortByValueBeforeOthers() {
+        List<String> ids = new ArrayList<>(List.of("B_1", "100", "A7", "10", "9", "007", "12345678901234567890"));
+        ids.sort(Comparator.comparing(Employee::sortKeyOf));
+
+        // Numeric ids in numeric order, then the rest (including over-long digit strings) as text
+        Assertions.assertEquals(List.of("007", "9", "10", "100", "12345678901234567890", "A7", "B_1"), ids);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class EpfStreamTest {
+
+    @Test
+    public void testStreamedEcrMatchesGeneratedText() throws Exception {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setId(UUID.randomUUID());
+        period.setMonth(11);
+        period.setYear(2024);
+
+        List<PayrollEntry> entries = new ArrayList<>();
+        // Enough lines to go through the write buffer several times
+        for (int i = 0; i < 5000; i++) {
+            entries.add(entry("U" + i, "NAME " + i, Employee.Category.HL, i % 31, new BigDecimal(i * 7 % 25000)));
+        }
+        entries.add(entry("102194618333", "SHAJI.M.G", Employee.Category.HL, 30, new BigDecimal("20000")));
+        PeriodLedger ledger = PeriodLedger.of(period, entries);
+        ReportService reportService = new ReportService();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            reportService.writeEpfTxt(ledger, gzip);
+        }
+        String streamed;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            streamed = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        Assertions.assertEquals(reportService.generateEpfTxt(ledger), streamed);
+        String[] lines = streamed.split("\n");
+        Assertions.assertEquals(5001, lines.length);
+        // Capped member: EPS wages and contribution 0, diff is the full 12% at the cap
+        Assertions.assertEquals("102194618333#~#SHAJI.M.G#~#20000#~#20000#~#0#~#15000#~#2400#~#0#~#1800#~#0#~#0",
+                lines[5000]);
+    }
+
+    private PayrollEntry entry(String uan, String name, Employee.Category category, int days, BigDecimal wages) {
+        Employee emp = new Employee();
+        emp.setUanNumber(uan);
+        emp.setFullName(name);
+        emp.setCategory(category);
+        PayrollEntry entry = new PayrollEntry();
+        entry.setEmployee(emp);
+        entry.setDaysWorked(days);
+        entry.setWagesEarned(wages);
+        return entry;
+    }
+}
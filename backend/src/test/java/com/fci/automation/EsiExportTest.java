@@ -0,0 +1,134 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportService;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class EsiExportTest {
+
+    private final ReportService reportService = new ReportService();
+
+    @Test
+    public void testXlsxHasTheSameSheetsAndCellsAsXls() throws Exception {
+        PeriodLedger ledger = ledger(1200);
+
+        ByteArrayOutputStream xlsx = new ByteArrayOutputStream();
+        reportService.writeEsiXlsx(ledger, xlsx);
+
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook expected = WorkbookFactory.create(new ByteArrayInputStream(reportService.generateEsiExcel(ledger)));
+                Workbook actual = WorkbookFactory.create(new ByteArrayInputStream(xlsx.toByteArray()))) {
+            Assertions.assertTrue(actual instanceof XSSFWorkbook);
+            Assertions.assertEquals(expected.getNumberOfSheets(), actual.getNumberOfSheets());
+            for (int s = 0; s < expected.getNumberOfSheets(); s++) {
+                Sheet want = expected.getSheetAt(s);
+                Sheet got = actual.getSheetAt(s);
+                Assertions.assertEquals(want.getSheetName(), got.getSheetName());
+                Assertions.assertEquals(want.getLastRowNum(), got.getLastRowNum());
+                Assertions.assertEquals(want.getNumMergedRegions(), got.getNumMergedRegions());
+                for (Row row : want) {
+                    for (Cell cell : row) {
+                        Cell other = got.getRow(row.getRowNum()).getCell(cell.getColumnIndex());
+                        Assertions.assertEquals(cell.getCellType(), other.getCellType(), cell.getAddress().toString());
+                        Assertions.assertEquals(formatter.formatCellValue(cell), formatter.formatCellValue(other),
+                                cell.getAddress().toString());
+                    }
+                }
+            }
+            // Header keeps the template's look
+            Cell header = actual.getSheetAt(0).getRow(0).getCell(0);
+            Assertions.assertTrue(actual.getFontAt(header.getCellStyle().getFontIndex()).getBold());
+            Assertions.assertEquals("@", header.getCellStyle().getDataFormatString());
+            Assertions.assertNotNull(actual.getSheetAt(0).getRow(0).getCell(4).getHyperlink());
+        }
+    }
+
+    @Test
+    public void testXlsIsBuiltWithTheTemplatesSheetsAndStyles() throws Exception {
+        byte[] xls = reportService.generateEsiExcel(ledger(10));
+
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook template = WorkbookFactory.create(getClass().getClassLoader().getResourceAsStream("ESI.xls"));
+                Workbook actual = WorkbookFactory.create(new ByteArrayInputStream(xls))) {
+            Assertions.assertEquals(template.getNumberOfSheets(), actual.getNumberOfSheets());
+            for (int s = 0; s < template.getNumberOfSheets(); s++) {
+                Sheet want = template.getSheetAt(s);
+                Sheet got = actual.getSheetAt(s);
+                Assertions.assertEquals(want.getSheetName(), got.getSheetName());
+                Assertions.assertEquals(want.getNumMergedRegions(), got.getNumMergedRegions());
+                for (int c = 0; c < 8; c++) {
+                    Assertions.assertEquals(want.getColumnWidth(c), got.getColumnWidth(c), "column " + c);
+                }
+                for (Row row : want) {
+                    Row other = got.getRow(row.getRowNum());
+                    Assertions.assertEquals(row.getHeight(), other.getHeight());
+                    for (Cell cell : row) {
+                        Cell copy = other.getCell(cell.getColumnIndex());
+                        String at = want.getSheetName() + "!" + cell.getAddress();
+                        Assertions.assertEquals(formatter.formatCellValue(cell), formatter.formatCellValue(copy), at);
+                        CellStyle a = cell.getCellStyle();
+                        CellStyle b = copy.getCellStyle();
+                        Assertions.assertEquals(a.getDataFormatString(), b.getDataFormatString(), at);
+                        Assertions.assertEquals(a.getFillForegroundColor(), b.getFillForegroundColor(), at);
+                        Assertions.assertEquals(a.getBorderBottom(), b.getBorderBottom(), at);
+                        Assertions.assertEquals(a.getWrapText(), b.getWrapText(), at);
+                        Assertions.assertEquals(template.getFontAt(a.getFontIndex()).getBold(),
+                                actual.getFontAt(b.getFontIndex()).getBold(), at);
+                        Assertions.assertEquals(cell.getHyperlink() == null, copy.getHyperlink() == null, at);
+                    }
+                }
+            }
+            Assertions.assertEquals("MEMBER 9", actual.getSheetAt(0).getRow(10).getCell(1).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void testXlsRefusesMoreMembersThanTheFormatHolds() {
+        PeriodLedger ledger = ledger(ReportService.ESI_XLS_MAX_MEMBERS + 1);
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+                () -> reportService.writeEsiExcel(ledger, OutputStream.nullOutputStream()));
+        Assertions.assertTrue(e.getMessage().contains(".xlsx"));
+    }
+
+    private static PeriodLedger ledger(int members) {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setId(UUID.randomUUID());
+        period.setMonth(2);
+        period.setYear(2024);
+        period.setLastWorkingDay(LocalDate.of(2024, 2, 29));
+        List<PayrollEntry> entries = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            Employee emp = new Employee();
+            emp.setIpNumber(String.valueOf(1000000000L + i));
+            emp.setFullName("MEMBER " + i);
+            emp.setCategory(i % 2 == 0 ? Employee.Category.HL : Employee.Category.CL);
+            PayrollEntry entry = new PayrollEntry();
+            entry.setEmployee(emp);
+            entry.setDaysWorked(i % 30);
+            entry.setWagesEarned(BigDecimal.valueOf(i * 37L % 2500000, 2));
+            entries.add(entry);
+        }
+        return PeriodLedger.of(period, entries);
+    }
+}
@@ -0,0 +1,63 @@
+package com.fci.automation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.dto.WorkSlipResult;
+import com.fci.automation.service.ExtractionCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public class ExtractionCacheTest {
+
+    @Test
+    public void testEntriesByContentAndPromptVersion(@TempDir Path dir) throws Exception {
+        ExtractionCache cache = newCache(dir);
+        String key = cache.fileKey(new MockMultipartFile("file", "a.jpg", "image/jpeg", new byte[] { 1, 2 }));
+        // Same bytes, other name: same key
+        Assertions.assertEquals(key, cache.fileKey(new MockMultipartFile("file", "b.jpg", null, new byte[] { 1, 2 })));
+
+        WorkSlipResult result = new WorkSlipResult();
+        result.setStatus("SUCCESS");
+        result.setDocumentType("WORK_SLIP");
+        cache.putOcrText(key, "layout", "raw text");
+        cache.putResult(key, "p1", result);
+
+        Assertions.assertEquals("raw text", cache.getOcrText(key, "layout"));
+        Assertions.assertEquals("WORK_SLIP", cache.getResult(key, "p1").getDocumentType());
+        Assertions.assertNull(cache.getResult(key, "p2"));
+
+        // Expired entries are misses and get deleted
+        Path ocrFile = dir.resolve(key + ".layout.txt");
+        Files.setLastModifiedTime(ocrFile, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+        Assertions.assertNull(cache.getOcrText(key, "layout"));
+        Assertions.assertFalse(Files.exists(ocrFile));
+    }
+
+    @Test
+    public void testSizeEviction(@TempDir Path dir) throws Exception {
+        ExtractionCache cache = newCache(dir);
+        ReflectionTestUtils.setField(cache, "maxBytes", 100L);
+        cache.putOcrText("old", "m", "x".repeat(60));
+        Files.setLastModifiedTime(dir.resolve("old.m.txt"), FileTime.from(Instant.now().minusSeconds(60)));
+        cache.putOcrText("new", "m", "y".repeat(60));
+
+        Assertions.assertNull(cache.getOcrText("old", "m"));
+        Assertions.assertNotNull(cache.getOcrText("new", "m"));
+    }
+
+    private ExtractionCache newCache(Path dir) {
+        ExtractionCache cache = new ExtractionCache(new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "dir", dir);
+        ReflectionTestUtils.setField(cache, "ttlHours", 1L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+}
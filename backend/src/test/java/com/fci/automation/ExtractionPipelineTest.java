@@ -1,7 +1,7 @@
 package com.fci.automation;
 
 import com.fci.automation.dto.WorkSlipResult;
-import com.fci.automation.service.GoogleAIStudioService;
+import com.fci.automation.service.WorkSlipExtractionPipeline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -21,7 +21,7 @@ public class ExtractionPipelineTest {
     private static final Logger logger = LoggerFactory.getLogger(ExtractionPipelineTest.class);
 
     @Autowired
-    private GoogleAIStudioService googleAIStudioService;
+    private WorkSlipExtractionPipeline extractionPipeline;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -42,7 +42,7 @@ public class ExtractionPipelineTest {
                     is);
 
             // Execute Pipeline
-            WorkSlipResult result = googleAIStudioService.extractWorkSlip(file);
+            WorkSlipResult result = extractionPipeline.extractWorkSlipAsync(file).join();
 
             // Print Result
             String jsonOutput = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result);
@@ -0,0 +1,130 @@
+package com.fci.automation;
+
+import com.fci.automation.controller.PayrollController;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.service.PayrollCalculatorService;
+import com.fci.automation.service.ReportCache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * SQL sent by the grid's bulk save (PUT /api/payroll/entries) on H2: the rows
+ * go out once, through PayrollEntryBulkWriter, and Hibernate writes nothing.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.fci.automation.PayrollBulkUpdateSqlTest$SqlLog")
+@Import(PayrollEntryBulkWriter.class)
+public class PayrollBulkUpdateSqlTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PayrollEntryRepository entryRepository;
+
+    @Autowired
+    private PayrollEntryBulkWriter bulkWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testBulkUpdateWritesEachRowOnce() {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setMonth(11);
+        period.setYear(2024);
+        entityManager.persist(period);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Employee emp = new Employee();
+            emp.setMemberId("M" + i);
+            emp.setFullName("Member " + i);
+            emp.setCategory(Employee.Category.HL);
+            entityManager.persist(emp);
+            PayrollEntry entry = new PayrollEntry();
+            entry.setPeriod(period);
+            entry.setEmployee(emp);
+            entry.setDaysWorked(3);
+            entry.setWagesEarned(new BigDecimal("1000.00"));
+            entry.setActiveDays(new HashSet<>(Set.of(1, 2, 3)));
+            entityManager.persist(entry);
+            ids.add(entry.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<PayrollEntry> inputs = new ArrayList<>();
+        for (UUID id : ids) {
+            PayrollEntry input = new PayrollEntry();
+            input.setId(id);
+            input.setDaysWorked(3);
+            input.setWagesEarned(new BigDecimal("2000.00"));
+            input.setAdvanceDeduction(new BigDecimal("100.00"));
+            input.setActiveDays(new HashSet<>(Set.of(1, 2, 4)));
+            inputs.add(input);
+        }
+
+        SqlLog.STATEMENTS.clear();
+        controller().bulkUpdateEntries(inputs);
+        // What the open-in-view session does when a transaction it joined commits
+        entityManager.flush();
+
+        // No per-row UPDATE or collection rewrite from dirty checking
+        List<String> writes = SqlLog.STATEMENTS.stream().filter(sql -> !sql.startsWith("select"))
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of(), writes);
+        // The prefetch: entries, then employees, period and days batch-fetched, whatever the row count
+        Assertions.assertEquals(4, SqlLog.STATEMENTS.size(), SqlLog.STATEMENTS.toString());
+
+        // The bulk writer's rows are what is stored
+        for (UUID id : ids) {
+            Assertions.assertEquals(0, new BigDecimal("2000.00").compareTo(jdbcTemplate.queryForObject(
+                    "SELECT wages_earned FROM payroll_entries WHERE id = ?", BigDecimal.class, id)));
+            Assertions.assertEquals(List.of(1, 2, 4), jdbcTemplate.queryForList(
+                    "SELECT active_day FROM payroll_entry_days WHERE entry_id = ? ORDER BY active_day",
+                    Integer.class, id));
+        }
+    }
+
+    private PayrollController controller() {
+        PayrollController controller = new PayrollController();
+        ReflectionTestUtils.setField(controller, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(controller, "calculatorService", new PayrollCalculatorService());
+        ReflectionTestUtils.setField(controller, "bulkWriter", bulkWriter);
+        ReflectionTestUtils.setField(controller, "reportCache", Mockito.mock(ReportCache.class));
+        ReflectionTestUtils.setField(controller, "entityManager", entityManager);
+        return controller;
+    }
+
+    /** Every statement Hibernate prepares, lower-cased. */
+    public static class SqlLog implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.trim().toLowerCase());
+            return sql;
+        }
+    }
+}
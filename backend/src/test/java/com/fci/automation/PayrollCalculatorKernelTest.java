@@ -0,0 +1,100 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.service.PayrollCalculatorService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Randomized equivalence check: calculateAll (integer kernel) must give exactly
+ * the same BigDecimals (value and scale) as calculate on every entry.
+ */
+public class PayrollCalculatorKernelTest {
+
+    private static final int CASES = 200_000;
+
+    private final PayrollCalculatorService calculator = new PayrollCalculatorService();
+
+    @Test
+    public void testKernelMatchesBigDecimalCalculator() {
+        Random rnd = new Random(20251118L);
+        PayrollEntry[] batch = new PayrollEntry[CASES];
+        PayrollEntry[] reference = new PayrollEntry[CASES];
+        for (int i = 0; i < CASES; i++) {
+            Employee.Category cat = pickCategory(rnd);
+            Integer days = rnd.nextInt(20) == 0 ? null : rnd.nextInt(32);
+            BigDecimal wages = randomAmount(rnd);
+            BigDecimal advance = randomAmount(rnd);
+            batch[i] = createEntry(cat, days, wages, advance);
+            reference[i] = createEntry(cat, days, wages, advance);
+            calculator.calculate(reference[i]);
+        }
+
+        calculator.calculateAll(batch);
+
+        for (int i = 0; i < CASES; i++) {
+            PayrollEntry a = batch[i];
+            PayrollEntry e = reference[i];
+            String ctx = "case " + i + " wages=" + e.getWagesEarned() + " days=" + e.getDaysWorked();
+            Assertions.assertEquals(e.getWagesEarned(), a.getWagesEarned(), ctx);
+            Assertions.assertEquals(e.getEpfMemberShare(), a.getEpfMemberShare(), ctx);
+            Assertions.assertEquals(e.getEpfContractorShare(), a.getEpfContractorShare(), ctx);
+            Assertions.assertEquals(e.getEsiMemberShare(), a.getEsiMemberShare(), ctx);
+            Assertions.assertEquals(e.getEsiContractorShare(), a.getEsiContractorShare(), ctx);
+            Assertions.assertEquals(e.getBonusShare(), a.getBonusShare(), ctx);
+            Assertions.assertEquals(e.getNetPayable(), a.getNetPayable(), ctx);
+        }
+    }
+
+    private Employee.Category pickCategory(Random rnd) {
+        int r = rnd.nextInt(10);
+        if (r == 0)
+            return null; // no employee
+        return r < 5 ? Employee.Category.CL : Employee.Category.HL;
+    }
+
+    private BigDecimal randomAmount(Random rnd) {
+        switch (rnd.nextInt(12)) {
+            case 0:
+                return null;
+            case 1:
+                // Around the EPF cap
+                return BigDecimal.valueOf(1500000 + rnd.nextInt(201) - 100, 2);
+            case 2:
+                // Whole rupees, scale 0
+                return BigDecimal.valueOf(rnd.nextInt(40000));
+            case 3:
+                // Exact HALF_UP ties for the 12% / 0.75% shares
+                return new BigDecimal(rnd.nextInt(2000) * 25 + ".00").add(new BigDecimal("12.50"));
+            case 4:
+                // Sub-paisa input, goes through the BigDecimal fallback
+                return BigDecimal.valueOf(rnd.nextInt(100000000), 4);
+            case 5:
+                // Negative (over-deduction) values
+                return BigDecimal.valueOf(-rnd.nextInt(500000), 2);
+            case 6:
+                // Trailing zeros beyond 2 decimals and negative scale
+                return rnd.nextBoolean() ? BigDecimal.valueOf(rnd.nextInt(1000000), 3).multiply(BigDecimal.TEN)
+                        : new BigDecimal("1E+3");
+            default:
+                return BigDecimal.valueOf(rnd.nextInt(5000000), 2);
+        }
+    }
+
+    private PayrollEntry createEntry(Employee.Category cat, Integer days, BigDecimal wages, BigDecimal advance) {
+        PayrollEntry entry = new PayrollEntry();
+        if (cat != null) {
+            Employee emp = new Employee();
+            emp.setCategory(cat);
+            entry.setEmployee(emp);
+        }
+        entry.setDaysWorked(days);
+        entry.setWagesEarned(wages);
+        entry.setAdvanceDeduction(advance);
+        return entry;
+    }
+}
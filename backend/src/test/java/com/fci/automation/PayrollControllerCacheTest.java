@@ -0,0 +1,81 @@
+package com.fci.automation;
+
+import com.fci.automation.controller.PayrollController;
+import com.fci.automation.dto.PayrollPeriodRequest;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.ReportCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** Period changes made by PayrollController drop the period's cached reports. */
+public class PayrollControllerCacheTest {
+
+    private final PayrollPeriod period = new PayrollPeriod();
+
+    private PayrollPeriodRepository periodRepository;
+    private PayrollEntryRepository entryRepository;
+    private EmployeeRepository employeeRepository;
+    private ReportCache reportCache;
+    private PayrollController controller;
+
+    @BeforeEach
+    public void setUp() {
+        period.setId(UUID.randomUUID());
+        period.setMonth(11);
+        period.setYear(2024);
+        period.setLastWorkingDay(LocalDate.of(2024, 11, 29));
+
+        periodRepository = Mockito.mock(PayrollPeriodRepository.class);
+        Mockito.when(periodRepository.findByMonthAndYear(11, 2024)).thenReturn(Optional.of(period));
+        Mockito.when(periodRepository.findById(period.getId())).thenReturn(Optional.of(period));
+        entryRepository = Mockito.mock(PayrollEntryRepository.class);
+        employeeRepository = Mockito.mock(EmployeeRepository.class);
+        reportCache = Mockito.mock(ReportCache.class);
+
+        controller = new PayrollController();
+        ReflectionTestUtils.setField(controller, "periodRepository", periodRepository);
+        ReflectionTestUtils.setField(controller, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(controller, "employeeRepository", employeeRepository);
+        ReflectionTestUtils.setField(controller, "reportCache", reportCache);
+    }
+
+    @Test
+    public void testNewLastWorkingDayInvalidatesThePeriod() {
+        PayrollPeriodRequest request = new PayrollPeriodRequest();
+        request.setMonth(11);
+        request.setYear(2024);
+        request.setLastWorkingDay("2024-11-30");
+
+        Assertions.assertEquals(200, controller.createPeriod(request).getStatusCode().value());
+        Assertions.assertEquals(LocalDate.of(2024, 11, 30), period.getLastWorkingDay());
+        Mockito.verify(periodRepository).save(period);
+        Mockito.verify(reportCache).invalidate(period.getId());
+    }
+
+    @Test
+    public void testAutoPopulatedEntriesInvalidateThePeriod() {
+        Employee emp = new Employee();
+        emp.setMemberId("1");
+        emp.setCategory(Employee.Category.HL);
+        Mockito.when(entryRepository.findByPeriodId(period.getId())).thenReturn(List.of());
+        Mockito.when(employeeRepository.findAll()).thenReturn(List.of(emp));
+
+        List<PayrollEntry> entries = controller.getEntries(period.getId().toString());
+        Assertions.assertEquals(1, entries.size());
+        Mockito.verify(entryRepository).saveAll(entries);
+        Mockito.verify(reportCache).invalidate(period.getId());
+    }
+}
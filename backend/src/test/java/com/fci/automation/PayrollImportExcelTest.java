@@ -0,0 +1,167 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
+import com.fci.automation.repository.PayrollEntryRepository;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.PayrollCalculatorService;
+import com.fci.automation.service.PayrollImportService;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The wage sheet import (.xlsx streamed, .xls through the DOM) against mocked
+ * repositories; PayrollImportServiceTest needs the full application context.
+ */
+public class PayrollImportExcelTest {
+
+    private final PayrollPeriod period = new PayrollPeriod();
+    private final Employee hl = employee("MEM01", Employee.Category.HL);
+    private final Employee cl = employee("7", Employee.Category.CL);
+    private PayrollEntry existing;
+
+    private PayrollEntryRepository entryRepository;
+    private PayrollEntryBulkWriter bulkWriter;
+    private EntityManager entityManager;
+    private PayrollImportService importService;
+
+    // Entries handed to saveAll, as they were at the call
+    private final List<PayrollEntry> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        period.setId(UUID.randomUUID());
+        existing = new PayrollEntry();
+        existing.setId(UUID.randomUUID());
+        existing.setPeriod(period);
+        existing.setEmployee(hl);
+
+        PayrollPeriodRepository periodRepository = Mockito.mock(PayrollPeriodRepository.class);
+        Mockito.when(periodRepository.findById(period.getId())).thenReturn(Optional.of(period));
+        EmployeeRepository employeeRepository = Mockito.mock(EmployeeRepository.class);
+        Mockito.when(employeeRepository.findAll()).thenReturn(List.of(hl, cl));
+        entryRepository = Mockito.mock(PayrollEntryRepository.class);
+        Mockito.when(entryRepository.findByPeriodId(period.getId())).thenReturn(List.of(existing));
+        Mockito.when(entryRepository.saveAll(ArgumentMatchers.any())).thenAnswer(inv -> {
+            Iterable<PayrollEntry> entries = inv.getArgument(0);
+            entries.forEach(saved::add);
+            return entries;
+        });
+        bulkWriter = Mockito.mock(PayrollEntryBulkWriter.class);
+        entityManager = Mockito.mock(EntityManager.class);
+
+        importService = new PayrollImportService();
+        ReflectionTestUtils.setField(importService, "employeeRepository", employeeRepository);
+        ReflectionTestUtils.setField(importService, "entryRepository", entryRepository);
+        ReflectionTestUtils.setField(importService, "periodRepository", periodRepository);
+        ReflectionTestUtils.setField(importService, "calculatorService", new PayrollCalculatorService());
+        ReflectionTestUtils.setField(importService, "bulkWriter", bulkWriter);
+        ReflectionTestUtils.setField(importService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(importService, "importBatchSize", 500);
+    }
+
+    @Test
+    public void testXlsxImport() throws Exception {
+        assertImported(importService.importPayroll(sheet(new XSSFWorkbook()), period.getId()));
+    }
+
+    @Test
+    public void testXlsImport() throws Exception {
+        assertImported(importService.importPayroll(sheet(new HSSFWorkbook()), period.getId()));
+    }
+
+    @Test
+    public void testEachBatchIsWrittenAndCleared() throws Exception {
+        ReflectionTestUtils.setField(importService, "importBatchSize", 1);
+        importService.importPayroll(sheet(new XSSFWorkbook()), period.getId());
+
+        // Batch 1 (MEM01, existing): bulk update only; batch 2 (7, new): insert
+        InOrder order = Mockito.inOrder(bulkWriter, entryRepository, entityManager);
+        order.verify(entityManager).clear();
+        order.verify(bulkWriter).updateEntries(List.of(existing), Map.of());
+        order.verify(entityManager).clear();
+        order.verify(entryRepository).saveAll(ArgumentMatchers.any());
+        order.verify(entryRepository).flush();
+        order.verify(entityManager).clear();
+        Assertions.assertEquals(1, saved.size());
+        Assertions.assertSame(cl, saved.get(0).getEmployee());
+    }
+
+    private void assertImported(String result) {
+        Assertions.assertTrue(result.startsWith("Import Completed. Success: 2, Failed: 1"), result);
+        Assertions.assertTrue(result.contains("Row 5: Employee not found with Member ID: NOPE"), result);
+
+        // Existing entry: updated in place through the bulk writer, day sets untouched
+        Assertions.assertEquals(20, existing.getDaysWorked());
+        Assertions.assertEquals(0, new BigDecimal("1000").compareTo(existing.getWagesEarned()));
+        Assertions.assertEquals(0, new BigDecimal("1500").compareTo(existing.getAdvanceDeduction()));
+        Assertions.assertNotNull(existing.getNetPayable());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<PayrollEntry>> updated = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(bulkWriter).updateEntries(updated.capture(), ArgumentMatchers.eq(Map.of()));
+        Assertions.assertEquals(List.of(existing), List.copyOf(updated.getValue()));
+
+        // Member 7 (numeric cell) had no entry: inserted, with blank wages as zero
+        Assertions.assertEquals(1, saved.size());
+        PayrollEntry created = saved.get(0);
+        Assertions.assertNull(created.getId());
+        Assertions.assertSame(cl, created.getEmployee());
+        Assertions.assertSame(period, created.getPeriod());
+        Assertions.assertEquals(3, created.getDaysWorked());
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(created.getWagesEarned()));
+        Mockito.verify(entryRepository).flush();
+    }
+
+    private static MockMultipartFile sheet(Workbook workbook) throws Exception {
+        try (Workbook wb = workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("Payroll Import");
+            sheet.createRow(0).createCell(0).setCellValue("MEMBER_ID");
+            Row hlRow = sheet.createRow(1);
+            hlRow.createCell(0).setCellValue("MEM01");
+            hlRow.createCell(2).setCellValue(20);
+            hlRow.createCell(3).setCellValue(1000);
+            hlRow.createCell(4).setCellValue("1,500");
+            // Row 3 left out: a gap in the sheet
+            Row clRow = sheet.createRow(3);
+            clRow.createCell(0).setCellValue(7);
+            clRow.createCell(2).setCellValue(3);
+            sheet.createRow(4).createCell(0).setCellValue("NOPE");
+            wb.write(out);
+            return new MockMultipartFile("file", "wages", null, out.toByteArray());
+        }
+    }
+
+    private static Employee employee(String memberId, Employee.Category category) {
+        Employee emp = new Employee();
+        emp.setId(UUID.randomUUID());
+        emp.setMemberId(memberId);
+        emp.setFullName("Member " + memberId);
+        emp.setCategory(category);
+        return emp;
+    }
+}
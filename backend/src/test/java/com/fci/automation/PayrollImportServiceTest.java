@@ -1,9 +1,11 @@
 package com.fci.automation;
 
+import com.fci.automation.dto.UtrImportReport;
 import com.fci.automation.entity.Employee;
 import com.fci.automation.entity.PayrollEntry;
 import com.fci.automation.entity.PayrollPeriod;
 import com.fci.automation.repository.EmployeeRepository;
+import com.fci.automation.repository.PayrollEntryBulkWriter;
 import com.fci.automation.repository.PayrollEntryRepository;
 import com.fci.automation.repository.PayrollPeriodRepository;
 import com.fci.automation.service.PayrollImportService;
@@ -13,8 +15,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,6 +35,9 @@ public class PayrollImportServiceTest {
     @Mock
     private PayrollPeriodRepository periodRepository;
 
+    @Mock
+    private PayrollEntryBulkWriter bulkWriter;
+
     @InjectMocks
     private PayrollImportService importService;
 
@@ -52,22 +60,22 @@ public class PayrollImportServiceTest {
                 "application/vnd.ms-excel",
                 tsvContent.getBytes());
 
-        // Mock finding employee by account number "123456" (without quote)
-        Employee mockEmployee = new Employee();
-        mockEmployee.setId(UUID.randomUUID());
-        Mockito.when(employeeRepository.findByBankAccountNo("123456")).thenReturn(Optional.of(mockEmployee));
-
-        // Mock finding existing entry
-        PayrollEntry mockEntry = new PayrollEntry();
-        Mockito.when(entryRepository.findByPeriodIdAndEmployeeId(periodId, mockEmployee.getId()))
-                .thenReturn(Optional.of(mockEntry));
+        // Period entries as loaded by the reconciliation query
+        UUID entryId = UUID.randomUUID();
+        PayrollEntryRepository.UtrTarget target = new SpelAwareProxyProjectionFactory().createProjection(
+                PayrollEntryRepository.UtrTarget.class,
+                Map.of("id", entryId, "bankAccountNo", "123456", "memberId", "MEM01"));
+        Mockito.when(entryRepository.findUtrTargetsByPeriodId(periodId)).thenReturn(List.of(target));
 
         // Act
-        String result = importService.importUtrData(file, periodId);
+        UtrImportReport result = importService.importUtrData(file, periodId);
 
         // Assert
-        Assertions.assertTrue(result.contains("1 Updated"), "Should update 1 record. Result: " + result);
-        Assertions.assertEquals("UTR001", mockEntry.getUtrNumber(), "UTR should be set (stripping quote if present)");
+        Assertions.assertTrue(result.getMessage().contains("1 Updated"),
+                "Should update 1 record. Result: " + result.getMessage());
+        // UTR should be set (stripping quote if present)
+        Mockito.verify(bulkWriter).updateUtrNumbers(Map.of(entryId, "UTR001"));
+        Assertions.assertEquals("MEM01", result.getMatched().get(0).getMemberId());
     }
 
     @Test
@@ -81,14 +89,15 @@ public class PayrollImportServiceTest {
         // Employee Mock
         Employee mockEmployee = new Employee();
         mockEmployee.setId(UUID.randomUUID());
+        mockEmployee.setMemberId("MEM01");
         mockEmployee.setCategory(Employee.Category.HL); // Regular
-        Mockito.when(employeeRepository.findByMemberId("MEM01")).thenReturn(Optional.of(mockEmployee));
+        Mockito.when(employeeRepository.findAll()).thenReturn(java.util.List.of(mockEmployee));
 
-        // Entry Mock
+        // Entry Mock (pre-loaded once per import)
         PayrollEntry mockEntry = new PayrollEntry();
         mockEntry.setId(UUID.randomUUID());
-        Mockito.when(entryRepository.findByPeriodIdAndEmployeeId(periodId, mockEmployee.getId()))
-                .thenReturn(Optional.of(mockEntry));
+        mockEntry.setEmployee(mockEmployee);
+        Mockito.when(entryRepository.findByPeriodId(periodId)).thenReturn(java.util.List.of(mockEntry));
 
         // Create Excel with 2 rows
         // MemberID | Name | Days | Wages | Advance
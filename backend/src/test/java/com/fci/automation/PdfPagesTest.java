@@ -0,0 +1,59 @@
+package com.fci.automation;
+
+import com.fci.automation.service.PdfPages;
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class PdfPagesTest {
+
+    @Test
+    public void testSplitIntoSinglePages(@TempDir Path dir) throws Exception {
+        Path pdf = dir.resolve("scan.pdf");
+        try (OutputStream out = Files.newOutputStream(pdf)) {
+            Document document = new Document();
+            PdfWriter.getInstance(document, out);
+            document.open();
+            for (int i = 1; i <= 3; i++) {
+                if (i > 1)
+                    document.newPage();
+                document.add(new Paragraph("Work slip page " + i));
+            }
+            document.close();
+        }
+        Assertions.assertTrue(PdfPages.isPdf(pdf));
+
+        List<Path> pages = PdfPages.split(pdf, dir);
+        Assertions.assertEquals(3, pages.size());
+        for (Path page : pages) {
+            PdfReader reader = new PdfReader(page.toString());
+            try {
+                Assertions.assertEquals(1, reader.getNumberOfPages());
+            } finally {
+                reader.close();
+            }
+        }
+        PdfReader last = new PdfReader(pages.get(2).toString());
+        try {
+            Assertions.assertTrue(new String(last.getPageContent(1)).contains("Work slip page 3"));
+        } finally {
+            last.close();
+        }
+    }
+
+    @Test
+    public void testNotPdf(@TempDir Path dir) throws Exception {
+        Path image = dir.resolve("scan.jpg");
+        Files.write(image, new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0, 0 });
+        Assertions.assertFalse(PdfPages.isPdf(image));
+    }
+}
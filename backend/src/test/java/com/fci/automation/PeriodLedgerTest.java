@@ -0,0 +1,79 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.Paise;
+import com.fci.automation.service.PeriodLedger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Set;
+
+public class PeriodLedgerTest {
+
+    @Test
+    public void testDerivedColumnsAndTotals() {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setMonth(11);
+        period.setYear(2025);
+
+        // CL: typed wages are ignored by the reports, 10 days * 541 = 5410
+        PayrollEntry cl = createEntry("12", "Casual", Employee.Category.CL, 10, "9999.00");
+        cl.setActiveDays(Set.of(1, 2, 30));
+        cl.setEpfMemberShare(new BigDecimal("649.20"));
+        cl.setEsiMemberShare(new BigDecimal("40.58"));
+
+        PayrollEntry hl1 = createEntry("9", "Zed", Employee.Category.HL, 20, "20000.50");
+        hl1.setAdvanceDeduction(new BigDecimal("500.00"));
+        PayrollEntry hl2 = createEntry("100", "Abe", Employee.Category.HL, 0, "0.00");
+
+        PeriodLedger ledger = PeriodLedger.of(period, Arrays.asList(cl, hl1, hl2));
+
+        Assertions.assertEquals(3, ledger.size());
+        Assertions.assertEquals(541000, ledger.reportWages(0));
+        Assertions.assertEquals(999900, ledger.wagesEarned(0));
+        Assertions.assertEquals(541000 - 64920 - 4058, ledger.inHand(0));
+        Assertions.assertTrue(ledger.isActive(0, 30));
+        Assertions.assertFalse(ledger.isActive(0, 3));
+
+        // Numeric member id order, per category
+        Assertions.assertArrayEquals(new int[] { 1, 0, 2 }, ledger.byMemberId());
+        Assertions.assertArrayEquals(new int[] { 1, 2 }, ledger.byMemberId(Employee.Category.HL));
+        Assertions.assertArrayEquals(new int[] { 2, 1 }, ledger.byName(Employee.Category.HL));
+
+        PeriodLedger.Totals hl = ledger.totals(Employee.Category.HL);
+        Assertions.assertEquals(2, hl.count());
+        Assertions.assertEquals(20, hl.days());
+        Assertions.assertEquals(2000050, hl.reportWages());
+        Assertions.assertEquals(50000, hl.advance());
+        Assertions.assertEquals(30, ledger.totals().days());
+    }
+
+    @Test
+    public void testPaiseRounding() {
+        Assertions.assertEquals(20001, Paise.rupeesHalfUp(2000050));
+        Assertions.assertEquals(-1, Paise.rupeesHalfUp(-50));
+        Assertions.assertEquals(0, Paise.rupeesHalfUp(-49));
+        Assertions.assertEquals(20000, Paise.rupeesTruncated(2000099));
+        // ROUND(5410 * 12%) = 649, ROUND(5410 * 8.33%) = 451
+        Assertions.assertEquals(649, Paise.mulDivHalfUp(541000, 12, 10000));
+        Assertions.assertEquals(451, Paise.mulDivHalfUp(541000, 833, 1000000));
+        Assertions.assertEquals("12345.05", Paise.format(1234505));
+        Assertions.assertEquals("-0.50", Paise.format(-50));
+    }
+
+    private PayrollEntry createEntry(String memberId, String name, Employee.Category cat, int days, String wages) {
+        Employee emp = new Employee();
+        emp.setMemberId(memberId);
+        emp.setFullName(name);
+        emp.setCategory(cat);
+        PayrollEntry entry = new PayrollEntry();
+        entry.setEmployee(emp);
+        entry.setDaysWorked(days);
+        entry.setWagesEarned(new BigDecimal(wages));
+        return entry;
+    }
+}
@@ -0,0 +1,215 @@
+package com.fci.automation;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.dto.ReportBundleProgress;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportBundleService;
+import com.fci.automation.service.ReportCache;
+import com.fci.automation.service.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class ReportBundleServiceTest {
+
+    private final PayrollPeriod jan = period(1);
+    private final PayrollPeriod feb = period(2);
+    private final PayrollPeriod mar = period(3);
+
+    private ReportService reportService;
+    private ReportBundleService bundleService;
+
+    @TempDir
+    Path spoolDir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        RealmContext.setRealm(RealmEnum.TEST);
+        reportService = Mockito.spy(new ReportService());
+        for (PayrollPeriod period : List.of(jan, feb, mar)) {
+            Mockito.doAnswer(inv -> ledger(period)).when(reportService).loadLedger(period.getId());
+        }
+        Mockito.doThrow(new RuntimeException("font missing")).when(reportService)
+                .writeWageSummaryPdf(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        ReportCache cache = new ReportCache();
+        ReflectionTestUtils.setField(cache, "reportService", reportService);
+        PayrollPeriodRepository periodRepository = Mockito.mock(PayrollPeriodRepository.class);
+        Mockito.when(periodRepository.findAllByOrderByYearDescMonthDesc()).thenReturn(List.of(mar, feb, jan));
+        bundleService = new ReportBundleService(cache, reportService, periodRepository, 2);
+        ReflectionTestUtils.setField(bundleService, "spoolDir", spoolDir);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RealmContext.clear();
+    }
+
+    @Test
+    public void testPackHoldsEveryReportOfEveryPeriodInRange() throws Exception {
+        ReportBundleProgress prepared = bundleService.prepare(YearMonth.of(2024, 1), YearMonth.of(2024, 2),
+                List.of("main-file", "wage-summary", "esi", "epf"));
+        Assertions.assertEquals(8, prepared.getTotal());
+        Assertions.assertEquals("PREPARED", prepared.getStatus());
+
+        ReportBundleService.Bundle bundle = bundleService.start(prepared.getId());
+        Assertions.assertEquals("audit_pack_2024-01_2024-02.zip", bundle.getFileName());
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        bundleService.write(bundle, zip);
+
+        Map<String, byte[]> entries = unzip(zip.toByteArray());
+        Assertions.assertEquals(8, entries.size());
+        Assertions.assertTrue(new String(entries.get("2024-01/main_file.pdf"), 0, 5).startsWith("%PDF"));
+        Assertions.assertTrue(entries.containsKey("2024-02/feb_2024_esi.xls"));
+        Assertions.assertEquals(reportService.generateEpfTxt(ledger(feb)),
+                new String(entries.get("2024-02/feb_2024_epf.txt"), StandardCharsets.UTF_8));
+        // A failed report is an error note, the rest of the pack still arrives
+        Assertions.assertTrue(new String(entries.get("2024-01/wage_summary.pdf.error.txt"), StandardCharsets.UTF_8)
+                .contains("font missing"));
+
+        // Each period read once for all its reports; March is out of range
+        Mockito.verify(reportService, Mockito.times(1)).loadLedger(jan.getId());
+        Mockito.verify(reportService, Mockito.times(1)).loadLedger(feb.getId());
+        Mockito.verify(reportService, Mockito.never()).loadLedger(mar.getId());
+
+        ReportBundleProgress done = bundleService.progress(prepared.getId());
+        Assertions.assertEquals("DONE", done.getStatus());
+        Assertions.assertEquals(8, done.getCompleted());
+        Assertions.assertEquals(2, done.getFailed());
+        // Every spooled report deleted once in the ZIP
+        Assertions.assertEquals(0, spooled());
+    }
+
+    @Test
+    public void testClientGoneSkipsQueuedPeriods() throws Exception {
+        ReflectionTestUtils.setField(bundleService, "maxPendingPeriods", 1);
+        String id = bundleService.prepare(YearMonth.of(2024, 1), YearMonth.of(2024, 3),
+                List.of("main-file", "epf")).getId();
+        ReportBundleService.Bundle bundle = bundleService.start(id);
+
+        // The connection drops as the first entry goes out
+        OutputStream gone = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        Assertions.assertThrows(IOException.class, () -> bundleService.write(bundle, gone));
+        Assertions.assertEquals("CANCELLED", bundleService.progress(id).getStatus());
+
+        // January's other report may still be rendering; it deletes its file when it sees the cancel
+        long deadline = System.currentTimeMillis() + 5000;
+        while (spooled() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(0, spooled());
+        // February and March were waiting for January to be written: never read
+        Mockito.verify(reportService, Mockito.never()).loadLedger(feb.getId());
+        Mockito.verify(reportService, Mockito.never()).loadLedger(mar.getId());
+    }
+
+    @Test
+    public void testReportWaitStaysInsideTheDownloadTimeout() {
+        Assertions.assertEquals(10 * 60_000L, (long) ReflectionTestUtils.invokeMethod(bundleService,
+                "artifactWaitMillis"));
+        ReflectionTestUtils.setField(bundleService, "downloadTimeoutMinutes", 8L);
+        Assertions.assertEquals(8 * 60_000L, bundleService.downloadTimeoutMillis());
+        Assertions.assertEquals(4 * 60_000L, (long) ReflectionTestUtils.invokeMethod(bundleService,
+                "artifactWaitMillis"));
+    }
+
+    @Test
+    public void testBundleIsDownloadedOnceAndOnlyInItsRealm() {
+        String id = bundleService.prepare(YearMonth.of(2024, 3), YearMonth.of(2024, 3), null).getId();
+        Assertions.assertEquals(6, bundleService.progress(id).getTotal());
+
+        RealmContext.setRealm(RealmEnum.REAL);
+        Assertions.assertNull(bundleService.progress(id));
+        Assertions.assertNull(bundleService.start(id));
+
+        RealmContext.setRealm(RealmEnum.TEST);
+        Assertions.assertNotNull(bundleService.start(id));
+        Assertions.assertThrows(IllegalStateException.class, () -> bundleService.start(id));
+    }
+
+    @Test
+    public void testRejectsBadRanges() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bundleService.prepare(YearMonth.of(2024, 2), YearMonth.of(2024, 1), null));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bundleService.prepare(YearMonth.of(2023, 1), YearMonth.of(2023, 12), null));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bundleService.prepare(YearMonth.of(2024, 1), YearMonth.of(2024, 1), List.of("payslips")));
+    }
+
+    private long spooled() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws Exception {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static PayrollPeriod period(int month) {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setId(UUID.randomUUID());
+        period.setMonth(month);
+        period.setYear(2024);
+        period.setLastWorkingDay(YearMonth.of(2024, month).atEndOfMonth());
+        return period;
+    }
+
+    private static PeriodLedger ledger(PayrollPeriod period) {
+        Employee emp = new Employee();
+        emp.setMemberId("1");
+        emp.setUanNumber("100000000001");
+        emp.setIpNumber("1000000001");
+        emp.setFullName("A");
+        emp.setCategory(Employee.Category.HL);
+        PayrollEntry entry = new PayrollEntry();
+        entry.setEmployee(emp);
+        entry.setDaysWorked(20);
+        entry.setWagesEarned(new BigDecimal("12000.00"));
+        return PeriodLedger.of(period, List.of(entry));
+    }
+}
@@ -0,0 +1,157 @@
+package com.fci.automation;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportCache;
+import com.fci.automation.service.ReportService;
+import com.fci.automation.service.ReportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReportCacheTest {
+
+    private final UUID periodId = UUID.randomUUID();
+    private final PayrollPeriod period = new PayrollPeriod();
+    private final PayrollEntry entry = new PayrollEntry();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private ReportService reportService;
+
+    @BeforeEach
+    public void setUp() {
+        RealmContext.setRealm(RealmEnum.TEST);
+        period.setId(periodId);
+        period.setMonth(3);
+        period.setYear(2025);
+        Employee emp = new Employee();
+        emp.setMemberId("1");
+        emp.setFullName("A");
+        emp.setCategory(Employee.Category.HL);
+        entry.setEmployee(emp);
+        entry.setDaysWorked(10);
+        entry.setWagesEarned(new BigDecimal("1000.00"));
+
+        reportService = Mockito.mock(ReportService.class);
+        Mockito.when(reportService.loadLedger(periodId)).thenAnswer(inv -> PeriodLedger.of(period, List.of(entry)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RealmContext.clear();
+    }
+
+    @Test
+    public void testHitUntilInvalidated() throws Exception {
+        ReportCache cache = newCache(null);
+
+        Assertions.assertEquals("wages=100000", render(cache));
+        Assertions.assertEquals("wages=100000", render(cache));
+        Assertions.assertEquals(1, renders.get());
+        // Second download needs no DB read at all
+        Mockito.verify(reportService, Mockito.times(1)).loadLedger(periodId);
+
+        entry.setWagesEarned(new BigDecimal("2000.00"));
+        cache.invalidate(periodId);
+        Assertions.assertEquals("wages=200000", render(cache));
+        Assertions.assertEquals(2, renders.get());
+
+        // Other realm, other key
+        RealmContext.setRealm(RealmEnum.REAL);
+        render(cache);
+        Assertions.assertEquals(3, renders.get());
+    }
+
+    @Test
+    public void testInvalidateForgetsContentVersion() {
+        ReportCache cache = newCache(null);
+        String before = cache.contentVersion(periodId);
+        Assertions.assertEquals(before, cache.contentVersion(periodId));
+
+        entry.setWagesEarned(new BigDecimal("2000.00"));
+        cache.invalidate(periodId);
+        Assertions.assertNotEquals(before, cache.contentVersion(periodId));
+        Mockito.verify(reportService, Mockito.times(2)).loadLedger(periodId);
+    }
+
+    @Test
+    public void testDiskTierSurvivesRestart(@TempDir Path dir) throws Exception {
+        render(newCache(dir));
+        // A fresh instance only recomputes the hash; the bytes come from disk
+        Assertions.assertEquals("wages=100000", render(newCache(dir)));
+        Assertions.assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void testLargeReportIsCachedOnDiskOnly(@TempDir Path dir) throws Exception {
+        ReportCache cache = newCache(dir);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 64L);
+        String large = renderLarge(cache);
+        Assertions.assertEquals(1000, large.length());
+
+        // Over the entry limit: no heap copy kept, the spooled file is the entry
+        Assertions.assertEquals(0, ((Map<?, ?>) ReflectionTestUtils.getField(cache, "memory")).size());
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(List.of("txt"), files.map(f -> f.getFileName().toString())
+                    .map(name -> name.substring(name.lastIndexOf('.') + 1)).toList());
+        }
+        Assertions.assertEquals(large, renderLarge(cache));
+        Assertions.assertEquals(1, renders.get());
+
+        // Without the disk tier it is rendered each time
+        ReportCache memoryOnly = newCache(null);
+        ReflectionTestUtils.setField(memoryOnly, "maxEntryBytes", 64L);
+        renderLarge(memoryOnly);
+        renderLarge(memoryOnly);
+        Assertions.assertEquals(3, renders.get());
+    }
+
+    private String renderLarge(ReportCache cache) throws Exception {
+        ReportCache.Lookup lookup = cache.lookup(periodId, ReportType.EPF, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(lookup, out, (ledger, o) -> {
+            renders.incrementAndGet();
+            for (int i = 0; i < 100; i++)
+                o.write("wages=....".getBytes());
+        });
+        return out.toString();
+    }
+
+    private String render(ReportCache cache) throws Exception {
+        ReportCache.Lookup lookup = cache.lookup(periodId, ReportType.EPF, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(lookup, out, (ledger, o) -> {
+            renders.incrementAndGet();
+            o.write(("wages=" + ledger.wagesEarned(0)).getBytes());
+        });
+        return out.toString();
+    }
+
+    private ReportCache newCache(Path diskDir) {
+        ReportCache cache = new ReportCache();
+        ReflectionTestUtils.setField(cache, "reportService", reportService);
+        if (diskDir != null) {
+            ReflectionTestUtils.setField(cache, "diskDir", diskDir);
+            ReflectionTestUtils.setField(cache, "diskEnabled", true);
+            ReflectionTestUtils.invokeMethod(cache, "initDisk");
+        }
+        return cache;
+    }
+}
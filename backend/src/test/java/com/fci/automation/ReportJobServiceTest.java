@@ -0,0 +1,333 @@
+package com.fci.automation;
+
+import com.fci.automation.config.RealmContext;
+import com.fci.automation.config.RealmEnum;
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.entity.ReportJob;
+import com.fci.automation.repository.PayrollPeriodRepository;
+import com.fci.automation.repository.ReportJobRepository;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportCache;
+import com.fci.automation.service.ReportJobService;
+import com.fci.automation.service.ReportService;
+import com.fci.automation.service.ReportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class ReportJobServiceTest {
+
+    @TempDir
+    Path storage;
+
+    private final PayrollPeriod period = new PayrollPeriod();
+    private final PayrollEntry entry = new PayrollEntry();
+    // The report_jobs table; rows are copies, as a real repository hands out
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    private ReportService reportService;
+    private ReportCache cache;
+    private PayrollPeriodRepository periodRepository;
+    private ReportJobService jobService;
+
+    @BeforeEach
+    public void setUp() {
+        RealmContext.setRealm(RealmEnum.TEST);
+        period.setId(UUID.randomUUID());
+        period.setMonth(11);
+        period.setYear(2024);
+        Employee emp = new Employee();
+        emp.setUanNumber("100000000001");
+        emp.setFullName("A");
+        emp.setCategory(Employee.Category.HL);
+        entry.setEmployee(emp);
+        entry.setDaysWorked(20);
+        entry.setWagesEarned(new BigDecimal("12000.00"));
+
+        reportService = Mockito.spy(new ReportService());
+        Mockito.doAnswer(inv -> PeriodLedger.of(period, List.of(entry))).when(reportService)
+                .loadLedger(period.getId());
+        cache = new ReportCache();
+        ReflectionTestUtils.setField(cache, "reportService", reportService);
+
+        periodRepository = Mockito.mock(PayrollPeriodRepository.class);
+        Mockito.when(periodRepository.findById(period.getId())).thenReturn(Optional.of(period));
+        jobService = new ReportJobService(jobRepository(), periodRepository, cache, reportService, 2);
+        ReflectionTestUtils.setField(jobService, "storageDir", storage);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RealmContext.clear();
+    }
+
+    @Test
+    public void testSameReportOfSameDataIsOneJob() throws Exception {
+        ReportJob submitted = jobService.submit(period.getId(), ReportType.EPF);
+        Assertions.assertEquals("nov_2024_epf.txt", submitted.getFileName());
+        ReportJob job = awaitFinished(submitted.getId());
+
+        Assertions.assertEquals(ReportJob.Status.DONE, job.getStatus());
+        Assertions.assertEquals(100, job.getProgress());
+        String expected = new ReportService().generateEpfTxt(PeriodLedger.of(period, List.of(entry)));
+        Assertions.assertEquals(expected,
+                new String(Files.readAllBytes(jobService.artifact(job)), StandardCharsets.UTF_8));
+        Assertions.assertTrue(jobService.artifact(job).startsWith(storage.resolve("test")));
+
+        Assertions.assertEquals(job.getId(), jobService.submit(period.getId(), ReportType.EPF).getId());
+        Mockito.verify(reportService, Mockito.times(1)).writeEpfTxt(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        // Edited data is a new content version, so a new job
+        entry.setWagesEarned(new BigDecimal("13000.00"));
+        cache.invalidate(period.getId());
+        ReportJob changed = jobService.submit(period.getId(), ReportType.EPF);
+        Assertions.assertNotEquals(job.getId(), changed.getId());
+        Assertions.assertEquals(ReportJob.Status.DONE, awaitFinished(changed.getId()).getStatus());
+        Assertions.assertEquals(2, jobs.size());
+    }
+
+    @Test
+    public void testDoneJobWithoutItsFileRunsAgain() throws Exception {
+        ReportJob job = awaitFinished(jobService.submit(period.getId(), ReportType.EPF).getId());
+        Path file = jobService.artifact(job);
+        Files.delete(file);
+        Assertions.assertNull(jobService.artifact(job));
+
+        // Same job, queued again and rendered to a new file
+        ReportJob resubmitted = jobService.submit(period.getId(), ReportType.EPF);
+        Assertions.assertEquals(job.getId(), resubmitted.getId());
+        Assertions.assertNotEquals(ReportJob.Status.DONE, resubmitted.getStatus());
+        ReportJob rerun = awaitFinished(job.getId());
+        Assertions.assertEquals(ReportJob.Status.DONE, rerun.getStatus());
+        // Written again (from the cached bytes) where the job's file was
+        Assertions.assertEquals(file, jobService.artifact(rerun));
+        Assertions.assertEquals(new ReportService().generateEpfTxt(PeriodLedger.of(period, List.of(entry))),
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, jobs.size());
+    }
+
+    @Test
+    public void testJobSectionsStayOffTheRenderPool() throws Exception {
+        // HL + CL above parallel-min-rows: a download would render the sections on the shared pool
+        PeriodLedger large = ReportPdfRenderTest.ledger(1200, 900);
+        Mockito.doAnswer(inv -> large).when(reportService).loadLedger(period.getId());
+        ReflectionTestUtils.setField(reportService, "renderThreads", 2);
+
+        ReportJob job = awaitFinished(jobService.submit(period.getId(), ReportType.MAIN_FILE).getId());
+        Assertions.assertEquals(ReportJob.Status.DONE, job.getStatus(), job.getError());
+        Assertions.assertTrue(ReportPdfRenderTest.pageTexts(Files.readAllBytes(jobService.artifact(job))).size() > 2);
+        Assertions.assertNull(ReflectionTestUtils.getField(reportService, "renderPool"));
+    }
+
+    @Test
+    public void testFailedJobRunsAgainOnResubmit() throws Exception {
+        Mockito.doThrow(new RuntimeException("font missing")).when(reportService)
+                .writeWageSummaryPdf(ArgumentMatchers.any(), ArgumentMatchers.any());
+        ReportJob job = awaitFinished(jobService.submit(period.getId(), ReportType.WAGE_SUMMARY).getId());
+        Assertions.assertEquals(ReportJob.Status.FAILED, job.getStatus());
+        Assertions.assertEquals("font missing", job.getError());
+        Assertions.assertNull(jobService.artifact(job));
+        // No partial file left behind
+        try (var files = Files.list(storage.resolve("test"))) {
+            Assertions.assertEquals(0, files.count());
+        }
+
+        Mockito.doCallRealMethod().when(reportService)
+                .writeWageSummaryPdf(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(job.getId(), jobService.submit(period.getId(), ReportType.WAGE_SUMMARY).getId());
+        ReportJob rerun = awaitFinished(job.getId());
+        Assertions.assertEquals(ReportJob.Status.DONE, rerun.getStatus());
+        Assertions.assertNull(rerun.getError());
+    }
+
+    @Test
+    public void testQueuedAndInterruptedJobsResumeOnStartup() throws Exception {
+        ReportJob queued = storedJob(ReportJob.Status.QUEUED, ReportType.ESI);
+        ReportJob interrupted = storedJob(ReportJob.Status.RUNNING, ReportType.MAIN_FILE);
+
+        jobService.resume();
+        ReportJob resumed = awaitFinished(queued.getId());
+        ReportJob restarted = awaitFinished(interrupted.getId());
+
+        Assertions.assertEquals(ReportJob.Status.DONE, resumed.getStatus());
+        Assertions.assertEquals(ReportJob.Status.DONE, restarted.getStatus());
+        Assertions.assertTrue(new String(Files.readAllBytes(jobService.artifact(restarted)), 0, 5,
+                StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+    }
+
+    @Test
+    public void testJobsExpireByWhenTheyFinished() throws Exception {
+        Files.createDirectories(storage.resolve("test"));
+        // Both first submitted a month ago; one was re-run an hour ago
+        ReportJob rerun = finishedJob(LocalDateTime.now().minusHours(1));
+        ReportJob stale = finishedJob(LocalDateTime.now().minusDays(8));
+
+        awaitFinished(jobService.submit(period.getId(), ReportType.EPF).getId());
+        Assertions.assertTrue(jobs.containsKey(rerun.getId()));
+        Assertions.assertTrue(Files.exists(Paths.get(rerun.getFilePath())));
+        Assertions.assertFalse(jobs.containsKey(stale.getId()));
+        Assertions.assertFalse(Files.exists(Paths.get(stale.getFilePath())));
+    }
+
+    @Test
+    public void testSubmitDoesNotWaitForAnotherPeriodsLoad() throws Exception {
+        PayrollPeriod other = new PayrollPeriod();
+        other.setId(UUID.randomUUID());
+        other.setMonth(12);
+        other.setYear(2024);
+        Mockito.when(periodRepository.findById(other.getId())).thenReturn(Optional.of(other));
+        Mockito.doAnswer(inv -> PeriodLedger.of(other, List.of(entry))).when(reportService)
+                .loadLedger(other.getId());
+        // November's ledger load hangs until released
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(inv -> {
+            loading.countDown();
+            release.await();
+            return PeriodLedger.of(period, List.of(entry));
+        }).when(reportService).loadLedger(period.getId());
+
+        CompletableFuture<ReportJob> slow = CompletableFuture.supplyAsync(() -> {
+            RealmContext.setRealm(RealmEnum.TEST);
+            try {
+                return jobService.submit(period.getId(), ReportType.EPF);
+            } finally {
+                RealmContext.clear();
+            }
+        });
+        try {
+            Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            ReportJob december = CompletableFuture.supplyAsync(() -> {
+                RealmContext.setRealm(RealmEnum.TEST);
+                try {
+                    return jobService.submit(other.getId(), ReportType.EPF);
+                } finally {
+                    RealmContext.clear();
+                }
+            }).get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals("dec_2024_epf.txt", december.getFileName());
+            awaitFinished(december.getId());
+        } finally {
+            release.countDown();
+        }
+        ReportJob november = slow.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals("nov_2024_epf.txt", november.getFileName());
+        awaitFinished(november.getId());
+    }
+
+    @Test
+    public void testBulkCannotRunAsAJob() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> jobService.submit(period.getId(), ReportType.BULK));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> jobService.submit(UUID.randomUUID(), ReportType.EPF));
+    }
+
+    private ReportJob storedJob(ReportJob.Status status, ReportType type) {
+        ReportJob job = new ReportJob();
+        job.setId(UUID.randomUUID());
+        job.setPeriodId(period.getId());
+        job.setReportType(type);
+        job.setContentVersion("stale");
+        job.setStatus(status);
+        job.setFileName("report." + type.getExtension());
+        jobs.put(job.getId(), copy(job));
+        return job;
+    }
+
+    private ReportJob finishedJob(LocalDateTime finishedAt) throws Exception {
+        ReportJob job = storedJob(ReportJob.Status.DONE, ReportType.EPF);
+        Path file = Files.createFile(storage.resolve("test").resolve(job.getId() + ".txt"));
+        job.setCreatedAt(LocalDateTime.now().minusDays(30));
+        job.setFinishedAt(finishedAt);
+        job.setFilePath(file.toString());
+        jobs.put(job.getId(), copy(job));
+        return job;
+    }
+
+    // The job as stored once it is DONE or FAILED
+    private ReportJob awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ReportJob job = jobService.find(jobId).orElseThrow();
+            if (job.getStatus() == ReportJob.Status.DONE || job.getStatus() == ReportJob.Status.FAILED)
+                return job;
+            Thread.sleep(10);
+        }
+        return Assertions.fail("Report job " + jobId + " did not finish");
+    }
+
+    private static ReportJob copy(ReportJob job) {
+        ReportJob copy = new ReportJob();
+        BeanUtils.copyProperties(job, copy);
+        return copy;
+    }
+
+    // Backed by the jobs map; stores and returns copies, so only saved changes are seen
+    @SuppressWarnings("unchecked")
+    private ReportJobRepository jobRepository() {
+        ReportJobRepository repository = Mockito.mock(ReportJobRepository.class);
+        Mockito.when(repository.save(ArgumentMatchers.any(ReportJob.class))).thenAnswer(inv -> {
+            ReportJob job = inv.getArgument(0);
+            if (job.getId() == null)
+                job.setId(UUID.randomUUID());
+            jobs.put(job.getId(), copy(job));
+            return copy(job);
+        });
+        Mockito.when(repository.findById(ArgumentMatchers.any(UUID.class))).thenAnswer(
+                inv -> Optional.ofNullable(jobs.get(inv.getArgument(0))).map(ReportJobServiceTest::copy));
+        Mockito.when(repository.findFirstByPeriodIdAndReportTypeAndContentVersionOrderByCreatedAtDesc(
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(inv -> jobs.values()
+                        .stream()
+                        .filter(j -> j.getPeriodId().equals(inv.getArgument(0))
+                                && j.getReportType() == inv.getArgument(1)
+                                && j.getContentVersion().equals(inv.getArgument(2)))
+                        .max(Comparator.comparing(ReportJob::getCreatedAt)).map(ReportJobServiceTest::copy));
+        Mockito.when(repository.findByStatusInOrderByCreatedAt(ArgumentMatchers.any())).thenAnswer(inv -> {
+            Collection<ReportJob.Status> statuses = inv.getArgument(0);
+            return jobs.values().stream().filter(j -> statuses.contains(j.getStatus()))
+                    .sorted(Comparator.comparing(ReportJob::getCreatedAt)).map(ReportJobServiceTest::copy)
+                    .collect(Collectors.toList());
+        });
+        Mockito.when(repository.findByStatusInAndFinishedAtBefore(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(inv -> {
+                    Collection<ReportJob.Status> statuses = inv.getArgument(0);
+                    LocalDateTime before = inv.getArgument(1);
+                    return jobs.values().stream().filter(j -> statuses.contains(j.getStatus())
+                            && j.getFinishedAt() != null && j.getFinishedAt().isBefore(before))
+                            .map(ReportJobServiceTest::copy).collect(Collectors.toList());
+                });
+        Mockito.doAnswer(inv -> {
+            Iterable<ReportJob> deleted = inv.getArgument(0);
+            deleted.forEach(j -> jobs.remove(j.getId()));
+            return null;
+        }).when(repository).deleteAll(ArgumentMatchers.<Iterable<ReportJob>>any());
+        return repository;
+    }
+}
@@ -0,0 +1,150 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.Employee;
+import com.fci.automation.entity.PayrollEntry;
+import com.fci.automation.entity.PayrollPeriod;
+import com.fci.automation.service.PeriodLedger;
+import com.fci.automation.service.ReportService;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Large ledgers through the PDF writers, read back with PdfReader: row
+ * flushing and section rendering must not change what ends up on the pages.
+ */
+public class ReportPdfRenderTest {
+
+    private static final Pattern WORKER = Pattern.compile("WORKER (\\d{4})");
+
+    @Test
+    public void testFlushedTableKeepsEveryRow() throws Exception {
+        PeriodLedger ledger = ledger(450, 0);
+
+        // 450 rows flushed every 100, against the whole table added at once
+        byte[] flushed = mainFile(ledger, 100);
+        byte[] whole = mainFile(ledger, 1_000_000);
+
+        List<String> pages = pageTexts(flushed);
+        Assertions.assertTrue(pages.size() > 1, "450 rows fit on one page?");
+        Assertions.assertEquals(pageTexts(whole).size(), pages.size());
+
+        // Every row exactly once, in member order
+        List<Integer> workers = new ArrayList<>();
+        for (String page : pages) {
+            Matcher m = WORKER.matcher(page);
+            while (m.find())
+                workers.add(Integer.parseInt(m.group(1)));
+        }
+        Assertions.assertEquals(450, workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            Assertions.assertEquals(i + 1, workers.get(i));
+        }
+        Assertions.assertTrue(pages.get(pages.size() - 1).contains("TOTAL"));
+    }
+
+    @Test
+    public void testParallelSectionsMatchSequential() throws Exception {
+        // HL + CL at the default parallel-min-rows (2000), so the sections are stitched with PdfCopy
+        PeriodLedger ledger = ledger(1200, 900);
+        ReportService parallel = new ReportService();
+        ReflectionTestUtils.setField(parallel, "renderThreads", 2);
+        ReportService sequential = new ReportService();
+        ReflectionTestUtils.setField(sequential, "parallelMinRows", Integer.MAX_VALUE);
+        long spooledBefore = sectionFiles();
+
+        try {
+            ByteArrayOutputStream stitched = new ByteArrayOutputStream();
+            ByteArrayOutputStream single = new ByteArrayOutputStream();
+            parallel.writePdfReport(ledger, "Main File", stitched);
+            sequential.writePdfReport(ledger, "Main File", single);
+            Assertions.assertNotNull(ReflectionTestUtils.getField(parallel, "renderPool"));
+            assertSamePages(single.toByteArray(), stitched.toByteArray());
+
+            stitched.reset();
+            single.reset();
+            parallel.writeWageSummaryPdf(ledger, stitched);
+            sequential.writeWageSummaryPdf(ledger, single);
+            assertSamePages(single.toByteArray(), stitched.toByteArray());
+            // Section PDFs went through temp files, all deleted after stitching
+            Assertions.assertEquals(spooledBefore, sectionFiles());
+        } finally {
+            ReflectionTestUtils.invokeMethod(parallel, "shutdownRenderPool");
+        }
+    }
+
+    private static void assertSamePages(byte[] expected, byte[] actual) throws Exception {
+        List<String> expectedPages = pageTexts(expected);
+        List<String> actualPages = pageTexts(actual);
+        Assertions.assertTrue(expectedPages.size() > 2);
+        Assertions.assertEquals(expectedPages.size(), actualPages.size());
+        for (int page = 0; page < expectedPages.size(); page++) {
+            Assertions.assertEquals(expectedPages.get(page), actualPages.get(page), "page " + (page + 1));
+        }
+    }
+
+    private static long sectionFiles() throws Exception {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(f -> f.getFileName().toString().startsWith("report-section-")).count();
+        }
+    }
+
+    private static byte[] mainFile(PeriodLedger ledger, int flushRows) {
+        ReportService reportService = new ReportService();
+        ReflectionTestUtils.setField(reportService, "pdfFlushRows", flushRows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writePdfReport(ledger, "Main File", out);
+        return out.toByteArray();
+    }
+
+    static List<String> pageTexts(byte[] pdf) throws Exception {
+        List<String> pages = new ArrayList<>();
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                pages.add(extractor.getTextFromPage(page));
+            }
+        } finally {
+            reader.close();
+        }
+        return pages;
+    }
+
+    // hl head-load members WORKER 0001.., then cl casual members numbered on
+    static PeriodLedger ledger(int hl, int cl) {
+        PayrollPeriod period = new PayrollPeriod();
+        period.setId(UUID.randomUUID());
+        period.setMonth(11);
+        period.setYear(2024);
+        List<PayrollEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= hl + cl; i++) {
+            Employee emp = new Employee();
+            emp.setMemberId(String.valueOf(i));
+            emp.setUanNumber(String.valueOf(100000000000L + i));
+            emp.setIpNumber(String.valueOf(1000000000L + i));
+            emp.setFullName(String.format("WORKER %04d", i));
+            emp.setCategory(i <= hl ? Employee.Category.HL : Employee.Category.CL);
+            PayrollEntry entry = new PayrollEntry();
+            entry.setEmployee(emp);
+            entry.setDaysWorked(20);
+            entry.setWagesEarned(new BigDecimal("12000.00"));
+            entries.add(entry);
+        }
+        return PeriodLedger.of(period, entries);
+    }
+}
@@ -0,0 +1,72 @@
+package com.fci.automation;
+
+import com.fci.automation.dto.UtrImportReport;
+import com.fci.automation.repository.PayrollEntryRepository.UtrTarget;
+import com.fci.automation.service.UtrReconciliation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class UtrReconciliationTest {
+
+    private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    @Test
+    public void testNormalizeAccount() {
+        Assertions.assertEquals("12345678901", UtrReconciliation.normalizeAccount("'0012345678901 "));
+        Assertions.assertEquals("12345678901", UtrReconciliation.normalizeAccount("1.2345678901E10"));
+        Assertions.assertEquals("12345678901", UtrReconciliation.normalizeAccount("12345678901.0"));
+        Assertions.assertEquals("SB1234", UtrReconciliation.normalizeAccount("sb-12 34"));
+        Assertions.assertEquals("", UtrReconciliation.normalizeAccount(null));
+    }
+
+    @Test
+    public void testMatchReport() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        UtrReconciliation rec = new UtrReconciliation(List.of(
+                target(a, "00111", null, "M1"),
+                target(b, "222", "U2", "M2"),
+                target(c, "333", "OLD", "M3"),
+                target(UUID.randomUUID(), "444", null, "M4"),
+                target(UUID.randomUUID(), "0444", null, "M5")));
+
+        rec.match(2, "'111", "U1-first");
+        rec.match(3, "222", "U2");
+        rec.match(4, "333", "U3");
+        rec.match(5, "444", "U4");
+        rec.match(6, "999", "U9");
+        rec.match(7, "111", "'U1");
+        rec.match(8, "", "");
+
+        Assertions.assertEquals(Map.of(a, "U1", c, "U3"), rec.updates());
+        UtrImportReport report = rec.report();
+        Assertions.assertEquals(6, report.getStatementRows());
+        Assertions.assertEquals(List.of(4, 7), rows(report.getMatched()));
+        Assertions.assertEquals("Replaces OLD", report.getMatched().get(0).getNote());
+        Assertions.assertEquals(List.of(3), rows(report.getAlreadyHasUtr()));
+        Assertions.assertEquals(List.of(6), rows(report.getUnmatched()));
+        // Ambiguous account, then the superseded repeat
+        Assertions.assertEquals(List.of(5, 2), rows(report.getDuplicateAccount()));
+        Assertions.assertTrue(report.getMessage().startsWith("Import Complete: 2 Updated."));
+    }
+
+    private UtrTarget target(UUID id, String account, String utr, String memberId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("bankAccountNo", account);
+        row.put("utrNumber", utr);
+        row.put("memberId", memberId);
+        return projections.createProjection(UtrTarget.class, row);
+    }
+
+    private List<Integer> rows(List<UtrImportReport.Row> rows) {
+        return rows.stream().map(UtrImportReport.Row::getRowNumber).toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.fci.automation;
+
+import com.fci.automation.service.UtrStatementReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UtrStatementReaderTest {
+
+    @Test
+    public void testSpreadsheetMl() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><Workbook><Worksheet ss:Name=\"S\"><Table>"
+                + "<Row><Cell><Data ss:Type=\"String\">Account</Data></Cell>"
+                + "<Cell ss:Formula=\"=A1>0\"><Data ss:Type=\"String\"><Font>UTR</Font> Number</Data></Cell></Row>\n"
+                + "<Row></Row>"
+                + "<Row><Cell><Data ss:Type=\"Number\">123</Data></Cell><Cell/><Cell><Data><![CDATA[A&B]]></Data></Cell></Row>"
+                + "</Table></Worksheet></Workbook>";
+
+        List<List<String>> rows = read(xml);
+        Assertions.assertEquals(List.of(List.of("Account", "UTR Number"), List.of("123", "", "A&B")), rows);
+    }
+
+    @Test
+    public void testHtmlTable() throws Exception {
+        String html = "<html><body><TABLE border=1><!-- <tr><td>hidden</td></tr> -->"
+                + "<TR><TH>Beneficiary Account</TH><th class='x'>UTR Number</th></tr>\n"
+                + "<tr><td>'123&nbsp;</td><td><b>CNRB</b>0001</td>"
+                + "<tr><td>456<td>CNRB0002</table></body></html>";
+
+        List<List<String>> rows = read(html);
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(List.of("'123 ", "CNRB0001"), rows.get(1));
+        // Unclosed cells / rows are closed by the next one
+        Assertions.assertEquals(List.of("456", "CNRB0002"), rows.get(2));
+    }
+
+    @Test
+    public void testDelimitedAndFallback() throws Exception {
+        Assertions.assertEquals(
+                List.of(List.of("Account", "UTR"), List.of("'123", "U1"), List.of("456", "U 2")),
+                read("Account,UTR\r\n'123,U1\r\n\r\n\"456\"\t\"U 2\"\n"));
+        // A single line is not a table
+        Assertions.assertTrue(read("Account,UTR\n").isEmpty());
+        // Worksheet marker but no rows: falls through to the next format
+        Assertions.assertEquals(List.of(List.of("<Worksheet>"), List.of("a", "b")), read("<Worksheet>\na,b\n"));
+    }
+
+    @Test
+    public void testSameRowsAsTheRegexParser() throws Exception {
+        // Statements the former regex parser (parseNonStandardExcel) handled, with its output;
+        // only HTML comments differ, they are skipped now (see testHtmlTable)
+        Assertions.assertEquals(List.of(List.of("Sl", "Account", "UTR Number"), List.of("1", "'123", "UTR1"),
+                List.of("2", "456", "UTR2")), read("Sl,Account,UTR Number\n1,'123,UTR1\n2,\"456\",UTR2\n"));
+        Assertions.assertEquals(List.of(List.of("Sl", "Account", "UTR Number"), List.of("1", "'123", "UTR1"),
+                List.of("2", "456", "UTR2")), read("Sl,Account,UTR Number\r\n1,'123,UTR1\r\n\r\n2,456,UTR2\r\n\n\n"));
+        Assertions.assertEquals(List.of(List.of("Sl", "Account", "UTR"), List.of("1", "123", "U1")),
+                read("Sl\tAccount\tUTR\n1\t 123 \tU1\n"));
+        Assertions.assertTrue(read("a,b,c").isEmpty());
+        Assertions.assertTrue(read("a,b,c\n\n").isEmpty());
+        Assertions.assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), read("a,b\n\n\nc,d"));
+        // Lines of bare separators are dropped
+        Assertions.assertEquals(List.of(List.of("a", "b")), read(",,,\n,,\n a , b "));
+
+        // Entities unescaped after tags are stripped, so &amp;lt; ends up as <
+        Assertions.assertEquals(
+                List.of(List.of("Account", "UTR Number"), List.of("'123 ", "UTR1"), List.of("<x>", "\"q\"")),
+                read("<html><body><TABLE border=1><TR><TH>Account</TH><th class='x'>UTR Number</th></tr>\n"
+                        + "<tr><td>'123&nbsp;</td><td><b>UTR</b>1</td></tr><tr></tr>"
+                        + "<tr><td>&amp;lt;x&gt;</td><td> &quot;q&quot; </td></tr></table></body></html>"));
+
+        // First Data of a cell; empty rows skipped
+        Assertions.assertEquals(List.of(List.of("Account", "UTR Number"), List.of("123", "", "X&Y")),
+                read("<?xml version=\"1.0\"?><Workbook><Worksheet ss:Name=\"S\"><Table><Row ss:Height=\"12\">"
+                        + "<Cell><Data ss:Type=\"String\">Account</Data></Cell><Cell ss:StyleID=\"s1\">"
+                        + "<Data ss:Type=\"String\"><Font>UTR</Font> Number</Data></Cell></Row>\n"
+                        + "<Row><Cell><Data ss:Type=\"Number\">123</Data></Cell><Cell></Cell>"
+                        + "<Cell><Data>X&amp;Y</Data><Data>second</Data></Cell></Row><Row></Row>"
+                        + "</Table></Worksheet></Workbook>"));
+        Assertions.assertEquals(List.of(List.of("1")),
+                read("<Worksheet></Worksheet><table><tr><td>1</td></tr></table>"));
+        Assertions.assertEquals(List.of(List.of("<Worksheet>"), List.of("foo", "bar")), read("<Worksheet>\nfoo,bar\n"));
+    }
+
+    private List<List<String>> read(String content) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        List<List<String>> rows = new ArrayList<>();
+        try (UtrStatementReader reader = UtrStatementReader.open(() -> new ByteArrayInputStream(bytes))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+}
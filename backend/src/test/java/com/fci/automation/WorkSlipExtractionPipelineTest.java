@@ -0,0 +1,136 @@
+package com.fci.automation;
+
+import com.fci.automation.dto.WorkSlipResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fci.automation.service.Cancellation;
+import com.fci.automation.service.ExtractionCache;
+import com.fci.automation.service.OcrEngine;
+import com.fci.automation.service.StructuringEngine;
+import com.fci.automation.service.WorkSlipExtractionPipeline;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WorkSlipExtractionPipelineTest {
+
+    @Test
+    public void testResultsInUploadOrderWithTimeout() throws Exception {
+        OcrEngine ocr = Mockito.mock(OcrEngine.class);
+        StructuringEngine ai = Mockito.mock(StructuringEngine.class);
+        Mockito.when(ocr.model()).thenReturn("m");
+        Mockito.when(ai.version()).thenReturn("v");
+        // Later files finish first; "hang" never finishes on its own
+        Mockito.when(ocr.extractRawText(Mockito.any())).thenAnswer(inv -> {
+            String name = inv.<MultipartFile>getArgument(0).getOriginalFilename();
+            Thread.sleep(name.equals("hang") ? 60_000 : name.equals("a") ? 300 : 10);
+            return name;
+        });
+        Mockito.when(ai.structureAsync(Mockito.anyString(), Mockito.any())).thenAnswer(inv -> {
+            WorkSlipResult result = new WorkSlipResult();
+            result.setStatus(inv.getArgument(0));
+            return CompletableFuture.completedFuture(result);
+        });
+
+        WorkSlipExtractionPipeline pipeline = new WorkSlipExtractionPipeline(ocr, ai, disabledCache());
+        ReflectionTestUtils.setField(pipeline, "fileTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(pipeline, "llmConcurrency", 1);
+        try {
+            List<CompletableFuture<WorkSlipResult>> results = pipeline.submit(
+                    List.of(file("a"), file("hang"), file("b"), file("c")));
+
+            Assertions.assertEquals("a", results.get(0).join().getStatus());
+            Assertions.assertEquals("b", results.get(2).join().getStatus());
+            Assertions.assertEquals("c", results.get(3).join().getStatus());
+            CompletionException failure = Assertions.assertThrows(CompletionException.class,
+                    () -> results.get(1).join());
+            Assertions.assertInstanceOf(TimeoutException.class, WorkSlipExtractionPipeline.failureOf(failure));
+        } finally {
+            ReflectionTestUtils.invokeMethod(pipeline, "shutdown");
+        }
+    }
+
+    @Test
+    public void testTimedOutCallsKeepTheirPermitUntilTheyEnd() throws Exception {
+        OcrEngine ocr = Mockito.mock(OcrEngine.class);
+        Mockito.when(ocr.model()).thenReturn("m");
+        Mockito.when(ocr.extractRawText(Mockito.any()))
+                .thenAnswer(inv -> inv.<MultipartFile>getArgument(0).getOriginalFilename());
+
+        // Never answers; once cancelled it takes 200ms to wind down, like an aborted request
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        StructuringEngine slow = new StructuringEngine() {
+            @Override
+            public String version() {
+                return "v";
+            }
+
+            @Override
+            public CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<WorkSlipResult> structureAsync(String rawOcrText, Cancellation cancellation) {
+                if (cancellation.isCancelled())
+                    return CompletableFuture.failedFuture(new CancellationException());
+                started.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                CompletableFuture<WorkSlipResult> call = new CompletableFuture<>();
+                cancellation.onCancel(() -> {
+                    cancelled.incrementAndGet();
+                    CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> {
+                        inFlight.decrementAndGet();
+                        call.completeExceptionally(new CancellationException());
+                    });
+                });
+                return call;
+            }
+        };
+
+        WorkSlipExtractionPipeline pipeline = new WorkSlipExtractionPipeline(ocr, slow, disabledCache());
+        ReflectionTestUtils.setField(pipeline, "fileTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(pipeline, "llmConcurrency", 2);
+        try {
+            List<CompletableFuture<WorkSlipResult>> results = pipeline
+                    .submit(List.of(file("a"), file("b"), file("c"), file("d"), file("e")));
+            for (CompletableFuture<WorkSlipResult> result : results) {
+                CompletionException failure = Assertions.assertThrows(CompletionException.class, result::join);
+                Assertions.assertInstanceOf(TimeoutException.class, WorkSlipExtractionPipeline.failureOf(failure));
+            }
+
+            // Every call that got going was cancelled, and never more than llm-concurrency at once
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (inFlight.get() > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            Assertions.assertEquals(0, inFlight.get());
+            Assertions.assertTrue(maxInFlight.get() <= 2, "in flight: " + maxInFlight.get());
+            Assertions.assertEquals(started.get(), cancelled.get());
+        } finally {
+            ReflectionTestUtils.invokeMethod(pipeline, "shutdown");
+        }
+    }
+
+    private ExtractionCache disabledCache() {
+        ExtractionCache cache = new ExtractionCache(new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        return cache;
+    }
+
+    private MockMultipartFile file(String name) {
+        return new MockMultipartFile("files", name, "image/jpeg", name.getBytes());
+    }
+}
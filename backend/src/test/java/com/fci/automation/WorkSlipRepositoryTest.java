@@ -0,0 +1,108 @@
+package com.fci.automation;
+
+import com.fci.automation.entity.WorkSlip;
+import com.fci.automation.repository.WorkSlipRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Listing and totals queries of WorkSlipRepository, on H2. */
+@DataJpaTest
+public class WorkSlipRepositoryTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 11, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Autowired
+    private WorkSlipRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        // Three ISSUE slips share Nov 5, two share Dec 2
+        issue("I-103", 2024, 11, 5, 30);
+        issue("I-101", 2024, 11, 5, 10);
+        issue("I-102", 2024, 11, 5, 20);
+        issue("I-104", 2024, 11, 20, 40);
+        issue("I-201", 2024, 12, 2, 50);
+        issue("I-202", 2024, 12, 2, null);
+        // Outside the range, and other categories on the same days
+        issue("I-001", 2024, 10, 31, 99);
+        issue("I-301", 2025, 1, 1, 99);
+        slip("R-101", WorkSlip.WorkSlipCategory.RECEIPT, LocalDate.of(2024, 11, 5), null);
+        slip("Q-101", WorkSlip.WorkSlipCategory.QC, LocalDate.of(2024, 12, 2), null);
+    }
+
+    @Test
+    public void testPagesAreNewestFirstAcrossEqualDates() {
+        List<String> listed = new ArrayList<>();
+        List<WorkSlip> page = repository.findFirstPage(WorkSlip.WorkSlipCategory.ISSUE, FROM, TO,
+                PageRequest.ofSize(2));
+        while (!page.isEmpty()) {
+            page.forEach(w -> listed.add(w.getSlipNumber()));
+            WorkSlip last = page.get(page.size() - 1);
+            page = repository.findPageAfter(WorkSlip.WorkSlipCategory.ISSUE, FROM, TO, last.getEntryDate(),
+                    last.getSlipNumber(), PageRequest.ofSize(2));
+        }
+        // Page boundaries fall inside the Nov 5 and Dec 2 groups; nothing repeated or skipped
+        Assertions.assertEquals(List.of("I-202", "I-201", "I-104", "I-103", "I-102", "I-101"), listed);
+    }
+
+    @Test
+    public void testCategoryFilter() {
+        Assertions.assertEquals(List.of("R-101"), numbers(repository.findFirstPage(
+                WorkSlip.WorkSlipCategory.RECEIPT, FROM, TO, PageRequest.ofSize(10))));
+        Assertions.assertEquals(List.of("Q-101"), numbers(repository.findFirstPage(
+                WorkSlip.WorkSlipCategory.QC, FROM, TO, PageRequest.ofSize(10))));
+        // The cursor does not leak other categories in either
+        Assertions.assertEquals(List.of(), numbers(repository.findPageAfter(WorkSlip.WorkSlipCategory.RECEIPT,
+                FROM, TO, LocalDate.of(2024, 11, 5), "R-101", PageRequest.ofSize(10))));
+    }
+
+    @Test
+    public void testIssueBagTotals() {
+        List<WorkSlipRepository.DailyBags> daily = repository.sumIssueBagsByDay(FROM, TO);
+        Assertions.assertEquals(List.of(LocalDate.of(2024, 11, 5), LocalDate.of(2024, 11, 20),
+                LocalDate.of(2024, 12, 2)), daily.stream().map(WorkSlipRepository.DailyBags::getDay)
+                        .collect(Collectors.toList()));
+        Assertions.assertEquals(3, daily.get(0).getSlips());
+        Assertions.assertEquals(60L, daily.get(0).getBags());
+        // A slip without a bag count still counts as a slip
+        Assertions.assertEquals(2, daily.get(2).getSlips());
+        Assertions.assertEquals(50L, daily.get(2).getBags());
+
+        List<WorkSlipRepository.MonthlyBags> monthly = repository.sumIssueBagsByMonth(FROM, TO);
+        Assertions.assertEquals(2, monthly.size());
+        Assertions.assertEquals(2024, monthly.get(0).getYear());
+        Assertions.assertEquals(11, monthly.get(0).getMonth());
+        Assertions.assertEquals(4, monthly.get(0).getSlips());
+        Assertions.assertEquals(100L, monthly.get(0).getBags());
+        Assertions.assertEquals(12, monthly.get(1).getMonth());
+        Assertions.assertEquals(2, monthly.get(1).getSlips());
+        Assertions.assertEquals(50L, monthly.get(1).getBags());
+    }
+
+    private void issue(String number, int year, int month, int day, Integer bags) {
+        slip(number, WorkSlip.WorkSlipCategory.ISSUE, LocalDate.of(year, month, day), bags);
+    }
+
+    private void slip(String number, WorkSlip.WorkSlipCategory category, LocalDate date, Integer bags) {
+        WorkSlip slip = new WorkSlip();
+        slip.setSlipNumber(number);
+        slip.setCategory(category);
+        slip.setEntryDate(date);
+        slip.setIssueTotalBags(bags);
+        repository.save(slip);
+    }
+
+    private static List<String> numbers(List<WorkSlip> slips) {
+        return slips.stream().map(WorkSlip::getSlipNumber).collect(Collectors.toList());
+    }
+}
@@ -1,7 +1,7 @@
 
 import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { FormsModule } from '@angular/forms';
 import { DialogService } from '../core/services/dialog.service';
 import { environment } from '../../environments/environment';
@@ -37,6 +37,22 @@ interface Employee {
         </div>
       </div>
 
+      <div class="d-flex gap-2 mb-3">
+        <input type="text" class="form-control" style="max-width: 260px;" placeholder="Name starts with..."
+               [(ngModel)]="filterName" (keyup.enter)="loadEmployees()">
+        <select class="form-select" style="max-width: 140px;" [(ngModel)]="filterCategory" (change)="loadEmployees()">
+          <option value="">All categories</option>
+          <option value="CL">CL</option>
+          <option value="HL">HL</option>
+        </select>
+        <select class="form-select" style="max-width: 140px;" [(ngModel)]="filterStatus" (change)="loadEmployees()">
+          <option value="">All statuses</option>
+          <option value="ACTIVE">ACTIVE</option>
+          <option value="INACTIVE">INACTIVE</option>
+        </select>
+        <button class="btn btn-outline-secondary" (click)="loadEmployees()">Search</button>
+      </div>
+
       <div class="card shadow">
         <div class="card-body p-0">
           <table class="table table-striped mb-0">
@@ -73,6 +89,11 @@ interface Employee {
             </tbody>
           </table>
         </div>
+        <div class="card-footer bg-light text-center" *ngIf="nextCursor">
+          <button class="btn btn-outline-secondary btn-sm" (click)="loadMoreEmployees()">
+            Load more
+          </button>
+        </div>
       </div>
       
       <!-- New/Edit Employee Modal -->
@@ -150,6 +171,10 @@ interface Employee {
 })
 export class EmployeeListComponent implements OnInit {
   employees: Employee[] = [];
+  nextCursor: string | null = null;
+  filterName = '';
+  filterCategory = '';
+  filterStatus = '';
   showModal = false;
   isEditMode = false;
 
@@ -162,8 +187,22 @@ export class EmployeeListComponent implements OnInit {
   }
 
   loadEmployees() {
-    this.http.get<Employee[]>(`${environment.apiUrl}/employees`).subscribe({
-      next: (data) => this.employees = data,
+    this.employees = [];
+    this.nextCursor = null;
+    this.loadMoreEmployees();
+  }
+
+  loadMoreEmployees() {
+    let params = new HttpParams().set('size', 100);
+    if (this.filterName.trim()) params = params.set('name', this.filterName.trim());
+    if (this.filterCategory) params = params.set('category', this.filterCategory);
+    if (this.filterStatus) params = params.set('status', this.filterStatus);
+    if (this.nextCursor) params = params.set('cursor', this.nextCursor);
+    this.http.get<{ items: Employee[], nextCursor: string | null }>(`${environment.apiUrl}/employees`, { params }).subscribe({
+      next: (page) => {
+        this.employees = [...this.employees, ...page.items];
+        this.nextCursor = page.nextCursor;
+      },
       error: (err) => console.error('Failed to load employees', err)
     });
   }
@@ -240,10 +279,14 @@ export class EmployeeListComponent implements OnInit {
       const formData = new FormData();
       formData.append('file', file);
 
-      this.http.post<Employee[]>(`${environment.apiUrl}/employees/upload`, formData).subscribe({
-        next: (newEmps) => {
-          this.employees = [...this.employees, ...newEmps]; // Append new
-          this.dialogService.alert('Success', `Successfully imported ${newEmps.length} employees!`);
+      this.http.post<any>(`${environment.apiUrl}/employees/upload`, formData).subscribe({
+        next: (report) => {
+          this.loadEmployees(); // Updated rows change existing entries, reload rather than append
+          const problems = (report.problems || []).slice(0, 10)
+            .map((p: any) => `Row ${p.rowNumber} (${p.memberId}): ${p.message}`);
+          if (report.skipped > 10) problems.push(`...and ${report.skipped - 10} more skipped rows`);
+          this.dialogService.alert(report.skipped > 0 ? 'Imported with problems' : 'Success',
+            [report.message, ...problems].join('\n'));
           event.target.value = ''; // Reset input to allow re-selection
         },
         error: (err) => {
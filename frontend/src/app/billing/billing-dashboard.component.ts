@@ -196,6 +196,11 @@ interface IssueSlipDTO {
                         </tbody>
                     </table>
                 </div>
+                <div class="card-footer bg-light text-center" *ngIf="savedIssueCursor">
+                    <button class="btn btn-outline-secondary btn-sm" (click)="loadMoreSavedIssueSlips()">
+                        Load more
+                    </button>
+                </div>
             </div>
             <ng-template #noSavedData>
                 <div class="alert alert-light text-center border">
@@ -236,6 +241,7 @@ export class BillingDashboardComponent implements OnInit {
     // Issue Module Data
     issueSlips: IssueSlipDTO[] = [];
     savedIssueSlips: any[] = []; // Store saved records
+    savedIssueCursor: string | null = null; // Next page of saved records, null when all are loaded
 
     constructor(
         private authService: AuthService,
@@ -271,9 +277,21 @@ export class BillingDashboardComponent implements OnInit {
     // --- ISSUE MODULE LOGIC ---
 
     loadSavedIssueSlips() {
-        this.http.get<any[]>(`${environment.apiUrl}/billing/issue/list`)
+        this.savedIssueSlips = [];
+        this.savedIssueCursor = null;
+        this.loadMoreSavedIssueSlips();
+    }
+
+    // Pages come newest first; each one continues below the rows already shown
+    loadMoreSavedIssueSlips() {
+        const cursor = this.savedIssueCursor ? `&cursor=${this.savedIssueCursor}` : '';
+        this.http.get<{ items: any[], nextCursor: string | null }>(
+            `${environment.apiUrl}/billing/issue/slips?size=100${cursor}`)
             .subscribe({
-                next: (data) => this.savedIssueSlips = data,
+                next: (page) => {
+                    this.savedIssueSlips = [...this.savedIssueSlips, ...page.items];
+                    this.savedIssueCursor = page.nextCursor;
+                },
                 error: (err) => console.error("Failed to load saved slips", err)
             });
     }
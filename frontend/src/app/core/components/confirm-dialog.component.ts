@@ -17,7 +17,7 @@ import { DialogService, DialogOptions } from '../services/dialog.service';
             </h5>
           </div>
           <div class="modal-body p-4">
-            <p class="mb-0 fs-5 text-secondary">{{ options.message }}</p>
+            <p class="mb-0 fs-5 text-secondary" style="white-space: pre-line">{{ options.message }}</p>
           </div>
           <div class="modal-footer bg-light">
             <button *ngIf="options.type === 'CONFIRM'" 
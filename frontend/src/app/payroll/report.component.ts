@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { HttpClient } from '@angular/common/http';
 import { FormsModule } from '@angular/forms';
@@ -42,19 +42,20 @@ import { environment } from '../../environments/environment';
             <div class="col-md-6">
               <h5 class="text-primary">PDF Reports</h5>
               <div class="d-grid gap-2">
-                <button class="btn btn-outline-danger text-start" (click)="download('main-file')" [disabled]="!selectedPeriodId">
+                <button class="btn btn-outline-danger text-start" (click)="runJob('main-file')" [disabled]="!selectedPeriodId || jobRunning">
                   <i class="bi bi-file-pdf"></i> Main File (Payroll Engine)
                 </button>
-                <button class="btn btn-outline-danger text-start" (click)="download('payment-details')" [disabled]="!selectedPeriodId">
+                <button class="btn btn-outline-danger text-start" (click)="runJob('payment-details')" [disabled]="!selectedPeriodId || jobRunning">
                   <i class="bi bi-file-pdf"></i> Payment Details (Bank)
                 </button>
-                <button class="btn btn-outline-danger text-start" (click)="download('wage-summary')" [disabled]="!selectedPeriodId">
+                <button class="btn btn-outline-danger text-start" (click)="runJob('wage-summary')" [disabled]="!selectedPeriodId || jobRunning">
                   <i class="bi bi-file-pdf"></i> Wage Summary
                 </button>
-                <button class="btn btn-outline-danger text-start" (click)="download('attendance')" [disabled]="!selectedPeriodId">
+                <button class="btn btn-outline-danger text-start" (click)="runJob('attendance')" [disabled]="!selectedPeriodId || jobRunning">
                   <i class="bi bi-file-pdf"></i> Attendance Register
                 </button>
               </div>
+              <small class="text-muted" *ngIf="jobMsg">{{ jobMsg }}</small>
 
               <!-- UTR Import Section -->
               <div class="mt-4 border-top pt-3">
@@ -75,12 +76,22 @@ import { environment } from '../../environments/environment';
             <div class="col-md-6">
               <h5 class="text-success">Compliance Returns</h5>
               <div class="d-grid gap-2">
-                <button class="btn btn-outline-success text-start" (click)="download('esi')" [disabled]="!selectedPeriodId">
-                  <i class="bi bi-file-excel"></i> ESI Return (.xls)
-                </button>
-                <button class="btn btn-outline-dark text-start" (click)="download('epf')" [disabled]="!selectedPeriodId">
-                  <i class="bi bi-file-text"></i> EPF Return (.txt)
-                </button>
+                <div class="btn-group">
+                  <button class="btn btn-outline-success text-start" (click)="download('esi')" [disabled]="!selectedPeriodId">
+                    <i class="bi bi-file-excel"></i> ESI Return (.xls)
+                  </button>
+                  <button class="btn btn-outline-success flex-grow-0" (click)="download('esi', 'format=xlsx')" [disabled]="!selectedPeriodId">
+                    .xlsx
+                  </button>
+                </div>
+                <div class="btn-group">
+                  <button class="btn btn-outline-dark text-start" (click)="download('epf')" [disabled]="!selectedPeriodId">
+                    <i class="bi bi-file-text"></i> EPF Return (.txt)
+                  </button>
+                  <button class="btn btn-outline-dark flex-grow-0" (click)="download('epf', 'compress=zip')" [disabled]="!selectedPeriodId">
+                    <i class="bi bi-file-zip"></i> .zip
+                  </button>
+                </div>
                 
                 <div class="mt-3 border-top pt-2">
                     <label class="form-label small fw-bold text-muted">Bulk Payment Date</label>
@@ -96,6 +107,21 @@ import { environment } from '../../environments/environment';
             </div>
           </div>
 
+          <!-- Audit Pack: every report for a range of months in one ZIP -->
+          <div class="mt-4 border-top pt-3">
+              <h5 class="text-secondary"><i class="bi bi-file-zip"></i> Audit Pack</h5>
+              <div class="input-group input-group-sm">
+                  <span class="input-group-text">From</span>
+                  <input type="month" class="form-control" [(ngModel)]="packFrom">
+                  <span class="input-group-text">To</span>
+                  <input type="month" class="form-control" [(ngModel)]="packTo">
+                  <button class="btn btn-outline-secondary" (click)="downloadPack()" [disabled]="!packFrom || !packTo || packRunning">
+                      <i class="bi bi-download"></i> Download (.zip)
+                  </button>
+              </div>
+              <small class="text-muted" *ngIf="packMsg">{{ packMsg }}</small>
+          </div>
+
           <!-- Uploaded Documents Section -->
           <div class="card mt-4 shadow-sm border-0">
               <div class="card-header bg-info text-white">
@@ -139,7 +165,7 @@ import { environment } from '../../environments/environment';
     </div>
   `
 })
-export class ReportComponent implements OnInit {
+export class ReportComponent implements OnInit, OnDestroy {
   selectedPeriodId: string | null = null;
   periods: PayrollPeriod[] = [];
   loading = true;
@@ -183,6 +209,12 @@ export class ReportComponent implements OnInit {
     this.loadUploadedDocs();
   }
 
+  // Job and audit-pack pollers would otherwise keep running after the page is left
+  ngOnDestroy() {
+    this.stopJobPoll();
+    this.stopPackPoll();
+  }
+
   uploadedDocs: UploadDocument[] = [];
   loadUploadedDocs() {
     if (!this.selectedPeriodId) return;
@@ -202,13 +234,16 @@ export class ReportComponent implements OnInit {
     return date.toLocaleString('default', { month: 'long' });
   }
 
-  download(type: string) {
+  download(type: string, query?: string) {
     let url = `${environment.apiUrl}/reports/${this.selectedPeriodId}/${type}`;
 
     // Append bulkDate if type is bulk
     if (type === 'bulk') {
       url += `?paymentDate=${this.bulkDate}`;
     }
+    if (query) {
+      url += `?${query}`;
+    }
 
     // Use HttpClient to secure the request (Interceptor adds Token)
     this.http.get(url, { responseType: 'blob', observe: 'response' }).subscribe({
@@ -226,8 +261,8 @@ export class ReportComponent implements OnInit {
 
         // Try to guess filename from header or type
         let filename = `${type}_report.pdf`;
-        if (type === 'esi') filename = 'esi_return.xls';
-        if (type === 'epf') filename = 'epf_return.txt';
+        if (type === 'esi') filename = query === 'format=xlsx' ? 'esi_return.xlsx' : 'esi_return.xls';
+        if (type === 'epf') filename = query === 'compress=zip' ? 'epf_return.zip' : 'epf_return.txt';
         if (type === 'bulk') {
           const p = this.periods.find(p => p.id === this.selectedPeriodId);
           if (p) {
@@ -259,6 +294,140 @@ export class ReportComponent implements OnInit {
     });
   }
 
+  // --- BACKGROUND REPORT JOBS ---
+  jobRunning = false;
+  jobMsg: string | null = null;
+  private jobPoll: any = null;
+
+  // PDFs render server-side in the background; poll the job, then fetch the file
+  runJob(type: string) {
+    const base = `${environment.apiUrl}/reports`;
+    this.jobRunning = true;
+    this.jobMsg = 'Queued...';
+    this.http.post<any>(`${base}/${this.selectedPeriodId}/jobs?report=${type}`, null).subscribe({
+      next: (job) => {
+        // Unchanged data that was rendered before: the existing job is already done
+        if (job.status === 'DONE') {
+          this.fetchJob(job);
+          return;
+        }
+        this.stopJobPoll();
+        this.jobPoll = setInterval(() => {
+          this.http.get<any>(`${base}/jobs/${job.id}`).subscribe({
+            next: (j) => {
+              if (j.status === 'DONE') {
+                this.stopJobPoll();
+                this.fetchJob(j);
+              } else if (j.status === 'FAILED') {
+                this.stopJobPoll();
+                this.jobRunning = false;
+                this.jobMsg = null;
+                this.dialogService.alert('Error', 'Report failed: ' + (j.error || 'Server Error'));
+              } else {
+                this.jobMsg = j.status === 'QUEUED' ? 'Queued...' : `Rendering... ${j.progress}%`;
+              }
+            },
+            error: (err) => {
+              this.stopJobPoll();
+              console.error(err);
+              this.jobRunning = false;
+              this.jobMsg = null;
+            }
+          });
+        }, 1500);
+      },
+      error: (err) => {
+        console.error(err);
+        this.jobRunning = false;
+        this.jobMsg = null;
+        this.dialogService.alert('Error', err.error?.message || 'Could not start the report.');
+      }
+    });
+  }
+
+  private stopJobPoll() {
+    if (this.jobPoll) {
+      clearInterval(this.jobPoll);
+      this.jobPoll = null;
+    }
+  }
+
+  private fetchJob(job: any) {
+    this.http.get(`${environment.apiUrl}/reports/jobs/${job.id}/download`, { responseType: 'blob' }).subscribe({
+      next: (blob) => {
+        const downloadUrl = window.URL.createObjectURL(blob);
+        const link = document.createElement('a');
+        link.href = downloadUrl;
+        link.download = job.fileName;
+        link.click();
+        window.URL.revokeObjectURL(downloadUrl);
+        this.jobRunning = false;
+        this.jobMsg = null;
+      },
+      error: (err) => {
+        console.error(err);
+        this.jobRunning = false;
+        this.jobMsg = null;
+        this.dialogService.alert('Error', 'Download failed! ' + (err.statusText || 'Server Error'));
+      }
+    });
+  }
+
+  // --- AUDIT PACK ---
+  packFrom = '';
+  packTo = '';
+  packRunning = false;
+  packMsg: string | null = null;
+  private packPoll: any = null;
+
+  // Reports render server-side in parallel; progress is polled while the ZIP streams in
+  downloadPack() {
+    const base = `${environment.apiUrl}/reports/bundle`;
+    this.packRunning = true;
+    this.packMsg = 'Preparing...';
+    this.http.post<any>(base, { from: this.packFrom, to: this.packTo }).subscribe({
+      next: (bundle) => {
+        this.stopPackPoll();
+        this.packPoll = setInterval(() => {
+          this.http.get<any>(`${base}/${bundle.id}/progress`).subscribe(p => {
+            this.packMsg = `${p.completed} of ${p.total} reports` + (p.failed ? ` (${p.failed} failed)` : '');
+          });
+        }, 2000);
+        this.http.get(`${base}/${bundle.id}`, { responseType: 'blob' }).subscribe({
+          next: (blob) => {
+            this.stopPackPoll();
+            const downloadUrl = window.URL.createObjectURL(blob);
+            const link = document.createElement('a');
+            link.href = downloadUrl;
+            link.download = `audit_pack_${this.packFrom}_${this.packTo}.zip`;
+            link.click();
+            window.URL.revokeObjectURL(downloadUrl);
+            this.packRunning = false;
+            this.packMsg = `${bundle.total} reports downloaded.`;
+          },
+          error: (err) => {
+            this.stopPackPoll();
+            console.error(err);
+            this.packRunning = false;
+            this.packMsg = 'Download failed.';
+          }
+        });
+      },
+      error: (err) => {
+        console.error(err);
+        this.packRunning = false;
+        this.packMsg = err.error?.message || 'Could not prepare the audit pack.';
+      }
+    });
+  }
+
+  private stopPackPoll() {
+    if (this.packPoll) {
+      clearInterval(this.packPoll);
+      this.packPoll = null;
+    }
+  }
+
   // --- UTR IMPORT LOGIC ---
   utrFile: File | null = null;
   utrUploadMsg: string | null = null;